@@ -13,19 +13,27 @@
  */
 package ddf.catalog.data.impl;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import ddf.catalog.data.Attribute;
 import java.io.IOException;
 import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.LinkedList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.RandomAccess;
 
 /**
  * A simple implementation of {@link Attribute}.
  *
+ * <p>A single value, by far the most common case, is held without a list around it. Multiple
+ * values are held in an array, of the exact size when they are set at once and grown geometrically
+ * when they are added one at a time. {@link #getValues()} returns a modifiable view of the values.
+ *
  * <p>
  *
  * <p>This class is {@link Serializable} and care should be taken with compatibility if changes are
@@ -48,7 +56,15 @@ public class AttributeImpl implements Attribute {
    */
   protected String name;
 
-  private transient List<Serializable> values;
+  private static final ValueArray NO_VALUES = new ValueArray(new Serializable[0], 0);
+
+  private static final Interner<String> NAMES = Interners.newWeakInterner();
+
+  /** The value when there is exactly one, in which case {@link #values} is null. */
+  private transient Serializable value;
+
+  /** The values when there are none or more than one. */
+  private transient ValueArray values;
 
   /**
    * Constructor
@@ -64,7 +80,11 @@ public AttributeImpl(String name, Serializable value) {
      * constructor, the same check should be added in the readObject() method.
      */
     this.name = name;
-    this.values = createPopulatedList(value);
+    if (value instanceof List) {
+      setValues((List<?>) value);
+    } else {
+      this.value = value;
+    }
   }
 
   /**
@@ -90,7 +110,7 @@ public AttributeImpl(String name, List<? extends Serializable> values) {
      * constructor, the same check should be added in the readObject() method.
      */
     this.name = name;
-    this.values = new LinkedList<>(values);
+    setValues(values);
   }
 
   /**
@@ -120,8 +140,10 @@ public String getName() {
 
   @Override
   public Serializable getValue() {
-    if (!values.isEmpty()) {
-      return values.get(0);
+    if (values == null) {
+      return value;
+    } else if (values.size > 0) {
+      return values.elements[0];
     } else {
       return null;
     }
@@ -129,7 +151,7 @@ public Serializable getValue() {
 
   @Override
   public List<Serializable> getValues() {
-    return values;
+    return new Values();
   }
 
   /**
@@ -138,12 +160,13 @@ public List<Serializable> getValues() {
    * @param value the value to add
    */
   public void addValue(Serializable value) {
-    values.add(value);
+    insert(size(), value);
   }
 
   /** Clears all {@link Attribute} values */
   public void clearValues() {
-    values.clear();
+    value = null;
+    values = NO_VALUES;
   }
 
   @Override
@@ -159,22 +182,58 @@ public boolean equals(Object o) {
     Attribute attribute = (Attribute) o;
 
     return Objects.equals(name, attribute.getName())
-        && Objects.equals(values, attribute.getValues());
+        && Objects.equals(getValues(), attribute.getValues());
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(name, values);
+    return Objects.hash(name, getValues());
   }
 
-  private List<Serializable> createPopulatedList(Serializable value) {
-    List<Serializable> list = new LinkedList<>();
-    if (value instanceof List) {
-      list.addAll((List) value);
+  /**
+   * @param name an attribute name
+   * @return the one instance shared by all the attributes with that name read from a stream
+   */
+  static String internName(String name) {
+    return name == null ? null : NAMES.intern(name);
+  }
+
+  private int size() {
+    return values == null ? 1 : values.size;
+  }
+
+  private void insert(int index, Serializable element) {
+    int size = size();
+    if (size == 0) {
+      value = element;
+      values = null;
+      return;
+    }
+
+    if (values == null) {
+      values = new ValueArray(new Serializable[] {value, null}, 1);
+      value = null;
+    } else if (size == values.elements.length) {
+      values.elements = Arrays.copyOf(values.elements, size + Math.max(1, size >> 1));
+    }
+    Serializable[] elements = values.elements;
+    System.arraycopy(elements, index, elements, index + 1, size - index);
+    elements[index] = element;
+    values.size = size + 1;
+  }
+
+  private void setValues(List<?> list) {
+    setValues(list.toArray(new Serializable[list.size()]));
+  }
+
+  private void setValues(Serializable[] array) {
+    if (array.length == 1) {
+      value = array[0];
+      values = null;
     } else {
-      list.add(value);
+      value = null;
+      values = array.length == 0 ? NO_VALUES : new ValueArray(array, array.length);
     }
-    return list;
   }
 
   /**
@@ -195,9 +254,9 @@ private void writeObject(ObjectOutputStream s) throws IOException {
      */
     s.defaultWriteObject();
 
-    s.writeInt(values.size());
+    s.writeInt(size());
 
-    for (Serializable ser : values) {
+    for (Serializable ser : getValues()) {
       s.writeObject(ser);
     }
   }
@@ -217,14 +276,17 @@ private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundEx
      */
     s.defaultReadObject();
 
+    name = internName(name);
+
     int numElements = s.readInt();
 
     validateNonEmpty(numElements);
 
-    values = new LinkedList<Serializable>();
+    Serializable[] array = new Serializable[numElements];
     for (int i = 0; i < numElements; i++) {
-      values.add((Serializable) s.readObject());
+      array[i] = (Serializable) s.readObject();
     }
+    setValues(array);
 
     validateUntampered(numElements);
   }
@@ -232,7 +294,7 @@ private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundEx
   private void validateUntampered(int numElements) throws InvalidObjectException {
     // Invariant: When the object was serialized, the integer written to
     // disk matched the number of value objects written to disk.
-    if (values.size() != numElements) {
+    if (size() != numElements) {
       throw new InvalidObjectException(
           "Corrupt object: written number of values does not match actual number of values.");
     }
@@ -249,6 +311,86 @@ private void validateNonEmpty(int numElements) throws InvalidObjectException {
 
   @Override
   public String toString() {
-    return getClass().getName() + " {name=" + this.name + ", values=" + this.values + "}";
+    return getClass().getName() + " {name=" + this.name + ", values=" + getValues() + "}";
+  }
+
+  /** A modifiable view of the values of this attribute. */
+  private class Values extends AbstractList<Serializable> implements RandomAccess {
+
+    @Override
+    public int size() {
+      return AttributeImpl.this.size();
+    }
+
+    @Override
+    public Serializable get(int index) {
+      checkIndex(index, size());
+      return values == null ? value : values.elements[index];
+    }
+
+    @Override
+    public Serializable set(int index, Serializable element) {
+      checkIndex(index, size());
+      Serializable previous;
+      if (values == null) {
+        previous = value;
+        value = element;
+      } else {
+        previous = values.elements[index];
+        values.elements[index] = element;
+      }
+      return previous;
+    }
+
+    @Override
+    public void add(int index, Serializable element) {
+      checkIndex(index, size() + 1);
+      insert(index, element);
+      modCount++;
+    }
+
+    @Override
+    public Serializable remove(int index) {
+      int size = size();
+      checkIndex(index, size);
+      Serializable previous = get(index);
+      if (values == null) {
+        clearValues();
+      } else {
+        Serializable[] elements = values.elements;
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        elements[--values.size] = null;
+      }
+      modCount++;
+      return previous;
+    }
+
+    @Override
+    public void clear() {
+      clearValues();
+      modCount++;
+    }
+
+    private void checkIndex(int index, int size) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      }
+    }
+  }
+
+  /**
+   * Multiple values, followed by unused capacity that grows geometrically as values are added. The
+   * shared {@link #NO_VALUES} instance is never modified.
+   */
+  private static final class ValueArray {
+
+    private Serializable[] elements;
+
+    private int size;
+
+    private ValueArray(Serializable[] elements, int size) {
+      this.elements = elements;
+      this.size = size;
+    }
   }
 }
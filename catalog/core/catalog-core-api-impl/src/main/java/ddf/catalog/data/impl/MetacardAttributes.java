@@ -0,0 +1,246 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.data.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.MetacardType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.Nullable;
+
+/**
+ * The attributes of a {@link MetacardImpl}, by name.
+ *
+ * <p>Each attribute described by the {@link MetacardType} has a slot, its position in the type's
+ * descriptors sorted by name. The attributes that are set are held in slot order in an array, and a
+ * bit set of the slots in use gives the position of a slot's attribute in that array. The slots and
+ * their names are shared by every metacard of a type and by types with the same descriptor names,
+ * so a metacard does not hold a hash table, nor a key for each attribute. Attributes that are not
+ * described by the type are held in a map that is only created when the first one is set.
+ *
+ * <p>This class is not thread safe.
+ */
+final class MetacardAttributes {
+
+  private static final long[] NO_SLOTS = new long[0];
+
+  private static final Attribute[] NO_ATTRIBUTES = new Attribute[0];
+
+  private static final Layout NO_DESCRIPTORS = new Layout(new String[0]);
+
+  private static final Interner<Layout> LAYOUTS = Interners.newWeakInterner();
+
+  private static final Cache<MetacardType, Layout> TYPE_LAYOUTS =
+      CacheBuilder.newBuilder().weakKeys().build();
+
+  @Nullable private final MetacardType type;
+
+  /** Resolved the first time an attribute is read or written. */
+  private Layout layout;
+
+  /** The slots in use. */
+  private long[] used = NO_SLOTS;
+
+  /** The attributes of the slots in use, in slot order. */
+  private Attribute[] attributes = NO_ATTRIBUTES;
+
+  private int count;
+
+  @Nullable private Map<String, Attribute> undescribed;
+
+  MetacardAttributes(@Nullable MetacardType type) {
+    this.type = type;
+  }
+
+  /**
+   * @param newType the type of the metacard the attributes now belong to
+   * @return the same attributes, with the slots of the new type
+   */
+  MetacardAttributes withType(@Nullable MetacardType newType) {
+    MetacardAttributes moved = new MetacardAttributes(newType);
+    for (Attribute attribute : values()) {
+      moved.put(attribute.getName(), attribute);
+    }
+    return moved;
+  }
+
+  @Nullable
+  Attribute get(String name) {
+    int slot = getLayout().slotOf(name);
+    if (slot < 0) {
+      return undescribed == null ? null : undescribed.get(name);
+    }
+    return isUsed(slot) ? attributes[position(slot)] : null;
+  }
+
+  void put(String name, Attribute attribute) {
+    Layout current = getLayout();
+    int slot = current.slotOf(name);
+    if (slot < 0) {
+      if (undescribed == null) {
+        undescribed = new HashMap<>();
+      }
+      undescribed.put(AttributeImpl.internName(name), attribute);
+      return;
+    }
+
+    if (attribute.getClass() == AttributeImpl.class) {
+      //  share the name of the descriptor instead of keeping a copy of it
+      ((AttributeImpl) attribute).name = current.names[slot];
+    }
+
+    int position = position(slot);
+    if (isUsed(slot)) {
+      attributes[position] = attribute;
+      return;
+    }
+
+    if (count == attributes.length) {
+      attributes = Arrays.copyOf(attributes, Math.max(4, count + (count >> 1)));
+    }
+    System.arraycopy(attributes, position, attributes, position + 1, count - position);
+    attributes[position] = attribute;
+    count++;
+    if (used.length == 0) {
+      used = new long[(current.names.length + 63) >>> 6];
+    }
+    used[slot >>> 6] |= 1L << slot;
+  }
+
+  void remove(String name) {
+    int slot = getLayout().slotOf(name);
+    if (slot < 0) {
+      if (undescribed != null) {
+        undescribed.remove(name);
+      }
+      return;
+    }
+    if (!isUsed(slot)) {
+      return;
+    }
+
+    int position = position(slot);
+    System.arraycopy(attributes, position + 1, attributes, position, count - position - 1);
+    attributes[--count] = null;
+    used[slot >>> 6] &= ~(1L << slot);
+  }
+
+  int size() {
+    return count + (undescribed == null ? 0 : undescribed.size());
+  }
+
+  /** @return a copy of the attributes, the ones described by the type first, in slot order */
+  Collection<Attribute> values() {
+    List<Attribute> values = new ArrayList<>(size());
+    values.addAll(Arrays.asList(attributes).subList(0, count));
+    if (undescribed != null) {
+      values.addAll(undescribed.values());
+    }
+    return values;
+  }
+
+  private Layout getLayout() {
+    if (layout == null) {
+      layout = Layout.of(type);
+    }
+    return layout;
+  }
+
+  private boolean isUsed(int slot) {
+    return used.length > 0 && (used[slot >>> 6] & (1L << slot)) != 0;
+  }
+
+  /** @return the number of slots in use before the slot */
+  private int position(int slot) {
+    if (used.length == 0) {
+      return 0;
+    }
+    int word = slot >>> 6;
+    int position = Long.bitCount(used[word] & ((1L << slot) - 1));
+    for (int i = 0; i < word; i++) {
+      position += Long.bitCount(used[i]);
+    }
+    return position;
+  }
+
+  /** The slots of the attributes described by a type. */
+  private static final class Layout {
+
+    private final String[] names;
+
+    private final Map<String, Integer> slots;
+
+    private final int hashCode;
+
+    private Layout(String[] names) {
+      this.names = names;
+      this.slots = new HashMap<>(names.length * 2);
+      for (int i = 0; i < names.length; i++) {
+        slots.put(names[i], i);
+      }
+      this.hashCode = Arrays.hashCode(names);
+    }
+
+    private static Layout of(@Nullable MetacardType type) {
+      if (type == null) {
+        return NO_DESCRIPTORS;
+      }
+      try {
+        return TYPE_LAYOUTS.get(type, () -> LAYOUTS.intern(new Layout(getNames(type))));
+      } catch (ExecutionException e) {
+        throw new IllegalStateException(
+            "Unable to get the attribute descriptors of " + type.getName(), e.getCause());
+      }
+    }
+
+    private static String[] getNames(MetacardType type) {
+      if (type.getAttributeDescriptors() == null) {
+        return new String[0];
+      }
+      return type.getAttributeDescriptors().stream()
+          .filter(Objects::nonNull)
+          .map(AttributeDescriptor::getName)
+          .filter(Objects::nonNull)
+          .distinct()
+          .sorted()
+          .toArray(String[]::new);
+    }
+
+    private int slotOf(String name) {
+      Integer slot = slots.get(name);
+      return slot == null ? -1 : slot;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Layout && Arrays.equals(names, ((Layout) o).names);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -0,0 +1,855 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.data.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.AttributeType;
+import ddf.catalog.data.AttributeType.AttributeFormat;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.MetacardType;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Encodes metacards into a compact binary form, as an alternative to Java serialization of {@link
+ * MetacardImpl} for metacards that are cached, replicated or written to disk in bulk.
+ *
+ * <p>An encoded metacard starts with a version byte and a reference to its metacard type, made of
+ * the type name and a fingerprint of its attribute descriptors. Types registered with {@link
+ * #registerType(MetacardType)} on both the encoding and the decoding side are written as the
+ * reference alone; the descriptors of other types follow the reference and are only read the first
+ * time the type is seen, so metacards of the same type share one decoded {@link MetacardType}. The
+ * {@link MetacardImpl#BASIC_METACARD} type is always registered.
+ *
+ * <p>Attributes described by the metacard type are written as the index of their descriptor and
+ * their values are written according to the descriptor's {@link AttributeFormat}. Attributes that
+ * are not described by the type, or whose values do not match the format, are written with their
+ * name and a type tag for each value. Values of types without a tag of their own are written with
+ * Java serialization.
+ *
+ * <p>Metacard types are expected not to change once metacards of that type have been encoded.
+ * Instances of this class are thread safe and are meant to be shared.
+ */
+public class MetacardCodec {
+
+  public static final byte VERSION = 1;
+
+  private static final byte TYPE_DEFINITION = 0;
+
+  private static final byte TYPE_REFERENCE = 1;
+
+  private static final byte NULL = 0;
+
+  private static final byte STRING = 1;
+
+  private static final byte DATE = 2;
+
+  private static final byte LONG = 3;
+
+  private static final byte INTEGER = 4;
+
+  private static final byte SHORT = 5;
+
+  private static final byte FLOAT = 6;
+
+  private static final byte DOUBLE = 7;
+
+  private static final byte BOOLEAN = 8;
+
+  private static final byte BYTES = 9;
+
+  private static final byte SERIALIZABLE = 10;
+
+  private static final int INDEXED = 1;
+
+  private static final int STORED = 2;
+
+  private static final int TOKENIZED = 4;
+
+  private static final int MULTI_VALUED = 8;
+
+  /** The position of a format in this array is its code, new formats must be added at the end. */
+  private static final AttributeFormat[] FORMATS = {
+    AttributeFormat.STRING,
+    AttributeFormat.BOOLEAN,
+    AttributeFormat.DATE,
+    AttributeFormat.SHORT,
+    AttributeFormat.INTEGER,
+    AttributeFormat.LONG,
+    AttributeFormat.FLOAT,
+    AttributeFormat.DOUBLE,
+    AttributeFormat.GEOMETRY,
+    AttributeFormat.BINARY,
+    AttributeFormat.XML,
+    AttributeFormat.OBJECT
+  };
+
+  private static final Map<AttributeFormat, Integer> FORMAT_CODES =
+      new EnumMap<>(AttributeFormat.class);
+
+  static {
+    for (int i = 0; i < FORMATS.length; i++) {
+      FORMAT_CODES.put(FORMATS[i], i);
+    }
+  }
+
+  /** Encoding buffers larger than this are not kept for the next metacard. */
+  private static final int MAX_REUSED_BUFFER_SIZE = 1024 * 1024;
+
+  private static final int MAX_DECODED_TYPES = 1000;
+
+  private static final ThreadLocal<Output> BUFFERS = ThreadLocal.withInitial(Output::new);
+
+  /** Layouts of the types metacards were encoded with, by type instance. */
+  private final Cache<MetacardType, TypeLayout> encodedTypes =
+      CacheBuilder.newBuilder().weakKeys().build();
+
+  /** Layouts of the types that are written as a reference alone. */
+  private final Map<TypeKey, TypeLayout> registeredTypes = new ConcurrentHashMap<>();
+
+  /** Layouts of the types read from encoded metacards. */
+  private final Cache<TypeKey, TypeLayout> decodedTypes =
+      CacheBuilder.newBuilder().maximumSize(MAX_DECODED_TYPES).build();
+
+  public MetacardCodec() {
+    registerType(MetacardImpl.BASIC_METACARD);
+  }
+
+  /**
+   * Registers a metacard type whose descriptors are not written with the metacards of that type.
+   * The type must be registered on every codec that decodes those metacards.
+   *
+   * @param metacardType the type to register
+   */
+  public void registerType(MetacardType metacardType) {
+    TypeLayout layout = new TypeLayout(metacardType);
+    registeredTypes.put(layout.key, layout);
+    encodedTypes.put(metacardType, layout);
+  }
+
+  /**
+   * @param metacard the metacard to encode
+   * @return the encoded metacard
+   * @throws IOException if a value cannot be serialized
+   */
+  public byte[] encode(Metacard metacard) throws IOException {
+    Output out = BUFFERS.get();
+    try {
+      write(metacard, out);
+      return out.toByteArray();
+    } finally {
+      release(out);
+    }
+  }
+
+  /**
+   * Writes the encoded metacard to a stream. The stream is not closed, and the length of the
+   * encoded metacard is not written, so the caller has to frame it to write several metacards to
+   * the same stream.
+   *
+   * @param metacard the metacard to encode
+   * @param stream where the encoded metacard is written
+   * @throws IOException if a value cannot be serialized or the stream cannot be written to
+   */
+  public void encode(Metacard metacard, OutputStream stream) throws IOException {
+    Output out = BUFFERS.get();
+    try {
+      write(metacard, out);
+      out.writeTo(stream);
+    } finally {
+      release(out);
+    }
+  }
+
+  /**
+   * @param encoded a metacard encoded by {@link #encode(Metacard)}
+   * @return the decoded metacard
+   * @throws IOException if the encoding is corrupt, of an unsupported version or references a
+   *     metacard type that is not registered
+   */
+  public Metacard decode(byte[] encoded) throws IOException {
+    return decode(encoded, 0, encoded.length);
+  }
+
+  /**
+   * @param encoded an array containing a metacard encoded by {@link #encode(Metacard)}
+   * @param offset where the encoded metacard starts in the array
+   * @param length the length of the encoded metacard
+   * @return the decoded metacard
+   * @throws IOException if the encoding is corrupt, of an unsupported version or references a
+   *     metacard type that is not registered
+   */
+  public Metacard decode(byte[] encoded, int offset, int length) throws IOException {
+    Input in = new Input(encoded, offset, length);
+    try {
+      byte version = in.readByte();
+      if (version != VERSION) {
+        throw new IOException("Unsupported metacard codec version " + version);
+      }
+
+      TypeLayout layout = readType(in);
+      MetacardImpl metacard = new MetacardImpl(layout.metacardType);
+      if (in.readBoolean()) {
+        metacard.setSourceId(in.readString());
+      }
+
+      int attributeCount = in.readVarInt();
+      for (int i = 0; i < attributeCount; i++) {
+        metacard.setAttribute(readAttribute(in, layout));
+      }
+      return metacard;
+    } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+      throw new IOException("Corrupt encoded metacard", e);
+    }
+  }
+
+  private void write(Metacard metacard, Output out) throws IOException {
+    TypeLayout layout = getLayout(metacard.getMetacardType());
+
+    out.writeByte(VERSION);
+    writeType(out, layout);
+    String sourceId = metacard.getSourceId();
+    out.writeBoolean(sourceId != null);
+    if (sourceId != null) {
+      out.writeString(sourceId);
+    }
+
+    Collection<Attribute> attributes = getAttributes(metacard);
+    out.writeVarInt(attributes.size());
+    for (Attribute attribute : attributes) {
+      writeAttribute(out, layout, attribute);
+    }
+  }
+
+  private TypeLayout getLayout(MetacardType metacardType) throws IOException {
+    try {
+      return encodedTypes.get(metacardType, () -> new TypeLayout(metacardType));
+    } catch (ExecutionException e) {
+      throw new IOException("Unable to encode metacard type " + metacardType.getName(), e);
+    }
+  }
+
+  private void writeType(Output out, TypeLayout layout) {
+    boolean registered = registeredTypes.containsKey(layout.key);
+    out.writeByte(registered ? TYPE_REFERENCE : TYPE_DEFINITION);
+    out.writeString(layout.key.name);
+    out.writeLong(layout.key.fingerprint);
+    if (!registered) {
+      out.writeBytes(layout.definition);
+    }
+  }
+
+  private TypeLayout readType(Input in) throws IOException {
+    byte kind = in.readByte();
+    TypeKey key = new TypeKey(in.readString(), in.readLong());
+
+    TypeLayout layout = registeredTypes.get(key);
+    if (kind == TYPE_REFERENCE) {
+      if (layout == null) {
+        throw new IOException("Metacard type " + key.name + " is not registered");
+      }
+      return layout;
+    } else if (kind != TYPE_DEFINITION) {
+      throw new IOException("Unknown metacard type encoding " + kind);
+    }
+
+    int length = in.readVarInt();
+    if (layout == null) {
+      layout = decodedTypes.getIfPresent(key);
+    }
+    if (layout == null) {
+      layout = new TypeLayout(key, readDescriptors(new Input(in.buf, in.pos, length), key.name));
+      decodedTypes.put(key, layout);
+    }
+    in.skip(length);
+    return layout;
+  }
+
+  private static MetacardType readDescriptors(Input in, String name) throws IOException {
+    int descriptorCount = in.readVarInt();
+    Set<AttributeDescriptor> descriptors = new HashSet<>();
+    for (int i = 0; i < descriptorCount; i++) {
+      String attributeName = in.readString();
+      int code = in.readVarInt();
+      if (code >= FORMATS.length) {
+        throw new IOException("Unknown attribute format " + code);
+      }
+      int flags = in.readVarInt();
+      descriptors.add(
+          new AttributeDescriptorImpl(
+              attributeName,
+              (flags & INDEXED) != 0,
+              (flags & STORED) != 0,
+              (flags & TOKENIZED) != 0,
+              (flags & MULTI_VALUED) != 0,
+              BasicTypes.getAttributeType(FORMATS[code].name())));
+    }
+    return new MetacardTypeImpl(name, descriptors);
+  }
+
+  private static Collection<Attribute> getAttributes(Metacard metacard) {
+    if (metacard instanceof MetacardImpl) {
+      return ((MetacardImpl) metacard).getAttributes();
+    }
+
+    List<Attribute> attributes = new ArrayList<>();
+    for (AttributeDescriptor descriptor : metacard.getMetacardType().getAttributeDescriptors()) {
+      Attribute attribute = metacard.getAttribute(descriptor.getName());
+      if (attribute != null) {
+        attributes.add(attribute);
+      }
+    }
+    return attributes;
+  }
+
+  /*
+   * An attribute is written as the index of its descriptor plus one, or zero followed by its
+   * name, then the number of values shifted left by one with the low bit set when the values are
+   * tagged rather than written in the descriptor's format.
+   */
+  private static void writeAttribute(Output out, TypeLayout layout, Attribute attribute)
+      throws IOException {
+    List<Serializable> values = attribute.getValues();
+    if (values == null) {
+      values = new ArrayList<>();
+    }
+
+    Integer index = layout.indexes.get(attribute.getName());
+    AttributeFormat format = null;
+    if (index == null) {
+      out.writeVarInt(0);
+      out.writeString(attribute.getName());
+    } else {
+      out.writeVarInt(index + 1);
+      format = layout.formats[index];
+    }
+
+    boolean tagged = format == null || !matchesFormat(values, format);
+    out.writeVarInt(values.size() << 1 | (tagged ? 1 : 0));
+    for (Serializable value : values) {
+      if (tagged) {
+        writeTaggedValue(out, value);
+      } else {
+        writeValue(out, format, value);
+      }
+    }
+  }
+
+  private static Attribute readAttribute(Input in, TypeLayout layout) throws IOException {
+    int index = in.readVarInt() - 1;
+    String name;
+    AttributeFormat format = null;
+    if (index < 0) {
+      name = AttributeImpl.internName(in.readString());
+    } else if (index < layout.names.length) {
+      name = layout.names[index];
+      format = layout.formats[index];
+    } else {
+      throw new IOException("Unknown attribute index " + index);
+    }
+
+    int header = in.readVarInt();
+    boolean tagged = (header & 1) != 0;
+    int valueCount = header >>> 1;
+    if (!tagged && format == null) {
+      throw new IOException("Attribute " + name + " has no format");
+    }
+
+    List<Serializable> values = new ArrayList<>(Math.min(valueCount, in.remaining()));
+    for (int i = 0; i < valueCount; i++) {
+      values.add(tagged ? readTaggedValue(in) : readValue(in, format));
+    }
+    return new AttributeImpl(name, values);
+  }
+
+  private static boolean matchesFormat(List<Serializable> values, AttributeFormat format) {
+    for (Serializable value : values) {
+      if (value == null || !matchesFormat(value, format)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean matchesFormat(Serializable value, AttributeFormat format) {
+    switch (format) {
+      case STRING:
+      case XML:
+      case GEOMETRY:
+        return value instanceof String;
+      case BOOLEAN:
+        return value instanceof Boolean;
+      case DATE:
+        //  subclasses such as java.sql.Timestamp carry more than the time in milliseconds
+        return value.getClass() == Date.class;
+      case SHORT:
+        return value instanceof Short;
+      case INTEGER:
+        return value instanceof Integer;
+      case LONG:
+        return value instanceof Long;
+      case FLOAT:
+        return value instanceof Float;
+      case DOUBLE:
+        return value instanceof Double;
+      case BINARY:
+        return value instanceof byte[];
+      default:
+        return false;
+    }
+  }
+
+  private static void writeValue(Output out, AttributeFormat format, Serializable value) {
+    switch (format) {
+      case BOOLEAN:
+        out.writeBoolean((Boolean) value);
+        break;
+      case DATE:
+        out.writeVarLong(((Date) value).getTime());
+        break;
+      case SHORT:
+        out.writeVarLong((Short) value);
+        break;
+      case INTEGER:
+        out.writeVarLong((Integer) value);
+        break;
+      case LONG:
+        out.writeVarLong((Long) value);
+        break;
+      case FLOAT:
+        out.writeInt(Float.floatToIntBits((Float) value));
+        break;
+      case DOUBLE:
+        out.writeLong(Double.doubleToLongBits((Double) value));
+        break;
+      case BINARY:
+        out.writeBytes((byte[]) value);
+        break;
+      default:
+        out.writeString((String) value);
+    }
+  }
+
+  private static Serializable readValue(Input in, AttributeFormat format) throws IOException {
+    switch (format) {
+      case STRING:
+      case XML:
+      case GEOMETRY:
+        return in.readString();
+      case BOOLEAN:
+        return in.readBoolean();
+      case DATE:
+        return new Date(in.readVarLong());
+      case SHORT:
+        return (short) in.readVarLong();
+      case INTEGER:
+        return (int) in.readVarLong();
+      case LONG:
+        return in.readVarLong();
+      case FLOAT:
+        return Float.intBitsToFloat(in.readInt());
+      case DOUBLE:
+        return Double.longBitsToDouble(in.readLong());
+      case BINARY:
+        return in.readBytes();
+      default:
+        throw new IOException("Attribute format " + format + " cannot be read untagged");
+    }
+  }
+
+  private static void writeTaggedValue(Output out, Serializable value) throws IOException {
+    if (value == null) {
+      out.writeByte(NULL);
+    } else if (value instanceof String) {
+      out.writeByte(STRING);
+      out.writeString((String) value);
+    } else if (value.getClass() == Date.class) {
+      out.writeByte(DATE);
+      out.writeVarLong(((Date) value).getTime());
+    } else if (value instanceof Long) {
+      out.writeByte(LONG);
+      out.writeVarLong((Long) value);
+    } else if (value instanceof Integer) {
+      out.writeByte(INTEGER);
+      out.writeVarLong((Integer) value);
+    } else if (value instanceof Short) {
+      out.writeByte(SHORT);
+      out.writeVarLong((Short) value);
+    } else if (value instanceof Float) {
+      out.writeByte(FLOAT);
+      out.writeInt(Float.floatToIntBits((Float) value));
+    } else if (value instanceof Double) {
+      out.writeByte(DOUBLE);
+      out.writeLong(Double.doubleToLongBits((Double) value));
+    } else if (value instanceof Boolean) {
+      out.writeByte(BOOLEAN);
+      out.writeBoolean((Boolean) value);
+    } else if (value instanceof byte[]) {
+      out.writeByte(BYTES);
+      out.writeBytes((byte[]) value);
+    } else {
+      ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+      try (ObjectOutputStream objectOut = new ObjectOutputStream(serialized)) {
+        objectOut.writeObject(value);
+      }
+      out.writeByte(SERIALIZABLE);
+      out.writeBytes(serialized.toByteArray());
+    }
+  }
+
+  private static Serializable readTaggedValue(Input in) throws IOException {
+    byte tag = in.readByte();
+    switch (tag) {
+      case NULL:
+        return null;
+      case STRING:
+        return in.readString();
+      case DATE:
+        return new Date(in.readVarLong());
+      case LONG:
+        return in.readVarLong();
+      case INTEGER:
+        return (int) in.readVarLong();
+      case SHORT:
+        return (short) in.readVarLong();
+      case FLOAT:
+        return Float.intBitsToFloat(in.readInt());
+      case DOUBLE:
+        return Double.longBitsToDouble(in.readLong());
+      case BOOLEAN:
+        return in.readBoolean();
+      case BYTES:
+        return in.readBytes();
+      case SERIALIZABLE:
+        try (ObjectInputStream objectIn =
+            new ObjectInputStream(new ByteArrayInputStream(in.readBytes()))) {
+          return (Serializable) objectIn.readObject();
+        } catch (ClassNotFoundException e) {
+          throw new IOException("Could not create object to return.", e);
+        }
+      default:
+        throw new IOException("Unknown metacard codec value type " + tag);
+    }
+  }
+
+  private static void release(Output out) {
+    if (out.buf.length > MAX_REUSED_BUFFER_SIZE) {
+      BUFFERS.remove();
+    } else {
+      out.count = 0;
+    }
+  }
+
+  private static final class TypeKey {
+
+    private final String name;
+
+    private final long fingerprint;
+
+    private TypeKey(String name, long fingerprint) {
+      this.name = name;
+      this.fingerprint = fingerprint;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof TypeKey)) {
+        return false;
+      }
+      TypeKey other = (TypeKey) o;
+      return fingerprint == other.fingerprint && Objects.equals(name, other.name);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(name, fingerprint);
+    }
+  }
+
+  /** The descriptors of a metacard type, sorted by name so both sides agree on their indexes. */
+  private static final class TypeLayout {
+
+    private final TypeKey key;
+
+    private final MetacardType metacardType;
+
+    private final String[] names;
+
+    private final AttributeFormat[] formats;
+
+    private final Map<String, Integer> indexes;
+
+    private final byte[] definition;
+
+    private TypeLayout(MetacardType metacardType) {
+      this(null, metacardType);
+    }
+
+    private TypeLayout(TypeKey key, MetacardType metacardType) {
+      this.metacardType = metacardType;
+
+      AttributeDescriptor[] descriptors =
+          metacardType.getAttributeDescriptors().stream()
+              .filter(Objects::nonNull)
+              .sorted(Comparator.comparing(AttributeDescriptor::getName))
+              .toArray(AttributeDescriptor[]::new);
+      names = new String[descriptors.length];
+      formats = new AttributeFormat[descriptors.length];
+      indexes = new HashMap<>();
+
+      Output out = new Output();
+      out.writeVarInt(descriptors.length);
+      for (int i = 0; i < descriptors.length; i++) {
+        AttributeDescriptor descriptor = descriptors[i];
+        names[i] = descriptor.getName();
+        formats[i] = getFormat(descriptor);
+        indexes.put(names[i], i);
+
+        out.writeString(names[i]);
+        out.writeVarInt(FORMAT_CODES.get(formats[i]));
+        out.writeVarInt(
+            (descriptor.isIndexed() ? INDEXED : 0)
+                | (descriptor.isStored() ? STORED : 0)
+                | (descriptor.isTokenized() ? TOKENIZED : 0)
+                | (descriptor.isMultiValued() ? MULTI_VALUED : 0));
+      }
+      definition = out.toByteArray();
+      this.key = key != null ? key : new TypeKey(metacardType.getName(), fingerprint(definition));
+    }
+
+    private static AttributeFormat getFormat(AttributeDescriptor descriptor) {
+      AttributeType<?> type = descriptor.getType();
+      if (type == null || type.getAttributeFormat() == null) {
+        return AttributeFormat.OBJECT;
+      }
+      return type.getAttributeFormat();
+    }
+
+    /** 64 bit FNV-1a hash of the definition. */
+    private static long fingerprint(byte[] definition) {
+      long hash = 0xcbf29ce484222325L;
+      for (byte b : definition) {
+        hash ^= b & 0xff;
+        hash *= 0x100000001b3L;
+      }
+      return hash;
+    }
+  }
+
+  /** An unsynchronized, growable buffer that is reused by the thread that encodes metacards. */
+  private static final class Output {
+
+    private byte[] buf = new byte[512];
+
+    private int count;
+
+    private void ensureCapacity(int extra) {
+      if (count + extra > buf.length) {
+        buf = Arrays.copyOf(buf, Math.max(buf.length << 1, count + extra));
+      }
+    }
+
+    private void writeByte(int value) {
+      ensureCapacity(1);
+      buf[count++] = (byte) value;
+    }
+
+    private void writeBoolean(boolean value) {
+      writeByte(value ? 1 : 0);
+    }
+
+    private void writeInt(int value) {
+      ensureCapacity(4);
+      for (int shift = 24; shift >= 0; shift -= 8) {
+        buf[count++] = (byte) (value >>> shift);
+      }
+    }
+
+    private void writeLong(long value) {
+      ensureCapacity(8);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        buf[count++] = (byte) (value >>> shift);
+      }
+    }
+
+    private void writeVarInt(int value) {
+      ensureCapacity(5);
+      while ((value & ~0x7F) != 0) {
+        buf[count++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      buf[count++] = (byte) value;
+    }
+
+    /** Writes a zig-zag encoded variable length long, so that small negative values stay short. */
+    private void writeVarLong(long value) {
+      ensureCapacity(10);
+      long zigZag = (value << 1) ^ (value >> 63);
+      while ((zigZag & ~0x7FL) != 0) {
+        buf[count++] = (byte) ((zigZag & 0x7F) | 0x80);
+        zigZag >>>= 7;
+      }
+      buf[count++] = (byte) zigZag;
+    }
+
+    private void writeBytes(byte[] value) {
+      writeVarInt(value.length);
+      ensureCapacity(value.length);
+      System.arraycopy(value, 0, buf, count, value.length);
+      count += value.length;
+    }
+
+    private void writeString(String value) {
+      writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private byte[] toByteArray() {
+      return Arrays.copyOf(buf, count);
+    }
+
+    private void writeTo(OutputStream stream) throws IOException {
+      stream.write(buf, 0, count);
+    }
+  }
+
+  /** Reads an encoded metacard in place, without copying it. */
+  private static final class Input {
+
+    private final byte[] buf;
+
+    private final int end;
+
+    private int pos;
+
+    private Input(byte[] buf, int offset, int length) {
+      if (offset < 0 || length < 0 || offset + length > buf.length) {
+        throw new IndexOutOfBoundsException("Invalid range in encoded metacard");
+      }
+      this.buf = buf;
+      this.pos = offset;
+      this.end = offset + length;
+    }
+
+    private int remaining() {
+      return end - pos;
+    }
+
+    private void require(int length) throws IOException {
+      if (length < 0 || length > remaining()) {
+        throw new IOException("Encoded metacard is truncated");
+      }
+    }
+
+    private void skip(int length) throws IOException {
+      require(length);
+      pos += length;
+    }
+
+    private byte readByte() throws IOException {
+      require(1);
+      return buf[pos++];
+    }
+
+    private boolean readBoolean() throws IOException {
+      return readByte() != 0;
+    }
+
+    private int readInt() throws IOException {
+      require(4);
+      int value = 0;
+      for (int i = 0; i < 4; i++) {
+        value = (value << 8) | (buf[pos++] & 0xff);
+      }
+      return value;
+    }
+
+    private long readLong() throws IOException {
+      require(8);
+      long value = 0;
+      for (int i = 0; i < 8; i++) {
+        value = (value << 8) | (buf[pos++] & 0xff);
+      }
+      return value;
+    }
+
+    private int readVarInt() throws IOException {
+      int value = 0;
+      for (int shift = 0; shift < 32; shift += 7) {
+        byte b = readByte();
+        value |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          if (value < 0) {
+            throw new IOException("Invalid length in encoded metacard");
+          }
+          return value;
+        }
+      }
+      throw new IOException("Invalid length in encoded metacard");
+    }
+
+    private long readVarLong() throws IOException {
+      long zigZag = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        byte b = readByte();
+        zigZag |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return (zigZag >>> 1) ^ -(zigZag & 1);
+        }
+      }
+      throw new IOException("Invalid number in encoded metacard");
+    }
+
+    private byte[] readBytes() throws IOException {
+      int length = readVarInt();
+      require(length);
+      byte[] value = Arrays.copyOfRange(buf, pos, pos + length);
+      pos += length;
+      return value;
+    }
+
+    private String readString() throws IOException {
+      int length = readVarInt();
+      require(length);
+      String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+      pos += length;
+      return value;
+    }
+  }
+}
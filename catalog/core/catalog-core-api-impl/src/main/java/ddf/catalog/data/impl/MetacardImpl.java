@@ -30,6 +30,7 @@
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -130,8 +131,8 @@ public class MetacardImpl implements Metacard {
             MetacardType.DEFAULT_METACARD_TYPE_NAME, Collections.unmodifiableSet(descriptors));
   }
 
-  /** key/value map of {@link Attribute}s. */
-  private transient Map<String, Attribute> map = null;
+  /** {@link Attribute}s by name, with slots for the ones described by the {@link MetacardType}. */
+  private transient MetacardAttributes map = null;
 
   private transient Metacard wrappedMetacard;
 
@@ -163,9 +164,9 @@ public MetacardImpl(MetacardType type) {
      * serialized object is maintained. For instance, if a null check is added in the
      * constructor, the same check should be added in the readObject() method.
      */
-    map = new HashMap<>();
     if (type != null) {
       this.type = type;
+      map = new MetacardAttributes(type);
     } else {
       throw new IllegalArgumentException(
           MetacardType.class.getName() + " instance should not be null.");
@@ -203,7 +204,6 @@ public MetacardImpl(Metacard metacard, MetacardType type) {
     if (metacard.getSourceId() != null) {
       this.setSourceId(metacard.getSourceId());
     }
-    map = new HashMap<>();
     for (AttributeDescriptor descriptor : metacard.getMetacardType().getAttributeDescriptors()) {
       Attribute metacardAttribute = metacard.getAttribute(descriptor.getName());
       if (metacardAttribute == null || metacardAttribute.getValue() == null) {
@@ -404,6 +404,9 @@ public MetacardType getMetacardType() {
    */
   public void setType(MetacardType type) {
     this.type = type;
+    if (map != null) {
+      map = map.withType(type);
+    }
   }
 
   @Override
@@ -736,6 +739,28 @@ public Attribute getAttribute(String name) {
     return (wrappedMetacard != null) ? wrappedMetacard.getAttribute(name) : map.get(name);
   }
 
+  /**
+   * @return the attributes of this metacard, or of the wrapped metacard the attributes described
+   *     by its type
+   */
+  Collection<Attribute> getAttributes() {
+    if (wrappedMetacard == null) {
+      return map.values();
+    }
+
+    List<Attribute> attributes = new ArrayList<>();
+    MetacardType metacardType = wrappedMetacard.getMetacardType();
+    if (metacardType != null && metacardType.getAttributeDescriptors() != null) {
+      for (AttributeDescriptor descriptor : metacardType.getAttributeDescriptors()) {
+        Attribute attribute = wrappedMetacard.getAttribute(descriptor.getName());
+        if (attribute != null) {
+          attributes.add(attribute);
+        }
+      }
+    }
+    return attributes;
+  }
+
   /**
    * Set an attribute via a name/value pair.
    *
@@ -863,8 +888,6 @@ private void readObject(ObjectInputStream stream) throws IOException, ClassNotFo
      */
     stream.defaultReadObject();
 
-    map = new HashMap<>();
-
     wrappedMetacard = null;
 
     type = (MetacardType) stream.readObject();
@@ -873,6 +896,8 @@ private void readObject(ObjectInputStream stream) throws IOException, ClassNotFo
       throw new InvalidObjectException(MetacardType.class.getName() + " instance cannot be null.");
     }
 
+    map = new MetacardAttributes(type);
+
     int numElements = stream.readInt();
 
     for (int i = 0; i < numElements; i++) {
@@ -14,6 +14,8 @@
 package ddf.catalog.util.impl;
 
 import static com.google.common.collect.Iterators.limit;
+import static ddf.catalog.Constants.QUERY_CURSOR_MARK_KEY;
+import static ddf.catalog.Constants.QUERY_NEXT_CURSOR_MARK_KEY;
 import static org.apache.commons.lang.Validate.isTrue;
 import static org.apache.commons.lang.Validate.notNull;
 
@@ -28,8 +30,10 @@
 import ddf.catalog.operation.impl.QueryRequestImpl;
 import ddf.catalog.source.SourceUnavailableException;
 import ddf.catalog.source.UnsupportedQueryException;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -50,6 +54,11 @@
  *
  * <p>Since the class may use the page size provided in the {@link Query} to fetch the results, its
  * value should be carefully set to avoid any memory or performance issues.
+ *
+ * <p>If the {@link QueryRequest} contains a {@link ddf.catalog.Constants#QUERY_CURSOR_MARK_KEY}
+ * property, each page is requested with the cursor mark returned by the previous page, which lets
+ * sources that support cursors page through large result sets at a constant cost per page. Sources
+ * that do not return a cursor mark are paged by start index as usual.
  */
 public class ResultIterable implements Iterable<Result> {
   public static final int DEFAULT_PAGE_SIZE = 64;
@@ -161,6 +170,7 @@ private static class ResultIterator implements Iterator<Result> {
     private QueryRequestImpl queryRequestCopy;
     private Iterator<Result> results = Collections.emptyIterator();
     private boolean finished = false;
+    private String cursorMark;
 
     ResultIterator(QueryFunction queryFunction, QueryRequest queryRequest) {
       this.queryFunction = queryFunction;
@@ -208,6 +218,9 @@ public Result next() {
     @SuppressWarnings("squid:CommentedOutCodeLine")
     private void fetchNextResults() {
       queryCopy.setStartIndex(currentIndex);
+      if (cursorMark != null) {
+        queryRequestCopy.getProperties().put(QUERY_CURSOR_MARK_KEY, cursorMark);
+      }
 
       try {
         SourceResponse response = queryFunction.query(queryRequestCopy);
@@ -254,11 +267,35 @@ private void fetchNextResults() {
         if (response.getHits() >= 0 && currentIndex > response.getHits()) {
           finished = true;
         }
+
+        if (cursorMark != null) {
+          updateCursorMark(response);
+        }
       } catch (UnsupportedQueryException | SourceUnavailableException | FederationException e) {
         throw new CatalogQueryException(e);
       }
     }
 
+    /**
+     * The cursor is exhausted once the source hands back the cursor mark it was sent. If the source
+     * does not support cursors, paging falls back to the start index alone.
+     */
+    private void updateCursorMark(SourceResponse response) {
+      Serializable nextCursorMark =
+          Optional.ofNullable(response.getProperties())
+              .map(m -> m.get(QUERY_NEXT_CURSOR_MARK_KEY))
+              .orElse(null);
+
+      if (!(nextCursorMark instanceof String)) {
+        cursorMark = null;
+        queryRequestCopy.getProperties().remove(QUERY_CURSOR_MARK_KEY);
+      } else if (cursorMark.equals(nextCursorMark)) {
+        finished = true;
+      } else {
+        cursorMark = (String) nextCursorMark;
+      }
+    }
+
     private boolean isDistinctResult(@Nullable Result result) {
       return result != null
           && (result.getMetacard() == null
@@ -281,12 +318,19 @@ private void copyQueryRequestAndQuery(QueryRequest queryRequest) {
               // always get the hit count
               query.getTimeoutMillis());
 
+      Serializable initialCursorMark = queryRequest.getPropertyValue(QUERY_CURSOR_MARK_KEY);
+      if (initialCursorMark instanceof String) {
+        this.cursorMark = (String) initialCursorMark;
+      }
+
       this.queryRequestCopy =
           new QueryRequestImpl(
               queryCopy,
               queryRequest.isEnterprise(),
               queryRequest.getSourceIds(),
-              queryRequest.getProperties());
+              cursorMark == null
+                  ? queryRequest.getProperties()
+                  : new HashMap<>(queryRequest.getProperties()));
     }
   }
 }
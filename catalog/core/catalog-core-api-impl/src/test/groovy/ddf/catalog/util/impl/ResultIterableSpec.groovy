@@ -30,6 +30,9 @@ import org.junit.runner.RunWith
 import spock.lang.Specification
 import spock.lang.Unroll
 
+import static ddf.catalog.Constants.QUERY_CURSOR_MARK_KEY
+import static ddf.catalog.Constants.QUERY_CURSOR_MARK_START
+import static ddf.catalog.Constants.QUERY_NEXT_CURSOR_MARK_KEY
 import static ddf.catalog.util.impl.ResultIterable.resultIterable
 import static java.util.stream.Collectors.toList
 
@@ -496,6 +499,85 @@ class ResultIterableSpec extends Specification {
         thrown NoSuchElementException
     }
 
+    def "next() pages with the cursor mark returned by the previous page"() {
+        setup:
+        def actualResults = (1..6).collect { new ResultImpl() }
+        def sentCursorMarks = []
+
+        3 * catalogFramework.query(_ as QueryRequest) >> {
+            QueryRequest queryRequest ->
+                sentCursorMarks << queryRequest.getPropertyValue(QUERY_CURSOR_MARK_KEY)
+                buildCursorQueryResponse(actualResults, 0..2, -1, "AoE1")
+        } >> {
+            QueryRequest queryRequest ->
+                sentCursorMarks << queryRequest.getPropertyValue(QUERY_CURSOR_MARK_KEY)
+                buildCursorQueryResponse(actualResults, 3..5, -1, "AoE2")
+        } >> {
+            QueryRequest queryRequest ->
+                sentCursorMarks << queryRequest.getPropertyValue(QUERY_CURSOR_MARK_KEY)
+                buildCursorQueryResponse(actualResults, [], -1, "AoE2")
+        }
+
+        Query queryMock = createQueryMock(1, 3)
+        QueryRequest queryRequest = createCursorQueryRequest(queryMock)
+
+        when:
+        def results = resultIterable(catalogFramework, queryRequest).stream().collect(toList())
+
+        then:
+        results == actualResults
+        sentCursorMarks == [QUERY_CURSOR_MARK_START, "AoE1", "AoE2"]
+    }
+
+    def "next() stops paging when the cursor mark returned is the one sent"() {
+        setup:
+        def actualResults = (1..6).collect { new ResultImpl() }
+
+        2 * catalogFramework.query(_ as QueryRequest) >> {
+            QueryRequest queryRequest -> buildCursorQueryResponse(actualResults, 0..2, -1, "AoE1")
+        } >> {
+            QueryRequest queryRequest -> buildCursorQueryResponse(actualResults, 3..5, -1, "AoE1")
+        } >> {
+            QueryRequest queryRequest -> buildCursorQueryResponse(actualResults, 0..2, -1, "AoE2")
+        }
+
+        Query queryMock = createQueryMock(1, 3)
+        QueryRequest queryRequest = createCursorQueryRequest(queryMock)
+
+        when:
+        def results = resultIterable(catalogFramework, queryRequest).stream().collect(toList())
+
+        then:
+        // No hit count is returned, so only the repeated cursor mark ends the paging
+        results == actualResults
+    }
+
+    def "next() stops paging with a cursor after the last page"() {
+        setup:
+        def actualResults = (1..5).collect { new ResultImpl() }
+
+        2 * catalogFramework.query(_ as QueryRequest) >> {
+            QueryRequest queryRequest -> buildCursorQueryResponse(actualResults, 0..2, 5, "AoE1")
+        } >> {
+            QueryRequest queryRequest -> buildCursorQueryResponse(actualResults, 3..4, 5, "AoE2")
+        } >> {
+            QueryRequest queryRequest -> buildCursorQueryResponse(actualResults, [], 5, "AoE2")
+        }
+
+        Query queryMock = createQueryMock(1, 3)
+        QueryRequest queryRequest = createCursorQueryRequest(queryMock)
+
+        def resultIterator = resultIterable(catalogFramework, queryRequest).iterator()
+
+        when:
+        def results = (1..5).collect { resultIterator.next() }
+        def hasNext = resultIterator.hasNext()
+
+        then:
+        results == actualResults
+        hasNext.is false
+    }
+
     def "catalog query() throws UnsupportedQueryException"() {
         setup:
         catalogFramework.query(_ as QueryRequest) >> { throw new UnsupportedQueryException() }
@@ -621,6 +703,20 @@ class ResultIterableSpec extends Specification {
         return response
     }
 
+    private QueryRequest createCursorQueryRequest(Query queryMock) {
+        return new QueryRequestImpl(queryMock, [(QUERY_CURSOR_MARK_KEY): QUERY_CURSOR_MARK_START])
+    }
+
+    private QueryResponse buildCursorQueryResponse(List<Result> resultList, def resultRange,
+                                                   long hits, String nextCursorMark) {
+        def results = resultList[resultRange]
+        return new QueryResponseImpl(new QueryRequestImpl(null),
+                results,
+                true,
+                hits,
+                ["actualResultSize": results.size(), (QUERY_NEXT_CURSOR_MARK_KEY): nextCursorMark])
+    }
+
     private buildQueryResponse(QueryRequest queryRequest, int resultListsSize, int totalResults) {
         int startIndex = queryRequest.getQuery()
                 .getStartIndex()
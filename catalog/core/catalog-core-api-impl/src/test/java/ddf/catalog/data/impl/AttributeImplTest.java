@@ -16,11 +16,16 @@
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import ddf.catalog.data.Attribute;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.Serializable;
 import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 import org.junit.Before;
 import org.junit.Test;
@@ -47,6 +52,44 @@ public void testValueRemoval() {
     assertEquals(1, toTest.getValue());
   }
 
+  @Test
+  public void testModifyingValuesOfSingleValue() {
+    toTest = new AttributeImpl("title", "first");
+
+    toTest.getValues().add("second");
+    assertEquals(Arrays.asList("first", "second"), toTest.getValues());
+
+    toTest.getValues().remove(0);
+    assertEquals("second", toTest.getValue());
+    assertEquals(Arrays.asList("second"), toTest.getValues());
+
+    toTest.getValues().clear();
+    assertNull(toTest.getValue());
+    assertTrue(toTest.getValues().isEmpty());
+  }
+
+  @Test
+  public void testAddingManyValues() {
+    List<Serializable> expected = new ArrayList<>();
+    toTest.clearValues();
+    for (int i = 0; i < 100; i++) {
+      toTest.addValue(i);
+      expected.add(i);
+    }
+    assertEquals(expected, toTest.getValues());
+
+    toTest.getValues().add(50, "middle");
+    expected.add(50, "middle");
+    toTest.getValues().remove(0);
+    expected.remove(0);
+    toTest.addValue("last");
+    expected.add("last");
+
+    assertEquals(expected, toTest.getValues());
+    assertEquals(1, toTest.getValue());
+    assertEquals(new AttributeImpl("id", expected), toTest);
+  }
+
   @Test
   public void testSerializationSingle() throws IOException, ClassNotFoundException {
     Attribute read = serializationLoop(toTest);
@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.data.impl;
+
+import ddf.catalog.data.Metacard;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares encoding and decoding a typical metacard with {@link MetacardCodec}, with Java
+ * serialization of the same {@link MetacardImpl}. The number of bytes per metacard of each form is
+ * printed before the benchmarks run.
+ *
+ * <p>Run with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetacardCodecBenchmark {
+
+  private MetacardCodec codec;
+
+  private Metacard metacard;
+
+  private byte[] serialized;
+
+  private byte[] encoded;
+
+  @Setup
+  public void setUp() throws IOException {
+    codec = new MetacardCodec();
+    metacard = createMetacard();
+    serialized = serialize(metacard);
+    encoded = codec.encode(metacard);
+  }
+
+  @Benchmark
+  public byte[] javaSerializationEncode() throws IOException {
+    return serialize(metacard);
+  }
+
+  @Benchmark
+  public Object javaSerializationDecode() throws IOException, ClassNotFoundException {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+      return in.readObject();
+    }
+  }
+
+  @Benchmark
+  public byte[] codecEncode() throws IOException {
+    return codec.encode(metacard);
+  }
+
+  @Benchmark
+  public Metacard codecDecode() throws IOException {
+    return codec.decode(encoded);
+  }
+
+  static Metacard createMetacard() {
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setSourceId("ddf.distribution");
+    metacard.setId("5b5d0e12a0f34fa1b0c0d8e0f1a2b3c4");
+    metacard.setTitle("Harbor survey, north quay");
+    metacard.setDescription("Survey of the north quay taken after the spring storms.");
+    metacard.setCreatedDate(new Date());
+    metacard.setModifiedDate(new Date());
+    metacard.setEffectiveDate(new Date());
+    metacard.setContentTypeName("image/nitf");
+    metacard.setContentTypeVersion("2.1");
+    metacard.setLocation("POLYGON ((30 10, 40 40, 20 40, 10 20, 30 10))");
+    metacard.setResourceURI(URI.create("content:5b5d0e12a0f34fa1b0c0d8e0f1a2b3c4"));
+    metacard.setResourceSize("1048576");
+    metacard.setThumbnail(new byte[2048]);
+    metacard.setMetadata(
+        "<metadata><title>Harbor survey, north quay</title><date>2020-04-01</date></metadata>");
+    metacard.setAttribute(
+        new AttributeImpl(Metacard.TAGS, Arrays.asList("resource", "VALID", "harbor")));
+    metacard.setAttribute("ext.sensor", "EO");
+    return metacard;
+  }
+
+  private static byte[] serialize(Metacard metacard) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(metacard);
+    }
+    return bytes.toByteArray();
+  }
+
+  public static void main(String[] args) throws IOException, RunnerException {
+    Metacard metacard = createMetacard();
+    System.out.printf(
+        "Bytes per metacard: Java serialization %d, codec %d%n",
+        serialize(metacard).length, new MetacardCodec().encode(metacard).length);
+
+    Options options =
+        new OptionsBuilder().include(MetacardCodecBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+}
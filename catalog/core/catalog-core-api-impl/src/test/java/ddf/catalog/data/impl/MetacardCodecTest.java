@@ -0,0 +1,224 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.data.impl;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.AttributeType;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.MetacardType;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import org.junit.Test;
+
+public class MetacardCodecTest {
+
+  private static final Date DATE = new Date(1500000000000L);
+
+  private static final MetacardType CUSTOM_TYPE =
+      new MetacardTypeImpl(
+          "custom",
+          MetacardImpl.BASIC_METACARD,
+          new HashSet<>(
+              Arrays.asList(
+                  descriptor("custom.boolean", BasicTypes.BOOLEAN_TYPE, false),
+                  descriptor("custom.short", BasicTypes.SHORT_TYPE, false),
+                  descriptor("custom.integer", BasicTypes.INTEGER_TYPE, false),
+                  descriptor("custom.long", BasicTypes.LONG_TYPE, true),
+                  descriptor("custom.float", BasicTypes.FLOAT_TYPE, false),
+                  descriptor("custom.double", BasicTypes.DOUBLE_TYPE, false),
+                  descriptor("custom.object", BasicTypes.OBJECT_TYPE, false))));
+
+  private final MetacardCodec codec = new MetacardCodec();
+
+  @Test
+  public void testBasicMetacard() throws Exception {
+    MetacardImpl metacard = basicMetacard();
+
+    Metacard decoded = new MetacardCodec().decode(codec.encode(metacard));
+
+    assertThat(decoded.getMetacardType(), sameInstance(MetacardImpl.BASIC_METACARD));
+    assertThat(decoded.getSourceId(), is("source"));
+    assertThat(decoded.getId(), is("0123456789abcdef"));
+    assertThat(decoded.getTitle(), is("Title"));
+    assertThat(decoded.getCreatedDate(), is(DATE));
+    assertThat(decoded.getLocation(), is("POINT (1 2)"));
+    assertThat(decoded.getMetadata(), is("<metadata>\u00fc</metadata>"));
+    assertThat(decoded.getThumbnail(), is(new byte[] {1, 2, 3}));
+    assertThat(decoded.getResourceURI(), is(metacard.getResourceURI()));
+    assertThat(
+        decoded.getAttribute(Metacard.TAGS).getValues(), contains("resource", "VALID", null));
+    assertThat(decoded, is(metacard));
+  }
+
+  @Test
+  public void testSmallerThanJavaSerialization() throws Exception {
+    MetacardImpl metacard = basicMetacard();
+
+    ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+      out.writeObject(metacard);
+    }
+
+    assertThat(codec.encode(metacard).length * 10, lessThan(serialized.size()));
+  }
+
+  @Test
+  public void testAttributeFormats() throws Exception {
+    MetacardImpl metacard = new MetacardImpl(CUSTOM_TYPE);
+    metacard.setAttribute("custom.boolean", true);
+    metacard.setAttribute("custom.short", (short) -7);
+    metacard.setAttribute("custom.integer", Integer.MIN_VALUE);
+    metacard.setAttribute(
+        new AttributeImpl("custom.long", Arrays.asList(Long.MAX_VALUE, -1L, 0L)));
+    metacard.setAttribute("custom.float", 1.5f);
+    metacard.setAttribute("custom.double", Double.NaN);
+    metacard.setAttribute("custom.object", new HashSet<>(Collections.singleton("value")));
+
+    Metacard decoded = codec.decode(codec.encode(metacard));
+
+    assertThat(decoded.getAttribute("custom.boolean").getValue(), is(true));
+    assertThat(decoded.getAttribute("custom.short").getValue(), is((short) -7));
+    assertThat(decoded.getAttribute("custom.integer").getValue(), is(Integer.MIN_VALUE));
+    assertThat(
+        decoded.getAttribute("custom.long").getValues(), contains(Long.MAX_VALUE, -1L, 0L));
+    assertThat(decoded.getAttribute("custom.float").getValue(), is(1.5f));
+    assertThat(decoded.getAttribute("custom.double").getValue(), is(Double.NaN));
+    assertThat(
+        decoded.getAttribute("custom.object").getValue(),
+        is(new HashSet<>(Collections.singleton("value"))));
+  }
+
+  @Test
+  public void testValuesNotMatchingTheFormat() throws Exception {
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setAttribute(Metacard.TITLE, 42);
+    metacard.setAttribute(Metacard.MODIFIED, new java.sql.Timestamp(DATE.getTime() + 1));
+    metacard.setAttribute("not.described", URI.create("http://example.com"));
+    metacard.setAttribute(new AttributeImpl("not.described.list", Arrays.asList("a", 2L)));
+
+    Metacard decoded = codec.decode(codec.encode(metacard));
+
+    assertThat(decoded.getAttribute(Metacard.TITLE).getValue(), is(42));
+    assertThat(
+        decoded.getAttribute(Metacard.MODIFIED).getValue(),
+        is(metacard.getAttribute(Metacard.MODIFIED).getValue()));
+    assertThat(
+        decoded.getAttribute("not.described").getValue(), is(URI.create("http://example.com")));
+    assertThat(decoded.getAttribute("not.described.list").getValues(), contains("a", 2L));
+  }
+
+  @Test
+  public void testDecodedTypeIsShared() throws Exception {
+    MetacardImpl first = new MetacardImpl(CUSTOM_TYPE);
+    first.setAttribute("custom.integer", 1);
+    MetacardImpl second = new MetacardImpl(CUSTOM_TYPE);
+    second.setAttribute("custom.integer", 2);
+
+    MetacardCodec decoder = new MetacardCodec();
+    Metacard firstDecoded = decoder.decode(codec.encode(first));
+    Metacard secondDecoded = decoder.decode(codec.encode(second));
+
+    assertThat(firstDecoded.getMetacardType().getName(), is("custom"));
+    assertThat(
+        firstDecoded.getMetacardType().getAttributeDescriptors(),
+        is(CUSTOM_TYPE.getAttributeDescriptors()));
+    assertThat(secondDecoded.getMetacardType(), sameInstance(firstDecoded.getMetacardType()));
+    assertThat(secondDecoded.getAttribute("custom.integer").getValue(), is(2));
+  }
+
+  @Test
+  public void testRegisteredType() throws Exception {
+    MetacardImpl metacard = new MetacardImpl(CUSTOM_TYPE);
+    metacard.setAttribute("custom.integer", 1);
+    int unregisteredLength = codec.encode(metacard).length;
+
+    codec.registerType(CUSTOM_TYPE);
+    byte[] encoded = codec.encode(metacard);
+    MetacardCodec decoder = new MetacardCodec();
+    decoder.registerType(CUSTOM_TYPE);
+
+    assertThat(encoded.length, lessThan(unregisteredLength / 10));
+    assertThat(decoder.decode(encoded).getMetacardType(), sameInstance(CUSTOM_TYPE));
+  }
+
+  @Test(expected = IOException.class)
+  public void testUnregisteredTypeReference() throws Exception {
+    MetacardImpl metacard = new MetacardImpl(CUSTOM_TYPE);
+    codec.registerType(CUSTOM_TYPE);
+
+    new MetacardCodec().decode(codec.encode(metacard));
+  }
+
+  @Test
+  public void testWrappedMetacard() throws Exception {
+    MetacardImpl wrapped = basicMetacard();
+    wrapped.setSourceId(null);
+
+    Metacard decoded = codec.decode(codec.encode(new MetacardImpl(wrapped)));
+
+    assertThat(decoded.getSourceId(), is(nullValue()));
+    assertThat(decoded, is(wrapped));
+  }
+
+  @Test(expected = IOException.class)
+  public void testUnsupportedVersion() throws Exception {
+    byte[] encoded = codec.encode(basicMetacard());
+    encoded[0] = MetacardCodec.VERSION + 1;
+
+    codec.decode(encoded);
+  }
+
+  @Test(expected = IOException.class)
+  public void testTruncated() throws Exception {
+    byte[] encoded = codec.encode(basicMetacard());
+
+    codec.decode(encoded, 0, encoded.length - 3);
+  }
+
+  private static MetacardImpl basicMetacard() {
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setSourceId("source");
+    metacard.setId("0123456789abcdef");
+    metacard.setTitle("Title");
+    metacard.setCreatedDate(DATE);
+    metacard.setModifiedDate(DATE);
+    metacard.setLocation("POINT (1 2)");
+    metacard.setMetadata("<metadata>\u00fc</metadata>");
+    metacard.setThumbnail(new byte[] {1, 2, 3});
+    metacard.setResourceURI(URI.create("http://example.com/resource"));
+    metacard.setAttribute(
+        new AttributeImpl(
+            Metacard.TAGS, Arrays.<Serializable>asList("resource", "VALID", null)));
+    return metacard;
+  }
+
+  private static AttributeDescriptor descriptor(
+      String name, AttributeType<?> type, boolean multiValued) {
+    return new AttributeDescriptorImpl(name, true, true, false, multiValued, type);
+  }
+}
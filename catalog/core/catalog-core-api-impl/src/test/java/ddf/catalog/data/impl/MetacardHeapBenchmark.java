@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.data.impl;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.Metacard;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares building a metacard with {@link MetacardImpl} and {@link AttributeImpl}, with building
+ * the same attributes held the way they used to be held, in a {@link HashMap} of attributes each
+ * backed by a {@link LinkedList}. The heap retained per metacard of each form is printed before the
+ * benchmarks run.
+ *
+ * <p>Run with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetacardHeapBenchmark {
+
+  private static final int METACARDS = 20_000;
+
+  private static final String[] NAMES = {
+    Metacard.ID,
+    Metacard.TITLE,
+    Metacard.DESCRIPTION,
+    Metacard.CREATED,
+    Metacard.MODIFIED,
+    Metacard.EFFECTIVE,
+    Metacard.GEOGRAPHY,
+    Metacard.METADATA,
+    Metacard.RESOURCE_URI,
+    Metacard.RESOURCE_SIZE,
+    Metacard.CONTENT_TYPE,
+    Metacard.CONTENT_TYPE_VERSION,
+    Metacard.POINT_OF_CONTACT,
+    "ext.sensor"
+  };
+
+  //  Shared by every metacard so only the structure holding the values is measured
+  private static final Serializable VALUE = "value";
+
+  private static final List<Serializable> TAGS = Arrays.asList("resource", "VALID");
+
+  @Benchmark
+  public Object metacard() {
+    MetacardImpl metacard = new MetacardImpl();
+    for (String name : NAMES) {
+      metacard.setAttribute(new AttributeImpl(name, VALUE));
+    }
+    metacard.setAttribute(new AttributeImpl(Metacard.TAGS, TAGS));
+    return metacard;
+  }
+
+  @Benchmark
+  public Object legacyMetacard() {
+    Map<String, Attribute> metacard = new HashMap<>();
+    for (String name : NAMES) {
+      metacard.put(name, new LegacyAttribute(name, Arrays.asList(VALUE)));
+    }
+    metacard.put(Metacard.TAGS, new LegacyAttribute(Metacard.TAGS, TAGS));
+    return metacard;
+  }
+
+  @Benchmark
+  public Object addValues() {
+    AttributeImpl attribute = new AttributeImpl(Metacard.TAGS, VALUE);
+    for (int i = 0; i < 100; i++) {
+      attribute.addValue(VALUE);
+    }
+    return attribute;
+  }
+
+  private static long retainedPerMetacard(Supplier<Object> factory) {
+    //  warm up the classes and caches involved, so they are not measured
+    factory.get();
+
+    long baseline = usedHeap();
+    Object[] metacards = new Object[METACARDS];
+    for (int i = 0; i < METACARDS; i++) {
+      metacards[i] = factory.get();
+    }
+    long retained = usedHeap() - baseline;
+
+    if (metacards[METACARDS - 1] == null) {
+      throw new IllegalStateException("No metacard was built");
+    }
+    return retained / METACARDS;
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    long used = Long.MAX_VALUE;
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+      used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+    }
+    return used;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    MetacardHeapBenchmark benchmark = new MetacardHeapBenchmark();
+    System.out.printf(
+        "Heap retained per metacard: HashMap of LinkedLists %d bytes, MetacardImpl %d bytes%n",
+        retainedPerMetacard(benchmark::legacyMetacard), retainedPerMetacard(benchmark::metacard));
+
+    Options options =
+        new OptionsBuilder().include(MetacardHeapBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+
+  /** An attribute held the way {@link AttributeImpl} used to hold its values. */
+  private static class LegacyAttribute implements Attribute {
+
+    private final String name;
+
+    private final List<Serializable> values;
+
+    private LegacyAttribute(String name, List<Serializable> values) {
+      this.name = name;
+      this.values = new LinkedList<>(values);
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public Serializable getValue() {
+      return values.isEmpty() ? null : values.get(0);
+    }
+
+    @Override
+    public List<Serializable> getValues() {
+      return values;
+    }
+  }
+}
@@ -16,6 +16,7 @@
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import ddf.catalog.data.AttributeDescriptor;
@@ -136,6 +137,39 @@ public void testMetacardAttributes() {
     assertEquals(now, metacard.getEffectiveDate());
   }
 
+  @Test
+  public void testDescribedAttributesShareTheDescriptorName() {
+    String title = new String(Metacard.TITLE.toCharArray());
+    MetacardImpl metacard = new MetacardImpl();
+
+    metacard.setAttribute(new AttributeImpl(title, "title"));
+
+    assertSame(Metacard.TITLE, metacard.getAttribute(Metacard.TITLE).getName());
+  }
+
+  @Test
+  public void testAttributesMoveWithTheType() {
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setTitle("title");
+    metacard.setDescription("description");
+    metacard.setAttribute("ext.sensor", "EO");
+    metacard.setAttribute(new AttributeImpl(Metacard.TAGS, Arrays.asList("resource", "VALID")));
+    MetacardTypeImpl type =
+        new MetacardTypeImpl("other", Arrays.asList(MetacardImpl.BASIC_METACARD));
+
+    metacard.setType(type);
+    metacard.setAttribute(Metacard.TITLE, "changed");
+    metacard.setAttribute(Metacard.DESCRIPTION, null);
+
+    assertEquals(type, metacard.getMetacardType());
+    assertEquals("changed", metacard.getTitle());
+    assertNull(metacard.getAttribute(Metacard.DESCRIPTION));
+    assertEquals("EO", metacard.getAttribute("ext.sensor").getValue());
+    assertEquals(
+        Arrays.asList("resource", "VALID"), metacard.getAttribute(Metacard.TAGS).getValues());
+    assertEquals(3, metacard.getAttributes().size());
+  }
+
   @Test
   public void testMetacardImpl() {
     MetacardImpl mi = new MetacardImpl();
@@ -135,6 +135,24 @@ public final class Constants {
 
   public static final String CONTENT_PATHS = "content-paths";
 
+  /**
+   * Property key for the checksums calculated while the content of a storage request was first
+   * read, an {@code IdentityHashMap<ContentItem, Map<String, Serializable>>} of the content item
+   * that was read to its checksum, keyed by checksum algorithm, and to the number of bytes read,
+   * keyed by {@link #CONTENT_CHECKSUM_SIZE}. A checksum only applies to that content item instance
+   * while its size is unchanged.
+   */
+  public static final String CONTENT_CHECKSUMS = "content-checksums";
+
+  /** Key of the number of bytes read, a {@code Long}, in a {@link #CONTENT_CHECKSUMS} entry */
+  public static final String CONTENT_CHECKSUM_SIZE = "content-size";
+
+  /**
+   * Service property of the storage plugin that sets the checksum of content, naming the checksum
+   * algorithm it uses, so the framework calculates it while the content is first read
+   */
+  public static final String CHECKSUM_ALGORITHM_SERVICE_PROPERTY = "checksum-algorithm";
+
   public static final String ATTRIBUTE_OVERRIDES_KEY = "attributeOverrides";
 
   public static final String ATTRIBUTE_UPDATE_MAP_KEY = "attributeUpdateMap";
@@ -159,5 +177,30 @@ public final class Constants {
 
   public static final String ADDITIONAL_SORT_BYS = "additional-sort-bys";
 
+  /**
+   * Query request property holding a {@link ddf.catalog.operation.QueryResponseListener} that will
+   * be notified with partial responses as each federated source completes.
+   */
+  public static final String QUERY_RESPONSE_LISTENER_KEY = "query-response-listener";
+
+  /** Query response property set to {@code true} on partial (incremental) query responses. */
+  public static final String PARTIAL_RESPONSE_KEY = "partial-response";
+
+  /**
+   * Query request property holding the cursor mark to continue paging from. Sources that support
+   * cursors ignore the query's start index when it is present. Use {@link #QUERY_CURSOR_MARK_START}
+   * to request the first page.
+   */
+  public static final String QUERY_CURSOR_MARK_KEY = "cursor-mark";
+
+  /** Cursor mark used to request the first page of a cursor based query. */
+  public static final String QUERY_CURSOR_MARK_START = "*";
+
+  /**
+   * Query response property holding the cursor mark to send with the next request. The cursor is
+   * exhausted when it is equal to the cursor mark that was sent.
+   */
+  public static final String QUERY_NEXT_CURSOR_MARK_KEY = "next-cursor-mark";
+
   private Constants() {}
 }
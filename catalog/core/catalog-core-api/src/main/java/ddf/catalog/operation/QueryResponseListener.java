@@ -0,0 +1,45 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.operation;
+
+import java.io.Serializable;
+
+/**
+ * Receives incremental {@link QueryResponse}s while a federated query is still running. A listener
+ * is registered by adding it to the {@link QueryRequest} properties under {@link
+ * ddf.catalog.Constants#QUERY_RESPONSE_LISTENER_KEY}.
+ *
+ * <p>Each time a source finishes, the listener is handed a response containing the current merge
+ * of every source that has completed so far, along with the accumulated hits, {@code
+ * hitsPerSource} and {@link ProcessingDetails}. Partial responses carry the {@link
+ * ddf.catalog.Constants#PARTIAL_RESPONSE_KEY} property set to {@code true}. The {@link
+ * QueryResponse} returned by the {@link ddf.catalog.CatalogFramework} remains the final, complete
+ * merge and is not affected by the listener.
+ *
+ * <p>The {@link ddf.catalog.CatalogFramework} runs partial responses through the same post-query
+ * processing as the final response and delivers them one at a time, in order, from its query
+ * thread pool rather than from the thread that is merging the source responses. Implementations
+ * must not assume they are called on the thread that issued the query, and may stop receiving
+ * partial responses once the final response has been returned.
+ */
+@FunctionalInterface
+public interface QueryResponseListener extends Serializable {
+
+  /**
+   * Called with the current state of the federated query each time a source completes.
+   *
+   * @param partialResponse the merged results of all sources that have completed so far
+   */
+  void partialResponse(QueryResponse partialResponse);
+}
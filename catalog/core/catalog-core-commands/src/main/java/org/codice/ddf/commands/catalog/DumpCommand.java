@@ -268,6 +268,9 @@ protected final Object executeWithSubject() throws Exception {
             rejectedExecutionHandler);
 
     QueryRequest queryRequest = new QueryRequestImpl(query);
+    queryRequest
+        .getProperties()
+        .put(Constants.QUERY_CURSOR_MARK_KEY, Constants.QUERY_CURSOR_MARK_START);
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("Hits for Search: {}", catalog.query(queryRequest).getHits());
     }
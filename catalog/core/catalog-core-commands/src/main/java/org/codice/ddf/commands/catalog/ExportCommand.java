@@ -13,6 +13,8 @@
  */
 package org.codice.ddf.commands.catalog;
 
+import static ddf.catalog.Constants.QUERY_CURSOR_MARK_KEY;
+import static ddf.catalog.Constants.QUERY_CURSOR_MARK_START;
 import static ddf.catalog.util.impl.ResultIterable.resultIterable;
 
 import ddf.catalog.CatalogFramework;
@@ -367,6 +369,7 @@ private List<ExportItem> doMetacardExport(
 
     QueryImpl query = new QueryImpl(filter);
     QueryRequest queryRequest = new QueryRequestImpl(query);
+    queryRequest.getProperties().put(QUERY_CURSOR_MARK_KEY, QUERY_CURSOR_MARK_START);
 
     query.setPageSize(PAGE_SIZE);
 
@@ -53,6 +53,8 @@ public class ContentResourceReader implements ResourceReader {
 
   private static final String ORGANIZATION = "DDF";
 
+  private static final String BYTES_TO_SKIP = "BytesToSkip";
+
   private static final Logger LOGGER = LoggerFactory.getLogger(ContentResourceReader.class);
 
   private static Set<String> qualifierSet = Collections.singleton(ContentItem.CONTENT_SCHEME);
@@ -177,6 +179,7 @@ public ResourceResponse retrieveResource(URI resourceUri, Map<String, Serializab
           String fileName = contentItem.getFilename();
           LOGGER.debug("resource name: {}", fileName);
           InputStream is = contentItem.getInputStream();
+          skipBytes(is, arguments);
           response =
               new ResourceResponseImpl(
                   new ResourceImpl(
@@ -191,4 +194,34 @@ public ResourceResponse retrieveResource(URI resourceUri, Map<String, Serializab
 
     return response;
   }
+
+  /**
+   * Skips the number of bytes requested with the {@code BytesToSkip} argument. {@link
+   * InputStream#skip} may skip fewer bytes than asked before the end of the stream, so it is called
+   * until the bytes are skipped or the end of the stream is reached.
+   */
+  private void skipBytes(InputStream is, Map<String, Serializable> arguments) throws IOException {
+    if (arguments != null && arguments.get(BYTES_TO_SKIP) != null) {
+      long bytesToSkip = Long.parseLong(arguments.get(BYTES_TO_SKIP).toString());
+      LOGGER.debug("Skipping {} bytes", bytesToSkip);
+      long bytesSkipped = 0;
+      while (bytesSkipped < bytesToSkip) {
+        long skipped = is.skip(bytesToSkip - bytesSkipped);
+        if (skipped > 0) {
+          bytesSkipped += skipped;
+        } else if (is.read() != -1) {
+          bytesSkipped++;
+        } else {
+          break;
+        }
+      }
+      if (bytesToSkip != bytesSkipped) {
+        LOGGER.debug(
+            "Did not skip specified bytes while retrieving resource."
+                + " Bytes to skip: {} -- Skipped Bytes: {}",
+            bytesToSkip,
+            bytesSkipped);
+      }
+    }
+  }
 }
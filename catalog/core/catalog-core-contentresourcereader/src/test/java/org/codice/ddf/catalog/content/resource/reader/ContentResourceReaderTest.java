@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.catalog.content.resource.reader;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ddf.catalog.content.StorageProvider;
+import ddf.catalog.content.data.ContentItem;
+import ddf.catalog.content.operation.ReadStorageRequest;
+import ddf.catalog.content.operation.ReadStorageResponse;
+import ddf.catalog.operation.ResourceResponse;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ContentResourceReaderTest {
+
+  private static final String CONTENT = "0123456789";
+
+  private static final URI RESOURCE_URI = URI.create("content:3a59483ba44e403a9f0044580343007e");
+
+  private ContentItem contentItem;
+
+  private ContentResourceReader contentResourceReader;
+
+  @Before
+  public void setUp() throws Exception {
+    contentItem = mock(ContentItem.class);
+    when(contentItem.getFilename()).thenReturn("content.txt");
+    when(contentItem.getInputStream()).thenReturn(contentStream());
+
+    ReadStorageResponse readResponse = mock(ReadStorageResponse.class);
+    when(readResponse.getContentItem()).thenReturn(contentItem);
+    StorageProvider storageProvider = mock(StorageProvider.class);
+    when(storageProvider.read(any(ReadStorageRequest.class))).thenReturn(readResponse);
+
+    contentResourceReader = new ContentResourceReader(Collections.singletonList(storageProvider));
+  }
+
+  @Test
+  public void testNoBytesToSkip() throws Exception {
+    assertThat(retrieve(Collections.emptyMap()), is(CONTENT));
+  }
+
+  @Test
+  public void testSkipZeroBytes() throws Exception {
+    assertThat(retrieve(bytesToSkip("0")), is(CONTENT));
+  }
+
+  @Test
+  public void testSkipBytes() throws Exception {
+    assertThat(retrieve(bytesToSkip("4")), is("456789"));
+  }
+
+  @Test
+  public void testSkipBytesWhenStreamSkipsPartially() throws Exception {
+    when(contentItem.getInputStream())
+        .thenReturn(
+            new FilterInputStream(contentStream()) {
+              @Override
+              public long skip(long n) throws IOException {
+                return super.skip(Math.min(n, 2));
+              }
+            });
+
+    assertThat(retrieve(bytesToSkip("7")), is("789"));
+  }
+
+  @Test
+  public void testSkipBytesWhenStreamDoesNotSkip() throws Exception {
+    when(contentItem.getInputStream())
+        .thenReturn(
+            new FilterInputStream(contentStream()) {
+              @Override
+              public long skip(long n) {
+                return 0;
+              }
+            });
+
+    assertThat(retrieve(bytesToSkip("3")), is("3456789"));
+  }
+
+  @Test
+  public void testSkipBytesPastEndOfStream() throws Exception {
+    assertThat(retrieve(bytesToSkip("20")), is(""));
+  }
+
+  private String retrieve(Map<String, Serializable> arguments) throws Exception {
+    ResourceResponse response = contentResourceReader.retrieveResource(RESOURCE_URI, arguments);
+    try (InputStream is = response.getResource().getInputStream()) {
+      return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private static Map<String, Serializable> bytesToSkip(String bytesToSkip) {
+    return Collections.singletonMap("BytesToSkip", bytesToSkip);
+  }
+
+  private static InputStream contentStream() {
+    return new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.UTF_8));
+  }
+}
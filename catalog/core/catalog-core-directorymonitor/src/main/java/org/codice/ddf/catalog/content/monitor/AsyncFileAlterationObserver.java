@@ -17,12 +17,20 @@
 
 import com.google.common.annotations.VisibleForTesting;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.apache.commons.io.FileUtils;
@@ -44,6 +52,14 @@
  * <p>if there are files being processed or a thread already inside {@code checkAndNotify()}, check
  * and notify will immediately return false
  *
+ * <p>When file system events are enabled with {@link #enableFileSystemEvents(long)}, only the
+ * files the file system reported as changed are checked, so the cost of a poll depends on the
+ * number of changes instead of the size of the monitored directory. The whole directory is still
+ * compared on the first poll, whenever events were lost, and once every reconciliation interval.
+ *
+ * <p>When the state is persisted to an {@link AsyncFileEntryStore}, only the directories whose
+ * children changed are written once the files finished processing, instead of the whole tree.
+ *
  * <p>Known Limitations:
  *
  * <ul>
@@ -65,28 +81,60 @@ public class AsyncFileAlterationObserver {
   private AsyncFileAlterationListener listener = null;
   private final Set<AsyncFileEntry> processing = ConcurrentHashMap.newKeySet();
   private final Object listenerLock = new Object();
-  private final ObjectPersistentStore serializer;
+  @Nullable private final ObjectPersistentStore serializer;
+  @Nullable private final AsyncFileEntryStore entryStore;
+  //  Directories whose children changed since the state was last stored, null if removed
+  private final Map<File, AsyncFileEntry> changedDirectories =
+      Collections.synchronizedMap(new HashMap<>());
   private final Object processingLock = new Object();
 
   private Timer timer;
 
   private boolean isProcessing = false;
 
+  @Nullable private FileSystemEventWatcher eventWatcher;
+
+  private long reconciliationIntervalNanos;
+
+  private long lastReconciliation;
+
+  private boolean reconciled = false;
+
+  //  Files whose processing failed in event mode, checked again on the next poll
+  private final Set<Path> retries = ConcurrentHashMap.newKeySet();
+
   public AsyncFileAlterationObserver(File fileToObserve, ObjectPersistentStore serializer) {
     if (fileToObserve == null || serializer == null) {
       throw new IllegalArgumentException(NULL_ARG_MSG);
     }
     this.serializer = serializer;
+    this.entryStore = null;
     rootFile = new AsyncFileEntry(fileToObserve);
   }
 
-  private AsyncFileAlterationObserver(AsyncFileEntry entry, ObjectPersistentStore serializer) {
+  private AsyncFileAlterationObserver(
+      AsyncFileEntry entry,
+      @Nullable ObjectPersistentStore serializer,
+      @Nullable AsyncFileEntryStore entryStore) {
     if (entry == null) {
       throw new IllegalArgumentException(NULL_ARG_MSG);
     }
     rootFile = entry;
-    rootFile.initialize();
     this.serializer = serializer;
+    this.entryStore = entryStore;
+  }
+
+  /**
+   * @param fileToObserve
+   * @param entryStore
+   * @return a new AsyncFileAlterationObserver that persists its state to the {@code entryStore}
+   */
+  public static AsyncFileAlterationObserver create(
+      File fileToObserve, AsyncFileEntryStore entryStore) {
+    if (fileToObserve == null || entryStore == null) {
+      throw new IllegalArgumentException(NULL_ARG_MSG);
+    }
+    return new AsyncFileAlterationObserver(new AsyncFileEntry(fileToObserve), null, entryStore);
   }
 
   /**
@@ -104,7 +152,37 @@ private AsyncFileAlterationObserver(AsyncFileEntry entry, ObjectPersistentStore
     if (temp == null) {
       return null;
     }
-    return new AsyncFileAlterationObserver(temp, store);
+    temp.initialize();
+    return new AsyncFileAlterationObserver(temp, store, null);
+  }
+
+  /**
+   * @param observedFile
+   * @param entryStore
+   * @param legacyStore store of the state persisted as a single snapshot, which is moved to the
+   *     {@code entryStore} if the {@code entryStore} has no state yet
+   * @return returns a AsyncFileAlterationObserver if there was one stored by either store.
+   *     Otherwise returns {@code null}
+   */
+  public static @Nullable AsyncFileAlterationObserver load(
+      File observedFile,
+      AsyncFileEntryStore entryStore,
+      @Nullable ObjectPersistentStore legacyStore) {
+    if (observedFile == null || entryStore == null) {
+      throw new IllegalArgumentException(NULL_ARG_MSG);
+    }
+    AsyncFileEntry root = entryStore.loadRoot();
+    if (root == null && legacyStore != null) {
+      root = legacyStore.load(observedFile.getName(), AsyncFileEntry.class);
+      if (root != null) {
+        root.initialize();
+        entryStore.storeAll(root);
+      }
+    }
+    if (root == null) {
+      return null;
+    }
+    return new AsyncFileAlterationObserver(root, null, entryStore);
   }
 
   /**
@@ -115,7 +193,11 @@ private AsyncFileAlterationObserver(AsyncFileEntry entry, ObjectPersistentStore
    */
   public void initialize() throws IllegalStateException {
     initChildEntries(rootFile);
-    serializer.store(rootFile.getName(), rootFile);
+    if (entryStore != null) {
+      entryStore.storeAll(rootFile);
+    } else {
+      serializer.store(rootFile.getName(), rootFile);
+    }
   }
 
   /**
@@ -130,13 +212,41 @@ public void initializePeriodicLogging() {
     }
   }
 
+  /**
+   * Checks only the files reported as changed by the file system on each poll, instead of comparing
+   * the whole monitored directory. The whole directory is still compared periodically to catch the
+   * changes the file system does not report, such as changes made by other hosts to a network
+   * mount.
+   *
+   * @param reconciliationIntervalMillis time between the comparisons of the whole directory
+   * @throws IOException if the file system cannot watch the monitored directory
+   */
+  public void enableFileSystemEvents(long reconciliationIntervalMillis) throws IOException {
+    if (eventWatcher == null) {
+      eventWatcher = new FileSystemEventWatcher(rootFile.getFile().toPath());
+    }
+    reconciliationIntervalNanos = TimeUnit.MILLISECONDS.toNanos(reconciliationIntervalMillis);
+  }
+
   public void destroy() {
     rootFile.destroy();
 
+    if (eventWatcher != null) {
+      try {
+        eventWatcher.close();
+      } catch (IOException e) {
+        LOGGER.debug("Unable to close the watch service of {}", rootFile.getName(), e);
+      }
+    }
+
     if (timer != null) {
       timer.cancel();
       timer.purge();
     }
+
+    if (entryStore != null) {
+      entryStore.close();
+    }
   }
 
   public void setListener(final AsyncFileAlterationListener listener) {
@@ -181,7 +291,13 @@ public boolean checkAndNotify() {
 
     /* fire directory/file events */
     if (rootFile.checkNetwork()) {
-      checkAndNotify(rootFile, rootFile.getChildren(), listFiles(rootFile.getFile()), listenerCopy);
+      Set<Path> changes = pollChanges();
+      if (changes != null) {
+        checkAndNotify(changes, listenerCopy);
+      } else {
+        checkAndNotify(
+            rootFile, rootFile.getChildren(), listFiles(rootFile.getFile()), listenerCopy);
+      }
     } else {
       //  If we can't connect to the network then the file doesn't exist to us now.
       LOGGER.debug(
@@ -239,12 +355,14 @@ private void commitCreate(AsyncFileEntry entry, boolean success) {
       if (success) {
         entry.commit();
         entry.getParent().ifPresent(e -> e.addChild(entry));
+        entry.getParent().ifPresent(this::childrenChanged);
         LOGGER.debug(
             "File {} committed to {}",
             entry.getName(),
             entry.getParent().map(AsyncFileEntry::getName).orElse("parent"));
       } else {
         LOGGER.debug("Create task failed for {}", entry.getName());
+        retryOnNextPoll(entry);
       }
     } finally {
       onFinish(entry);
@@ -284,9 +402,11 @@ private void commitMatch(AsyncFileEntry entry, boolean success) {
       if (success) {
         LOGGER.trace("commitMatch({},{}): Starting...", entry.getName(), success);
         entry.commit();
+        entry.getParent().ifPresent(this::childrenChanged);
         LOGGER.debug("{} committed", entry.getName());
       } else {
         LOGGER.debug("Match task failed for {}", entry.getName());
+        retryOnNextPoll(entry);
       }
     } finally {
       onFinish(entry);
@@ -326,6 +446,10 @@ private void commitDelete(AsyncFileEntry entry, boolean success) {
     try {
       if (success) {
         entry.getParent().ifPresent(e -> e.removeChild(entry));
+        entry.getParent().ifPresent(this::childrenChanged);
+        if (entry.isDirectory()) {
+          directoryRemoved(entry);
+        }
         entry.destroy();
         LOGGER.debug(
             "{} was removed from {}",
@@ -333,6 +457,7 @@ private void commitDelete(AsyncFileEntry entry, boolean success) {
             entry.getParent().map(AsyncFileEntry::getName).orElse("parent"));
       } else {
         LOGGER.debug("Delete task failed for {}", entry.getName());
+        retryOnNextPoll(entry);
       }
     } finally {
       onFinish(entry);
@@ -382,6 +507,111 @@ private void checkAndNotify(
     }
   }
 
+  /**
+   * Checks the files reported as changed by the file system.
+   *
+   * @param changes the changed files, sorted so that a directory comes before its content
+   */
+  private void checkAndNotify(Set<Path> changes, final AsyncFileAlterationListener listenerCopy) {
+    Path root = rootFile.getFile().toPath();
+    for (Path change : changes) {
+      Path directory = change.getParent();
+      if (directory == null || !directory.startsWith(root)) {
+        continue;
+      }
+
+      //  The content of a directory that is not known yet is created along with the directory
+      getEntry(root.relativize(directory))
+          .ifPresent(parent -> checkAndNotify(parent, change.toFile(), listenerCopy));
+    }
+  }
+
+  /**
+   * Compares a single file to its snapshot state.
+   *
+   * @param parent The parent directory (Wrapped in a AsyncFileEntry)
+   * @param file The file reported as changed
+   */
+  private void checkAndNotify(
+      final AsyncFileEntry parent,
+      final File file,
+      final AsyncFileAlterationListener listenerCopy) {
+    Optional<AsyncFileEntry> previous = parent.getChild(file);
+    AsyncFileEntry entry = previous.orElseGet(() -> new AsyncFileEntry(parent, file));
+    if (processing.contains(entry)) {
+      //  Already being processed along with its directory
+      return;
+    }
+
+    if (!previous.isPresent()) {
+      if (file.exists()) {
+        if (file.isDirectory()) {
+          eventWatcher.register(file.toPath());
+        }
+        doCreate(entry, listenerCopy);
+      }
+    } else if (file.exists()) {
+      doMatch(entry, listenerCopy);
+    } else if (entry.checkNetwork()) {
+      checkAndNotify(entry, entry.getChildren(), FileUtils.EMPTY_FILE_ARRAY, listenerCopy);
+      doDelete(entry, listenerCopy);
+    }
+  }
+
+  /**
+   * @param relativePath path of a directory relative to the monitored directory
+   * @return the entry of the directory, if it is known
+   */
+  private Optional<AsyncFileEntry> getEntry(Path relativePath) {
+    AsyncFileEntry entry = rootFile;
+    for (Path name : relativePath) {
+      if (name.toString().isEmpty()) {
+        continue;
+      }
+      Optional<AsyncFileEntry> child = entry.getChild(new File(entry.getFile(), name.toString()));
+      if (!child.isPresent()) {
+        return Optional.empty();
+      }
+      entry = child.get();
+    }
+    return Optional.of(entry);
+  }
+
+  /**
+   * @return the files changed since the last poll, or {@code null} if the whole directory has to be
+   *     compared
+   */
+  @Nullable
+  private Set<Path> pollChanges() {
+    if (eventWatcher == null) {
+      return null;
+    }
+
+    Set<Path> changes = eventWatcher.pollChanges();
+    long now = System.nanoTime();
+    boolean reconciliationDue =
+        !reconciled || now - lastReconciliation >= reconciliationIntervalNanos;
+    if (changes == null || reconciliationDue) {
+      LOGGER.debug("Comparing the whole monitored directory {}", rootFile.getName());
+      reconciled = true;
+      lastReconciliation = now;
+      retries.clear();
+      return null;
+    }
+
+    for (Iterator<Path> iterator = retries.iterator(); iterator.hasNext(); ) {
+      changes.add(iterator.next());
+      iterator.remove();
+    }
+    return changes;
+  }
+
+  private void retryOnNextPoll(AsyncFileEntry entry) {
+    if (eventWatcher != null) {
+      retries.add(entry.getFile().toPath());
+    }
+  }
+
   /**
    * Note: returns a new Array to avoid sync access exceptions
    *
@@ -420,12 +650,40 @@ private void onFinish(AsyncFileEntry entry) {
       processing.remove(entry);
       if (processing.isEmpty()) {
         LOGGER.debug("All files finished processing");
-        serializer.store(rootFile.getName(), rootFile);
+        store();
         isProcessing = false;
       }
     }
   }
 
+  private void childrenChanged(AsyncFileEntry directory) {
+    if (entryStore != null) {
+      changedDirectories.put(directory.getFile(), directory);
+    }
+  }
+
+  private void directoryRemoved(AsyncFileEntry directory) {
+    if (entryStore != null) {
+      changedDirectories.put(directory.getFile(), null);
+    }
+  }
+
+  private void store() {
+    if (entryStore == null) {
+      serializer.store(rootFile.getName(), rootFile);
+      return;
+    }
+
+    Map<File, AsyncFileEntry> changes;
+    synchronized (changedDirectories) {
+      changes = new HashMap<>(changedDirectories);
+      changedDirectories.clear();
+    }
+    if (!changes.isEmpty()) {
+      entryStore.store(changes);
+    }
+  }
+
   private class LogProcessing extends TimerTask {
 
     /** Log files still in processing at scheduled intervals */
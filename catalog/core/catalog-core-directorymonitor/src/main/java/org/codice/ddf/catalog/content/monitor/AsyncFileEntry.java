@@ -49,6 +49,8 @@ public class AsyncFileEntry implements Comparable<AsyncFileEntry>, Serializable
   private final ConcurrentSkipListSet<AsyncFileEntry> children = new ConcurrentSkipListSet<>();
   //  Leaving transient to avoid loops
   @Nullable private transient AsyncFileEntry parent;
+  //  Where the children are loaded from the first time they are needed, if they are not loaded yet
+  @Nullable private transient volatile AsyncFileEntryStore childrenStore;
 
   private String name;
 
@@ -62,6 +64,23 @@ public AsyncFileEntry(@Nullable AsyncFileEntry parent, File file) {
     refresh();
   }
 
+  /** Restores an entry from the snapshot taken when it was last committed. */
+  AsyncFileEntry(
+      AsyncFileEntry parent,
+      File file,
+      boolean exists,
+      long lastModified,
+      boolean directory,
+      long length) {
+    this.parent = parent;
+    contentFile = file;
+    name = snapName();
+    this.exists = exists;
+    this.lastModified = lastModified;
+    this.directory = directory;
+    this.length = length;
+  }
+
   //  For GSON deserialization
   private AsyncFileEntry() {
     contentFile = null;
@@ -97,6 +116,19 @@ public boolean isDirectory() {
     return directory;
   }
 
+  /** @return whether the file existed when the snapshot was taken */
+  public boolean exists() {
+    return exists;
+  }
+
+  public long getLastModified() {
+    return lastModified;
+  }
+
+  public long getLength() {
+    return length;
+  }
+
   public Optional<AsyncFileEntry> getParent() {
     return Optional.ofNullable(parent);
   }
@@ -139,14 +171,30 @@ public void commit() {
    * @return A new sorted List
    */
   public List<AsyncFileEntry> getChildren() {
+    loadChildren();
     return new ArrayList<>(children);
   }
 
+  /**
+   * @param file the file wrapped by the child
+   * @return the child wrapping the file, if there is one
+   */
+  public Optional<AsyncFileEntry> getChild(File file) {
+    loadChildren();
+    AsyncFileEntry child = children.ceiling(new AsyncFileEntry(this, file));
+    if (child != null && child.compareToFile(file) == 0) {
+      return Optional.of(child);
+    }
+    return Optional.empty();
+  }
+
   public void addChild(AsyncFileEntry child) {
+    loadChildren();
     children.add(child);
   }
 
   public void removeChild(AsyncFileEntry child) {
+    loadChildren();
     children.remove(child);
   }
 
@@ -178,9 +226,19 @@ public int compareToFile(File file) {
   }
 
   public void destroy() {
+    childrenStore = null;
     children.clear();
   }
 
+  /**
+   * Loads the children from a store the first time they are needed, instead of right away.
+   *
+   * @param store the store the entry was loaded from
+   */
+  void loadChildrenFrom(AsyncFileEntryStore store) {
+    childrenStore = store;
+  }
+
   //  Serializing to JSON doesn't allow infinite loops. Thus we
   //  Make the parent null and allow users to re-initialize after loading
   //  from a json.
@@ -220,9 +278,23 @@ private String snapName() {
   }
 
   public boolean hasChildren() {
+    loadChildren();
     return !children.isEmpty();
   }
 
+  private void loadChildren() {
+    if (childrenStore == null) {
+      return;
+    }
+    synchronized (this) {
+      AsyncFileEntryStore store = childrenStore;
+      if (store != null) {
+        children.addAll(store.loadChildren(this));
+        childrenStore = null;
+      }
+    }
+  }
+
   private void refresh() {
     name = snapName();
     exists = snapExist();
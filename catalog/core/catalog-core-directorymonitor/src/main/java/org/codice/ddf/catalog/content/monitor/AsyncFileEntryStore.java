@@ -0,0 +1,502 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.catalog.content.monitor;
+
+import static ddf.catalog.Constants.CDM_LOGGER_NAME;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import javax.annotation.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.codice.ddf.configuration.AbsolutePathResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persists the state of an {@link AsyncFileAlterationObserver} as an append-only journal of
+ * directory records, instead of a single snapshot of the whole tree.
+ *
+ * <p>Each record holds the snapshots of the children of one directory, keyed by the path of the
+ * directory relative to the monitored directory. When files change, only the records of the
+ * directories that contain them are appended, and a later record replaces the earlier ones with the
+ * same key. Once most of the journal is made of replaced records, it is compacted by rewriting only
+ * the latest record of each directory.
+ *
+ * <p>Opening the journal only indexes the records. The children of a directory are read the first
+ * time they are needed, so a large tree is not loaded as a whole on startup.
+ *
+ * <p>Every record is checksummed. A record that was only partially written when the process
+ * stopped is dropped, along with anything after it.
+ */
+public class AsyncFileEntryStore implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CDM_LOGGER_NAME);
+
+  private static final String JOURNAL_SUFFIX = ".journal";
+
+  private static final String COMPACTION_SUFFIX = ".compacting";
+
+  private static final byte DIRECTORY = 1;
+
+  private static final byte REMOVED = 2;
+
+  private static final byte EXISTS_FLAG = 1;
+
+  private static final byte DIRECTORY_FLAG = 2;
+
+  //  Length and checksum of the record body
+  private static final int HEADER_SIZE = 8;
+
+  /** Journals smaller than this are not compacted, however many records were replaced. */
+  private static final long MIN_COMPACTION_SIZE = 1024L * 1024L;
+
+  private final Path rootPath;
+
+  private final Path journal;
+
+  private final Map<String, Location> directories = new HashMap<>();
+
+  @Nullable private FileChannel channel;
+
+  private long journalSize;
+
+  private long liveSize;
+
+  /**
+   * @param root the monitored directory
+   * @param journal the file the journal is written to
+   */
+  public AsyncFileEntryStore(File root, Path journal) {
+    this.rootPath = root.toPath();
+    this.journal = journal;
+  }
+
+  /**
+   * @param mapName name of the directory under {@code data} that holds the journal
+   * @param root the monitored directory
+   * @return a store for the state of the monitored directory
+   */
+  public static AsyncFileEntryStore forDirectory(String mapName, File root) {
+    Path journal =
+        Paths.get(
+            new AbsolutePathResolver("data").getPath(),
+            mapName,
+            DigestUtils.sha1Hex(root.getAbsolutePath()) + JOURNAL_SUFFIX);
+    return new AsyncFileEntryStore(root, journal);
+  }
+
+  /**
+   * @return the monitored directory, whose children are read from the journal when they are first
+   *     needed, or {@code null} if nothing was stored yet
+   */
+  @Nullable
+  public synchronized AsyncFileEntry loadRoot() {
+    try {
+      open();
+    } catch (IOException e) {
+      LOGGER.debug("Unable to open the journal {}", journal, e);
+      return null;
+    }
+    if (directories.isEmpty()) {
+      return null;
+    }
+
+    AsyncFileEntry root = new AsyncFileEntry(rootPath.toFile());
+    root.loadChildrenFrom(this);
+    return root;
+  }
+
+  /**
+   * Appends the current children of directories that changed. Removing a directory also removes
+   * the directories under it.
+   *
+   * @param changes the directories whose children changed, with a {@code null} value for the
+   *     directories that were removed
+   */
+  public void store(Map<File, AsyncFileEntry> changes) {
+    List<String> removed = new ArrayList<>();
+    for (Map.Entry<File, AsyncFileEntry> change : changes.entrySet()) {
+      if (change.getValue() == null) {
+        removed.add(keyOf(change.getKey()));
+      }
+    }
+
+    //  The removals go first so that they do not remove the directories stored along with them
+    List<Record> records = new ArrayList<>(changes.size());
+    for (String key : removed) {
+      records.add(Record.removed(key));
+    }
+    for (Map.Entry<File, AsyncFileEntry> change : changes.entrySet()) {
+      String key = keyOf(change.getKey());
+      if (change.getValue() != null && removed.stream().noneMatch(r -> isUnder(key, r))) {
+        records.add(Record.directory(key, change.getValue().getChildren()));
+      }
+    }
+    append(records);
+  }
+
+  /**
+   * Replaces the journal with the current state of the whole tree. Must not be called while the
+   * tree is being changed.
+   *
+   * @param root the monitored directory
+   */
+  public synchronized void storeAll(AsyncFileEntry root) {
+    Path replacement = journal.resolveSibling(journal.getFileName() + COMPACTION_SUFFIX);
+    try {
+      Files.createDirectories(journal.getParent());
+      try (FileChannel out = openForWrite(replacement)) {
+        directories.clear();
+        liveSize = 0;
+        journalSize = writeDirectory(out, root, 0);
+        out.force(true);
+      }
+      swap(replacement);
+    } catch (IOException e) {
+      LOGGER.debug("Unable to write the journal {}", journal, e);
+      close();
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        LOGGER.debug("Unable to close the journal {}", journal, e);
+      }
+      channel = null;
+    }
+  }
+
+  /**
+   * @param directory a directory loaded from this store
+   * @return the children of the directory
+   */
+  synchronized List<AsyncFileEntry> loadChildren(AsyncFileEntry directory) {
+    try {
+      open();
+      Location location = directories.get(keyOf(directory.getFile()));
+      if (location == null) {
+        return Collections.emptyList();
+      }
+
+      ByteBuffer body = ByteBuffer.allocate(location.length - HEADER_SIZE);
+      readFully(channel, body, location.offset + HEADER_SIZE);
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(body.array()));
+      in.readByte();
+      in.readUTF();
+
+      int count = in.readInt();
+      List<AsyncFileEntry> children = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        String name = in.readUTF();
+        long lastModified = in.readLong();
+        long length = in.readLong();
+        byte flags = in.readByte();
+        AsyncFileEntry child =
+            new AsyncFileEntry(
+                directory,
+                new File(directory.getFile(), name),
+                (flags & EXISTS_FLAG) != 0,
+                lastModified,
+                (flags & DIRECTORY_FLAG) != 0,
+                length);
+        if (child.isDirectory()) {
+          child.loadChildrenFrom(this);
+        }
+        children.add(child);
+      }
+      return children;
+    } catch (IOException e) {
+      LOGGER.info(
+          "Unable to load the state of [{}], its content will be handled as new",
+          directory.getName(),
+          e);
+      return Collections.emptyList();
+    }
+  }
+
+  /** @return the position after the records of the directory and all the directories under it */
+  private long writeDirectory(FileChannel out, AsyncFileEntry directory, long position)
+      throws IOException {
+    List<AsyncFileEntry> children = directory.getChildren();
+    position = write(out, Record.directory(keyOf(directory.getFile()), children), position);
+    for (AsyncFileEntry child : children) {
+      if (child.isDirectory()) {
+        position = writeDirectory(out, child, position);
+      }
+    }
+    return position;
+  }
+
+  private synchronized void append(List<Record> records) {
+    try {
+      open();
+      long position = journalSize;
+      for (Record record : records) {
+        position = write(channel, record, position);
+      }
+      channel.force(false);
+      journalSize = position;
+
+      if (journalSize > MIN_COMPACTION_SIZE && journalSize > 2 * liveSize) {
+        compact();
+      }
+    } catch (IOException e) {
+      LOGGER.debug("Unable to append to the journal {}", journal, e);
+    }
+  }
+
+  /** Rewrites the journal with only the latest record of each directory. */
+  private void compact() throws IOException {
+    LOGGER.debug("Compacting {} of {} bytes to {} bytes", journal, journalSize, liveSize);
+    Path compacted = journal.resolveSibling(journal.getFileName() + COMPACTION_SUFFIX);
+    Map<String, Location> moved = new HashMap<>();
+    long position = 0;
+
+    try (FileChannel out = openForWrite(compacted)) {
+      for (Map.Entry<String, Location> directory : directories.entrySet()) {
+        Location location = directory.getValue();
+        long copied = 0;
+        while (copied < location.length) {
+          copied += channel.transferTo(location.offset + copied, location.length - copied, out);
+        }
+        moved.put(directory.getKey(), new Location(position, location.length));
+        position += location.length;
+      }
+      out.force(true);
+    }
+
+    directories.clear();
+    directories.putAll(moved);
+    journalSize = position;
+    liveSize = position;
+    swap(compacted);
+  }
+
+  private void swap(Path replacement) throws IOException {
+    close();
+    Files.move(
+        replacement, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    channel = FileChannel.open(journal, StandardOpenOption.READ, StandardOpenOption.WRITE);
+  }
+
+  private void open() throws IOException {
+    if (channel != null) {
+      return;
+    }
+
+    Files.createDirectories(journal.getParent());
+    channel =
+        FileChannel.open(
+            journal, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    index();
+  }
+
+  /** Indexes the valid records of the journal and drops anything after the last one. */
+  private void index() throws IOException {
+    directories.clear();
+    liveSize = 0;
+
+    long end = channel.size();
+    long position = 0;
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    while (position + HEADER_SIZE <= end) {
+      header.clear();
+      readFully(channel, header, position);
+      header.flip();
+      int length = header.getInt();
+      int checksum = header.getInt();
+      if (length <= 0 || position + HEADER_SIZE + length > end) {
+        break;
+      }
+
+      ByteBuffer body = ByteBuffer.allocate(length);
+      readFully(channel, body, position + HEADER_SIZE);
+      if (checksum(body.array()) != checksum) {
+        break;
+      }
+
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(body.array()));
+      byte type = in.readByte();
+      index(in.readUTF(), type, new Location(position, HEADER_SIZE + length));
+      position += HEADER_SIZE + length;
+    }
+
+    if (position < end) {
+      LOGGER.info("Dropping the incomplete end of the journal {}", journal);
+      channel.truncate(position);
+    }
+    journalSize = position;
+  }
+
+  private void index(String key, byte type, Location location) {
+    Location replaced =
+        type == DIRECTORY ? directories.put(key, location) : directories.remove(key);
+    if (replaced != null) {
+      liveSize -= replaced.length;
+    }
+    if (type == DIRECTORY) {
+      liveSize += location.length;
+      return;
+    }
+
+    //  The directories under a removed directory were removed along with it
+    Iterator<Map.Entry<String, Location>> iterator = directories.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, Location> directory = iterator.next();
+      if (isUnder(directory.getKey(), key)) {
+        liveSize -= directory.getValue().length;
+        iterator.remove();
+      }
+    }
+  }
+
+  /** @return the position after the record */
+  private long write(FileChannel out, Record record, long position) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + record.body.length);
+    buffer.putInt(record.body.length);
+    buffer.putInt(checksum(record.body));
+    buffer.put(record.body);
+    buffer.flip();
+
+    long end = position;
+    while (buffer.hasRemaining()) {
+      end += out.write(buffer, end);
+    }
+    index(record.key, record.type, new Location(position, buffer.limit()));
+    return end;
+  }
+
+  private String keyOf(File file) {
+    return rootPath.relativize(file.toPath()).toString();
+  }
+
+  /** @return whether the directory with the key {@code key} is under the one with {@code parent} */
+  private static boolean isUnder(String key, String parent) {
+    return parent.isEmpty()
+        ? !key.isEmpty()
+        : key.length() > parent.length()
+            && key.startsWith(parent)
+            && key.charAt(parent.length()) == File.separatorChar;
+  }
+
+  private static FileChannel openForWrite(Path path) throws IOException {
+    return FileChannel.open(
+        path,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE);
+  }
+
+  private static void readFully(FileChannel in, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = in.read(buffer, position);
+      if (read < 0) {
+        throw new EOFException();
+      }
+      position += read;
+    }
+  }
+
+  private static int checksum(byte[] body) {
+    CRC32 crc = new CRC32();
+    crc.update(body, 0, body.length);
+    return (int) crc.getValue();
+  }
+
+  /** Where a record is in the journal, including its header. */
+  private static class Location {
+
+    private final long offset;
+
+    private final int length;
+
+    private Location(long offset, int length) {
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  /** A record that is about to be written. */
+  private static class Record {
+
+    private final String key;
+
+    private final byte type;
+
+    private final byte[] body;
+
+    private Record(String key, byte type, byte[] body) {
+      this.key = key;
+      this.type = type;
+      this.body = body;
+    }
+
+    private static Record directory(String key, List<AsyncFileEntry> children) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (DataOutputStream out = new DataOutputStream(bytes)) {
+        out.writeByte(DIRECTORY);
+        out.writeUTF(key);
+        out.writeInt(children.size());
+        for (AsyncFileEntry child : children) {
+          out.writeUTF(child.getName());
+          out.writeLong(child.getLastModified());
+          out.writeLong(child.getLength());
+          out.writeByte(
+              (child.exists() ? EXISTS_FLAG : 0) | (child.isDirectory() ? DIRECTORY_FLAG : 0));
+        }
+      } catch (IOException e) {
+        //  Writing to a byte array does not fail
+        throw new IllegalStateException(e);
+      }
+      return new Record(key, DIRECTORY, bytes.toByteArray());
+    }
+
+    private static Record removed(String key) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (DataOutputStream out = new DataOutputStream(bytes)) {
+        out.writeByte(REMOVED);
+        out.writeUTF(key);
+      } catch (IOException e) {
+        //  Writing to a byte array does not fail
+        throw new IllegalStateException(e);
+      }
+      return new Record(key, REMOVED, bytes.toByteArray());
+    }
+  }
+}
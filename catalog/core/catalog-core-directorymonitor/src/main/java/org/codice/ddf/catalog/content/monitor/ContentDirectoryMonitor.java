@@ -69,6 +69,8 @@ public class ContentDirectoryMonitor implements DirectoryMonitor {
 
   private static final int MIN_READLOCK_INTERVAL_MILLISECONDS = 100;
 
+  private static final int MIN_RECONCILIATION_INTERVAL_MINUTES = 1;
+
   private Security security;
 
   private final int maxRetries;
@@ -97,6 +99,10 @@ public class ContentDirectoryMonitor implements DirectoryMonitor {
 
   private Integer readLockIntervalMilliseconds;
 
+  private boolean useFileSystemEvents = false;
+
+  private Integer reconciliationIntervalMinutes = 60;
+
   Processor systemSubjectBinder;
 
   /**
@@ -173,6 +179,35 @@ public Integer getReadLockIntervalMilliseconds() {
     return readLockIntervalMilliseconds;
   }
 
+  /**
+   * Set whether an in place monitor of a file system directory checks the files reported by file
+   * system events, instead of comparing the whole directory on every poll.
+   *
+   * @param useFileSystemEvents
+   */
+  public void setUseFileSystemEvents(Boolean useFileSystemEvents) {
+    this.useFileSystemEvents = Boolean.TRUE.equals(useFileSystemEvents);
+  }
+
+  public boolean isUseFileSystemEvents() {
+    return useFileSystemEvents;
+  }
+
+  /**
+   * Set the time between the comparisons of the whole directory when file system events are used.
+   * If the reconciliationIntervalMinutes is less than 1, set it to 1.
+   *
+   * @param reconciliationIntervalMinutes
+   */
+  public void setReconciliationIntervalMinutes(Integer reconciliationIntervalMinutes) {
+    this.reconciliationIntervalMinutes =
+        Math.max(reconciliationIntervalMinutes, MIN_RECONCILIATION_INTERVAL_MINUTES);
+  }
+
+  public Integer getReconciliationIntervalMinutes() {
+    return reconciliationIntervalMinutes;
+  }
+
   /**
    * Invoked after all of the setter methods have been called (for initial route creation), and also
    * called whenever an existing route is updated.
@@ -241,6 +276,11 @@ public void updateCallback(Map<String, Object> properties) {
       setProcessingMechanism((String) properties.get("processingMechanism"));
       setNumThreads((Integer) properties.get("numThreads"));
       setReadLockIntervalMilliseconds((Integer) properties.get("readLockIntervalMilliseconds"));
+      setUseFileSystemEvents((Boolean) properties.get("useFileSystemEvents"));
+      Integer reconciliationInterval = (Integer) properties.get("reconciliationIntervalMinutes");
+      if (reconciliationInterval != null) {
+        setReconciliationIntervalMinutes(reconciliationInterval);
+      }
 
       String[] parameterArray = (String[]) properties.get(Constants.ATTRIBUTE_OVERRIDES_KEY);
       if (parameterArray != null) {
@@ -389,6 +429,10 @@ public void configure() throws Exception {
             stringBuilder = new StringBuilder("durable:" + monitoredDirectory);
             if (isDav) {
               stringBuilder.append("?isDav=true");
+            } else if (useFileSystemEvents) {
+              stringBuilder.append("?fileSystemEvents=true");
+              stringBuilder.append("&reconciliationIntervalMinutes=");
+              stringBuilder.append(reconciliationIntervalMinutes);
             }
             break;
         }
@@ -15,6 +15,7 @@
 
 import java.io.File;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.apache.camel.component.file.GenericFileComponent;
 import org.apache.camel.component.file.GenericFileConfiguration;
 import org.apache.camel.component.file.GenericFileEndpoint;
@@ -23,6 +24,8 @@
 
 public class DurableFileComponent extends GenericFileComponent<File> {
 
+  private static final int DEFAULT_RECONCILIATION_INTERVAL_MINUTES = 60;
+
   @Override
   protected GenericFileEndpoint<File> buildFileEndpoint(
       String uri, String remaining, Map parameters) throws Exception {
@@ -42,6 +45,14 @@ protected GenericFileEndpoint<File> buildFileEndpoint(
     boolean isDav = Boolean.parseBoolean(davParam);
     parameters.remove("isDav");
 
+    String fileSystemEventsParam = String.valueOf(parameters.remove("fileSystemEvents"));
+    boolean fileSystemEvents = Boolean.parseBoolean(fileSystemEventsParam);
+    Object reconciliationParam = parameters.remove("reconciliationIntervalMinutes");
+    int reconciliationIntervalMinutes =
+        reconciliationParam != null
+            ? Integer.parseInt(String.valueOf(reconciliationParam))
+            : DEFAULT_RECONCILIATION_INTERVAL_MINUTES;
+
     GenericFileConfiguration config = new GenericFileConfiguration();
     File file = new File(remaining);
     if (isDav) {
@@ -49,6 +60,10 @@ protected GenericFileEndpoint<File> buildFileEndpoint(
     }
     config.setDirectory(file.getCanonicalPath());
     DurableFileEndpoint result = new DurableFileEndpoint(uri, remaining, isDav, this);
+    if (fileSystemEvents && !isDav) {
+      result.setReconciliationIntervalMillis(
+          TimeUnit.MINUTES.toMillis(reconciliationIntervalMinutes));
+    }
     result.setFile(file);
     result.setConfiguration(config);
 
@@ -53,6 +53,9 @@ public class DurableFileEndpoint extends GenericFileEndpoint<File> {
 
   private String remaining;
 
+  //  Time between full comparisons when file system events are used, or null to always compare
+  private Long reconciliationIntervalMillis;
+
   @UriPath(name = "directoryName")
   @Metadata(required = true)
   private File file;
@@ -78,15 +81,30 @@ public GenericFileConsumer<File> createConsumer(Processor processor) throws Exce
           new EventfulFileWrapperGenericFileOperations(),
           new GenericFileNoOpProcessStrategy());
     } else {
-      return new DurableFileSystemFileConsumer(
-          this,
-          remaining,
-          processor,
-          new EventfulFileWrapperGenericFileOperations(),
-          new GenericFileNoOpProcessStrategy());
+      DurableFileSystemFileConsumer consumer =
+          new DurableFileSystemFileConsumer(
+              this,
+              remaining,
+              processor,
+              new EventfulFileWrapperGenericFileOperations(),
+              new GenericFileNoOpProcessStrategy());
+      if (reconciliationIntervalMillis != null) {
+        consumer.setReconciliationIntervalMillis(reconciliationIntervalMillis);
+      }
+      return consumer;
     }
   }
 
+  /**
+   * Makes the consumer check the files reported by file system events instead of comparing the
+   * whole directory on every poll.
+   *
+   * @param reconciliationIntervalMillis time between the comparisons of the whole directory
+   */
+  void setReconciliationIntervalMillis(long reconciliationIntervalMillis) {
+    this.reconciliationIntervalMillis = reconciliationIntervalMillis;
+  }
+
   @Override
   public GenericFileProducer<File> createProducer() throws Exception {
     return null;
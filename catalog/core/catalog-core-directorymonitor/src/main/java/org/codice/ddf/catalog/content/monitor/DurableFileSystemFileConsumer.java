@@ -16,6 +16,7 @@
 import static ddf.catalog.Constants.CDM_LOGGER_NAME;
 
 import java.io.File;
+import java.io.IOException;
 import org.apache.camel.Processor;
 import org.apache.camel.component.file.GenericFileEndpoint;
 import org.apache.camel.component.file.GenericFileOperations;
@@ -33,6 +34,11 @@ public class DurableFileSystemFileConsumer extends AbstractDurableFileConsumer {
 
   private AsyncFileAlterationObserver observer;
 
+  private AsyncFileEntryStore entryStore;
+
+  //  Time between full comparisons when file system events are used, or null to always compare
+  private Long reconciliationIntervalMillis;
+
   DurableFileSystemFileConsumer(
       GenericFileEndpoint<File> endpoint,
       String remaining,
@@ -65,16 +71,41 @@ protected void initialize(String fileName) {
     }
 
     if (observer == null && fileName != null) {
+      if (entryStore == null) {
+        entryStore =
+            AsyncFileEntryStore.forDirectory(getClass().getSimpleName(), new File(fileName));
+      }
 
-      observer = AsyncFileAlterationObserver.load(new File(fileName), jsonSerializer);
+      //  State stored as a single json snapshot is moved to the entry store
+      observer = AsyncFileAlterationObserver.load(new File(fileName), entryStore, jsonSerializer);
 
       //  Backwards Compatibility
       if (observer == null && isOldVersion(fileName)) {
         observer = backwardsCompatibility(fileName);
       } else if (observer == null) {
-        observer = new AsyncFileAlterationObserver(new File(fileName), jsonSerializer);
+        observer = AsyncFileAlterationObserver.create(new File(fileName), entryStore);
         observer.initializePeriodicLogging();
       }
+
+      if (observer != null && reconciliationIntervalMillis != null) {
+        enableFileSystemEvents(fileName);
+      }
+    }
+  }
+
+  /** @param reconciliationIntervalMillis time between the comparisons of the whole directory */
+  void setReconciliationIntervalMillis(long reconciliationIntervalMillis) {
+    this.reconciliationIntervalMillis = reconciliationIntervalMillis;
+  }
+
+  private void enableFileSystemEvents(String fileName) {
+    try {
+      observer.enableFileSystemEvents(reconciliationIntervalMillis);
+    } catch (IOException | RuntimeException e) {
+      LOGGER.info(
+          "Unable to watch [{}] for file system events, comparing the whole directory instead",
+          fileName,
+          e);
     }
   }
 
@@ -87,7 +118,7 @@ private AsyncFileAlterationObserver backwardsCompatibility(String fileName) {
 
     String sha1 = DigestUtils.sha1Hex(fileName);
     AsyncFileAlterationObserver newObserver =
-        new AsyncFileAlterationObserver(new File(fileName), jsonSerializer);
+        AsyncFileAlterationObserver.create(new File(fileName), entryStore);
     FileAlterationObserver oldObserver =
         (FileAlterationObserver) fileSystemPersistenceProvider.loadFromPersistence(sha1);
 
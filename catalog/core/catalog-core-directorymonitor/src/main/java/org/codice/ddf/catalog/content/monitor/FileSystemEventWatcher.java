@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.catalog.content.monitor;
+
+import static ddf.catalog.Constants.CDM_LOGGER_NAME;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the paths that changed under a directory tree from the file system's {@link
+ * WatchService}, so they can be checked without listing the whole tree.
+ *
+ * <p>Every directory of the tree is registered on its own. Directories that are created later must
+ * be registered with {@link #register(Path)} before their content is listed, so that nothing
+ * created in between is missed.
+ *
+ * <p>Events can be lost, either because the file system dropped them or because a directory could
+ * not be registered. {@link #pollChanges()} then returns {@code null} and the caller has to compare
+ * the whole tree instead.
+ */
+class FileSystemEventWatcher implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CDM_LOGGER_NAME);
+
+  private final WatchService watchService;
+
+  private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+
+  private volatile boolean eventsLost = false;
+
+  /**
+   * @param root the root of the directory tree to watch
+   * @throws IOException if the file system cannot watch the tree
+   */
+  FileSystemEventWatcher(Path root) throws IOException {
+    watchService = root.getFileSystem().newWatchService();
+    try {
+      registerTree(root);
+    } catch (IOException | RuntimeException e) {
+      watchService.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Watches a directory and all the directories under it.
+   *
+   * @param directory a directory of the watched tree
+   */
+  void register(Path directory) {
+    try {
+      registerTree(directory);
+    } catch (IOException | RuntimeException e) {
+      LOGGER.debug("Unable to watch {}, falling back to a full scan", directory, e);
+      eventsLost = true;
+    }
+  }
+
+  /**
+   * @return the paths that were created, modified or deleted since the last call, sorted so that a
+   *     directory comes before its content, or {@code null} if events were lost since the last call
+   */
+  @Nullable
+  Set<Path> pollChanges() {
+    Set<Path> changes = new TreeSet<>();
+    boolean overflow = false;
+
+    try {
+      WatchKey key;
+      while ((key = watchService.poll()) != null) {
+        Path directory = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == OVERFLOW) {
+            overflow = true;
+          } else if (directory != null) {
+            changes.add(directory.resolve((Path) event.context()));
+          }
+        }
+        if (!key.reset()) {
+          directories.remove(key);
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      LOGGER.debug("The watch service was closed", e);
+      overflow = true;
+    }
+
+    if (overflow || eventsLost) {
+      eventsLost = false;
+      return null;
+    }
+    return changes;
+  }
+
+  @Override
+  public void close() throws IOException {
+    directories.clear();
+    watchService.close();
+  }
+
+  private void registerTree(Path directory) throws IOException {
+    Files.walkFileTree(
+        directory,
+        new SimpleFileVisitor<Path>() {
+          @Override
+          public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+              throws IOException {
+            WatchKey key = dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            directories.put(key, dir);
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+            if (Files.isDirectory(file)) {
+              throw e;
+            }
+            // the file was deleted while the tree was walked
+            return FileVisitResult.CONTINUE;
+          }
+        });
+  }
+}
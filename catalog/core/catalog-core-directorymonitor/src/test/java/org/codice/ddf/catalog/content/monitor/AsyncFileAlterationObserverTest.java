@@ -16,6 +16,7 @@
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.atMost;
 import static org.mockito.Mockito.doAnswer;
@@ -1205,6 +1206,83 @@ public void testloadNull() {
     AsyncFileAlterationObserver.load(new File("File"), null);
   }
 
+  @Test
+  public void testFileSystemEvents() throws Exception {
+    observer.enableFileSystemEvents(TimeUnit.HOURS.toMillis(1));
+    observer.checkAndNotify();
+
+    File[] files = initFiles(2, monitoredDirectory, "file00");
+    checkUntilNotified(files.length);
+    verify(fileListener, times(files.length))
+        .onFileCreate(any(File.class), any(Synchronization.class));
+
+    init();
+    changeData(files[0]);
+    checkUntilNotified(1);
+    verify(fileListener, times(1)).onFileChange(eq(files[0]), any(Synchronization.class));
+
+    init();
+    fileDelete(files[1]);
+    checkUntilNotified(1);
+    verify(fileListener, times(1)).onFileDelete(eq(files[1]), any(Synchronization.class));
+    verifyNoMoreInteractions(fileListener);
+  }
+
+  @Test
+  public void testFileSystemEventsNewDirectory() throws Exception {
+    observer.enableFileSystemEvents(TimeUnit.HOURS.toMillis(1));
+    observer.checkAndNotify();
+
+    initNestedDirectory(3, 2, 1, 0);
+    checkUntilNotified(totalSize);
+    observer.checkAndNotify();
+    verify(fileListener, times(totalSize))
+        .onFileCreate(any(File.class), any(Synchronization.class));
+
+    init();
+    File[] newFiles = initFiles(1, grandchildDir, "new00");
+    checkUntilNotified(1);
+    verify(fileListener, times(1)).onFileCreate(eq(newFiles[0]), any(Synchronization.class));
+
+    init();
+    FileUtils.deleteDirectory(childDir);
+    //  Everything but the top level file, including the new file
+    checkUntilNotified(totalSize);
+    observer.checkAndNotify();
+    verify(fileListener, times(totalSize))
+        .onFileDelete(any(File.class), any(Synchronization.class));
+    assertThat(observer.getRootFile().getChildren().size(), is(1));
+  }
+
+  @Test
+  public void testFileSystemEventsOnlyCheckReportedFiles() throws Exception {
+    File[] files = initFiles(3, monitoredDirectory, "file00");
+    observer.enableFileSystemEvents(TimeUnit.HOURS.toMillis(1));
+    observer.checkAndNotify();
+
+    init();
+    //  A file the file system did not report is not checked until the next reconciliation
+    AsyncFileEntry root = observer.getRootFile();
+    root.removeChild(root.getChild(files[0]).get());
+    observer.checkAndNotify();
+
+    verify(fileListener, never()).onFileCreate(any(File.class), any(Synchronization.class));
+  }
+
+  @Test
+  public void testFileSystemEventsReconciliation() throws Exception {
+    File[] files = initFiles(3, monitoredDirectory, "file00");
+    observer.enableFileSystemEvents(0);
+    observer.checkAndNotify();
+
+    init();
+    AsyncFileEntry root = observer.getRootFile();
+    root.removeChild(root.getChild(files[0]).get());
+    observer.checkAndNotify();
+
+    verify(fileListener, times(1)).onFileCreate(eq(files[0]), any(Synchronization.class));
+  }
+
   private void initNestedDirectory(int child, int grand, int topLevel, int gSibling)
       throws Exception {
     childDir = new File(monitoredDirectory, "child001");
@@ -1221,6 +1299,15 @@ private void initNestedDirectory(int child, int grand, int topLevel, int gSiblin
     totalSize = child + grand + topLevel + gSibling;
   }
 
+  private void checkUntilNotified(int notifications) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeout;
+    while (Mockito.mockingDetails(fileListener).getInvocations().size() < notifications
+        && System.currentTimeMillis() < deadline) {
+      observer.checkAndNotify();
+      Thread.sleep(50);
+    }
+  }
+
   private void fileDelete(File f) {
     assertThat(f.delete(), is(true));
   }
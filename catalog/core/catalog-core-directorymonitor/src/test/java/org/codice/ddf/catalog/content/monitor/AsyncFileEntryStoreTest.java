@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.catalog.content.monitor;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import org.apache.camel.spi.Synchronization;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+
+public class AsyncFileEntryStoreTest {
+
+  private static final String DATA = "The duck may swim on the lake...";
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File monitoredDirectory;
+
+  private Path journal;
+
+  private AsyncFileAlterationListener fileListener;
+
+  @Before
+  public void setup() throws IOException {
+    monitoredDirectory = temporaryFolder.newFolder("inbox");
+    journal = temporaryFolder.getRoot().toPath().resolve("state").resolve("inbox.journal");
+
+    fileListener = mock(AsyncFileAlterationListener.class);
+    doAnswer(this::complete).when(fileListener).onFileCreate(any(), any());
+    doAnswer(this::complete).when(fileListener).onFileChange(any(), any());
+    doAnswer(this::complete).when(fileListener).onFileDelete(any(), any());
+  }
+
+  @Test
+  public void testNothingStored() {
+    AsyncFileEntryStore store = new AsyncFileEntryStore(monitoredDirectory, journal);
+
+    assertThat(store.loadRoot(), is(nullValue()));
+    assertThat(AsyncFileAlterationObserver.load(monitoredDirectory, store, null), is(nullValue()));
+  }
+
+  @Test
+  public void testStoreAll() throws Exception {
+    File child = new File(monitoredDirectory, "child");
+    File file = writeFile(new File(child, "file"));
+    AsyncFileAlterationObserver observer =
+        AsyncFileAlterationObserver.create(monitoredDirectory, newStore());
+    observer.initialize();
+    observer.destroy();
+
+    AsyncFileEntry root = newStore().loadRoot();
+
+    assertThat(root, is(notNullValue()));
+    AsyncFileEntry childEntry = root.getChild(child).get();
+    assertThat(childEntry.isDirectory(), is(true));
+    AsyncFileEntry fileEntry = childEntry.getChild(file).get();
+    assertThat(fileEntry.getParent().get(), is(childEntry));
+    assertThat(fileEntry.getLength(), is((long) DATA.length()));
+    assertThat(fileEntry.hasChanged(), is(false));
+  }
+
+  @Test
+  public void testOnlyChangesAreReportedAfterRestart() throws Exception {
+    File unchanged = writeFile(new File(monitoredDirectory, "unchanged"));
+    File changed = writeFile(new File(monitoredDirectory, "child/changed"));
+    poll(AsyncFileAlterationObserver.create(monitoredDirectory, newStore()));
+
+    FileUtils.writeStringToFile(changed, "the duck.", Charset.defaultCharset());
+    File created = writeFile(new File(monitoredDirectory, "created"));
+    poll(AsyncFileAlterationObserver.load(monitoredDirectory, newStore(), null));
+
+    verify(fileListener, times(1)).onFileCreate(eq(unchanged), any(Synchronization.class));
+    verify(fileListener, times(1)).onFileCreate(eq(created), any(Synchronization.class));
+    verify(fileListener, times(1)).onFileChange(eq(changed), any(Synchronization.class));
+  }
+
+  @Test
+  public void testRemovedDirectoryIsNotRestored() throws Exception {
+    File child = new File(monitoredDirectory, "child");
+    writeFile(new File(child, "file"));
+    poll(AsyncFileAlterationObserver.create(monitoredDirectory, newStore()));
+
+    FileUtils.deleteDirectory(child);
+    poll(AsyncFileAlterationObserver.load(monitoredDirectory, newStore(), null));
+
+    //  A directory with the same name must not inherit the removed content
+    File recreated = writeFile(new File(child, "file"));
+    poll(AsyncFileAlterationObserver.load(monitoredDirectory, newStore(), null));
+
+    verify(fileListener, times(1)).onFileDelete(any(File.class), any(Synchronization.class));
+    verify(fileListener, times(2)).onFileCreate(eq(recreated), any(Synchronization.class));
+  }
+
+  @Test
+  public void testRemovedNestedDirectoryIsNotRestored() throws Exception {
+    File child = new File(monitoredDirectory, "child");
+    File grandchild = new File(child, "grandchild");
+    File file = writeFile(new File(grandchild, "file"));
+    poll(AsyncFileAlterationObserver.create(monitoredDirectory, newStore()));
+
+    FileUtils.deleteDirectory(child);
+    poll(AsyncFileAlterationObserver.load(monitoredDirectory, newStore(), null));
+
+    //  The directories under a removed directory must not inherit the removed content either
+    assertThat(grandchild.mkdirs(), is(true));
+    poll(AsyncFileAlterationObserver.load(monitoredDirectory, newStore(), null));
+    writeFile(file);
+    poll(AsyncFileAlterationObserver.load(monitoredDirectory, newStore(), null));
+
+    verify(fileListener, times(1)).onFileDelete(eq(file), any(Synchronization.class));
+    verify(fileListener, times(2)).onFileCreate(eq(file), any(Synchronization.class));
+    verify(fileListener, never()).onFileChange(any(File.class), any(Synchronization.class));
+  }
+
+  @Test
+  public void testRemovedDirectoryRemovesTheDirectoriesUnderIt() throws Exception {
+    File child = new File(monitoredDirectory, "child");
+    File grandchild = new File(child, "grandchild");
+    File file = writeFile(new File(grandchild, "file"));
+    poll(AsyncFileAlterationObserver.create(monitoredDirectory, newStore()));
+
+    FileUtils.deleteDirectory(child);
+    try (AsyncFileEntryStore store = newStore()) {
+      store.store(Collections.singletonMap(child, null));
+    }
+
+    //  The empty grandchild gets no record of its own, so it must not find the removed one
+    assertThat(grandchild.mkdirs(), is(true));
+    poll(AsyncFileAlterationObserver.load(monitoredDirectory, newStore(), null));
+    writeFile(file);
+    poll(AsyncFileAlterationObserver.load(monitoredDirectory, newStore(), null));
+
+    verify(fileListener, times(2)).onFileCreate(eq(file), any(Synchronization.class));
+    verify(fileListener, never()).onFileChange(any(File.class), any(Synchronization.class));
+  }
+
+  @Test
+  public void testIncompleteRecordIsDropped() throws Exception {
+    File file = writeFile(new File(monitoredDirectory, "file"));
+    poll(AsyncFileAlterationObserver.create(monitoredDirectory, newStore()));
+
+    Files.write(journal, new byte[] {0, 0, 1, 0, 42, 42}, StandardOpenOption.APPEND);
+    poll(AsyncFileAlterationObserver.load(monitoredDirectory, newStore(), null));
+
+    verify(fileListener, times(1)).onFileCreate(eq(file), any(Synchronization.class));
+    verify(fileListener, never()).onFileChange(any(File.class), any(Synchronization.class));
+  }
+
+  @Test
+  public void testCompaction() throws Exception {
+    File[] files = new File[200];
+    for (int i = 0; i < files.length; i++) {
+      files[i] = writeFile(new File(monitoredDirectory, "file-with-a-longer-name" + i));
+    }
+    AsyncFileEntryStore store = newStore();
+    AsyncFileAlterationObserver.create(monitoredDirectory, store).initialize();
+
+    AsyncFileEntry root = store.loadRoot();
+    for (int i = 0; i < 300; i++) {
+      store.store(Collections.singletonMap(monitoredDirectory, root));
+    }
+    store.close();
+
+    assertThat(Files.size(journal), lessThan(1024L * 1024L));
+    assertThat(newStore().loadRoot().getChildren().size(), is(files.length));
+  }
+
+  private AsyncFileEntryStore newStore() {
+    return new AsyncFileEntryStore(monitoredDirectory, journal);
+  }
+
+  private void poll(AsyncFileAlterationObserver observer) {
+    observer.setListener(fileListener);
+    observer.checkAndNotify();
+    observer.destroy();
+  }
+
+  private File writeFile(File file) throws IOException {
+    FileUtils.writeStringToFile(file, DATA, Charset.defaultCharset());
+    return file;
+  }
+
+  private Object complete(InvocationOnMock invocation) {
+    ((Synchronization) invocation.getArguments()[1]).onComplete(null);
+    return null;
+  }
+}
@@ -151,6 +151,29 @@ public void testRouteCreationWithKeepIngestedFiles() {
     testRouteCreationWithGivenCopyStatus(ContentDirectoryMonitor.IN_PLACE);
   }
 
+  @Test
+  public void testRouteCreationWithFileSystemEvents() {
+    Map<String, Object> properties = new HashMap<>();
+    properties.put("monitoredDirectoryPath", monitoredDirectoryPath);
+    properties.put("processingMechanism", ContentDirectoryMonitor.IN_PLACE);
+    properties.put("numThreads", 1);
+    properties.put("readLockIntervalMilliseconds", 1000);
+    properties.put("useFileSystemEvents", true);
+    properties.put("reconciliationIntervalMinutes", 0);
+    monitor.updateCallback(properties);
+
+    assertThat(monitor.isUseFileSystemEvents(), is(true));
+    assertThat(monitor.getReconciliationIntervalMinutes(), is(1));
+    RouteDefinition routeDefinition =
+        camelContext.adapt(ModelCamelContext.class).getRouteDefinitions().get(0);
+    assertThat(
+        routeDefinition.getInput().getUri(),
+        equalTo(
+            "durable:"
+                + monitoredDirectoryPath
+                + "?fileSystemEvents=true&reconciliationIntervalMinutes=1"));
+  }
+
   private void testRouteCreationWithGivenCopyStatus(String processingMechanism) {
     submitConfigOptions(monitor, monitoredDirectoryPath, processingMechanism);
     assertThat(
@@ -29,10 +29,11 @@
 import ddf.catalog.plugin.PostIngestPlugin;
 import ddf.catalog.plugin.PreDeliveryPlugin;
 import ddf.catalog.plugin.PreSubscriptionPlugin;
-import ddf.catalog.pubsub.criteria.contextual.ContextualEvaluator;
+import ddf.catalog.pubsub.criteria.contextual.ContextualIndex;
 import ddf.catalog.pubsub.internal.PubSubConstants;
-import ddf.catalog.pubsub.internal.PubSubThread;
+import ddf.catalog.pubsub.internal.PubSubDispatcher;
 import ddf.catalog.pubsub.internal.SubscriptionFilterVisitor;
+import ddf.catalog.pubsub.internal.SubscriptionIndex;
 import ddf.catalog.pubsub.predicate.Predicate;
 import ddf.catalog.util.impl.Requests;
 import java.net.URI;
@@ -42,15 +43,14 @@
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import org.apache.lucene.store.Directory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
 import org.osgi.framework.BundleContext;
-import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.event.Event;
 import org.osgi.service.event.EventAdmin;
-import org.osgi.service.event.EventConstants;
 import org.osgi.service.event.EventHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -64,6 +64,31 @@ public class EventProcessorImpl implements EventProcessor, EventHandler, PostIng
 
   public static final String EXITING = "EXITING: {}";
 
+  private static final String DISPATCH_THREADS_PROPERTY =
+      "org.codice.ddf.catalog.pubsub.dispatchThreads";
+
+  private static final String DISPATCH_QUEUE_SIZE_PROPERTY =
+      "org.codice.ddf.catalog.pubsub.dispatchQueueSize";
+
+  private static final String DISPATCH_BATCH_SIZE_PROPERTY =
+      "org.codice.ddf.catalog.pubsub.dispatchBatchSize";
+
+  private static final String SUBSCRIPTION_THREADS_PROPERTY =
+      "org.codice.ddf.catalog.pubsub.subscriptionThreads";
+
+  private static final int DEFAULT_THREADS =
+      Math.max(Runtime.getRuntime().availableProcessors(), 2);
+
+  private static final int DEFAULT_QUEUE_SIZE = 1024;
+
+  private static final int DEFAULT_BATCH_SIZE = 64;
+
+  private static final int SUBSCRIPTION_THREADS =
+      Integer.getInteger(SUBSCRIPTION_THREADS_PROPERTY, DEFAULT_THREADS);
+
+  /** Kept below the default Felix EventAdmin timeout so a blocked handler is not blacklisted. */
+  private static final long DISPATCH_OFFER_TIMEOUT_MS = 1000;
+
   protected EventAdmin eventAdmin;
 
   protected BundleContext bundleContext;
@@ -74,11 +99,20 @@ public class EventProcessorImpl implements EventProcessor, EventHandler, PostIng
 
   protected CatalogFramework catalog;
 
-  private Map<String, ServiceRegistration> existingSubscriptions;
+  private final SubscriptionIndex<PublishedEventHandler> subscriptionIndex =
+      new SubscriptionIndex<>();
 
   private final ExecutorService threadPool =
-      Executors.newCachedThreadPool(
-          StandardThreadFactoryBuilder.newThreadFactory("eventProcessorThread"));
+      new ThreadPoolExecutor(
+          SUBSCRIPTION_THREADS,
+          SUBSCRIPTION_THREADS,
+          0L,
+          TimeUnit.MILLISECONDS,
+          new ArrayBlockingQueue<>(DEFAULT_QUEUE_SIZE),
+          StandardThreadFactoryBuilder.newThreadFactory("eventProcessorThread"),
+          new ThreadPoolExecutor.CallerRunsPolicy());
+
+  private volatile PubSubDispatcher dispatcher;
 
   public EventProcessorImpl() {
     LOGGER.debug("INSIDE: EventProcessorImpl default constructor");
@@ -97,7 +131,6 @@ public EventProcessorImpl(
     this.preSubscription = preSubscription;
     this.preDelivery = preDelivery;
     this.catalog = catalog;
-    this.existingSubscriptions = new HashMap<>();
 
     if (this.preSubscription == null) {
       LOGGER.debug("preSubscription plugins list is NULL");
@@ -115,17 +148,14 @@ public EventProcessorImpl(
   }
 
   /**
-   * Processes an entry by adding properties from the metacard to the event. Then the eventAdmin is
-   * used to post the metacard properties as a single event.
+   * Creates the event the subscriptions evaluate their predicates against by adding properties
+   * from the metacard to it.
    *
    * @param metacard - the metacard to process
    * @param operation - The type of event {@link ddf.catalog.pubsub.internal.PubSubConstants}
-   * @param eventAdmin - OSGi EventAdmin service used post events
+   * @return the event, or {@code null} if the metacard is {@code null}
    */
-  public static void processEntry(Metacard metacard, String operation, EventAdmin eventAdmin) {
-    String methodName = "processEntry";
-    LOGGER.trace(ENTERING, methodName);
-
+  static Event createPublishedEvent(Metacard metacard, String operation) {
     if (metacard != null) {
       LOGGER.debug("Input Metacard:{}\n", metacard);
       LOGGER.debug("catalog ID = {}", metacard.getId());
@@ -177,19 +207,14 @@ public static void processEntry(Metacard metacard, String operation, EventAdmin
         try {
           // Build Lucene search index on entry's entire metadata using
           // default XPaths (specified
-          // in ContextualEvaluator) - this index will be used by all
-          // contextual predicates that do
-          // *NOT* specify any textPaths. (Building index here optimizes
-          // code so that this index is
-          // not built for every contextual subscription that has no
-          // textPaths.)
-          Directory index = ContextualEvaluator.buildIndex(metacard.getMetadata());
+          // in ContextualEvaluator) - this index is shared by all
+          // contextual predicates, which only search it with their
+          // already parsed queries. Indexes for predicates that specify
+          // textPaths are built on first use and shared the same way.
+          ContextualIndex index = new ContextualIndex(metacard.getMetadata());
 
           // Build contextual info to be sent in event for this entry.
-          // Include the default Lucene search
-          // index and the entry's metadata (in case subscription has
-          // textPaths, then it can create Lucene
-          // search indices on the metadata using its textPaths)
+          // Include the Lucene search index and the entry's metadata
           Map<String, Object> contextualMap = new HashMap<>(2, 1);
           contextualMap.put("DEFAULT_INDEX", index);
           contextualMap.put("METADATA", metacard.getMetadata());
@@ -199,22 +224,49 @@ public static void processEntry(Metacard metacard, String operation, EventAdmin
         }
       }
 
-      if (eventAdmin != null) {
-        eventAdmin.postEvent(new Event(PubSubConstants.PUBLISHED_EVENT_TOPIC_NAME, properties));
-      } else {
-        LOGGER.debug("Unable to post event since eventAdmin is null.");
-      }
-    } else {
-      LOGGER.debug("Unable to post null metacard.");
+      return new Event(PubSubConstants.PUBLISHED_EVENT_TOPIC_NAME, properties);
     }
 
-    LOGGER.trace(EXITING, methodName);
+    return null;
+  }
+
+  /**
+   * Hands an entry to the subscriptions whose predicate could match it. Each of those
+   * subscriptions evaluates its predicate against the entry before delivering it.
+   *
+   * @param metacard - the metacard to publish
+   * @param operation - The type of event {@link ddf.catalog.pubsub.internal.PubSubConstants}
+   */
+  void publish(Metacard metacard, String operation) {
+    Event event = createPublishedEvent(metacard, operation);
+    if (event == null) {
+      LOGGER.debug("Unable to publish null metacard.");
+      return;
+    }
+
+    List<PublishedEventHandler> candidates = subscriptionIndex.getCandidates(event);
+    LOGGER.debug(
+        "Publishing {} event to {} of {} subscriptions",
+        operation,
+        candidates.size(),
+        subscriptionIndex.size());
+    for (PublishedEventHandler handler : candidates) {
+      handler.handleEvent(event);
+    }
   }
 
   public void init() {
     String methodName = "init";
     LOGGER.trace(ENTERING, methodName);
 
+    dispatcher =
+        new PubSubDispatcher(
+            this::publish,
+            Integer.getInteger(DISPATCH_THREADS_PROPERTY, DEFAULT_THREADS),
+            Integer.getInteger(DISPATCH_QUEUE_SIZE_PROPERTY, DEFAULT_QUEUE_SIZE),
+            Integer.getInteger(DISPATCH_BATCH_SIZE_PROPERTY, DEFAULT_BATCH_SIZE),
+            DISPATCH_OFFER_TIMEOUT_MS);
+
     LOGGER.trace(EXITING, methodName);
   }
 
@@ -222,14 +274,21 @@ public void destroy() {
     String methodName = "destroy";
     LOGGER.trace(ENTERING, methodName);
 
+    PubSubDispatcher stopped = dispatcher;
+    dispatcher = null;
+    if (stopped != null) {
+      stopped.shutdown();
+    }
+    threadPool.shutdown();
+
     LOGGER.trace(EXITING, methodName);
   }
 
   /**
    * By default the Felix EventAdmin implementation has a timeout of 5000 ms. Your event handler has
    * to return from the handle event method in this time frame. If it does not, it gets Blacklisted.
-   * Therefore, this method processes its events in a separate thread than the EventAdmin who called
-   * it.
+   * Therefore, this method hands its events off to a {@link PubSubDispatcher} that processes them
+   * on a bounded pool of worker threads.
    */
   @Override
   public void handleEvent(Event event) {
@@ -238,12 +297,17 @@ public void handleEvent(Event event) {
 
     LOGGER.debug("Received event: {}", event.getTopic());
 
-    if (!existingSubscriptions.isEmpty()) {
+    if (!subscriptionIndex.isEmpty()) {
       String topic = event.getTopic();
       Metacard entry = (Metacard) event.getProperty(EventProcessor.EVENT_METACARD);
       LOGGER.debug("metacard ID = {}", entry.getId());
 
-      new PubSubThread(entry, topic, eventAdmin).start();
+      PubSubDispatcher current = dispatcher;
+      if (current != null) {
+        current.dispatch(topic, entry);
+      } else {
+        LOGGER.debug("Event processor is not running, ignoring event for {}", entry.getId());
+      }
     } else {
       LOGGER.debug(
           "No existing subscriptions, so no need to handle event since there is no one listening ...");
@@ -285,18 +349,11 @@ public void createSubscription(Subscription subscription, String subscriptionId)
       Predicate finalPredicate = (Predicate) subscription.accept(visitor, null);
       LOGGER.debug("predicate from filter visitor: {}", finalPredicate);
 
-      String[] topics = new String[] {PubSubConstants.PUBLISHED_EVENT_TOPIC_NAME};
-
-      Dictionary<String, String[]> props = new Hashtable<>(1, 1);
-      props.put(EventConstants.EVENT_TOPIC, topics);
-      ServiceRegistration serviceRegistration =
-          bundleContext.registerService(
-              EventHandler.class.getName(),
-              new PublishedEventHandler(
-                  finalPredicate, subscription, preDelivery, catalog, threadPool),
-              props);
-
-      existingSubscriptions.put(subscriptionId, serviceRegistration);
+      subscriptionIndex.put(
+          subscriptionId,
+          finalPredicate,
+          new PublishedEventHandler(
+              finalPredicate, subscription, preDelivery, catalog, threadPool));
 
       LOGGER.debug("Subscription {} created.", subscriptionId);
     } catch (Exception e) {
@@ -334,11 +391,8 @@ public void deleteSubscription(String subscriptionId) throws SubscriptionNotFoun
 
     try {
       LOGGER.debug("Removing subscription: {}", subscriptionId);
-      ServiceRegistration sr = (ServiceRegistration) existingSubscriptions.get(subscriptionId);
-      if (sr != null) {
-        sr.unregister();
+      if (subscriptionIndex.remove(subscriptionId) != null) {
         LOGGER.debug("Removal complete");
-        existingSubscriptions.remove(subscriptionId);
       } else {
         LOGGER.debug(
             "Unable to find existing subscription: {}.  May already be deleted.", subscriptionId);
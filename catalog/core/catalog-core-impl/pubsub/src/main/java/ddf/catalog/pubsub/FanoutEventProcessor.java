@@ -48,6 +48,8 @@ public void init() {
     String methodName = "init";
     LOGGER.debug(ENTERING_STR, methodName);
 
+    super.init();
+
     LOGGER.debug(EXITING_STR, methodName);
   }
 
@@ -56,6 +58,8 @@ public void destroy() {
     String methodName = "destroy";
     LOGGER.debug(ENTERING_STR, methodName);
 
+    super.destroy();
+
     LOGGER.debug(EXITING_STR, methodName);
   }
 
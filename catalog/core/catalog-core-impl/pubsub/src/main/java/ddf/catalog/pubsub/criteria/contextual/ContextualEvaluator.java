@@ -21,6 +21,7 @@
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.PerFieldAnalyzerWrapper;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.tokenattributes.TermAttribute;
 import org.apache.lucene.document.Document;
@@ -30,6 +31,7 @@
 import org.apache.lucene.queryParser.QueryParser;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Searcher;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.RAMDirectory;
@@ -88,25 +90,77 @@ public static boolean evaluate(ContextualEvaluationCriteria cec)
     // text path(s)
     // and be used to determine if an element or attribute exist
     if (searchPhrase == null || searchPhrase.isEmpty()) {
-      String[] textPaths = cec.getTextPaths();
-      String fullDocument = cec.getMetadata();
-
-      if (textPaths != null && textPaths.length > 0 && fullDocument != null) {
-        String indexableText = getIndexableText(fullDocument, textPaths);
-        if (indexableText != null && !indexableText.isEmpty()) {
-          LOGGER.trace("Found element/attribute for textPaths");
-          return true;
-        }
-      }
+      return hasIndexableText(cec.getMetadata(), cec.getTextPaths());
+    }
+
+    Query q = parseQuery(searchPhrase, cec.isCaseSensitiveSearch());
 
-      LOGGER.trace(
-          "No search phrase specified and could not find element/attribute based on textPaths");
-      return false;
+    IndexSearcher searcher = new IndexSearcher(index, true);
+    try {
+      return evaluate(q, searcher);
+    } finally {
+      // searcher can only be closed when there
+      // is no need to access the documents any more.
+      searcher.close();
     }
+  }
+
+  /**
+   * Searches an index built by {@link #buildIndex(String, String[])} with a query parsed by {@link
+   * #parseQuery(String, boolean)}. The searcher and the query can both be shared between threads.
+   *
+   * @param query the parsed search phrase
+   * @param searcher the searcher of the index to match the query against
+   * @return true if the indexed text matches the query
+   * @throws IOException
+   */
+  public static boolean evaluate(Query query, Searcher searcher) throws IOException {
+    // b. search
+    int hitsPerPage = 1;
+    TopDocs topDocs = searcher.search(query, hitsPerPage);
+
+    // c. display results
+    LOGGER.debug("Found {} hits.", topDocs.totalHits);
+
+    return topDocs.totalHits > 0;
+  }
+
+  /**
+   * Determines whether any of the text paths select an element or attribute in the document. Used
+   * when no search phrase is specified.
+   *
+   * @param fullDocument the XML document
+   * @param textPaths the XPath selectors
+   * @return true if the text paths select any text from the document
+   */
+  public static boolean hasIndexableText(String fullDocument, String[] textPaths) {
+    if (textPaths != null && textPaths.length > 0 && fullDocument != null) {
+      String indexableText = getIndexableText(fullDocument, textPaths);
+      if (indexableText != null && !indexableText.isEmpty()) {
+        LOGGER.trace("Found element/attribute for textPaths");
+        return true;
+      }
+    }
+
+    LOGGER.trace(
+        "No search phrase specified and could not find element/attribute based on textPaths");
+    return false;
+  }
 
+  /**
+   * Parses a normalized search phrase into a Lucene query against the case-sensitive or the
+   * case-insensitive field of the indexes built by {@link #buildIndex(String, String[])}.
+   *
+   * @param searchPhrase the search phrase
+   * @param caseSensitiveSearch true to match the case of the indexed text
+   * @return the parsed query
+   * @throws ParseException if the search phrase is not valid Lucene syntax
+   */
+  public static Query parseQuery(String searchPhrase, boolean caseSensitiveSearch)
+      throws ParseException {
     // a. query
     QueryParser queryParser = null;
-    if (cec.isCaseSensitiveSearch()) {
+    if (caseSensitiveSearch) {
       LOGGER.debug("Doing case-sensitive search ...");
       queryParser =
           new QueryParser(
@@ -127,43 +181,7 @@ public static boolean evaluate(ContextualEvaluationCriteria cec)
     // contextual search phrase
     queryParser.setAllowLeadingWildcard(true);
 
-    Query q = queryParser.parse(searchPhrase);
-
-    // b. search
-    int hitsPerPage = 1;
-    IndexSearcher searcher = new IndexSearcher(index, true);
-    TopDocs topDocs = searcher.search(q, hitsPerPage);
-
-    // c. display results
-    LOGGER.debug("Found {} hits.", topDocs.totalHits);
-
-    // searcher can only be closed when there
-    // is no need to access the documents any more.
-    searcher.close();
-
-    return topDocs.totalHits > 0;
-  }
-
-  /**
-   * Create a field with the specified field name and value, and add it to a Lucene Document to be
-   * added to the specified IndexWriter.
-   *
-   * @param indexWriter
-   * @param fieldName
-   * @param value
-   * @throws IOException
-   */
-  private static void addDoc(IndexWriter indexWriter, String fieldName, String value)
-      throws IOException {
-    Document doc = new Document();
-    doc.add(
-        new Field(
-            fieldName,
-            value,
-            Field.Store.YES,
-            Field.Index.ANALYZED,
-            Field.TermVector.WITH_POSITIONS_OFFSETS));
-    indexWriter.addDocument(doc);
+    return queryParser.parse(searchPhrase);
   }
 
   /**
@@ -198,38 +216,33 @@ public static Directory buildIndex(String fullDocument, String[] xpathSelectors)
     // The same analyzer should be used for indexing and searching
     // 1. create the index
     Directory index = new RAMDirectory();
-    String indexableText;
-    CaseSensitiveContextualAnalyzer caseSensitiveStandardAnalyzer;
 
-    try (ContextualAnalyzer contextualAnalyzer = new ContextualAnalyzer(Version.LUCENE_30)) {
-      // Retrieve the text from the document that can be indexed using the specified XPath
-      // selectors
-      indexableText = getIndexableText(fullDocument, xpathSelectors);
+    // Retrieve the text from the document that can be indexed using the specified XPath
+    // selectors
+    String indexableText = getIndexableText(fullDocument, xpathSelectors);
+
+    // Analyze the case-insensitive field with the ContextualAnalyzer and the case-sensitive field
+    // with the CaseSensitiveContextualAnalyzer, so both are written by a single IndexWriter into
+    // a single document
+    try (ContextualAnalyzer contextualAnalyzer = new ContextualAnalyzer(Version.LUCENE_30);
+        CaseSensitiveContextualAnalyzer caseSensitiveAnalyzer =
+            new CaseSensitiveContextualAnalyzer(Version.LUCENE_30)) {
+      PerFieldAnalyzerWrapper analyzer = new PerFieldAnalyzerWrapper(contextualAnalyzer);
+      analyzer.addAnalyzer(CASE_SENSITIVE_FIELD_NAME, caseSensitiveAnalyzer);
 
-      // Create an IndexWriter using the case-insensitive StandardAnalyzer
       // NOTE: the boolean arg in the IndexWriter constructor means to create a new index,
       // overwriting any existing index
       try (IndexWriter indexWriter =
-          new IndexWriter(index, contextualAnalyzer, true, IndexWriter.MaxFieldLength.UNLIMITED)) {
-        logTokens(indexWriter.getAnalyzer(), FIELD_NAME, fullDocument, "ContextualAnalyzer");
-
-        // Add the indexable text to the case-insensitive index writer, assigning it the
-        // "case-insensitive" field name
-        addDoc(indexWriter, FIELD_NAME, indexableText);
-      }
-
-      caseSensitiveStandardAnalyzer = new CaseSensitiveContextualAnalyzer(Version.LUCENE_30);
-
-      // Create a second IndexWriter using the custom case-sensitive StandardAnalyzer
-      // NOTE: set boolean to false to append the case-sensitive indexed text to the existing
-      // index (populated by first IndexWriter)
-      try (IndexWriter csIndexWriter =
-          new IndexWriter(
-              index, caseSensitiveStandardAnalyzer, false, IndexWriter.MaxFieldLength.UNLIMITED)) {
-
-        // Add the indexable text to the case-sensitive index writer, assigning it the
-        // "case-sensitive" field name
-        addDoc(csIndexWriter, CASE_SENSITIVE_FIELD_NAME, indexableText);
+          new IndexWriter(index, analyzer, true, IndexWriter.MaxFieldLength.UNLIMITED)) {
+        logTokens(contextualAnalyzer, FIELD_NAME, fullDocument, "ContextualAnalyzer");
+
+        // The index is only ever searched, so nothing is stored and no term vectors are kept
+        Document doc = new Document();
+        doc.add(new Field(FIELD_NAME, indexableText, Field.Store.NO, Field.Index.ANALYZED));
+        doc.add(
+            new Field(
+                CASE_SENSITIVE_FIELD_NAME, indexableText, Field.Store.NO, Field.Index.ANALYZED));
+        indexWriter.addDocument(doc);
       }
     }
     return index;
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.criteria.contextual;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Searcher;
+
+/**
+ * The analyzed metadata of a single catalog entry, shared by all the contextual subscriptions an
+ * event is evaluated against.
+ *
+ * <p>The metadata is indexed once with the default XPath selectors when the event is created.
+ * Subscriptions that specify their own text paths get an index built on first use for that set of
+ * text paths, which is then reused by every other subscription with the same text paths. All
+ * methods are safe to call from multiple threads.
+ */
+public class ContextualIndex {
+
+  private final String metadata;
+
+  private final Searcher defaultSearcher;
+
+  private final ConcurrentMap<List<String>, Searcher> textPathSearchers =
+      new ConcurrentHashMap<>();
+
+  /**
+   * @param metadata the XML metadata of the catalog entry
+   * @throws IOException if the metadata cannot be indexed
+   */
+  public ContextualIndex(String metadata) throws IOException {
+    this.metadata = metadata;
+    this.defaultSearcher = new IndexSearcher(ContextualEvaluator.buildIndex(metadata), true);
+  }
+
+  public String getMetadata() {
+    return metadata;
+  }
+
+  /**
+   * @param query a query parsed by {@link ContextualEvaluator#parseQuery(String, boolean)}
+   * @param textPaths the XPath selectors of the text to match, or {@code null} to match the text
+   *     selected by the default XPath selectors
+   * @return true if the text of the metadata matches the query
+   * @throws IOException if the metadata cannot be indexed or searched
+   */
+  public boolean matches(Query query, String[] textPaths) throws IOException {
+    return ContextualEvaluator.evaluate(query, getSearcher(textPaths));
+  }
+
+  private Searcher getSearcher(String[] textPaths) throws IOException {
+    if (textPaths == null || textPaths.length == 0) {
+      return defaultSearcher;
+    }
+
+    try {
+      return textPathSearchers.computeIfAbsent(
+          Arrays.asList(textPaths.clone()), this::createSearcher);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private Searcher createSearcher(List<String> textPaths) {
+    try {
+      return new IndexSearcher(
+          ContextualEvaluator.buildIndex(metadata, textPaths.toArray(new String[0])), true);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
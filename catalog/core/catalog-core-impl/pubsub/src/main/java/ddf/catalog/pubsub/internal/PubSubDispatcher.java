@@ -0,0 +1,267 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.internal;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.event.EventProcessor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import org.apache.commons.lang.Validate;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hands catalog events off to a fixed pool of worker threads that publish them to the
+ * subscriptions.
+ *
+ * <p>Each worker has its own bounded queue, and every event for a metacard goes to the same worker,
+ * chosen from the metacard ID. Events for one metacard are therefore published in the order they
+ * were dispatched, while events for different metacards are published in parallel. A worker takes
+ * every event waiting on its queue, up to a batch, each time it wakes up, so a bulk ingest costs a
+ * thread wake-up per batch rather than per metacard; each event is still evaluated against the
+ * subscriptions on its own.
+ *
+ * <p>When the queue of a worker stays full for longer than the offer timeout, the calling thread
+ * waits for the batch the worker is publishing, then publishes the events left on the queue and its
+ * own event itself. This slows the producer down without ever dropping an event or publishing the
+ * events of a metacard out of order.
+ */
+public class PubSubDispatcher {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PubSubDispatcher.class);
+
+  private static final String METRIC_PREFIX = "ddf.catalog.pubsub.dispatch";
+
+  private static final long POLL_TIMEOUT_MILLIS = 500;
+
+  private static final Counter DISPATCHED_EVENTS = Metrics.counter(METRIC_PREFIX + ".events");
+
+  private static final Counter CALLER_RUNS_EVENTS = Metrics.counter(METRIC_PREFIX + ".callerruns");
+
+  private static final DistributionSummary BATCH_SIZES =
+      Metrics.summary(METRIC_PREFIX + ".batchsize");
+
+  private static final Timer BATCH_TIMER = Metrics.timer(METRIC_PREFIX + ".latency");
+
+  /** The number of events waiting on the queues of every dispatcher. */
+  private static final AtomicInteger QUEUED_EVENTS =
+      Metrics.gauge(METRIC_PREFIX + ".queuesize", new AtomicInteger());
+
+  private final BiConsumer<Metacard, String> publisher;
+
+  private final Lane[] lanes;
+
+  private final ExecutorService workers;
+
+  private final int batchSize;
+
+  private final long offerTimeoutMillis;
+
+  private volatile boolean running = true;
+
+  /**
+   * @param publisher publishes a single metacard with its {@link PubSubConstants} operation
+   * @param workerCount number of worker threads
+   * @param queueCapacity maximum number of events waiting to be published by each worker
+   * @param batchSize maximum number of events a worker publishes per pass
+   * @param offerTimeoutMillis how long to wait for room on a full queue before publishing on the
+   *     calling thread
+   */
+  public PubSubDispatcher(
+      BiConsumer<Metacard, String> publisher,
+      int workerCount,
+      int queueCapacity,
+      int batchSize,
+      long offerTimeoutMillis) {
+    Validate.notNull(publisher, "Valid publisher required.");
+    Validate.isTrue(workerCount > 0, "Worker count must be greater than 0.");
+    Validate.isTrue(queueCapacity > 0, "Queue capacity must be greater than 0.");
+    Validate.isTrue(batchSize > 0, "Batch size must be greater than 0.");
+
+    this.publisher = publisher;
+    this.batchSize = batchSize;
+    this.offerTimeoutMillis = Math.max(offerTimeoutMillis, 0);
+
+    lanes = new Lane[workerCount];
+    workers =
+        Executors.newFixedThreadPool(
+            workerCount, StandardThreadFactoryBuilder.newThreadFactory("pubSubDispatchThread"));
+    for (int i = 0; i < workerCount; i++) {
+      Lane lane = new Lane(queueCapacity);
+      lanes[i] = lane;
+      workers.execute(() -> drain(lane));
+    }
+  }
+
+  /**
+   * Queues a catalog event to be published to the subscriptions. Events for topics other than the
+   * catalog created, updated and deleted topics are ignored.
+   *
+   * @param topic the {@link EventProcessor} topic of the event
+   * @param metacard the metacard that was created, updated or deleted
+   */
+  public void dispatch(String topic, Metacard metacard) {
+    String operation = getOperation(topic);
+    if (operation == null) {
+      LOGGER.debug("Ignoring event for unsupported topic {}", topic);
+      return;
+    }
+
+    PendingEvent event = new PendingEvent(metacard, operation);
+    Lane lane = lanes[Math.floorMod(Objects.hashCode(metacard.getId()), lanes.length)];
+    boolean queued = false;
+    QUEUED_EVENTS.incrementAndGet();
+    try {
+      queued = running && lane.queue.offer(event, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (queued) {
+      return;
+    }
+    QUEUED_EVENTS.decrementAndGet();
+
+    LOGGER.debug("Event queue is full, publishing {} event on the calling thread", operation);
+    CALLER_RUNS_EVENTS.increment();
+    lane.lock.lock();
+    try {
+      List<PendingEvent> batch = new ArrayList<>();
+      take(lane, batch, Integer.MAX_VALUE);
+      batch.add(event);
+      publish(batch);
+    } finally {
+      lane.lock.unlock();
+    }
+  }
+
+  /** Stops the workers. Events still waiting on the queues are published on the calling thread. */
+  public void shutdown() {
+    running = false;
+    workers.shutdownNow();
+
+    for (Lane lane : lanes) {
+      lane.lock.lock();
+      try {
+        List<PendingEvent> remaining = new ArrayList<>();
+        take(lane, remaining, Integer.MAX_VALUE);
+        if (!remaining.isEmpty()) {
+          LOGGER.debug("Publishing {} queued events before shutting down", remaining.size());
+          publish(remaining);
+        }
+      } finally {
+        lane.lock.unlock();
+      }
+    }
+  }
+
+  int getQueueSize() {
+    int size = 0;
+    for (Lane lane : lanes) {
+      size += lane.queue.size();
+    }
+    return size;
+  }
+
+  private void drain(Lane lane) {
+    List<PendingEvent> batch = new ArrayList<>(batchSize);
+    while (running) {
+      // the lock is held from taking the events until they are published, so a caller publishing
+      // on overflow cannot publish later events of a metacard ahead of them
+      lane.lock.lock();
+      try {
+        PendingEvent first = lane.queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        if (first != null) {
+          QUEUED_EVENTS.decrementAndGet();
+          batch.add(first);
+          take(lane, batch, batchSize - 1);
+          publish(batch);
+          batch.clear();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } finally {
+        lane.lock.unlock();
+      }
+    }
+  }
+
+  private static void take(Lane lane, List<PendingEvent> batch, int maxEvents) {
+    QUEUED_EVENTS.addAndGet(-lane.queue.drainTo(batch, maxEvents));
+  }
+
+  private void publish(List<PendingEvent> batch) {
+    BATCH_SIZES.record(batch.size());
+    BATCH_TIMER.record(
+        () -> {
+          for (PendingEvent event : batch) {
+            try {
+              publisher.accept(event.metacard, event.operation);
+            } catch (RuntimeException e) {
+              LOGGER.info("Unable to publish {} event for metacard", event.operation, e);
+            }
+          }
+        });
+    DISPATCHED_EVENTS.increment(batch.size());
+  }
+  private static String getOperation(String topic) {
+    if (EventProcessor.EVENTS_TOPIC_CREATED.equals(topic)) {
+      return PubSubConstants.CREATE;
+    } else if (EventProcessor.EVENTS_TOPIC_UPDATED.equals(topic)) {
+      return PubSubConstants.UPDATE;
+    } else if (EventProcessor.EVENTS_TOPIC_DELETED.equals(topic)) {
+      return PubSubConstants.DELETE;
+    }
+    return null;
+  }
+
+  /** The queue of a worker, and the lock held while its events are being published. */
+  private static class Lane {
+
+    private final BlockingQueue<PendingEvent> queue;
+
+    private final Lock lock = new ReentrantLock(true);
+
+    private Lane(int capacity) {
+      this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+  }
+
+  private static class PendingEvent {
+
+    private final Metacard metacard;
+
+    private final String operation;
+
+    private PendingEvent(Metacard metacard, String operation) {
+      this.metacard = metacard;
+      this.operation = operation;
+    }
+  }
+}
@@ -17,10 +17,13 @@
 import ddf.catalog.impl.filter.FuzzyFunction;
 import ddf.catalog.pubsub.EventProcessorImpl.DateType;
 import ddf.catalog.pubsub.criteria.geospatial.SpatialOperator;
+import ddf.catalog.pubsub.predicate.AndPredicate;
 import ddf.catalog.pubsub.predicate.ContentTypePredicate;
 import ddf.catalog.pubsub.predicate.ContextualPredicate;
 import ddf.catalog.pubsub.predicate.EntryPredicate;
 import ddf.catalog.pubsub.predicate.GeospatialPredicate;
+import ddf.catalog.pubsub.predicate.NotPredicate;
+import ddf.catalog.pubsub.predicate.OrPredicate;
 import ddf.catalog.pubsub.predicate.Predicate;
 import ddf.catalog.pubsub.predicate.TemporalPredicate;
 import java.net.URI;
@@ -51,7 +54,6 @@
 import org.opengis.filter.temporal.During;
 import org.opengis.temporal.Period;
 import org.opengis.temporal.PeriodDuration;
-import org.osgi.service.event.Event;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -77,17 +79,7 @@ public static Predicate and(final Predicate left, final Predicate right) {
     notNull(left, "left");
     notNull(right, "right");
 
-    return new Predicate() {
-      @Override
-      public boolean matches(Event properties) {
-        return left.matches(properties) && right.matches(properties);
-      }
-
-      @Override
-      public String toString() {
-        return "(" + left + ") AND (" + right + ")";
-      }
-    };
+    return new AndPredicate(left, right);
   }
 
   /** A helper method to combine multiple predicates by a logical OR */
@@ -95,34 +87,14 @@ public static Predicate or(final Predicate left, final Predicate right) {
     notNull(left, "left");
     notNull(right, "right");
 
-    return new Predicate() {
-      @Override
-      public boolean matches(Event properties) {
-        return left.matches(properties) || right.matches(properties);
-      }
-
-      @Override
-      public String toString() {
-        return "(" + left + ") OR (" + right + ")";
-      }
-    };
+    return new OrPredicate(left, right);
   }
 
   /** A helper method to combine multiple predicates by a logical NOT */
   public static Predicate not(final Predicate predicate) {
     notNull(predicate, "predicate");
 
-    return new Predicate() {
-      @Override
-      public boolean matches(Event properties) {
-        return !predicate.matches(properties);
-      }
-
-      @Override
-      public String toString() {
-        return "(NOT (" + predicate + ")";
-      }
-    };
+    return new NotPredicate(predicate);
   }
 
   /**
@@ -0,0 +1,238 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.internal;
+
+import ddf.catalog.pubsub.internal.SubscriptionIndexKeys.EventKeys;
+import ddf.catalog.pubsub.predicate.Predicate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.apache.commons.lang.Validate;
+import org.osgi.service.event.Event;
+
+/**
+ * Inverted index from content types, temporal buckets, spatial grid cells and contextual terms to
+ * the subscriptions whose predicate could match an event carrying them.
+ *
+ * <p>The index only prunes subscriptions that cannot possibly match an event. Every candidate it
+ * returns still has to evaluate its own predicate against the event. Subscriptions whose predicate
+ * cannot be indexed, for example relative time periods or fuzzy contextual searches, are returned
+ * as candidates for every event.
+ *
+ * @param <T> the value stored for each subscription
+ */
+public class SubscriptionIndex<T> {
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /** Every subscription in registration order. */
+  private final Map<String, Entry<T>> subscriptions = new LinkedHashMap<>();
+
+  /** Subscriptions by dimension, then by key. */
+  private final Map<String, Map<Object, Set<String>>> postings = new HashMap<>();
+
+  /** Subscriptions with at least one key in a dimension, used when an event has no known keys. */
+  private final Map<String, Set<String>> dimensions = new HashMap<>();
+
+  /** Subscriptions that have to be evaluated against every event. */
+  private final Set<String> unrestricted = new HashSet<>();
+
+  /**
+   * Adds a subscription to the index, replacing any subscription with the same id.
+   *
+   * @param subscriptionId id of the subscription
+   * @param predicate the predicate the subscription evaluates events with
+   * @param value the value returned for the subscription by {@link #getCandidates(Event)}
+   */
+  public void put(String subscriptionId, Predicate predicate, T value) {
+    Validate.notNull(subscriptionId, "Valid subscription id required.");
+    Validate.notNull(value, "Valid value required.");
+
+    Map<String, Set<Object>> keys = SubscriptionIndexKeys.forPredicate(predicate);
+
+    lock.writeLock().lock();
+    try {
+      removeEntry(subscriptionId);
+      subscriptions.put(subscriptionId, new Entry<>(value, keys));
+
+      if (keys == null) {
+        unrestricted.add(subscriptionId);
+        return;
+      }
+
+      keys.forEach(
+          (dimension, dimensionKeys) -> {
+            dimensions.computeIfAbsent(dimension, d -> new HashSet<>()).add(subscriptionId);
+            Map<Object, Set<String>> dimensionPostings =
+                postings.computeIfAbsent(dimension, d -> new HashMap<>());
+            for (Object key : dimensionKeys) {
+              dimensionPostings.computeIfAbsent(key, k -> new HashSet<>()).add(subscriptionId);
+            }
+          });
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes a subscription from the index.
+   *
+   * @param subscriptionId id of the subscription
+   * @return the value of the removed subscription, or {@code null} if there was none
+   */
+  public T remove(String subscriptionId) {
+    lock.writeLock().lock();
+    try {
+      Entry<T> entry = removeEntry(subscriptionId);
+      return entry == null ? null : entry.value;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public boolean containsKey(String subscriptionId) {
+    lock.readLock().lock();
+    try {
+      return subscriptions.containsKey(subscriptionId);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return subscriptions.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the subscriptions whose predicate could match the event, in registration order.
+   *
+   * @param event the event to be published
+   * @return the values of the candidate subscriptions
+   */
+  public List<T> getCandidates(Event event) {
+    EventKeys eventKeys = SubscriptionIndexKeys.forEvent(event);
+
+    lock.readLock().lock();
+    try {
+      if (eventKeys == null) {
+        return values(subscriptions.keySet());
+      }
+
+      Set<String> candidates = new HashSet<>(unrestricted);
+      for (String dimension : eventKeys.getWildcards()) {
+        candidates.addAll(dimensions.getOrDefault(dimension, Collections.emptySet()));
+      }
+      eventKeys
+          .getKeys()
+          .forEach(
+              (dimension, keys) -> {
+                Map<Object, Set<String>> dimensionPostings = postings.get(dimension);
+                if (dimensionPostings != null) {
+                  for (Object key : keys) {
+                    candidates.addAll(
+                        dimensionPostings.getOrDefault(key, Collections.emptySet()));
+                  }
+                }
+              });
+
+      if (candidates.size() == subscriptions.size()) {
+        return values(subscriptions.keySet());
+      }
+
+      List<T> values = new ArrayList<>(candidates.size());
+      for (Map.Entry<String, Entry<T>> subscription : subscriptions.entrySet()) {
+        if (candidates.contains(subscription.getKey())) {
+          values.add(subscription.getValue().value);
+        }
+      }
+      return values;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private List<T> values(Collection<String> subscriptionIds) {
+    List<T> values = new ArrayList<>(subscriptionIds.size());
+    for (String subscriptionId : subscriptionIds) {
+      values.add(subscriptions.get(subscriptionId).value);
+    }
+    return values;
+  }
+
+  private Entry<T> removeEntry(String subscriptionId) {
+    Entry<T> entry = subscriptions.remove(subscriptionId);
+    if (entry == null) {
+      return null;
+    }
+
+    if (entry.keys == null) {
+      unrestricted.remove(subscriptionId);
+      return entry;
+    }
+
+    entry.keys.forEach(
+        (dimension, dimensionKeys) -> {
+          removeFrom(dimensions, dimension, subscriptionId);
+          Map<Object, Set<String>> dimensionPostings = postings.get(dimension);
+          if (dimensionPostings != null) {
+            for (Object key : dimensionKeys) {
+              removeFrom(dimensionPostings, key, subscriptionId);
+            }
+            if (dimensionPostings.isEmpty()) {
+              postings.remove(dimension);
+            }
+          }
+        });
+    return entry;
+  }
+
+  private static <K> void removeFrom(Map<K, Set<String>> map, K key, String subscriptionId) {
+    Set<String> ids = map.get(key);
+    if (ids != null) {
+      ids.remove(subscriptionId);
+      if (ids.isEmpty()) {
+        map.remove(key);
+      }
+    }
+  }
+
+  private static class Entry<T> {
+
+    private final T value;
+
+    private final Map<String, Set<Object>> keys;
+
+    private Entry(T value, Map<String, Set<Object>> keys) {
+      this.value = value;
+      this.keys = keys;
+    }
+  }
+}
@@ -0,0 +1,400 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.internal;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.types.Core;
+import ddf.catalog.pubsub.EventProcessorImpl.DateType;
+import ddf.catalog.pubsub.predicate.AndPredicate;
+import ddf.catalog.pubsub.predicate.ContentTypePredicate;
+import ddf.catalog.pubsub.predicate.ContextualPredicate;
+import ddf.catalog.pubsub.predicate.FalsePredicate;
+import ddf.catalog.pubsub.predicate.GeospatialPredicate;
+import ddf.catalog.pubsub.predicate.OrPredicate;
+import ddf.catalog.pubsub.predicate.Predicate;
+import ddf.catalog.pubsub.predicate.TemporalPredicate;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.geotools.geometry.jts.WKTReader2;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.osgi.service.event.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Computes the keys a {@link SubscriptionIndex} uses to narrow down the subscriptions an event has
+ * to be evaluated against.
+ *
+ * <p>Keys are grouped by dimension (content type, temporal bucket, spatial grid cell or contextual
+ * term). The keys of a {@link Predicate} are chosen so that the predicate can only match an event
+ * that shares at least one key with it. When no such keys can be derived for a predicate, or for
+ * an event in a given dimension, the index falls back to evaluating every subscription.
+ */
+final class SubscriptionIndexKeys {
+
+  static final String CONTENT_TYPE = "contentType";
+
+  static final String CONTEXTUAL = "contextual";
+
+  private static final String TEMPORAL = "temporal.";
+
+  private static final String GEOSPATIAL = "geospatial.";
+
+  /** Grid cell sizes in degrees, from finest to coarsest. */
+  private static final double[] GRID_CELL_DEGREES = {1.0, 10.0, 90.0};
+
+  private static final long MAX_GRID_CELLS = 256;
+
+  private static final long TEMPORAL_BUCKET_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+  private static final long MAX_TEMPORAL_BUCKETS = 366;
+
+  /** Content types that {@code ContentTypeEvaluator} will compare as a literal string. */
+  private static final Pattern LITERAL_CONTENT_TYPE = Pattern.compile("[A-Za-z0-9_ :/@-]+");
+
+  /** Entity references that could expand to letters that do not appear in the raw metadata. */
+  private static final Pattern EXPANDING_ENTITY = Pattern.compile("&(?!(?:amp|lt|gt|quot|apos);)");
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SubscriptionIndexKeys.class);
+
+  private SubscriptionIndexKeys() {}
+
+  /**
+   * @return the keys of the predicate by dimension, or {@code null} if the predicate has to be
+   *     evaluated against every event
+   */
+  static Map<String, Set<Object>> forPredicate(Predicate predicate) {
+    if (predicate instanceof AndPredicate) {
+      Map<String, Set<Object>> left = forPredicate(((AndPredicate) predicate).getLeft());
+      Map<String, Set<Object>> right = forPredicate(((AndPredicate) predicate).getRight());
+      if (left == null || right == null) {
+        return left == null ? right : left;
+      }
+      // Either side is a valid guard for the conjunction, keep the narrower one
+      return count(left) <= count(right) ? left : right;
+    } else if (predicate instanceof OrPredicate) {
+      Map<String, Set<Object>> left = forPredicate(((OrPredicate) predicate).getLeft());
+      Map<String, Set<Object>> right = forPredicate(((OrPredicate) predicate).getRight());
+      if (left == null || right == null) {
+        return null;
+      }
+      Map<String, Set<Object>> union = new HashMap<>(left);
+      right.forEach(
+          (dimension, keys) -> union.merge(dimension, keys, SubscriptionIndexKeys::merge));
+      return union;
+    } else if (predicate instanceof FalsePredicate) {
+      return Collections.emptyMap();
+    } else if (predicate instanceof ContentTypePredicate) {
+      return forContentType((ContentTypePredicate) predicate);
+    } else if (predicate instanceof TemporalPredicate) {
+      return forTemporal((TemporalPredicate) predicate);
+    } else if (predicate instanceof GeospatialPredicate) {
+      return forGeospatial((GeospatialPredicate) predicate);
+    } else if (predicate instanceof ContextualPredicate) {
+      return forContextual((ContextualPredicate) predicate);
+    }
+
+    return null;
+  }
+
+  /**
+   * @return the keys of the event, or {@code null} if the event has to be evaluated against every
+   *     subscription
+   */
+  static EventKeys forEvent(Event event) {
+    String operation = (String) event.getProperty(PubSubConstants.HEADER_OPERATION_KEY);
+    Map<String, Object> contextualMap =
+        (Map<String, Object>) event.getProperty(PubSubConstants.HEADER_CONTEXTUAL_KEY);
+    String metadata = contextualMap == null ? null : (String) contextualMap.get("METADATA");
+
+    // Predicates pass every delete event that has no metadata, see ContentTypePredicate
+    if (PubSubConstants.DELETE.equals(operation)
+        && PubSubConstants.METADATA_DELETED.equals(metadata)) {
+      return null;
+    }
+
+    EventKeys keys = new EventKeys();
+
+    Object contentType = event.getProperty(PubSubConstants.HEADER_CONTENT_TYPE_KEY);
+    if (contentType != null) {
+      keys.add(CONTENT_TYPE, getInputType(contentType.toString()));
+    }
+
+    Metacard metacard = (Metacard) event.getProperty(PubSubConstants.HEADER_ENTRY_KEY);
+    if (metacard != null) {
+      addTemporalKeys(metacard, keys);
+      addGeospatialKeys(metacard, keys);
+    }
+
+    if (metadata != null) {
+      if (EXPANDING_ENTITY.matcher(metadata).find()) {
+        keys.wildcard(CONTEXTUAL);
+      } else {
+        for (String term : getTerms(metadata)) {
+          keys.add(CONTEXTUAL, term);
+        }
+      }
+    }
+
+    return keys;
+  }
+
+  private static Map<String, Set<Object>> forContentType(ContentTypePredicate predicate) {
+    String type = predicate.getType();
+    if (type == null || !LITERAL_CONTENT_TYPE.matcher(type).matches()) {
+      return null;
+    }
+    return Collections.singletonMap(CONTENT_TYPE, Collections.singleton(type));
+  }
+
+  private static Map<String, Set<Object>> forTemporal(TemporalPredicate predicate) {
+    // Relative periods move with the current time so they cannot be bucketed up front
+    Date start = predicate.getStart();
+    Date end = predicate.getEnd();
+    if (predicate.getOffset() > 0 || start == null || end == null || predicate.getType() == null) {
+      return null;
+    }
+
+    long first = bucket(start);
+    long last = bucket(end);
+    if (last < first || last - first >= MAX_TEMPORAL_BUCKETS) {
+      return null;
+    }
+
+    Set<Object> buckets = new HashSet<>();
+    for (long bucket = first; bucket <= last; bucket++) {
+      buckets.add(bucket);
+    }
+    return Collections.singletonMap(TEMPORAL + predicate.getType().name(), buckets);
+  }
+
+  private static Map<String, Set<Object>> forGeospatial(GeospatialPredicate predicate) {
+    Geometry criteria = predicate.getGeoCriteria();
+    if (criteria == null || criteria.isEmpty()) {
+      return null;
+    }
+
+    Envelope envelope = new Envelope(criteria.getEnvelopeInternal());
+    envelope.expandBy(Math.abs(predicate.getDistance()));
+
+    for (int level = 0; level < GRID_CELL_DEGREES.length; level++) {
+      Set<Object> cells = getCells(envelope, GRID_CELL_DEGREES[level]);
+      if (cells != null) {
+        return Collections.singletonMap(GEOSPATIAL + level, cells);
+      }
+    }
+    return null;
+  }
+
+  private static Map<String, Set<Object>> forContextual(ContextualPredicate predicate) {
+    String phrase = predicate.getSearchPhrase();
+    if (predicate.isFuzzy() || phrase == null) {
+      return null;
+    }
+
+    // Only plain words are indexed. Any Lucene syntax (wildcards, escapes, required or prohibited
+    // clauses, ...) makes the predicate fall back to being evaluated against every event.
+    Set<Object> terms = new HashSet<>();
+    for (String word : phrase.replace('"', ' ').trim().split("\\s+")) {
+      if ("AND".equals(word) || "OR".equals(word) || word.isEmpty()) {
+        continue;
+      }
+      if ("NOT".equals(word) || !isWord(word)) {
+        return null;
+      }
+      terms.add(toLowerCase(word));
+    }
+
+    return terms.isEmpty() ? null : Collections.singletonMap(CONTEXTUAL, terms);
+  }
+
+  private static void addTemporalKeys(Metacard metacard, EventKeys keys) {
+    for (DateType type : DateType.values()) {
+      Date date = getDate(metacard, type);
+      if (date != null) {
+        keys.add(TEMPORAL + type.name(), bucket(date));
+      }
+    }
+  }
+
+  private static void addGeospatialKeys(Metacard metacard, EventKeys keys) {
+    String location = metacard.getLocation();
+    if (location == null) {
+      return;
+    }
+
+    Geometry geometry;
+    try {
+      geometry = new WKTReader2().read(location);
+    } catch (ParseException | RuntimeException e) {
+      LOGGER.debug("Unable to index location of metacard {}", metacard.getId(), e);
+      geometry = null;
+    }
+
+    for (int level = 0; level < GRID_CELL_DEGREES.length; level++) {
+      String dimension = GEOSPATIAL + level;
+      // Locations that cannot be placed on the grid are left to the predicates to evaluate
+      Set<Object> cells =
+          geometry == null || geometry.isEmpty()
+              ? null
+              : getCells(geometry.getEnvelopeInternal(), GRID_CELL_DEGREES[level]);
+      if (cells == null) {
+        keys.wildcard(dimension);
+      } else {
+        cells.forEach(cell -> keys.add(dimension, cell));
+      }
+    }
+  }
+
+  /** Mirrors how {@code ContentTypeEvaluator} extracts the type from the event header. */
+  private static String getInputType(String input) {
+    if (input.matches(",")) {
+      return "null";
+    }
+    String[] typeVersion = input.split(",");
+    return typeVersion.length == 0 || typeVersion[0].isEmpty() ? "null" : typeVersion[0];
+  }
+
+  private static Date getDate(Metacard metacard, DateType type) {
+    switch (type) {
+      case MODIFIED:
+        return metacard.getModifiedDate();
+      case EFFECTIVE:
+        return metacard.getEffectiveDate();
+      case CREATED:
+        return metacard.getCreatedDate();
+      case EXPIRATION:
+        return metacard.getExpirationDate();
+      case METACARD_CREATED:
+        return getDateAttribute(metacard, Core.METACARD_CREATED);
+      case METACARD_MODIFIED:
+        return getDateAttribute(metacard, Core.METACARD_MODIFIED);
+      default:
+        return null;
+    }
+  }
+
+  private static Date getDateAttribute(Metacard metacard, String name) {
+    Attribute attribute = metacard.getAttribute(name);
+    Serializable value = attribute == null ? null : attribute.getValue();
+    return value instanceof Date ? (Date) value : null;
+  }
+
+  private static long bucket(Date date) {
+    return Math.floorDiv(date.getTime(), TEMPORAL_BUCKET_MILLIS);
+  }
+
+  /** @return the grid cells covering the envelope, or {@code null} if there are too many */
+  private static Set<Object> getCells(Envelope envelope, double cellDegrees) {
+    double minX = Math.floor(envelope.getMinX() / cellDegrees);
+    double maxX = Math.floor(envelope.getMaxX() / cellDegrees);
+    double minY = Math.floor(envelope.getMinY() / cellDegrees);
+    double maxY = Math.floor(envelope.getMaxY() / cellDegrees);
+    if ((maxX - minX + 1) * (maxY - minY + 1) > MAX_GRID_CELLS) {
+      return null;
+    }
+
+    Set<Object> cells = new HashSet<>();
+    for (long x = (long) minX; x <= (long) maxX; x++) {
+      for (long y = (long) minY; y <= (long) maxY; y++) {
+        cells.add((x << 32) | (y & 0xFFFFFFFFL));
+      }
+    }
+    return cells;
+  }
+
+  /**
+   * Splits the metadata into lower case runs of letters and digits. Lucene tokens are runs of
+   * letters, digits and special characters, so every indexed token made only of letters and digits
+   * is one of these runs.
+   */
+  private static Set<String> getTerms(String metadata) {
+    Set<String> terms = new HashSet<>();
+    int start = -1;
+    for (int i = 0; i <= metadata.length(); i++) {
+      boolean letterOrDigit =
+          i < metadata.length() && Character.isLetterOrDigit(metadata.charAt(i));
+      if (letterOrDigit && start < 0) {
+        start = i;
+      } else if (!letterOrDigit && start >= 0) {
+        terms.add(toLowerCase(metadata.substring(start, i)));
+        start = -1;
+      }
+    }
+    return terms;
+  }
+
+  private static boolean isWord(String word) {
+    for (int i = 0; i < word.length(); i++) {
+      if (!Character.isLetterOrDigit(word.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Lower cases character by character, the same way Lucene's {@code LowerCaseFilter} does. */
+  private static String toLowerCase(String word) {
+    char[] chars = word.toCharArray();
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = Character.toLowerCase(chars[i]);
+    }
+    return new String(chars);
+  }
+
+  private static int count(Map<String, Set<Object>> keys) {
+    return keys.values().stream().mapToInt(Set::size).sum();
+  }
+
+  private static Set<Object> merge(Set<Object> left, Set<Object> right) {
+    Set<Object> merged = new HashSet<>(left);
+    merged.addAll(right);
+    return merged;
+  }
+
+  /** The keys of a single event. */
+  static class EventKeys {
+
+    private final Map<String, Set<Object>> keys = new HashMap<>();
+
+    private final Set<String> wildcards = new HashSet<>();
+
+    void add(String dimension, Object key) {
+      keys.computeIfAbsent(dimension, d -> new HashSet<>()).add(key);
+    }
+
+    /** Marks a dimension whose keys cannot be determined for this event. */
+    void wildcard(String dimension) {
+      wildcards.add(dimension);
+    }
+
+    Map<String, Set<Object>> getKeys() {
+      return keys;
+    }
+
+    Set<String> getWildcards() {
+      return wildcards;
+    }
+  }
+}
@@ -13,9 +13,8 @@
  */
 package ddf.catalog.pubsub.predicate;
 
-import ddf.catalog.pubsub.criteria.contextual.ContextualEvaluationCriteria;
-import ddf.catalog.pubsub.criteria.contextual.ContextualEvaluationCriteriaImpl;
 import ddf.catalog.pubsub.criteria.contextual.ContextualEvaluator;
+import ddf.catalog.pubsub.criteria.contextual.ContextualIndex;
 import ddf.catalog.pubsub.criteria.contextual.ContextualTokenizer;
 import ddf.catalog.pubsub.internal.PubSubConstants;
 import java.io.IOException;
@@ -26,7 +25,7 @@
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.lucene.queryParser.ParseException;
-import org.apache.lucene.store.Directory;
+import org.apache.lucene.search.Query;
 import org.osgi.service.event.Event;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +41,9 @@ public class ContextualPredicate implements Predicate {
 
   private Collection<String> textPaths;
 
+  /** The search phrase parsed once when the subscription is created, reused for every event. */
+  private Query query;
+
   public ContextualPredicate(
       String searchPhrase,
       boolean fuzzy,
@@ -55,6 +57,14 @@ public ContextualPredicate(
       this.textPaths = new ArrayList<String>(textPaths);
     }
     this.searchPhrase = normalizePhrase(searchPhrase, fuzzy);
+
+    if (!this.searchPhrase.isEmpty()) {
+      try {
+        this.query = ContextualEvaluator.parseQuery(this.searchPhrase, caseSensitiveSearch);
+      } catch (ParseException e) {
+        LOGGER.debug("Unable to parse search phrase [{}], it will not match", this.searchPhrase, e);
+      }
+    }
   }
 
   public static boolean isContextual(String searchPhrase) {
@@ -209,7 +219,6 @@ public boolean matches(Event properties) {
 
     LOGGER.debug("Headers: {}", properties);
 
-    ContextualEvaluationCriteria cec = null;
     Map<String, Object> contextualMap =
         (Map<String, Object>) properties.getProperty(PubSubConstants.HEADER_CONTEXTUAL_KEY);
 
@@ -235,46 +244,32 @@ public boolean matches(Event properties) {
       return true;
     }
 
-    // If predicate specified one or more text paths, then extract the entry's metadata from the
-    // Event properties and
-    // pass it and the text path(s) to the evaluation criteria (which will build a Lucene index
-    // on the metadata using the
-    // text paths)
-    if (this.textPaths != null && !this.textPaths.isEmpty()) {
-      LOGGER.debug("creating criteria with textPaths and metadata document");
-      try {
-        cec =
-            new ContextualEvaluationCriteriaImpl(
-                searchPhrase,
-                fuzzy,
-                caseSensitiveSearch,
-                this.textPaths.toArray(new String[this.textPaths.size()]),
-                (String) contextualMap.get("METADATA"));
-      } catch (IOException e) {
-        LOGGER.debug("IO exception during context evaluation", e);
-        return false;
-      }
+    String[] paths =
+        hasTextPaths() ? this.textPaths.toArray(new String[this.textPaths.size()]) : null;
 
-      // This predicate has no text paths specified, so can use default Lucene search index, which
-      // indexed the entry's entire metadata
-      // per the default XPath expressions in ContextualEvaluator, from the event's properties
-      // data
-    } else {
-      LOGGER.debug("using default Lucene search index for metadata");
-      cec =
-          new ContextualEvaluationCriteriaImpl(
-              searchPhrase,
-              fuzzy,
-              caseSensitiveSearch,
-              (Directory) contextualMap.get("DEFAULT_INDEX"));
+    // Without a search phrase the predicate only checks that its text paths select something
+    if (searchPhrase.isEmpty()) {
+      return ContextualEvaluator.hasIndexableText(metadata, paths);
+    }
+
+    if (query == null) {
+      LOGGER.debug("Search phrase could not be parsed, so event does not match");
+      return false;
+    }
+
+    // The entry's metadata was analyzed once when the event was created and is shared by all
+    // contextual predicates. Predicates that specified text paths search an index of the text
+    // selected by those paths, which is built once per event for each distinct set of text paths.
+    ContextualIndex index = (ContextualIndex) contextualMap.get("DEFAULT_INDEX");
+    if (index == null) {
+      LOGGER.debug("No contextual index to search against.");
+      return false;
     }
 
     try {
-      return ContextualEvaluator.evaluate(cec);
+      return index.matches(query, paths);
     } catch (IOException e) {
-      LOGGER.debug("IO Exception evaluating context criteria", e);
-    } catch (ParseException e) {
-      LOGGER.debug("Parse Exception evaluating context criteria", e);
+      LOGGER.debug("IO exception during context evaluation", e);
     }
 
     LOGGER.debug("EXITING: {}", methodName);
@@ -153,6 +153,11 @@ public Date getStart() {
     return DateUtils.copy(start);
   }
 
+  /** @return the relative offset in milliseconds, or 0 if this is an absolute time period */
+  public long getOffset() {
+    return offset;
+  }
+
   public DateType getType() {
     return type;
   }
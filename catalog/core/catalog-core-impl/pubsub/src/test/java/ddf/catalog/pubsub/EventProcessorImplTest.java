@@ -14,16 +14,18 @@
 package ddf.catalog.pubsub;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
 import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.pubsub.internal.PubSubConstants;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
-import org.osgi.service.event.EventAdmin;
+import org.osgi.service.event.Event;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,11 +47,15 @@ public void tearDown() throws Exception {}
 
   @Test
   public void testNullMetacard() {
-    EventAdmin eventAdmin = new MockEventAdmin();
+    assertThat(EventProcessorImpl.createPublishedEvent(null, "Operation"), nullValue());
+
+    EventProcessorImpl eventProcessor = new EventProcessorImpl();
     try {
-      EventProcessorImpl.processEntry(null, "Operation", eventAdmin);
+      eventProcessor.publish(null, "Operation");
     } catch (Exception e) {
       fail();
+    } finally {
+      eventProcessor.destroy();
     }
   }
 
@@ -59,11 +65,14 @@ public void testNullEventAdmin() {
     metacard.setContentTypeName("Nitf");
     metacard.setContentTypeVersion("2.0");
     metacard.setMetadata("<xml/>");
+    EventProcessorImpl eventProcessor = new EventProcessorImpl(null, null, null, null, null);
     try {
-      EventProcessorImpl.processEntry(metacard, "Operation", null);
+      eventProcessor.publish(metacard, "Operation");
     } catch (Exception e) {
       LOGGER.error("Unexpected exception.", e);
       fail();
+    } finally {
+      eventProcessor.destroy();
     }
   }
 
@@ -73,14 +82,12 @@ public void testNullOperation() {
     metacard.setContentTypeName("Nitf");
     metacard.setContentTypeVersion("2.0");
     metacard.setMetadata("<xml/>");
-    EventAdmin eventAdmin = new MockEventAdmin();
 
-    try {
-      EventProcessorImpl.processEntry(metacard, null, eventAdmin);
-    } catch (Exception e) {
-      LOGGER.error("Unexpected exception.", e);
-      fail();
-    }
+    Event event = EventProcessorImpl.createPublishedEvent(metacard, null);
+
+    assertThat(event.getProperty(PubSubConstants.HEADER_ENTRY_KEY), equalTo(metacard));
+    assertThat(event.getProperty(PubSubConstants.HEADER_CONTENT_TYPE_KEY), equalTo("Nitf,2.0"));
+    assertThat(event.getProperty(PubSubConstants.HEADER_OPERATION_KEY), nullValue());
   }
 
   @Test
@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.criteria.contextual;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import ddf.catalog.pubsub.TestDataLibrary;
+import ddf.catalog.pubsub.internal.PubSubConstants;
+import ddf.catalog.pubsub.predicate.ContextualPredicate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.lucene.search.Query;
+import org.junit.Test;
+import org.osgi.service.event.Event;
+
+public class ContextualIndexTest {
+
+  private static final String[] TITLE_PATH = {"/Resource/title"};
+
+  @Test
+  public void testCaseInsensitiveAndCaseSensitiveQueries() throws Exception {
+    ContextualIndex index = new ContextualIndex(TestDataLibrary.getCatAndDogEntry());
+
+    assertThat(index.matches(ContextualEvaluator.parseQuery("serengeti", false), null), is(true));
+    assertThat(index.matches(ContextualEvaluator.parseQuery("Serengeti", true), null), is(true));
+    assertThat(index.matches(ContextualEvaluator.parseQuery("serengeti", true), null), is(false));
+    assertThat(index.matches(ContextualEvaluator.parseQuery("bird", false), null), is(false));
+  }
+
+  @Test
+  public void testTextPaths() throws Exception {
+    ContextualIndex index = new ContextualIndex(TestDataLibrary.getCatAndDogEntry());
+    Query cat = ContextualEvaluator.parseQuery("cat", false);
+
+    assertThat(index.matches(cat, null), is(true));
+    assertThat(index.matches(cat, TITLE_PATH), is(false));
+    assertThat(index.matches(ContextualEvaluator.parseQuery("dog", false), TITLE_PATH), is(true));
+  }
+
+  @Test
+  public void testPredicatesShareIndex() throws Exception {
+    Event event = event(TestDataLibrary.getCatAndDogEntry());
+
+    assertThat(new ContextualPredicate("cat", false, false, null).matches(event), is(true));
+    assertThat(new ContextualPredicate("bird", false, false, null).matches(event), is(false));
+    assertThat(
+        new ContextualPredicate("dog", false, false, Collections.singletonList(TITLE_PATH[0]))
+            .matches(event),
+        is(true));
+    assertThat(
+        new ContextualPredicate("miles", false, false, Collections.singletonList(TITLE_PATH[0]))
+            .matches(event),
+        is(false));
+    assertThat(
+        new ContextualPredicate("", false, false, Collections.singletonList(TITLE_PATH[0]))
+            .matches(event),
+        is(true));
+  }
+
+  @Test
+  public void testInvalidSearchPhraseDoesNotMatch() throws Exception {
+    ContextualPredicate predicate = new ContextualPredicate("cat AND", false, false, null);
+
+    assertThat(predicate.matches(event(TestDataLibrary.getCatAndDogEntry())), is(false));
+  }
+
+  @Test
+  public void testConcurrentMatches() throws Exception {
+    Event event = event(TestDataLibrary.getCatAndDogEntry());
+    ContextualPredicate predicate =
+        new ContextualPredicate("serengeti", false, false, Collections.singletonList("//title"));
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Callable<Boolean>> tasks =
+          IntStream.range(0, 32)
+              .mapToObj(i -> (Callable<Boolean>) () -> predicate.matches(event))
+              .collect(Collectors.toList());
+      for (Future<Boolean> result : executor.invokeAll(tasks)) {
+        assertThat(result.get(), is(true));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static Event event(String metadata) throws Exception {
+    Map<String, Object> contextualMap = new HashMap<>();
+    contextualMap.put("DEFAULT_INDEX", new ContextualIndex(metadata));
+    contextualMap.put("METADATA", metadata);
+
+    Map<String, Object> properties = new HashMap<>();
+    properties.put(PubSubConstants.HEADER_OPERATION_KEY, PubSubConstants.CREATE);
+    properties.put(PubSubConstants.HEADER_CONTEXTUAL_KEY, contextualMap);
+    return new Event("topic", properties);
+  }
+}
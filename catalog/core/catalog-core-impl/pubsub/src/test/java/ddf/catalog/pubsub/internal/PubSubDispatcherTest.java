@@ -0,0 +1,222 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.event.EventProcessor;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+
+public class PubSubDispatcherTest {
+
+  private final List<String> operations = new CopyOnWriteArrayList<>();
+
+  private final List<String> publishedIds = new CopyOnWriteArrayList<>();
+
+  private PubSubDispatcher dispatcher;
+
+  @After
+  public void tearDown() {
+    if (dispatcher != null) {
+      dispatcher.shutdown();
+    }
+  }
+
+  @Test
+  public void testDispatchPublishesEveryEvent() throws Exception {
+    CountDownLatch published = new CountDownLatch(100);
+    dispatcher =
+        new PubSubDispatcher(
+            (metacard, operation) -> {
+              operations.add(operation);
+              published.countDown();
+            },
+            2,
+            16,
+            8,
+            1000);
+
+    for (int i = 0; i < 100; i++) {
+      dispatcher.dispatch(EventProcessor.EVENTS_TOPIC_CREATED, metacard(String.valueOf(i)));
+    }
+
+    assertThat(published.await(10, TimeUnit.SECONDS), is(true));
+    assertThat(operations, hasSize(100));
+    assertThat(operations, everyItem(is(PubSubConstants.CREATE)));
+  }
+
+  @Test
+  public void testTopicsMapToOperations() throws Exception {
+    CountDownLatch published = new CountDownLatch(3);
+    dispatcher =
+        new PubSubDispatcher(
+            (metacard, operation) -> {
+              operations.add(operation);
+              published.countDown();
+            },
+            1,
+            16,
+            8,
+            1000);
+
+    dispatcher.dispatch(EventProcessor.EVENTS_TOPIC_CREATED, metacard("1"));
+    dispatcher.dispatch("some/other/topic", metacard("2"));
+    dispatcher.dispatch(EventProcessor.EVENTS_TOPIC_UPDATED, metacard("3"));
+    dispatcher.dispatch(EventProcessor.EVENTS_TOPIC_DELETED, metacard("4"));
+
+    assertThat(published.await(10, TimeUnit.SECONDS), is(true));
+    assertThat(
+        operations,
+        contains(PubSubConstants.CREATE, PubSubConstants.UPDATE, PubSubConstants.DELETE));
+  }
+
+  @Test
+  public void testEventsForAMetacardArePublishedInOrder() throws Exception {
+    Map<String, List<String>> operationsById = new ConcurrentHashMap<>();
+    CountDownLatch published = new CountDownLatch(300);
+    dispatcher =
+        new PubSubDispatcher(
+            (metacard, operation) -> {
+              operationsById
+                  .computeIfAbsent(metacard.getId(), id -> new CopyOnWriteArrayList<>())
+                  .add(operation);
+              published.countDown();
+            },
+            4,
+            2,
+            2,
+            0);
+
+    for (int i = 0; i < 100; i++) {
+      Metacard metacard = metacard(String.valueOf(i));
+      dispatcher.dispatch(EventProcessor.EVENTS_TOPIC_CREATED, metacard);
+      dispatcher.dispatch(EventProcessor.EVENTS_TOPIC_UPDATED, metacard);
+      dispatcher.dispatch(EventProcessor.EVENTS_TOPIC_DELETED, metacard);
+    }
+
+    assertThat(published.await(10, TimeUnit.SECONDS), is(true));
+    assertThat(operationsById.size(), is(100));
+    for (List<String> metacardOperations : operationsById.values()) {
+      assertThat(
+          metacardOperations,
+          contains(PubSubConstants.CREATE, PubSubConstants.UPDATE, PubSubConstants.DELETE));
+    }
+  }
+
+  @Test
+  public void testFullQueuePublishesOnCallingThreadAfterQueuedEvents() throws Exception {
+    CountDownLatch workerBusy = new CountDownLatch(1);
+    CountDownLatch releaseWorker = new CountDownLatch(1);
+    List<String> publishingThreads = new CopyOnWriteArrayList<>();
+    dispatcher =
+        new PubSubDispatcher(
+            (metacard, operation) -> {
+              if (metacard.getId().equals("taken")) {
+                workerBusy.countDown();
+                awaitQuietly(releaseWorker);
+                return;
+              }
+              publishedIds.add(metacard.getId());
+              publishingThreads.add(Thread.currentThread().getName());
+            },
+            1,
+            1,
+            1,
+            0);
+
+    dispatcher.dispatch(EventProcessor.EVENTS_TOPIC_CREATED, metacard("taken"));
+    assertThat(workerBusy.await(10, TimeUnit.SECONDS), is(true));
+    dispatcher.dispatch(EventProcessor.EVENTS_TOPIC_CREATED, metacard("queued"));
+
+    Thread caller =
+        new Thread(
+            () -> dispatcher.dispatch(EventProcessor.EVENTS_TOPIC_CREATED, metacard("overflow")),
+            "caller");
+    caller.start();
+    caller.join(500);
+
+    assertThat(caller.isAlive(), is(true));
+    assertThat(publishedIds, is(empty()));
+
+    releaseWorker.countDown();
+    caller.join(TimeUnit.SECONDS.toMillis(10));
+
+    assertThat(publishedIds, contains("queued", "overflow"));
+    assertThat(publishingThreads, everyItem(is("caller")));
+    assertThat(dispatcher.getQueueSize(), is(0));
+  }
+
+  @Test
+  public void testShutdownPublishesQueuedEvents() throws Exception {
+    CountDownLatch workerBusy = new CountDownLatch(1);
+    Thread testThread = Thread.currentThread();
+    dispatcher =
+        new PubSubDispatcher(
+            (metacard, operation) -> {
+              if (Thread.currentThread() == testThread) {
+                publishedIds.add(metacard.getId());
+                return;
+              }
+              workerBusy.countDown();
+              awaitQuietly(new CountDownLatch(1));
+            },
+            1,
+            4,
+            1,
+            1000);
+
+    dispatcher.dispatch(EventProcessor.EVENTS_TOPIC_CREATED, metacard("taken"));
+    assertThat(workerBusy.await(10, TimeUnit.SECONDS), is(true));
+    dispatcher.dispatch(EventProcessor.EVENTS_TOPIC_CREATED, metacard("queued1"));
+    dispatcher.dispatch(EventProcessor.EVENTS_TOPIC_DELETED, metacard("queued2"));
+
+    dispatcher.shutdown();
+    dispatcher = null;
+
+    assertThat(publishedIds, contains("queued1", "queued2"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidWorkerCount() {
+    new PubSubDispatcher((metacard, operation) -> {}, 0, 1, 1, 0);
+  }
+
+  private static Metacard metacard(String id) {
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setId(id);
+    return metacard;
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.pubsub.EventProcessorImpl.DateType;
+import ddf.catalog.pubsub.criteria.geospatial.SpatialOperator;
+import ddf.catalog.pubsub.predicate.AndPredicate;
+import ddf.catalog.pubsub.predicate.ContentTypePredicate;
+import ddf.catalog.pubsub.predicate.ContextualPredicate;
+import ddf.catalog.pubsub.predicate.FalsePredicate;
+import ddf.catalog.pubsub.predicate.GeospatialPredicate;
+import ddf.catalog.pubsub.predicate.NotPredicate;
+import ddf.catalog.pubsub.predicate.OrPredicate;
+import ddf.catalog.pubsub.predicate.Predicate;
+import ddf.catalog.pubsub.predicate.TemporalPredicate;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.osgi.service.event.Event;
+
+public class SubscriptionIndexTest {
+
+  private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+  private final SubscriptionIndex<String> index = new SubscriptionIndex<>();
+
+  @Test
+  public void testContentTypeCandidates() {
+    index.put("nitf", new ContentTypePredicate("nitf", null), "nitf");
+    index.put("pdf", new ContentTypePredicate("pdf", null), "pdf");
+    index.put("wildcard", new ContentTypePredicate("ni*", null), "wildcard");
+
+    assertThat(index.getCandidates(event(metacard("nitf", null))), contains("nitf", "wildcard"));
+    assertThat(index.getCandidates(event(metacard("jpeg", null))), contains("wildcard"));
+  }
+
+  @Test
+  public void testGeospatialCandidates() {
+    index.put("near", geospatial("POLYGON ((10 10, 12 10, 12 12, 10 12, 10 10))", 0.0), "near");
+    index.put(
+        "far", geospatial("POLYGON ((-80 -40, -79 -40, -79 -39, -80 -39, -80 -40))", 0.0), "far");
+    index.put("radius", geospatial("POINT (-60 -40)", 20.0), "radius");
+    index.put(
+        "world",
+        geospatial("POLYGON ((-180 -90, 180 -90, 180 90, -180 90, -180 -90))", 0.0),
+        "world");
+
+    assertThat(
+        index.getCandidates(event(metacard(null, "POINT (11 11)"))), contains("near", "world"));
+    assertThat(
+        index.getCandidates(event(metacard(null, "POINT (-79.5 -39.5)"))),
+        contains("far", "radius", "world"));
+    assertThat(index.getCandidates(event(metacard(null, null))), is(empty()));
+  }
+
+  @Test
+  public void testInvalidLocationMatchesAllGeospatialSubscriptions() {
+    index.put("near", geospatial("POLYGON ((10 10, 12 10, 12 12, 10 12, 10 10))", 0.0), "near");
+    index.put("nitf", new ContentTypePredicate("nitf", null), "nitf");
+
+    assertThat(index.getCandidates(event(metacard(null, "NOT WKT"))), contains("near"));
+  }
+
+  @Test
+  public void testTemporalCandidates() {
+    index.put("january", temporal(0, 30, DateType.MODIFIED), "january");
+    index.put("march", temporal(60, 90, DateType.MODIFIED), "march");
+    index.put("created", temporal(0, 30, DateType.CREATED), "created");
+    index.put("relative", new TemporalPredicate(DAY, DateType.MODIFIED), "relative");
+
+    MetacardImpl metacard = metacard(null, null);
+    metacard.setModifiedDate(new Date(10 * DAY + 1));
+    assertThat(index.getCandidates(event(metacard)), contains("january", "relative"));
+
+    metacard.setModifiedDate(new Date(90 * DAY));
+    metacard.setCreatedDate(new Date(29 * DAY));
+    assertThat(index.getCandidates(event(metacard)), contains("march", "created", "relative"));
+  }
+
+  @Test
+  public void testContextualCandidates() {
+    index.put("terms", contextual("alpha \"beta gamma\"", false), "terms");
+    index.put("other", contextual("delta", false), "other");
+    index.put("wildcard", contextual("alp*", false), "wildcard");
+    index.put("fuzzy", contextual("alpha", true), "fuzzy");
+    index.put("negated", contextual("NOT delta", false), "negated");
+
+    assertThat(
+        index.getCandidates(event(metacard(null, null), "<doc>Some GAMMA rays</doc>")),
+        contains("terms", "wildcard", "fuzzy", "negated"));
+    assertThat(
+        index.getCandidates(event(metacard(null, null), "<doc>delta&#64;</doc>")),
+        contains("terms", "other", "wildcard", "fuzzy", "negated"));
+    assertThat(
+        index.getCandidates(event(metacard(null, null))), contains("wildcard", "fuzzy", "negated"));
+  }
+
+  @Test
+  public void testOrPredicateIndexesBothSides() {
+    index.put(
+        "either",
+        new OrPredicate(
+            new ContentTypePredicate("nitf", null), new ContentTypePredicate("pdf", null)),
+        "either");
+    index.put(
+        "unrestricted",
+        new OrPredicate(new ContentTypePredicate("nitf", null), contextual("alpha", true)),
+        "unrestricted");
+
+    assertThat(
+        index.getCandidates(event(metacard("pdf", null))), contains("either", "unrestricted"));
+    assertThat(index.getCandidates(event(metacard("jpeg", null))), contains("unrestricted"));
+  }
+
+  @Test
+  public void testAndPredicateIndexesEitherSide() {
+    index.put(
+        "both",
+        new AndPredicate(new ContentTypePredicate("nitf", null), contextual("alpha", true)),
+        "both");
+    index.put(
+        "negated",
+        new AndPredicate(
+            new NotPredicate(new ContentTypePredicate("nitf", null)),
+            new ContentTypePredicate("pdf", null)),
+        "negated");
+    index.put("never", new AndPredicate(new FalsePredicate(), contextual("alpha", true)), "never");
+
+    assertThat(index.getCandidates(event(metacard("nitf", null))), contains("both"));
+    assertThat(index.getCandidates(event(metacard("pdf", null))), contains("negated"));
+  }
+
+  @Test
+  public void testDeletedMetadataMatchesAllSubscriptions() {
+    index.put("nitf", new ContentTypePredicate("nitf", null), "nitf");
+    index.put("never", new FalsePredicate(), "never");
+
+    Event event =
+        event(metacard("pdf", null), PubSubConstants.DELETE, PubSubConstants.METADATA_DELETED);
+
+    assertThat(index.getCandidates(event), contains("nitf", "never"));
+  }
+
+  @Test
+  public void testRemoveAndReplace() {
+    index.put("a", new ContentTypePredicate("nitf", null), "a");
+    index.put("b", new ContentTypePredicate("nitf", null), "b");
+
+    assertThat(index.remove("a"), is("a"));
+    assertThat(index.remove("a"), is(nullValue()));
+    assertThat(index.getCandidates(event(metacard("nitf", null))), contains("b"));
+
+    index.put("b", new ContentTypePredicate("pdf", null), "b2");
+    assertThat(index.getCandidates(event(metacard("nitf", null))), is(empty()));
+    assertThat(index.getCandidates(event(metacard("pdf", null))), contains("b2"));
+    assertThat(index.size(), is(1));
+
+    index.remove("b");
+    assertThat(index.isEmpty(), is(true));
+  }
+
+  private static MetacardImpl metacard(String contentType, String location) {
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setContentTypeName(contentType);
+    metacard.setLocation(location);
+    return metacard;
+  }
+
+  private static Event event(MetacardImpl metacard) {
+    return event(metacard, PubSubConstants.CREATE, null);
+  }
+
+  private static Event event(MetacardImpl metacard, String metadata) {
+    return event(metacard, PubSubConstants.CREATE, metadata);
+  }
+
+  private static Event event(MetacardImpl metacard, String operation, String metadata) {
+    Map<String, Object> properties = new HashMap<>();
+    properties.put(PubSubConstants.HEADER_OPERATION_KEY, operation);
+    properties.put(PubSubConstants.HEADER_ENTRY_KEY, metacard);
+    properties.put(
+        PubSubConstants.HEADER_CONTENT_TYPE_KEY,
+        (metacard.getContentTypeName() == null ? "UNKNOWN" : metacard.getContentTypeName()) + ",");
+    if (metadata != null) {
+      Map<String, Object> contextualMap = new HashMap<>();
+      contextualMap.put("METADATA", metadata);
+      properties.put(PubSubConstants.HEADER_CONTEXTUAL_KEY, contextualMap);
+    }
+    return new Event(PubSubConstants.PUBLISHED_EVENT_TOPIC_NAME, properties);
+  }
+
+  private static Predicate geospatial(String wkt, double distance) {
+    return new GeospatialPredicate(wkt, SpatialOperator.OVERLAPS.name(), distance);
+  }
+
+  private static Predicate temporal(long startDay, long endDay, DateType type) {
+    return new TemporalPredicate(new Date(startDay * DAY), new Date(endDay * DAY), type);
+  }
+
+  private static Predicate contextual(String phrase, boolean fuzzy) {
+    return new ContextualPredicate(phrase, fuzzy, false, null);
+  }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.catalog.content.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.Optional;
+import com.google.common.io.ByteSource;
+import ddf.security.encryption.crypter.Crypter;
+import ddf.security.encryption.crypter.Crypter.CrypterException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The plain content of an encrypted file, decrypted as it is read.
+ *
+ * <p>The file is read through a {@link FileChannel} wrapped in a seekable decrypting channel, so
+ * nothing is staged to memory or disk, the size is known without reading the content, and both
+ * {@link #slice(long, long)} and skipping within an opened stream position the channel instead of
+ * decrypting the content in between.
+ */
+class EncryptedFileByteSource extends ByteSource {
+
+  private final Path path;
+
+  private final Crypter crypter;
+
+  private final long offset;
+
+  private final long length;
+
+  EncryptedFileByteSource(Path path, Crypter crypter) {
+    this(path, crypter, 0, Long.MAX_VALUE);
+  }
+
+  private EncryptedFileByteSource(Path path, Crypter crypter, long offset, long length) {
+    this.path = path;
+    this.crypter = crypter;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  @Override
+  public InputStream openStream() throws IOException {
+    SeekableByteChannel channel = openChannel();
+    try {
+      long size = channel.size();
+      long start = Math.min(offset, size);
+      channel.position(start);
+      return new ChannelInputStream(channel, Math.min(length, size - start));
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public Optional<Long> sizeIfKnown() {
+    try {
+      return Optional.of(size());
+    } catch (IOException e) {
+      return Optional.absent();
+    }
+  }
+
+  @Override
+  public long size() throws IOException {
+    try (SeekableByteChannel channel = openChannel()) {
+      long size = channel.size();
+      return Math.min(length, size - Math.min(offset, size));
+    }
+  }
+
+  @Override
+  public ByteSource slice(long sliceOffset, long sliceLength) {
+    checkArgument(sliceOffset >= 0, "offset (%s) may not be negative", sliceOffset);
+    checkArgument(sliceLength >= 0, "length (%s) may not be negative", sliceLength);
+    long maxLength = length - sliceOffset;
+    return new EncryptedFileByteSource(
+        path,
+        crypter,
+        offset + Math.min(sliceOffset, length),
+        Math.max(0, Math.min(sliceLength, maxLength)));
+  }
+
+  @Override
+  public String toString() {
+    return "EncryptedFileByteSource(" + path + ", " + offset + ", " + length + ")";
+  }
+
+  private SeekableByteChannel openChannel() throws IOException {
+    FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      return crypter.decrypt(fileChannel);
+    } catch (CrypterException e) {
+      fileChannel.close();
+      throw new IOException("Cannot decrypt " + path + ".", e);
+    }
+  }
+
+  /** Reads at most a given number of bytes from the current position of a channel. */
+  private static class ChannelInputStream extends InputStream {
+
+    private final SeekableByteChannel channel;
+
+    private long remaining;
+
+    private ChannelInputStream(SeekableByteChannel channel, long remaining) {
+      this.channel = channel;
+      this.remaining = remaining;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) == 1 ? b[0] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (remaining <= 0) {
+        return -1;
+      }
+
+      int bytesRead;
+      do {
+        bytesRead = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)));
+      } while (bytesRead == 0);
+
+      if (bytesRead > 0) {
+        remaining -= bytesRead;
+      }
+      return bytesRead;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = Math.max(0, Math.min(n, remaining));
+      channel.position(channel.position() + skipped);
+      remaining -= skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.min(Integer.MAX_VALUE, remaining);
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+}
@@ -41,7 +41,6 @@
 import ddf.mime.MimeTypeResolutionException;
 import ddf.security.encryption.crypter.Crypter;
 import ddf.security.encryption.crypter.Crypter.CrypterException;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -412,9 +411,9 @@ private ContentItem readContent(URI uri) throws StorageException {
 
     String filename = path.getFileName().toString();
 
-    // resolve external reference if necessary, determine the extension, and retrieve an
-    // InputStream to the content
-    InputStream contentInputStream;
+    // resolve external reference if necessary, determine the extension, and retrieve the
+    // decrypted content
+    ByteSource byteSource;
     String extension;
 
     try {
@@ -423,26 +422,24 @@ private ContentItem readContent(URI uri) throws StorageException {
         extension =
             FilenameUtils.getExtension(
                 FilenameUtils.removeExtension(path.getFileName().toString()));
-        contentInputStream = getInputStreamFromReference(path);
+        byteSource = getByteSourceFromReference(path);
       } else {
         extension = FilenameUtils.getExtension(path.getFileName().toString());
-        contentInputStream = getInputStreamFromResource(path);
+        byteSource = new EncryptedFileByteSource(path, crypter);
       }
     } catch (IOException e) {
       throw new StorageException(
           String.format("Unable to resolve InputStream given URI of %s", uri), e);
     }
 
-    // decrypt the content and return as a ByteSource
-    ByteSource byteSource = decryptStream(contentInputStream);
-
-    // determine the size of the content
-    long size = 0;
+    // determine the size of the content, which also verifies that it can be decrypted
+    long size;
 
     try {
       size = byteSource.size();
     } catch (IOException e) {
-      LOGGER.debug("Problem determining size of resource; defaulting to {}.", size, e);
+      LOGGER.debug("Error reading content {}. Failing StorageProvider read.", uri, e);
+      throw new StorageException(String.format("Cannot read content of %s.", uri), e);
     }
 
     // determine the MimeType of the content
@@ -452,7 +449,8 @@ private ContentItem readContent(URI uri) throws StorageException {
         uri.getSchemeSpecificPart(), uri.getFragment(), byteSource, mimeType, filename, size, null);
   }
 
-  private InputStream getInputStreamFromReference(Path externalReferencePath) throws IOException {
+  private ByteSource getByteSourceFromReference(Path externalReferencePath)
+      throws IOException, StorageException {
     URI reference;
 
     try {
@@ -477,22 +475,19 @@ private InputStream getInputStreamFromReference(Path externalReferencePath) thro
       if (!newPath.toFile().exists()) {
         throw new IOException("Cannot read " + reference + ".");
       }
-      return getInputStreamFromResource(newPath);
+      return new EncryptedFileByteSource(newPath, crypter);
     }
 
-    return reference.toURL().openStream();
-  }
-
-  private InputStream getInputStreamFromResource(Path path) throws IOException {
-    return Files.newInputStream(path);
+    // a remote reference cannot be positioned, so its content is decrypted up front
+    return decryptStream(reference.toURL().openStream());
   }
 
   private String determineMimeType(String extension, Path path, ByteSource byteSource) {
     String mimeType = DEFAULT_MIME_TYPE;
 
     // guess MimeType
-    try {
-      mimeType = mimeTypeMapper.guessMimeType(byteSource.openStream(), extension);
+    try (InputStream inputStream = byteSource.openStream()) {
+      mimeType = mimeTypeMapper.guessMimeType(inputStream, extension);
     } catch (IOException | MimeTypeResolutionException e) {
       LOGGER.debug(
           "Could not determine mime type for file extension = {}; defaulting to {}.",
@@ -646,15 +641,7 @@ public InputStream openStream() throws IOException {
           InputStream encryptedInputStream = crypter.encrypt(plainInputStream)) {
         copySize = Files.copy(encryptedInputStream, contentItemPath);
       }
-      byteSource =
-          new ByteSource() {
-            @Override
-            public InputStream openStream() throws IOException {
-              try (InputStream fileInputStream = new FileInputStream(contentItemPath.toFile())) {
-                return crypter.decrypt(fileInputStream);
-              }
-            }
-          };
+      byteSource = new EncryptedFileByteSource(contentItemPath, crypter);
 
       if (copySize < itemSize && LOGGER.isWarnEnabled()) {
         LOGGER.warn(
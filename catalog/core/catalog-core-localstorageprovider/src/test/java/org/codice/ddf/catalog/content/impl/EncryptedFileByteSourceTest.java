@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.catalog.content.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.google.common.io.ByteSource;
+import ddf.security.SecurityConstants;
+import ddf.security.encryption.crypter.Crypter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EncryptedFileByteSourceTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private byte[] content;
+
+  private ByteSource byteSource;
+
+  @Before
+  public void setUp() throws IOException {
+    System.setProperty(
+        SecurityConstants.KEYSET_DIR, temporaryFolder.newFolder("keysets").getAbsolutePath());
+    System.setProperty(
+        SecurityConstants.ASSOCIATED_DATA_PATH,
+        temporaryFolder.newFolder("etc").getAbsolutePath().concat("/associatedData.properties"));
+
+    // larger than several segments of the streaming key
+    content = new byte[20000];
+    new Random(1).nextBytes(content);
+
+    Crypter crypter = new Crypter("test");
+    Path path = temporaryFolder.newFile().toPath();
+    try (InputStream encryptedStream = crypter.encrypt(new ByteArrayInputStream(content))) {
+      Files.copy(encryptedStream, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+    byteSource = new EncryptedFileByteSource(path, crypter);
+  }
+
+  @After
+  public void tearDown() {
+    System.clearProperty(SecurityConstants.KEYSET_DIR);
+    System.clearProperty(SecurityConstants.ASSOCIATED_DATA_PATH);
+  }
+
+  @Test
+  public void testRead() throws IOException {
+    assertThat(byteSource.size(), is((long) content.length));
+    assertThat(byteSource.sizeIfKnown().get(), is((long) content.length));
+    assertThat(byteSource.read(), is(content));
+  }
+
+  @Test
+  public void testSlice() throws IOException {
+    ByteSource slice = byteSource.slice(5000, 100);
+
+    assertThat(slice.size(), is(100L));
+    assertThat(slice.read(), is(Arrays.copyOfRange(content, 5000, 5100)));
+    assertThat(slice.slice(10, 1000).read(), is(Arrays.copyOfRange(content, 5010, 5100)));
+    assertThat(byteSource.slice(19990, 100).read(), is(Arrays.copyOfRange(content, 19990, 20000)));
+    assertThat(byteSource.slice(30000, 100).isEmpty(), is(true));
+  }
+
+  @Test
+  public void testSkip() throws IOException {
+    try (InputStream inputStream = byteSource.openStream()) {
+      assertThat(inputStream.skip(12000), is(12000L));
+      assertThat(inputStream.read(), is(content[12000] & 0xFF));
+      assertThat(inputStream.skip(10000), is(7999L));
+      assertThat(inputStream.read(), is(-1));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadPlainFile() throws IOException {
+    Path path = temporaryFolder.newFile().toPath();
+    Files.write(path, content);
+
+    new EncryptedFileByteSource(path, new Crypter("test")).size();
+  }
+}
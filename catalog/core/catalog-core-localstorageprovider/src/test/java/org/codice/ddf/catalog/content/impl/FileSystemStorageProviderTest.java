@@ -168,6 +168,22 @@ public void testRead() throws Exception {
     assertReadRequest(uriString, NITF_MIME_TYPE);
   }
 
+  @Test
+  public void testReadAndSkip() throws Exception {
+    CreateStorageResponse createResponse =
+        assertContentItem(TEST_INPUT_CONTENTS, NITF_MIME_TYPE, TEST_INPUT_FILENAME);
+    URI uri = new URI(createResponse.getCreatedContentItems().get(0).getUri());
+
+    ContentItem item =
+        provider.read(new ReadStorageRequestImpl(uri, Collections.emptyMap())).getContentItem();
+
+    assertThat(item.getSize(), is((long) TEST_INPUT_CONTENTS.length()));
+    try (InputStream inputStream = item.getInputStream()) {
+      assertThat(inputStream.skip(6), is(6L));
+      assertThat(IOUtils.toString(inputStream), is("World"));
+    }
+  }
+
   @Test(expected = StorageException.class)
   public void testReadDeletedReference() throws Exception {
     Path tempFile = Files.createTempFile("test", "nitf");
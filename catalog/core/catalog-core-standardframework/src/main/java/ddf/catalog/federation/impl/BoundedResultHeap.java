@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation.impl;
+
+import ddf.catalog.data.Result;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Retains the first {@code capacity} {@link Result}s, according to a {@link Comparator}, out of
+ * all the results offered to it. Results are merged in as each source completes, so memory and
+ * sorting cost scale with the capacity rather than with the total number of results returned by
+ * the federated sources.
+ *
+ * <p>Results that compare as equal keep the order in which they were offered, matching the
+ * behavior of a stable sort over the concatenated source results.
+ *
+ * <p>This class is not thread-safe.
+ */
+class BoundedResultHeap {
+
+  private final int capacity;
+
+  private final Comparator<Entry> entryOrder;
+
+  /** Head of the queue is the last (worst) retained result. */
+  private final PriorityQueue<Entry> heap;
+
+  private long offered = 0;
+
+  BoundedResultHeap(Comparator<? super Result> comparator, int capacity) {
+    Validate.notNull(comparator, "Valid Comparator required.");
+    Validate.isTrue(capacity > 0, "Capacity must be greater than 0.");
+
+    this.capacity = capacity;
+    this.entryOrder =
+        Comparator.<Entry, Result>comparing(entry -> entry.result, comparator)
+            .thenComparingLong(entry -> entry.sequence);
+    this.heap = new PriorityQueue<>(entryOrder.reversed());
+  }
+
+  void offer(Result result) {
+    Entry entry = new Entry(result, offered++);
+    if (heap.size() < capacity) {
+      heap.add(entry);
+    } else if (entryOrder.compare(entry, heap.peek()) < 0) {
+      heap.poll();
+      heap.add(entry);
+    }
+  }
+
+  void offerAll(Collection<? extends Result> results) {
+    for (Result result : results) {
+      offer(result);
+    }
+  }
+
+  /** @return the total number of results offered, including those that were not retained */
+  long getOfferedCount() {
+    return offered;
+  }
+
+  int size() {
+    return heap.size();
+  }
+
+  /** @return the retained results, in sorted order */
+  List<Result> toSortedList() {
+    List<Entry> entries = new ArrayList<>(heap);
+    entries.sort(entryOrder);
+
+    List<Result> results = new ArrayList<>(entries.size());
+    for (Entry entry : entries) {
+      results.add(entry.result);
+    }
+    return results;
+  }
+
+  private static class Entry {
+
+    private final Result result;
+
+    private final long sequence;
+
+    private Entry(Result result, long sequence) {
+      this.result = result;
+      this.sequence = sequence;
+    }
+  }
+}
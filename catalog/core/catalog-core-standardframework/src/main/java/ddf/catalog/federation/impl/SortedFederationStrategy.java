@@ -13,6 +13,8 @@
  */
 package ddf.catalog.federation.impl;
 
+import static ddf.catalog.Constants.QUERY_RESPONSE_LISTENER_KEY;
+
 import com.google.common.annotations.VisibleForTesting;
 import ddf.catalog.data.Result;
 import ddf.catalog.federation.FederationException;
@@ -20,6 +22,7 @@
 import ddf.catalog.operation.Query;
 import ddf.catalog.operation.QueryRequest;
 import ddf.catalog.operation.QueryResponse;
+import ddf.catalog.operation.QueryResponseListener;
 import ddf.catalog.operation.SourceResponse;
 import ddf.catalog.operation.impl.ProcessingDetailsImpl;
 import ddf.catalog.operation.impl.QueryImpl;
@@ -32,6 +35,7 @@
 import ddf.catalog.source.Source;
 import ddf.catalog.util.impl.RelevanceResultComparator;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -166,7 +170,7 @@ public QueryResponse federate(List<Source> sources, QueryRequest queryRequest) {
             modifiedQuery,
             queryRequest.isEnterprise(),
             queryRequest.getSourceIds(),
-            queryRequest.getProperties());
+            getMonitorProperties(queryRequest, sources.size(), offset, pageSize));
 
     CompletionService<SourceResponse> queryCompletion =
         new ExecutorCompletionService<>(queryExecutorService);
@@ -176,12 +180,15 @@ public QueryResponse federate(List<Source> sources, QueryRequest queryRequest) {
       if (source != null) {
         LOGGER.debug("running query on source: {}", source.getId());
 
+        Map<String, Serializable> sourceProperties = new HashMap<>(queryRequest.getProperties());
+        sourceProperties.remove(QUERY_RESPONSE_LISTENER_KEY);
+
         QueryRequest sourceQueryRequest =
             new QueryRequestImpl(
                 modifiedQuery,
                 queryRequest.isEnterprise(),
                 Collections.singleton(source.getId()),
-                new HashMap<>(queryRequest.getProperties()));
+                sourceProperties);
         try {
           for (PreFederatedQueryPlugin service : preQuery) {
             try {
@@ -272,6 +279,26 @@ private Query getModifiedQuery(
     return query;
   }
 
+  /**
+   * When the sources are queried from an offset of 1, any {@link QueryResponseListener} on the
+   * request has to see the same page of results that the {@link OffsetResultHandler} will
+   * eventually return, so it is wrapped in an {@link OffsetResponseListener} for the monitor.
+   */
+  private Map<String, Serializable> getMonitorProperties(
+      QueryRequest queryRequest, int numberOfSources, int offset, int pageSize) {
+    Serializable listener = queryRequest.getPropertyValue(QUERY_RESPONSE_LISTENER_KEY);
+    if (!(listener instanceof QueryResponseListener) || offset <= 1 || numberOfSources <= 1) {
+      return queryRequest.getProperties();
+    }
+
+    Map<String, Serializable> properties = new HashMap<>(queryRequest.getProperties());
+    properties.put(
+        QUERY_RESPONSE_LISTENER_KEY,
+        new OffsetResponseListener(
+            (QueryResponseListener) listener, queryRequest, pageSize, offset));
+    return properties;
+  }
+
   /** Base 1 offset, hence page size is one less. */
   private int computeModifiedPageSize(int offset, int pageSize) {
     return offset + pageSize - 1;
@@ -339,6 +366,44 @@ public void run() {
     }
   }
 
+  /** Applies the original offset and page size to partial responses before passing them on. */
+  static class OffsetResponseListener implements QueryResponseListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private final QueryResponseListener wrapped;
+
+    private final QueryRequest originalRequest;
+
+    private final int pageSize;
+
+    private final int offset;
+
+    OffsetResponseListener(
+        QueryResponseListener wrapped, QueryRequest originalRequest, int pageSize, int offset) {
+      this.wrapped = wrapped;
+      this.originalRequest = originalRequest;
+      this.pageSize = pageSize;
+      this.offset = offset;
+    }
+
+    @Override
+    public void partialResponse(QueryResponse partialResponse) {
+      List<Result> results = partialResponse.getResults();
+      int fromIndex = Math.min(offset - 1, results.size());
+      int toIndex = Math.min(fromIndex + pageSize, results.size());
+
+      wrapped.partialResponse(
+          new QueryResponseImpl(
+              originalRequest,
+              new ArrayList<>(results.subList(fromIndex, toIndex)),
+              true,
+              partialResponse.getHits(),
+              partialResponse.getProperties(),
+              partialResponse.getProcessingDetails()));
+    }
+  }
+
   /**
    * Logs unhandled Throwable, adds processing details, and closes the result queue when Errors
    * (e.g. NoClassDefFoundError) and RuntimeExceptions are thrown from the wrapped runnable.
@@ -14,6 +14,8 @@
 package ddf.catalog.federation.impl;
 
 import static ddf.catalog.Constants.ADDITIONAL_SORT_BYS;
+import static ddf.catalog.Constants.PARTIAL_RESPONSE_KEY;
+import static ddf.catalog.Constants.QUERY_RESPONSE_LISTENER_KEY;
 
 import ddf.catalog.data.Attribute;
 import ddf.catalog.data.Metacard;
@@ -23,6 +25,7 @@
 import ddf.catalog.operation.Query;
 import ddf.catalog.operation.QueryRequest;
 import ddf.catalog.operation.QueryResponse;
+import ddf.catalog.operation.QueryResponseListener;
 import ddf.catalog.operation.SourceProcessingDetails;
 import ddf.catalog.operation.SourceResponse;
 import ddf.catalog.operation.impl.ProcessingDetailsImpl;
@@ -77,6 +80,8 @@ class SortedQueryMonitor implements Runnable {
 
   private final long deadline;
 
+  private final QueryResponseListener responseListener;
+
   public SortedQueryMonitor(
       CompletionService<SourceResponse> completionService,
       Map<Future<SourceResponse>, QueryRequest> futures,
@@ -90,6 +95,10 @@ public SortedQueryMonitor(
     this.futures = futures;
     this.postQuery = postQuery;
     deadline = System.currentTimeMillis() + query.getTimeoutMillis();
+
+    Serializable listener = request.getPropertyValue(QUERY_RESPONSE_LISTENER_KEY);
+    this.responseListener =
+        (listener instanceof QueryResponseListener) ? (QueryResponseListener) listener : null;
   }
 
   @Override
@@ -143,7 +152,7 @@ public void run() {
       resultComparator.addComparator(coreComparator);
     }
 
-    List<Result> resultList = new ArrayList<>();
+    BoundedResultHeap resultHeap = new BoundedResultHeap(resultComparator, getMaxResults());
     long totalHits = 0;
     Set<ProcessingDetails> detailsOfReturnResults = returnResults.getProcessingDetails();
 
@@ -201,7 +210,7 @@ public void run() {
         sourceResponse =
             executePostFederationQueryPluginsWithSourceError(queryRequest, sourceId, e);
       }
-      resultList.addAll(sourceResponse.getResults());
+      resultHeap.offerAll(sourceResponse.getResults());
       long hits = sourceResponse.getHits();
       totalHits += hits;
       hitsPerSource.merge(sourceId, hits, (l1, l2) -> l1 + l2);
@@ -210,12 +219,49 @@ public void run() {
       returnProperties.putAll(properties);
       detailsOfReturnResults.addAll(
           sourceProcessingDetailsToProcessingDetails(sourceId, sourceResponse));
+
+      if (responseListener != null && i > 1) {
+        publishPartialResponse(resultHeap, totalHits, hitsPerSource);
+      }
     }
     returnProperties.put("hitsPerSource", hitsPerSource);
-    LOGGER.debug("All sources finished returning results: {}", resultList.size());
+    LOGGER.debug(
+        "All sources finished returning results: {}, retained: {}",
+        resultHeap.getOfferedCount(),
+        resultHeap.size());
 
     returnResults.setHits(totalHits);
-    returnResults.addResults(sortedResults(resultList, resultComparator), true);
+    returnResults.addResults(resultHeap.toSortedList(), true);
+  }
+
+  /**
+   * Hands the {@link QueryResponseListener} a snapshot of the results merged so far. The final
+   * source is not published as a partial response since the complete response follows it.
+   */
+  private void publishPartialResponse(
+      BoundedResultHeap resultHeap, long totalHits, Map<String, Long> hitsPerSource) {
+    Map<String, Serializable> properties;
+    Map<String, Serializable> returnProperties = returnResults.getProperties();
+    synchronized (returnProperties) {
+      properties = new HashMap<>(returnProperties);
+    }
+    properties.put("hitsPerSource", new HashMap<>(hitsPerSource));
+    properties.put(PARTIAL_RESPONSE_KEY, true);
+
+    QueryResponse partialResponse =
+        new QueryResponseImpl(
+            request,
+            resultHeap.toSortedList(),
+            true,
+            totalHits,
+            properties,
+            new HashSet<>(returnResults.getProcessingDetails()));
+
+    try {
+      responseListener.partialResponse(partialResponse);
+    } catch (RuntimeException e) {
+      LOGGER.debug("QueryResponseListener failed to handle a partial response.", e);
+    }
   }
 
   private Set<ProcessingDetails> sourceProcessingDetailsToProcessingDetails(
@@ -232,15 +278,12 @@ private Set<ProcessingDetails> sourceProcessingDetailsToProcessingDetails(
     return tempProcessingDetails;
   }
 
-  List<Result> sortedResults(List<Result> results, Comparator<? super Result> comparator) {
-    Collections.sort(results, comparator);
-
-    int maxResults = Integer.MAX_VALUE;
-    if (query.getPageSize() > 0) {
-      maxResults = query.getPageSize();
-    }
-
-    return results.size() > maxResults ? results.subList(0, maxResults) : results;
+  /**
+   * The request handed to the monitor already has its page size inflated to cover any offset, so
+   * only that many results ever need to be retained across all sources.
+   */
+  private int getMaxResults() {
+    return query.getPageSize() > 0 ? query.getPageSize() : Integer.MAX_VALUE;
   }
 
   private static Comparable getAttributeValue(Result r, String attributeName) {
@@ -46,6 +46,7 @@
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import org.codice.ddf.catalog.resource.download.internal.DownloadManager;
+import org.codice.ddf.checksum.ChecksumProvider;
 import org.osgi.framework.BundleContext;
 
 /**
@@ -116,6 +117,8 @@ public class FrameworkProperties {
 
   private List<DownloadManager> downloadManagers = new ArrayList<>();
 
+  private List<ChecksumProvider> checksumProviders = new ArrayList<>();
+
   public List<CatalogProvider> getCatalogProviders() {
     return catalogProviders;
   }
@@ -375,4 +378,12 @@ public List<DownloadManager> getDownloadManagers() {
   public void setDownloadManagers(List<DownloadManager> downloadManagers) {
     this.downloadManagers = downloadManagers;
   }
+
+  public List<ChecksumProvider> getChecksumProviders() {
+    return checksumProviders;
+  }
+
+  public void setChecksumProviders(List<ChecksumProvider> checksumProviders) {
+    this.checksumProviders = checksumProviders;
+  }
 }
@@ -13,6 +13,7 @@
  */
 package ddf.catalog.impl.operations;
 
+import static ddf.catalog.Constants.CONTENT_CHECKSUMS;
 import static ddf.catalog.Constants.CONTENT_PATHS;
 
 import ddf.catalog.Constants;
@@ -27,6 +28,7 @@
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.impl.AttributeImpl;
 import ddf.catalog.impl.FrameworkProperties;
+import ddf.catalog.impl.operations.OperationsItemSupport.ItemResults;
 import ddf.catalog.operation.CreateRequest;
 import ddf.catalog.operation.CreateResponse;
 import ddf.catalog.operation.OperationTransaction;
@@ -51,11 +53,13 @@
 import java.io.IOException;
 import java.io.Serializable;
 import java.nio.file.Path;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -98,6 +102,8 @@ public class CreateOperations {
 
   private final OperationsStorageSupport opsStorageSupport;
 
+  private OperationsItemSupport opsItemSupport = new OperationsItemSupport();
+
   public CreateOperations(
       FrameworkProperties frameworkProperties,
       QueryOperations queryOperations,
@@ -115,12 +121,16 @@ public CreateOperations(
     this.opsStorageSupport = opsStorageSupport;
   }
 
+  public void setOpsItemSupport(OperationsItemSupport opsItemSupport) {
+    this.opsItemSupport = opsItemSupport;
+  }
+
   //
   // Delegate methods
   //
   public CreateResponse create(CreateRequest createRequest)
       throws IngestException, SourceUnavailableException {
-    CreateResponse createResponse = doCreate(createRequest);
+    CreateResponse createResponse = doCreate(createRequest, new HashSet<>());
     createResponse = doPostIngest(createResponse);
     return createResponse;
   }
@@ -131,6 +141,9 @@ public CreateResponse create(
     Map<String, Metacard> metacardMap = new HashMap<>();
     List<ContentItem> contentItems = new ArrayList<>(streamCreateRequest.getContentItems().size());
     HashMap<String, Map<String, Path>> tmpContentPaths = new HashMap<>();
+    IdentityHashMap<ContentItem, Map<String, Serializable>> contentChecksums =
+        new IdentityHashMap<>();
+    Set<ProcessingDetails> itemErrors = new HashSet<>();
 
     CreateResponse createResponse;
     CreateStorageRequest createStorageRequest = null;
@@ -153,9 +166,15 @@ public CreateResponse create(
 
     INGEST_LOGGER.info("Started ingesting resources with titles: {}.", fileNames);
 
-    // Operation populates the metacardMap, contentItems, and tmpContentPaths
+    // Operation populates the metacardMap, contentItems, tmpContentPaths, and contentChecksums
     opsMetacardSupport.generateMetacardAndContentItems(
-        streamCreateRequest.getContentItems(), metacardMap, contentItems, tmpContentPaths);
+        streamCreateRequest.getContentItems(),
+        metacardMap,
+        contentItems,
+        tmpContentPaths,
+        contentChecksums,
+        opsItemSupport,
+        itemErrors);
 
     if (blockCreateMetacards(metacardMap.values(), fanoutTagBlacklist)) {
       String message =
@@ -165,6 +184,7 @@ public CreateResponse create(
     }
 
     streamCreateRequest.getProperties().put(CONTENT_PATHS, tmpContentPaths);
+    streamCreateRequest.getProperties().put(CONTENT_CHECKSUMS, contentChecksums);
 
     injectAttributes(metacardMap);
     setDefaultValues(metacardMap);
@@ -197,7 +217,9 @@ public CreateResponse create(
                   .map(StorageRequest::getProperties)
                   .orElseGet(HashMap::new));
 
-      createResponse = doCreate(createRequest);
+      // the content is stored by now, so the failure of a metacard fails the whole request
+      createResponse = doCreate(createRequest, null);
+      createResponse = addItemErrors(createResponse, itemErrors);
     } catch (IngestException e) {
       ingestError = e;
       rollbackStorage(createStorageRequest);
@@ -236,7 +258,11 @@ private void rollbackStorage(CreateStorageRequest createStorageRequest) {
   //
   // Private helper methods
   //
-  private CreateResponse doCreate(CreateRequest createRequest)
+  /**
+   * @param itemErrors where the metacards that fail on their own are reported, or {@code null} if
+   *     the failure of a metacard fails the whole request
+   */
+  private CreateResponse doCreate(CreateRequest createRequest, Set<ProcessingDetails> itemErrors)
       throws IngestException, SourceUnavailableException {
     CreateResponse createResponse;
 
@@ -258,10 +284,9 @@ private CreateResponse doCreate(CreateRequest createRequest)
 
     try {
       INGEST_LOGGER.info("Started ingesting metacard with titles: {}.", fileNames);
-      createRequest = injectAttributes(createRequest);
-      createRequest = setDefaultValues(createRequest);
+      createRequest = injectAttributesAndSetDefaultValues(createRequest, itemErrors);
       createRequest = processPreAuthorizationPlugins(createRequest);
-      createRequest = updateCreateRequestPolicyMap(createRequest);
+      createRequest = updateCreateRequestPolicyMap(createRequest, itemErrors);
       createRequest = processPrecreateAccessPlugins(createRequest);
 
       createRequest
@@ -303,6 +328,10 @@ private CreateResponse doCreate(CreateRequest createRequest)
           re);
     }
 
+    if (createResponse != null && itemErrors != null) {
+      createResponse = addItemErrors(createResponse, itemErrors);
+    }
+
     if (createResponse == null) {
       // This should never happen as validateFixCreateResponse will throw this same exception if
       // createResponse is null. This is here to quiet sonarqube findings since we don't want to
@@ -364,23 +393,41 @@ private void setDefaultValues(Map<String, Metacard> metacardMap) {
     metacardMap.values().forEach(opsMetacardSupport::setDefaultValues);
   }
 
-  private CreateRequest injectAttributes(CreateRequest request) {
+  private CreateRequest injectAttributesAndSetDefaultValues(
+      CreateRequest request, Set<ProcessingDetails> itemErrors) throws IngestException {
     List<Metacard> metacards =
-        request.getMetacards().stream()
-            .map(
-                (original) ->
-                    opsMetacardSupport.applyInjectors(
-                        original, frameworkProperties.getAttributeInjectors()))
-            .collect(Collectors.toList());
+        opsItemSupport
+            .process(
+                request.getMetacards(),
+                original -> {
+                  Metacard metacard =
+                      opsMetacardSupport.applyInjectors(
+                          original, frameworkProperties.getAttributeInjectors());
+                  if (metacard != null) {
+                    opsMetacardSupport.setDefaultValues(metacard);
+                  }
+                  return metacard;
+                })
+            .getResults(itemErrors, OperationsItemSupport::describe);
 
     return new CreateRequestImpl(metacards, request.getProperties(), request.getStoreIds());
   }
 
-  private CreateRequest setDefaultValues(CreateRequest createRequest) {
-    createRequest.getMetacards().stream()
-        .filter(Objects::nonNull)
-        .forEach(opsMetacardSupport::setDefaultValues);
-    return createRequest;
+  private CreateResponse addItemErrors(
+      CreateResponse createResponse, Set<ProcessingDetails> itemErrors) {
+    if (itemErrors.isEmpty()) {
+      return createResponse;
+    }
+
+    Set<ProcessingDetails> processingErrors = new HashSet<>(itemErrors);
+    if (createResponse.getProcessingErrors() != null) {
+      processingErrors.addAll(createResponse.getProcessingErrors());
+    }
+    return new CreateResponseImpl(
+        createResponse.getRequest(),
+        createResponse.getProperties(),
+        createResponse.getCreatedMetacards(),
+        processingErrors);
   }
 
   /**
@@ -551,22 +598,46 @@ private CreateRequest processPreAuthorizationPlugins(CreateRequest createRequest
     return createRequest;
   }
 
-  private CreateRequest updateCreateRequestPolicyMap(CreateRequest createRequest)
-      throws StopProcessingException {
+  private CreateRequest updateCreateRequestPolicyMap(
+      CreateRequest createRequest, Set<ProcessingDetails> itemErrors)
+      throws StopProcessingException, IngestException {
     Map<String, Serializable> unmodifiablePropertiesMap =
         Collections.unmodifiableMap(createRequest.getProperties());
+    ItemResults<Metacard, Map.Entry<Metacard, List<PolicyResponse>>> itemResults =
+        opsItemSupport.process(
+            createRequest.getMetacards(),
+            metacard -> {
+              HashMap<String, Set<String>> itemPolicyMap = new HashMap<>();
+              List<PolicyResponse> policyResponses = new ArrayList<>();
+              for (PolicyPlugin plugin : frameworkProperties.getPolicyPlugins()) {
+                PolicyResponse policyResponse =
+                    plugin.processPreCreate(metacard, unmodifiablePropertiesMap);
+                opsSecuritySupport.buildPolicyMap(
+                    itemPolicyMap, policyResponse.itemPolicy().entrySet());
+                policyResponses.add(policyResponse);
+              }
+
+              metacard.setAttribute(new AttributeImpl(Metacard.SECURITY, itemPolicyMap));
+              return new AbstractMap.SimpleImmutableEntry<>(metacard, policyResponses);
+            });
+    List<Map.Entry<Metacard, List<PolicyResponse>>> results =
+        itemResults.getResults(itemErrors, OperationsItemSupport::describe);
+
+    // the operation policy is merged in the order of the metacards and plugins
     HashMap<String, Set<String>> requestPolicyMap = new HashMap<>();
-    for (Metacard metacard : createRequest.getMetacards()) {
-      HashMap<String, Set<String>> itemPolicyMap = new HashMap<>();
-      for (PolicyPlugin plugin : frameworkProperties.getPolicyPlugins()) {
-        PolicyResponse policyResponse =
-            plugin.processPreCreate(metacard, unmodifiablePropertiesMap);
-        opsSecuritySupport.buildPolicyMap(itemPolicyMap, policyResponse.itemPolicy().entrySet());
+    for (Map.Entry<Metacard, List<PolicyResponse>> result : results) {
+      for (PolicyResponse policyResponse : result.getValue()) {
         opsSecuritySupport.buildPolicyMap(
             requestPolicyMap, policyResponse.operationPolicy().entrySet());
       }
+    }
 
-      metacard.setAttribute(new AttributeImpl(Metacard.SECURITY, itemPolicyMap));
+    if (!itemResults.getFailures().isEmpty()) {
+      createRequest =
+          new CreateRequestImpl(
+              results.stream().map(Map.Entry::getKey).collect(Collectors.toList()),
+              createRequest.getProperties(),
+              createRequest.getStoreIds());
     }
     createRequest.getProperties().put(PolicyPlugin.OPERATION_SECURITY, requestPolicyMap);
 
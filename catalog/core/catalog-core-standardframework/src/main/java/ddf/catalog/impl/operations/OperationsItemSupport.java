@@ -0,0 +1,216 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl.operations;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.operation.ProcessingDetails;
+import ddf.catalog.operation.impl.ProcessingDetailsImpl;
+import ddf.catalog.source.IngestException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+
+/**
+ * Support class for running the per item stages of create and update operations for the {@code
+ * CatalogFrameworkImpl}.
+ *
+ * <p>By default every stage runs in the calling thread, item after item, and the first failure
+ * fails the whole operation. When parallel item processing is enabled, the items of a stage run
+ * concurrently on a bounded pool instead: the results keep the order of the items, and an item that
+ * fails is left out of the operation and reported on its own, without failing the other items.
+ * Stages that hand the whole request to plugins are not run through this class and keep running
+ * serially in plugin order.
+ */
+public class OperationsItemSupport {
+  private final ExecutorService executor;
+
+  private boolean parallelItemProcessing = false;
+
+  /** Creates an instance that always processes the items serially. */
+  public OperationsItemSupport() {
+    this(null);
+  }
+
+  /** @param executor bounded pool the items are processed on when parallel processing is enabled */
+  public OperationsItemSupport(ExecutorService executor) {
+    this.executor = executor;
+  }
+
+  public void setParallelItemProcessing(boolean parallelItemProcessing) {
+    this.parallelItemProcessing = parallelItemProcessing;
+  }
+
+  public boolean isParallelItemProcessing() {
+    return parallelItemProcessing && executor != null;
+  }
+
+  /**
+   * Applies a stage to every item.
+   *
+   * @param items the items to process
+   * @param stage the stage applied to each item
+   * @return the results of the items that were processed, in the order of the items, and the
+   *     failures of the items that were not
+   * @throws E the failure of the first item that failed, if the items are processed serially
+   */
+  <T, R, E extends Exception> ItemResults<T, R> process(List<T> items, ItemStage<T, R, E> stage)
+      throws E {
+    if (!isParallelItemProcessing() || items.size() < 2) {
+      List<R> results = new ArrayList<>(items.size());
+      for (T item : items) {
+        results.add(stage.apply(item));
+      }
+      return new ItemResults<>(results, Collections.emptyList());
+    }
+
+    Subject subject = ThreadContext.getSubject();
+    List<Future<R>> futures = new ArrayList<>(items.size());
+    for (T item : items) {
+      Callable<R> task = () -> stage.apply(item);
+      futures.add(executor.submit(subject != null ? subject.associateWith(task) : task));
+    }
+
+    List<R> results = new ArrayList<>(items.size());
+    List<ItemFailure<T>> failures = new ArrayList<>();
+    boolean interrupted = false;
+    for (int i = 0; i < items.size(); i++) {
+      Future<R> future = futures.get(i);
+      try {
+        if (interrupted) {
+          future.cancel(true);
+          failures.add(new ItemFailure<>(items.get(i), new InterruptedException()));
+        } else {
+          results.add(future.get());
+        }
+      } catch (InterruptedException e) {
+        interrupted = true;
+        future.cancel(true);
+        failures.add(new ItemFailure<>(items.get(i), e));
+      } catch (ExecutionException e) {
+        failures.add(new ItemFailure<>(items.get(i), toException(e.getCause())));
+      }
+    }
+
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    return new ItemResults<>(results, failures);
+  }
+
+  /** @return identifies the metacard in the reported failure of an item */
+  static String describe(Metacard metacard) {
+    if (metacard == null) {
+      return "null";
+    }
+    return metacard.getTitle() != null ? metacard.getTitle() : String.valueOf(metacard.getId());
+  }
+
+  private static Exception toException(Throwable cause) {
+    if (cause instanceof Exception) {
+      return (Exception) cause;
+    }
+    return new IngestException("Unable to process item.", cause);
+  }
+
+  /** A stage of an operation applied to each item on its own. */
+  @FunctionalInterface
+  interface ItemStage<T, R, E extends Exception> {
+    R apply(T item) throws E;
+  }
+
+  /** The outcome of applying a stage to the items of an operation. */
+  static class ItemResults<T, R> {
+
+    private final List<R> results;
+
+    private final List<ItemFailure<T>> failures;
+
+    private ItemResults(List<R> results, List<ItemFailure<T>> failures) {
+      this.results = results;
+      this.failures = failures;
+    }
+
+    /** @return the results of the items that were processed, in the order of the items */
+    List<R> getResults() {
+      return results;
+    }
+
+    /** @return the items that failed, in the order of the items */
+    List<ItemFailure<T>> getFailures() {
+      return failures;
+    }
+
+    /**
+     * @param itemErrors where the failed items are reported, or {@code null} if the failure of an
+     *     item fails the whole operation
+     * @param description identifies an item in its reported failure
+     * @return the results of the items that were processed, in the order of the items
+     * @throws IngestException if an item failed and {@code itemErrors} is {@code null}, or if all
+     *     items failed
+     */
+    List<R> getResults(Set<ProcessingDetails> itemErrors, Function<T, String> description)
+        throws IngestException {
+      if (!failures.isEmpty()) {
+        if (itemErrors == null || results.isEmpty()) {
+          ItemFailure<T> failure = failures.get(0);
+          throw new IngestException(
+              "Unable to process item " + description.apply(failure.getItem()) + ".",
+              failure.getCause());
+        }
+        for (ItemFailure<T> failure : failures) {
+          itemErrors.add(failure.toProcessingDetails(description.apply(failure.getItem())));
+        }
+      }
+      return results;
+    }
+  }
+
+  /** An item that failed to be processed, and why. */
+  static class ItemFailure<T> {
+
+    private final T item;
+
+    private final Exception cause;
+
+    private ItemFailure(T item, Exception cause) {
+      this.item = item;
+      this.cause = cause;
+    }
+
+    T getItem() {
+      return item;
+    }
+
+    Exception getCause() {
+      return cause;
+    }
+
+    /**
+     * @param description identifies the item in the reported error
+     * @return the failure as processing details of the response of the operation
+     */
+    ProcessingDetails toProcessingDetails(String description) {
+      return new ProcessingDetailsImpl(
+          null, new IngestException("Unable to process item " + description + ".", cause));
+    }
+  }
+}
@@ -13,6 +13,7 @@
  */
 package ddf.catalog.impl.operations;
 
+import ddf.catalog.Constants;
 import ddf.catalog.content.data.ContentItem;
 import ddf.catalog.content.data.impl.ContentItemImpl;
 import ddf.catalog.data.Attribute;
@@ -23,19 +24,28 @@
 import ddf.catalog.data.MetacardType;
 import ddf.catalog.data.impl.AttributeImpl;
 import ddf.catalog.impl.FrameworkProperties;
+import ddf.catalog.impl.operations.OperationsItemSupport.ItemFailure;
+import ddf.catalog.impl.operations.OperationsItemSupport.ItemResults;
+import ddf.catalog.operation.ProcessingDetails;
 import ddf.catalog.source.IngestException;
 import ddf.mime.MimeTypeResolutionException;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang.StringUtils;
@@ -44,7 +54,12 @@
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
+import org.codice.ddf.checksum.ChecksumCalculator;
+import org.codice.ddf.checksum.ChecksumProvider;
 import org.codice.ddf.platform.util.InputValidation;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -60,6 +75,8 @@ public class OperationsMetacardSupport {
 
   private static final String MIME_TYPE_MSG = "Unable to guess mime type for file.";
 
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
   //
   // Injected properties
   //
@@ -92,91 +109,236 @@ void generateMetacardAndContentItems(
       List<ContentItem> incomingContentItems,
       Map<String, Metacard> metacardMap,
       List<ContentItem> contentItems,
-      Map<String, Map<String, Path>> tmpContentPaths)
+      Map<String, Map<String, Path>> tmpContentPaths,
+      Map<ContentItem, Map<String, Serializable>> contentChecksums)
       throws IngestException {
-    for (ContentItem contentItem : incomingContentItems) {
-      try {
-        Path tmpPath = null;
-        String fileName;
-        long size;
-        try (InputStream inputStream = contentItem.getInputStream()) {
-          fileName = contentItem.getFilename();
-          if (inputStream == null) {
-            throw new IngestException(
-                "Could not copy bytes of content message.  Message was NULL.");
-          }
+    generateMetacardAndContentItems(
+        incomingContentItems,
+        metacardMap,
+        contentItems,
+        tmpContentPaths,
+        contentChecksums,
+        new OperationsItemSupport(),
+        new HashSet<>());
+  }
 
-          if (!InputValidation.isFileNameClientSideSafe(fileName)) {
-            throw new IngestException("Ignored filename found.");
-          }
+  /**
+   * Copies the incoming content items to temporary files and generates their metacards. The items
+   * are processed by {@code opsItemSupport}, so when parallel item processing is enabled an item
+   * that fails, along with the content derived from it, is left out and reported in {@code
+   * itemErrors} instead of failing all items.
+   *
+   * @throws IngestException if an item fails while the items are processed serially, or if all
+   *     items fail
+   */
+  void generateMetacardAndContentItems(
+      List<ContentItem> incomingContentItems,
+      Map<String, Metacard> metacardMap,
+      List<ContentItem> contentItems,
+      Map<String, Map<String, Path>> tmpContentPaths,
+      Map<ContentItem, Map<String, Serializable>> contentChecksums,
+      OperationsItemSupport opsItemSupport,
+      Set<ProcessingDetails> itemErrors)
+      throws IngestException {
+    Queue<Path> createdPaths = new ConcurrentLinkedQueue<>();
+    String checksumAlgorithm = getChecksumAlgorithm();
+    ItemResults<ContentItem, GeneratedContentItem> generated;
+    try {
+      generated =
+          opsItemSupport.process(
+              incomingContentItems,
+              contentItem ->
+                  generateMetacardAndContentItem(contentItem, checksumAlgorithm, createdPaths));
+    } catch (IngestException | RuntimeException e) {
+      createdPaths.forEach(path -> FileUtils.deleteQuietly(path.toFile()));
+      throw e;
+    }
 
-          String sanitizedFilename = InputValidation.sanitizeFilename(fileName);
-          tmpPath =
-              Files.createTempFile(
-                  FilenameUtils.getBaseName(sanitizedFilename),
-                  FilenameUtils.getExtension(sanitizedFilename));
-          Files.copy(inputStream, tmpPath, StandardCopyOption.REPLACE_EXISTING);
-          size = Files.size(tmpPath);
-
-          final String key = contentItem.getId();
-          Map<String, Path> pathAndQualifiers = tmpContentPaths.get(key);
-
-          if (pathAndQualifiers == null) {
-            pathAndQualifiers = new HashMap<>();
-            pathAndQualifiers.put(contentItem.getQualifier(), tmpPath);
-            tmpContentPaths.put(key, pathAndQualifiers);
-          } else {
-            pathAndQualifiers.put(contentItem.getQualifier(), tmpPath);
-          }
+    Set<String> failedIds = new HashSet<>();
+    for (ItemFailure<ContentItem> failure : generated.getFailures()) {
+      failedIds.add(failure.getItem().getId());
+      itemErrors.add(failure.toProcessingDetails(failure.getItem().getFilename()));
+    }
 
-        } catch (IOException e) {
-          if (tmpPath != null) {
-            FileUtils.deleteQuietly(tmpPath.toFile());
-          }
-          throw new IngestException("Could not copy bytes of content message.", e);
+    for (GeneratedContentItem generatedContentItem : generated.getResults()) {
+      if (failedIds.contains(generatedContentItem.key)) {
+        FileUtils.deleteQuietly(generatedContentItem.tmpPath.toFile());
+        continue;
+      }
+
+      tmpContentPaths
+          .computeIfAbsent(generatedContentItem.key, key -> new HashMap<>())
+          .put(generatedContentItem.qualifier, generatedContentItem.tmpPath);
+
+      Metacard metacard = generatedContentItem.contentItem.getMetacard();
+      metacardMap.put(metacard.getId(), metacard);
+
+      if (generatedContentItem.checksum != null) {
+        Map<String, Serializable> checksums = new HashMap<>();
+        checksums.put(checksumAlgorithm, generatedContentItem.checksum);
+        checksums.put(Constants.CONTENT_CHECKSUM_SIZE, generatedContentItem.size);
+        contentChecksums.put(generatedContentItem.contentItem, checksums);
+      }
+
+      contentItems.add(generatedContentItem.contentItem);
+    }
+
+    if (!generated.getFailures().isEmpty() && contentItems.isEmpty()) {
+      throw new IngestException(
+          "Could not create metacard.", generated.getFailures().get(0).getCause());
+    }
+  }
+
+  private GeneratedContentItem generateMetacardAndContentItem(
+      ContentItem contentItem, String checksumAlgorithm, Queue<Path> createdPaths)
+      throws IngestException {
+    Path tmpPath = null;
+    try {
+      String fileName;
+      long size;
+      String checksum;
+      try (InputStream inputStream = contentItem.getInputStream()) {
+        fileName = contentItem.getFilename();
+        if (inputStream == null) {
+          throw new IngestException("Could not copy bytes of content message.  Message was NULL.");
         }
-        String mimeTypeRaw = contentItem.getMimeTypeRawData();
-        mimeTypeRaw = guessMimeType(mimeTypeRaw, fileName, tmpPath);
 
-        if (!InputValidation.isMimeTypeClientSideSafe(mimeTypeRaw)) {
-          throw new IngestException("Unsupported mime type.");
+        if (!InputValidation.isFileNameClientSideSafe(fileName)) {
+          throw new IngestException("Ignored filename found.");
         }
 
-        // If any sanitization was done, rename file name to sanitized file name.
-        if (!InputValidation.sanitizeFilename(fileName).equals(fileName)) {
-          fileName = InputValidation.sanitizeFilename(fileName);
-        } else {
-          fileName = updateFileExtension(mimeTypeRaw, fileName);
+        String sanitizedFilename = InputValidation.sanitizeFilename(fileName);
+        tmpPath =
+            Files.createTempFile(
+                FilenameUtils.getBaseName(sanitizedFilename),
+                FilenameUtils.getExtension(sanitizedFilename));
+        createdPaths.add(tmpPath);
+        // derived content does not get a checksum of its own
+        checksum =
+            copyContent(
+                inputStream,
+                tmpPath,
+                StringUtils.isEmpty(contentItem.getQualifier())
+                    ? newChecksumCalculator(checksumAlgorithm)
+                    : null);
+        size = Files.size(tmpPath);
+      } catch (IOException e) {
+        throw new IngestException("Could not copy bytes of content message.", e);
+      }
+      String mimeTypeRaw = contentItem.getMimeTypeRawData();
+      mimeTypeRaw = guessMimeType(mimeTypeRaw, fileName, tmpPath);
+
+      if (!InputValidation.isMimeTypeClientSideSafe(mimeTypeRaw)) {
+        throw new IngestException("Unsupported mime type.");
+      }
+
+      // If any sanitization was done, rename file name to sanitized file name.
+      if (!InputValidation.sanitizeFilename(fileName).equals(fileName)) {
+        fileName = InputValidation.sanitizeFilename(fileName);
+      } else {
+        fileName = updateFileExtension(mimeTypeRaw, fileName);
+      }
+
+      Metacard metacard;
+      boolean qualifiedContent = StringUtils.isNotEmpty(contentItem.getQualifier());
+      if (qualifiedContent) {
+        metacard = contentItem.getMetacard();
+      } else {
+        metacard =
+            metacardFactory.generateMetacard(mimeTypeRaw, contentItem.getId(), fileName, tmpPath);
+      }
+
+      ContentItem generatedContentItem =
+          new ContentItemImpl(
+              metacard.getId(),
+              qualifiedContent ? contentItem.getQualifier() : "",
+              com.google.common.io.Files.asByteSource(tmpPath.toFile()),
+              mimeTypeRaw,
+              fileName,
+              size,
+              metacard);
+      return new GeneratedContentItem(
+          contentItem.getId(),
+          contentItem.getQualifier(),
+          tmpPath,
+          generatedContentItem,
+          size,
+          checksum);
+    } catch (Exception e) {
+      if (tmpPath != null) {
+        FileUtils.deleteQuietly(tmpPath.toFile());
+      }
+      throw new IngestException("Could not create metacard.", e);
+    }
+  }
+
+  /**
+   * Copies the content into the temporary file, reading it only once by calculating its checksum
+   * from the same bytes.
+   *
+   * @return the checksum of the content, or null if no checksum calculator was given
+   */
+  private String copyContent(
+      InputStream inputStream, Path tmpPath, ChecksumCalculator checksumCalculator)
+      throws IOException {
+    byte[] buffer = new byte[COPY_BUFFER_SIZE];
+    try (OutputStream outputStream = Files.newOutputStream(tmpPath)) {
+      int bytesRead;
+      while ((bytesRead = inputStream.read(buffer)) != -1) {
+        outputStream.write(buffer, 0, bytesRead);
+        if (checksumCalculator != null) {
+          checksumCalculator.update(buffer, 0, bytesRead);
         }
+      }
+    }
+    return checksumCalculator != null ? checksumCalculator.getChecksum() : null;
+  }
+
+  /**
+   * Returns the checksum algorithm of the storage plugin that sets the checksum of content, read
+   * from its service properties so it follows the configuration of the plugin.
+   *
+   * @return the checksum algorithm, or null if no such plugin is registered
+   */
+  private String getChecksumAlgorithm() {
+    BundleContext bundleContext = frameworkProperties.getBundleContext();
+    if (bundleContext == null) {
+      return null;
+    }
 
-        Metacard metacard;
-        boolean qualifiedContent = StringUtils.isNotEmpty(contentItem.getQualifier());
-        if (qualifiedContent) {
-          metacard = contentItem.getMetacard();
-        } else {
-          metacard =
-              metacardFactory.generateMetacard(mimeTypeRaw, contentItem.getId(), fileName, tmpPath);
+    ServiceReference<?>[] refs;
+    try {
+      refs =
+          bundleContext.getServiceReferences(
+              (String) null, "(" + Constants.CHECKSUM_ALGORITHM_SERVICE_PROPERTY + "=*)");
+    } catch (InvalidSyntaxException e) {
+      LOGGER.debug("Unable to look up the checksum algorithm of the storage plugins.", e);
+      return null;
+    }
+    if (refs == null || refs.length == 0) {
+      return null;
+    }
+
+    Object checksumAlgorithm = refs[0].getProperty(Constants.CHECKSUM_ALGORITHM_SERVICE_PROPERTY);
+    return checksumAlgorithm instanceof String ? (String) checksumAlgorithm : null;
+  }
+
+  private ChecksumCalculator newChecksumCalculator(String checksumAlgorithm) {
+    if (checksumAlgorithm == null) {
+      return null;
+    }
+
+    for (ChecksumProvider checksumProvider : frameworkProperties.getChecksumProviders()) {
+      if (checksumAlgorithm.equals(checksumProvider.getChecksumAlgorithm())) {
+        try {
+          return checksumProvider.newChecksumCalculator();
+        } catch (NoSuchAlgorithmException e) {
+          LOGGER.debug("Unable to calculate {} checksums during ingest.", checksumAlgorithm, e);
+          return null;
         }
-        metacardMap.put(metacard.getId(), metacard);
-
-        ContentItem generatedContentItem =
-            new ContentItemImpl(
-                metacard.getId(),
-                qualifiedContent ? contentItem.getQualifier() : "",
-                com.google.common.io.Files.asByteSource(tmpPath.toFile()),
-                mimeTypeRaw,
-                fileName,
-                size,
-                metacard);
-        contentItems.add(generatedContentItem);
-      } catch (Exception e) {
-        tmpContentPaths.values().stream()
-            .flatMap(id -> id.values().stream())
-            .forEach(path -> FileUtils.deleteQuietly(path.toFile()));
-        tmpContentPaths.clear();
-        throw new IngestException("Could not create metacard.", e);
       }
     }
+    return null;
   }
 
   /**
@@ -276,4 +438,35 @@ String guessMimeType(String mimeTypeRaw, String fileName, Path tmpContentPath)
     }
     return mimeTypeRaw;
   }
+
+  /** A content item copied to a temporary file, along with its generated metacard. */
+  private static class GeneratedContentItem {
+
+    private final String key;
+
+    private final String qualifier;
+
+    private final Path tmpPath;
+
+    private final ContentItem contentItem;
+
+    private final long size;
+
+    private final String checksum;
+
+    private GeneratedContentItem(
+        String key,
+        String qualifier,
+        Path tmpPath,
+        ContentItem contentItem,
+        long size,
+        String checksum) {
+      this.key = key;
+      this.qualifier = qualifier;
+      this.tmpPath = tmpPath;
+      this.contentItem = contentItem;
+      this.size = size;
+      this.checksum = checksum;
+    }
+  }
 }
@@ -34,6 +34,7 @@
 import ddf.catalog.operation.Query;
 import ddf.catalog.operation.QueryRequest;
 import ddf.catalog.operation.QueryResponse;
+import ddf.catalog.operation.QueryResponseListener;
 import ddf.catalog.operation.Request;
 import ddf.catalog.operation.impl.ProcessingDetailsImpl;
 import ddf.catalog.operation.impl.QueryImpl;
@@ -67,16 +68,21 @@
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.shiro.util.ThreadContext;
 import org.opengis.filter.Filter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -208,18 +214,14 @@ QueryResponse query(
         }
       }
 
-      queryResponse = doQuery(queryRequest, fedStrategy);
+      queryRequest = wrapQueryResponseListener(queryRequest, overrideFanoutRename, fanoutEnabled);
 
-      // Allow callers to determine the total results returned from the query; this value
-      // may differ from the number of filtered results after processing plugins have been run.
-      queryResponse.getProperties().put("actualResultSize", queryResponse.getResults().size());
-      LOGGER.trace("BeforePostQueryFilter result size: {}", queryResponse.getResults().size());
-      queryResponse = injectAttributes(queryResponse);
-      queryResponse = validateFixQueryResponse(queryResponse, overrideFanoutRename, fanoutEnabled);
-      queryResponse = postProcessPreAuthorizationPlugins(queryResponse);
-      queryResponse = populateQueryResponsePolicyMap(queryResponse);
-      queryResponse = processPostQueryAccessPlugins(queryResponse);
-      queryResponse = processPostQueryPlugins(queryResponse);
+      try {
+        queryResponse = doQuery(queryRequest, fedStrategy);
+      } finally {
+        closeQueryResponseListener(queryRequest);
+      }
+      queryResponse = processQueryResponse(queryResponse, overrideFanoutRename, fanoutEnabled);
 
       log(queryResponse);
 
@@ -233,6 +235,72 @@ QueryResponse query(
     return queryResponse;
   }
 
+  private QueryResponse processQueryResponse(
+      QueryResponse queryResponse, boolean overrideFanoutRename, boolean fanoutEnabled)
+      throws UnsupportedQueryException, FederationException {
+    // Allow callers to determine the total results returned from the query; this value
+    // may differ from the number of filtered results after processing plugins have been run.
+    queryResponse.getProperties().put("actualResultSize", queryResponse.getResults().size());
+    LOGGER.trace("BeforePostQueryFilter result size: {}", queryResponse.getResults().size());
+    queryResponse = injectAttributes(queryResponse);
+    queryResponse = validateFixQueryResponse(queryResponse, overrideFanoutRename, fanoutEnabled);
+    queryResponse = postProcessPreAuthorizationPlugins(queryResponse);
+    queryResponse = populateQueryResponsePolicyMap(queryResponse);
+    queryResponse = processPostQueryAccessPlugins(queryResponse);
+    return processPostQueryPlugins(queryResponse);
+  }
+
+  /**
+   * Returns a copy of the request in which any {@link QueryResponseListener} is replaced with one
+   * that runs each partial response through the same post-query processing as the final response,
+   * so that callers never see results that have not been through the access and policy plugins.
+   * The request of the caller is left untouched.
+   */
+  private QueryRequest wrapQueryResponseListener(
+      QueryRequest queryRequest, boolean overrideFanoutRename, boolean fanoutEnabled) {
+    Serializable listener = queryRequest.getPropertyValue(Constants.QUERY_RESPONSE_LISTENER_KEY);
+    if (!(listener instanceof QueryResponseListener)
+        || listener instanceof PostProcessingResponseListener) {
+      return queryRequest;
+    }
+
+    org.apache.shiro.subject.Subject subject = ThreadContext.getSubject();
+    ExecutorService pool = frameworkProperties.getPool();
+    Executor executor =
+        task -> {
+          Runnable runnable = subject != null ? subject.associateWith(task) : task;
+          if (pool != null) {
+            pool.execute(runnable);
+          } else {
+            runnable.run();
+          }
+        };
+
+    Map<String, Serializable> properties = new HashMap<>(queryRequest.getProperties());
+    properties.put(
+        Constants.QUERY_RESPONSE_LISTENER_KEY,
+        new PostProcessingResponseListener(
+            (QueryResponseListener) listener,
+            partialResponse -> {
+              frameworkProperties.getQueryResponsePostProcessor().processResponse(partialResponse);
+              return processQueryResponse(partialResponse, overrideFanoutRename, fanoutEnabled);
+            },
+            executor));
+    return new QueryRequestImpl(
+        queryRequest.getQuery(),
+        queryRequest.isEnterprise(),
+        queryRequest.getSourceIds(),
+        properties);
+  }
+
+  /** Stops handing partial responses to the listener once the final response is available. */
+  private void closeQueryResponseListener(QueryRequest queryRequest) {
+    Serializable listener = queryRequest.getPropertyValue(Constants.QUERY_RESPONSE_LISTENER_KEY);
+    if (listener instanceof PostProcessingResponseListener) {
+      ((PostProcessingResponseListener) listener).close();
+    }
+  }
+
   private void log(QueryResponse queryResponse) {
     LOGGER.trace("AfterPostQueryFilter result size: {}", queryResponse.getResults().size());
     LOGGER.trace("Total Hit count: {}", queryResponse.getHits());
@@ -917,4 +985,179 @@ public void setSecurityLogger(SecurityLogger securityLogger) {
   public void setPermissions(Permissions permissions) {
     this.permissions = permissions;
   }
+
+  /** The post-query processing applied to a partial response. */
+  @FunctionalInterface
+  interface PartialResponseProcessor {
+    QueryResponse process(QueryResponse partialResponse)
+        throws UnsupportedQueryException, FederationException;
+  }
+
+  /**
+   * Runs the partial responses of a query through the post-query processing before handing them to
+   * the listener of the caller.
+   *
+   * <p>The processing runs on the query thread pool as the subject of the caller, one partial
+   * response at a time and in the order they were published, so the thread merging the source
+   * responses is never held up by it. Each partial response repeats the results of the previous
+   * ones, so a result is only processed the first time it is seen, and on a copy of its metacard
+   * since the original is also part of the final response. Partial responses still waiting to be
+   * processed when the final response is available are dropped.
+   *
+   * <p>The processed results are matched back to the originals by metacard id. Results that share
+   * an id are processed in separate passes so each keeps its position, while results without an id
+   * cannot be matched back and are left out of the partial responses; they still appear in the
+   * final response.
+   */
+  static final class PostProcessingResponseListener implements QueryResponseListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private final QueryResponseListener wrapped;
+
+    private final transient PartialResponseProcessor processor;
+
+    private final transient Executor executor;
+
+    /** The processed copy of each result seen so far, or {@code null} if it was filtered out. */
+    private final transient Map<Result, Result> processed = new IdentityHashMap<>();
+
+    private transient CompletableFuture<Void> delivered = CompletableFuture.completedFuture(null);
+
+    private transient volatile boolean closed;
+
+    PostProcessingResponseListener(
+        QueryResponseListener wrapped, PartialResponseProcessor processor, Executor executor) {
+      this.wrapped = wrapped;
+      this.processor = processor;
+      this.executor = executor;
+    }
+
+    @Override
+    public synchronized void partialResponse(QueryResponse partialResponse) {
+      if (closed || processor == null) {
+        return;
+      }
+      delivered = delivered.thenRunAsync(() -> deliver(partialResponse), executor);
+    }
+
+    void close() {
+      closed = true;
+    }
+
+    private void deliver(QueryResponse partialResponse) {
+      if (closed) {
+        return;
+      }
+      try {
+        wrapped.partialResponse(process(partialResponse));
+      } catch (UnsupportedQueryException | FederationException | RuntimeException e) {
+        LOGGER.debug("Unable to process partial query response. Skipping it.", e);
+      }
+    }
+
+    private QueryResponse process(QueryResponse partialResponse)
+        throws UnsupportedQueryException, FederationException {
+      List<Result> results = partialResponse.getResults();
+      Map<String, Serializable> properties = new HashMap<>(partialResponse.getProperties());
+      Set<ProcessingDetails> details = new HashSet<>(partialResponse.getProcessingDetails());
+
+      List<Result> pending = new ArrayList<>();
+      int withoutId = 0;
+      for (Result result : results) {
+        if (getId(result) == null) {
+          withoutId++;
+        } else if (!processed.containsKey(result)) {
+          pending.add(result);
+        }
+      }
+      if (withoutId > 0) {
+        LOGGER.debug(
+            "Leaving {} results without a metacard id out of the partial query response.",
+            withoutId);
+      }
+
+      while (!pending.isEmpty()) {
+        pending = process(partialResponse, pending, properties, details);
+      }
+      properties.put("actualResultSize", results.size());
+
+      List<Result> processedResults = new ArrayList<>(results.size());
+      for (Result result : results) {
+        Result processedResult = processed.get(result);
+        if (processedResult != null) {
+          processedResults.add(processedResult);
+        }
+      }
+      return new QueryResponseImpl(
+          partialResponse.getRequest(),
+          processedResults,
+          true,
+          partialResponse.getHits(),
+          properties,
+          details);
+    }
+
+    /**
+     * Processes copies of the pending results, one per metacard id, and records what each became.
+     *
+     * @return the pending results that share their id with one processed in this pass
+     */
+    private List<Result> process(
+        QueryResponse partialResponse,
+        List<Result> pending,
+        Map<String, Serializable> properties,
+        Set<ProcessingDetails> details)
+        throws UnsupportedQueryException, FederationException {
+      Map<String, Result> unprocessed = new HashMap<>();
+      List<Result> copies = new ArrayList<>();
+      List<Result> deferred = new ArrayList<>();
+      for (Result result : pending) {
+        if (processed.containsKey(result)) {
+          continue;
+        }
+        if (unprocessed.putIfAbsent(getId(result), result) == null) {
+          copies.add(copyOf(result));
+        } else {
+          deferred.add(result);
+        }
+      }
+      if (copies.isEmpty()) {
+        return deferred;
+      }
+
+      QueryResponse response =
+          processor.process(
+              new QueryResponseImpl(
+                  partialResponse.getRequest(),
+                  copies,
+                  true,
+                  partialResponse.getHits(),
+                  new HashMap<>(properties),
+                  new HashSet<>(details)));
+      for (Result result : response.getResults()) {
+        Result original = unprocessed.remove(getId(result));
+        if (original != null) {
+          processed.put(original, result);
+        }
+      }
+      unprocessed.values().forEach(original -> processed.put(original, null));
+      properties.putAll(response.getProperties());
+      details.addAll(response.getProcessingDetails());
+      return deferred;
+    }
+
+    @Nullable
+    private static String getId(Result result) {
+      return result.getMetacard() == null ? null : result.getMetacard().getId();
+    }
+
+    private static Result copyOf(Result result) {
+      Metacard metacard = result.getMetacard();
+      ResultImpl copy = new ResultImpl(new MetacardImpl(metacard, metacard.getMetacardType()));
+      copy.setRelevanceScore(result.getRelevanceScore());
+      copy.setDistanceInMeters(result.getDistanceInMeters());
+      return copy;
+    }
+  }
 }
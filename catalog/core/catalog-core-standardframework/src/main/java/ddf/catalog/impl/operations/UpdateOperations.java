@@ -13,6 +13,7 @@
  */
 package ddf.catalog.impl.operations;
 
+import static ddf.catalog.Constants.CONTENT_CHECKSUMS;
 import static ddf.catalog.Constants.CONTENT_PATHS;
 
 import com.google.common.collect.Iterables;
@@ -32,6 +33,7 @@
 import ddf.catalog.federation.FederationException;
 import ddf.catalog.history.Historian;
 import ddf.catalog.impl.FrameworkProperties;
+import ddf.catalog.impl.operations.OperationsItemSupport.ItemResults;
 import ddf.catalog.operation.Operation;
 import ddf.catalog.operation.OperationTransaction;
 import ddf.catalog.operation.ProcessingDetails;
@@ -66,6 +68,7 @@
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -110,6 +113,8 @@ public class UpdateOperations {
 
   private Historian historian;
 
+  private OperationsItemSupport opsItemSupport = new OperationsItemSupport();
+
   public UpdateOperations(
       FrameworkProperties frameworkProperties,
       QueryOperations queryOperations,
@@ -131,12 +136,16 @@ public void setHistorian(Historian historian) {
     this.historian = historian;
   }
 
+  public void setOpsItemSupport(OperationsItemSupport opsItemSupport) {
+    this.opsItemSupport = opsItemSupport;
+  }
+
   //
   // Delegate methods
   //
   public UpdateResponse update(UpdateRequest updateRequest)
       throws IngestException, SourceUnavailableException {
-    UpdateResponse updateResponse = doUpdate(updateRequest);
+    UpdateResponse updateResponse = doUpdate(updateRequest, new HashSet<>());
     updateResponse = doPostIngest(updateResponse);
     return updateResponse;
   }
@@ -157,6 +166,9 @@ public UpdateResponse update(UpdateStorageRequest streamUpdateRequest)
     Map<String, Metacard> metacardMap = new HashMap<>();
     List<ContentItem> contentItems = new ArrayList<>(streamUpdateRequest.getContentItems().size());
     HashMap<String, Map<String, Path>> tmpContentPaths = new HashMap<>();
+    IdentityHashMap<ContentItem, Map<String, Serializable>> contentChecksums =
+        new IdentityHashMap<>();
+    Set<ProcessingDetails> itemErrors = new HashSet<>();
 
     UpdateResponse updateResponse = null;
     UpdateStorageRequest updateStorageRequest = null;
@@ -166,11 +178,18 @@ public UpdateResponse update(UpdateStorageRequest streamUpdateRequest)
         opsStorageSupport.prepareStorageRequest(
             streamUpdateRequest, streamUpdateRequest::getContentItems);
 
-    // Operation populates the metacardMap, contentItems, and tmpContentPaths
+    // Operation populates the metacardMap, contentItems, tmpContentPaths, and contentChecksums
     opsMetacardSupport.generateMetacardAndContentItems(
-        streamUpdateRequest.getContentItems(), metacardMap, contentItems, tmpContentPaths);
+        streamUpdateRequest.getContentItems(),
+        metacardMap,
+        contentItems,
+        tmpContentPaths,
+        contentChecksums,
+        opsItemSupport,
+        itemErrors);
 
     streamUpdateRequest.getProperties().put(CONTENT_PATHS, tmpContentPaths);
+    streamUpdateRequest.getProperties().put(CONTENT_CHECKSUMS, contentChecksums);
 
     streamUpdateRequest = applyAttributeOverrides(streamUpdateRequest, metacardMap);
 
@@ -215,7 +234,9 @@ public UpdateResponse update(UpdateStorageRequest streamUpdateRequest)
               new ArrayList<>(metacardMap.values()));
       updateRequest.setProperties(streamUpdateRequest.getProperties());
       historian.setSkipFlag(updateRequest);
-      updateResponse = doUpdate(updateRequest);
+      // the content is stored by now, so the failure of a metacard fails the whole request
+      updateResponse = doUpdate(updateRequest, null);
+      updateResponse = addItemErrors(updateResponse, itemErrors);
       historian.version(streamUpdateRequest, updateStorageResponse, updateResponse);
     } catch (Exception e) {
       if (updateStorageRequest != null) {
@@ -241,20 +262,23 @@ public UpdateResponse update(UpdateStorageRequest streamUpdateRequest)
   //
   // Private helper methods
   //
-  private UpdateResponse doUpdate(UpdateRequest updateRequest)
+  /**
+   * @param itemErrors where the metacards that fail on their own are reported, or {@code null} if
+   *     the failure of a metacard fails the whole request
+   */
+  private UpdateResponse doUpdate(UpdateRequest updateRequest, Set<ProcessingDetails> itemErrors)
       throws IngestException, SourceUnavailableException {
     updateRequest = queryOperations.setFlagsOnRequest(updateRequest);
     updateRequest = validateUpdateRequest(updateRequest);
     updateRequest = validateLocalSource(updateRequest);
 
     try {
-      updateRequest = injectAttributes(updateRequest);
-      updateRequest = setDefaultValues(updateRequest);
+      updateRequest = injectAttributesAndSetDefaultValues(updateRequest, itemErrors);
 
       updateRequest = populateMetacards(updateRequest);
       updateRequest = processPreAuthorizationPlugins(updateRequest);
 
-      updateRequest = populateUpdateRequestPolicyMap(updateRequest);
+      updateRequest = populateUpdateRequestPolicyMap(updateRequest, itemErrors);
       updateRequest = processPreUpdateAccessPlugins(updateRequest);
 
       updateRequest = processPreIngestPlugins(updateRequest);
@@ -268,6 +292,9 @@ private UpdateResponse doUpdate(UpdateRequest updateRequest)
 
       // Handle the posting of messages to pubsub
       updateResponse = validateFixUpdateResponse(updateResponse, updateRequest);
+      if (itemErrors != null) {
+        updateResponse = addItemErrors(updateResponse, itemErrors);
+      }
       return updateResponse;
     } catch (StopProcessingException see) {
       throw new IngestException(PRE_INGEST_ERROR, see);
@@ -363,29 +390,61 @@ private Map.Entry<Serializable, Metacard> toEntryById(Metacard metacard) {
     return new AbstractMap.SimpleEntry<>(metacard.getId(), metacard);
   }
 
-  private UpdateRequest injectAttributes(UpdateRequest request) {
-    request
-        .getUpdates()
-        .forEach(
+  private UpdateRequest injectAttributesAndSetDefaultValues(
+      UpdateRequest request, Set<ProcessingDetails> itemErrors) throws IngestException {
+    ItemResults<Map.Entry<Serializable, Metacard>, Map.Entry<Serializable, Metacard>> itemResults =
+        opsItemSupport.process(
+            request.getUpdates(),
             updateEntry -> {
-              Metacard original = updateEntry.getValue();
               Metacard metacard =
                   opsMetacardSupport.applyInjectors(
-                      original, frameworkProperties.getAttributeInjectors());
+                      updateEntry.getValue(), frameworkProperties.getAttributeInjectors());
               updateEntry.setValue(metacard);
+              if (metacard != null) {
+                opsMetacardSupport.setDefaultValues(metacard);
+              }
+              return updateEntry;
             });
 
-    return request;
+    return withoutFailedUpdates(request, itemResults, itemErrors);
   }
 
-  private UpdateRequest setDefaultValues(UpdateRequest updateRequest) {
-    updateRequest.getUpdates().stream()
-        .filter(Objects::nonNull)
-        .map(Map.Entry::getValue)
-        .filter(Objects::nonNull)
-        .forEach(opsMetacardSupport::setDefaultValues);
+  private UpdateRequest withoutFailedUpdates(
+      UpdateRequest request,
+      ItemResults<Map.Entry<Serializable, Metacard>, ?> itemResults,
+      Set<ProcessingDetails> itemErrors)
+      throws IngestException {
+    itemResults.getResults(itemErrors, update -> OperationsItemSupport.describe(update.getValue()));
+    if (itemResults.getFailures().isEmpty()) {
+      return request;
+    }
 
-    return updateRequest;
+    Set<Map.Entry<Serializable, Metacard>> failedUpdates =
+        Collections.newSetFromMap(new IdentityHashMap<>());
+    itemResults.getFailures().forEach(failure -> failedUpdates.add(failure.getItem()));
+    List<Map.Entry<Serializable, Metacard>> updates =
+        request.getUpdates().stream()
+            .filter(update -> !failedUpdates.contains(update))
+            .collect(Collectors.toList());
+    return new UpdateRequestImpl(
+        updates, request.getAttributeName(), request.getProperties(), request.getStoreIds());
+  }
+
+  private UpdateResponse addItemErrors(
+      UpdateResponse updateResponse, Set<ProcessingDetails> itemErrors) {
+    if (itemErrors.isEmpty()) {
+      return updateResponse;
+    }
+
+    Set<ProcessingDetails> processingErrors = new HashSet<>(itemErrors);
+    if (updateResponse.getProcessingErrors() != null) {
+      processingErrors.addAll(updateResponse.getProcessingErrors());
+    }
+    return new UpdateResponseImpl(
+        updateResponse.getRequest(),
+        updateResponse.getProperties(),
+        updateResponse.getUpdatedMetacards(),
+        processingErrors);
   }
 
   /**
@@ -530,35 +589,50 @@ private UpdateRequest processPreUpdateAccessPlugins(UpdateRequest updateRequest)
     return updateRequest;
   }
 
-  private UpdateRequest populateUpdateRequestPolicyMap(UpdateRequest updateRequest)
-      throws StopProcessingException {
+  private UpdateRequest populateUpdateRequestPolicyMap(
+      UpdateRequest updateRequest, Set<ProcessingDetails> itemErrors)
+      throws StopProcessingException, IngestException {
     Map<String, Metacard> metacardMap = getUpdateMap(updateRequest);
-    HashMap<String, Set<String>> requestPolicyMap = new HashMap<>();
-    for (Map.Entry<Serializable, Metacard> update : updateRequest.getUpdates()) {
-      HashMap<String, Set<String>> itemPolicyMap = new HashMap<>();
-      HashMap<String, Set<String>> oldItemPolicyMap = new HashMap<>();
-      Metacard oldMetacard = metacardMap.get(update.getKey().toString());
-
-      for (PolicyPlugin plugin : frameworkProperties.getPolicyPlugins()) {
-        PolicyResponse updatePolicyResponse =
-            plugin.processPreUpdate(
-                update.getValue(), Collections.unmodifiableMap(updateRequest.getProperties()));
-        PolicyResponse oldPolicyResponse =
-            plugin.processPreUpdate(
-                oldMetacard, Collections.unmodifiableMap(updateRequest.getProperties()));
+    Map<String, Serializable> unmodifiablePropertiesMap =
+        Collections.unmodifiableMap(updateRequest.getProperties());
+    ItemResults<Map.Entry<Serializable, Metacard>, List<PolicyResponse>> itemResults =
+        opsItemSupport.process(
+            updateRequest.getUpdates(),
+            update -> {
+              HashMap<String, Set<String>> itemPolicyMap = new HashMap<>();
+              HashMap<String, Set<String>> oldItemPolicyMap = new HashMap<>();
+              List<PolicyResponse> updatePolicyResponses = new ArrayList<>();
+              Metacard oldMetacard = metacardMap.get(update.getKey().toString());
+
+              for (PolicyPlugin plugin : frameworkProperties.getPolicyPlugins()) {
+                PolicyResponse updatePolicyResponse =
+                    plugin.processPreUpdate(update.getValue(), unmodifiablePropertiesMap);
+                PolicyResponse oldPolicyResponse =
+                    plugin.processPreUpdate(oldMetacard, unmodifiablePropertiesMap);
+
+                opsSecuritySupport.buildPolicyMap(
+                    itemPolicyMap, updatePolicyResponse.itemPolicy().entrySet());
+                opsSecuritySupport.buildPolicyMap(
+                    oldItemPolicyMap, oldPolicyResponse.itemPolicy().entrySet());
+                updatePolicyResponses.add(updatePolicyResponse);
+              }
+              update.getValue().setAttribute(new AttributeImpl(Metacard.SECURITY, itemPolicyMap));
+              if (oldMetacard != null) {
+                oldMetacard.setAttribute(new AttributeImpl(Metacard.SECURITY, oldItemPolicyMap));
+              }
+              return updatePolicyResponses;
+            });
 
-        opsSecuritySupport.buildPolicyMap(
-            itemPolicyMap, updatePolicyResponse.itemPolicy().entrySet());
-        opsSecuritySupport.buildPolicyMap(
-            oldItemPolicyMap, oldPolicyResponse.itemPolicy().entrySet());
+    // the operation policy is merged in the order of the updates and plugins
+    HashMap<String, Set<String>> requestPolicyMap = new HashMap<>();
+    for (List<PolicyResponse> updatePolicyResponses : itemResults.getResults()) {
+      for (PolicyResponse updatePolicyResponse : updatePolicyResponses) {
         opsSecuritySupport.buildPolicyMap(
             requestPolicyMap, updatePolicyResponse.operationPolicy().entrySet());
       }
-      update.getValue().setAttribute(new AttributeImpl(Metacard.SECURITY, itemPolicyMap));
-      if (oldMetacard != null) {
-        oldMetacard.setAttribute(new AttributeImpl(Metacard.SECURITY, oldItemPolicyMap));
-      }
     }
+
+    updateRequest = withoutFailedUpdates(updateRequest, itemResults, itemErrors);
     updateRequest.getProperties().put(PolicyPlugin.OPERATION_SECURITY, requestPolicyMap);
 
     return updateRequest;
@@ -13,6 +13,7 @@
  */
 package ddf.catalog.impl.operations
 
+import ddf.catalog.Constants
 import ddf.catalog.content.data.ContentItem
 import ddf.catalog.data.Attribute
 import ddf.catalog.data.AttributeDescriptor
@@ -25,9 +26,12 @@ import ddf.catalog.source.IngestException
 import ddf.catalog.transform.InputTransformer
 import ddf.mime.MimeTypeMapper
 import ddf.mime.MimeTypeToTransformerMapper
+import org.codice.ddf.checksum.impl.Adler32ChecksumProvider
 import org.codice.ddf.platform.util.uuidgenerator.UuidGenerator
 import org.junit.platform.runner.JUnitPlatform
 import org.junit.runner.RunWith
+import org.osgi.framework.BundleContext
+import org.osgi.framework.ServiceReference
 import spock.lang.Specification
 
 import java.nio.file.Files
@@ -96,7 +100,7 @@ class OperationsMetacardSupportSpec extends Specification {
         def contentPaths = [:]
 
         when:
-        opsMetacard.generateMetacardAndContentItems([], metacardMap, contentItems, contentPaths)
+        opsMetacard.generateMetacardAndContentItems([], metacardMap, contentItems, contentPaths, [:])
 
         then:
         metacardMap.isEmpty()
@@ -114,7 +118,7 @@ class OperationsMetacardSupportSpec extends Specification {
         def inputs = [item]
 
         when:
-        opsMetacard.generateMetacardAndContentItems(inputs, metacardMap, contentItems, contentPaths)
+        opsMetacard.generateMetacardAndContentItems(inputs, metacardMap, contentItems, contentPaths, [:])
 
         then:
         thrown(IngestException)
@@ -130,7 +134,7 @@ class OperationsMetacardSupportSpec extends Specification {
         def inputs = [item]
 
         when:
-        opsMetacard.generateMetacardAndContentItems(inputs, metacardMap, contentItems, contentPaths)
+        opsMetacard.generateMetacardAndContentItems(inputs, metacardMap, contentItems, contentPaths, [:])
 
         then:
         thrown(IngestException)
@@ -149,7 +153,7 @@ class OperationsMetacardSupportSpec extends Specification {
         def inputs = [item]
 
         when:
-        opsMetacard.generateMetacardAndContentItems(inputs, metacardMap, contentItems, contentPaths)
+        opsMetacard.generateMetacardAndContentItems(inputs, metacardMap, contentItems, contentPaths, [:])
 
         then:
         thrown(IngestException)
@@ -169,7 +173,7 @@ class OperationsMetacardSupportSpec extends Specification {
         def inputs = [item]
 
         when:
-        opsMetacard.generateMetacardAndContentItems(inputs, metacardMap, contentItems, contentPaths)
+        opsMetacard.generateMetacardAndContentItems(inputs, metacardMap, contentItems, contentPaths, [:])
 
         then:
         metacardMap.size() == 1
@@ -182,6 +186,38 @@ class OperationsMetacardSupportSpec extends Specification {
         contentPaths.keySet().first() == item.getId()
     }
 
+    def 'test generation of metacard and content calculates checksum'() {
+        setup:
+        def metacardMap = [:]
+        List<ContentItem> contentItems = []
+        Map<String, Map<String, Path>> contentPaths = [:]
+        Map<ContentItem, Map<String, Serializable>> contentChecksums = new IdentityHashMap<>()
+        frameworkProperties.mimeTypeMapper.guessMimeType(_, _) >> { 'text/plain' }
+        def checksumPlugin = Mock(ServiceReference)
+        checksumPlugin.getProperty(Constants.CHECKSUM_ALGORITHM_SERVICE_PROPERTY) >> 'Adler32'
+        frameworkProperties.bundleContext = Mock(BundleContext)
+        frameworkProperties.bundleContext.getServiceReferences((String) null, '(checksum-algorithm=*)') >>
+                ([checksumPlugin] as ServiceReference[])
+        frameworkProperties.checksumProviders = [new Adler32ChecksumProvider()]
+        def item = Mock(ContentItem)
+        item.getFilename() >> 'joe.txt'
+        item.getInputStream() >> { new ByteArrayInputStream('hello'.bytes) }
+        item.getId() >> 'item.id'
+        item.getMimeTypeRawData() >> 'application/octet-stream'
+        def inputs = [item]
+
+        when:
+        opsMetacard.generateMetacardAndContentItems(inputs, metacardMap, contentItems, contentPaths,
+                contentChecksums)
+
+        then:
+        contentChecksums.size() == 1
+        contentChecksums.get(contentItems.first()) == ['Adler32': new Adler32ChecksumProvider()
+                .calculateChecksum(new ByteArrayInputStream('hello'.bytes)),
+                (Constants.CONTENT_CHECKSUM_SIZE): 'hello'.size() as long]
+        Files.readAllBytes(contentPaths.get('item.id').get(null)) == 'hello'.bytes
+    }
+
     def 'test generation of metacard and content supported ioexception from xformer'() {
         setup:
         def metacardMap = [:]
@@ -196,7 +232,7 @@ class OperationsMetacardSupportSpec extends Specification {
         def inputs = [item]
 
         when:
-        opsMetacard.generateMetacardAndContentItems(inputs, metacardMap, contentItems, contentPaths)
+        opsMetacard.generateMetacardAndContentItems(inputs, metacardMap, contentItems, contentPaths, [:])
 
         then:
         1 * transformer.transform(_) >> { throw new IOException() }
@@ -276,7 +312,7 @@ class OperationsMetacardSupportSpec extends Specification {
         def tmpContentPaths = [:]
 
         when:
-        opsMetacard.generateMetacardAndContentItems([contentItem], metacardMap, [], tmpContentPaths)
+        opsMetacard.generateMetacardAndContentItems([contentItem], metacardMap, [], tmpContentPaths, [:])
 
         then:
         0 * metacardFactory.generateMetacard(_ as String, _ as String, _ as String, _ as Path)
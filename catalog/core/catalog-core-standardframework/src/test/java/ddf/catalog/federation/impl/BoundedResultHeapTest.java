@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.util.impl.RelevanceResultComparator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import org.opengis.filter.sort.SortOrder;
+
+public class BoundedResultHeapTest {
+
+  private static final RelevanceResultComparator COMPARATOR =
+      new RelevanceResultComparator(SortOrder.DESCENDING);
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidCapacity() {
+    new BoundedResultHeap(COMPARATOR, 0);
+  }
+
+  @Test
+  public void testRetainsOnlyTopResults() {
+    BoundedResultHeap heap = new BoundedResultHeap(COMPARATOR, 3);
+
+    heap.offerAll(results("a", 0.1, "b", 0.9, "c", 0.5));
+    heap.offerAll(results("d", 0.7, "e", 0.2));
+    heap.offerAll(results("f", 1.0));
+
+    assertThat(heap.getOfferedCount()).isEqualTo(6);
+    assertThat(heap.size()).isEqualTo(3);
+    assertThat(ids(heap.toSortedList())).containsExactly("f", "b", "d");
+  }
+
+  @Test
+  public void testEqualResultsKeepOfferOrder() {
+    BoundedResultHeap heap = new BoundedResultHeap(COMPARATOR, 3);
+
+    heap.offerAll(results("a", 0.5, "b", 0.5));
+    heap.offerAll(results("c", 0.5, "d", 0.5, "e", 0.9));
+
+    assertThat(ids(heap.toSortedList())).containsExactly("e", "a", "b");
+  }
+
+  @Test
+  public void testMatchesFullSort() {
+    Random random = new Random(42);
+    List<Result> all = new ArrayList<>();
+    BoundedResultHeap heap = new BoundedResultHeap(COMPARATOR, 50);
+
+    for (int source = 0; source < 10; source++) {
+      List<Result> sourceResults = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        sourceResults.add(result(source + "-" + i, (double) random.nextInt(20)));
+      }
+      all.addAll(sourceResults);
+      heap.offerAll(sourceResults);
+    }
+
+    Collections.sort(all, COMPARATOR);
+
+    assertThat(ids(heap.toSortedList())).containsExactlyElementsOf(ids(all.subList(0, 50)));
+  }
+
+  private static List<Result> results(Object... idsAndScores) {
+    List<Result> results = new ArrayList<>();
+    for (int i = 0; i < idsAndScores.length; i += 2) {
+      results.add(result((String) idsAndScores[i], (Double) idsAndScores[i + 1]));
+    }
+    return results;
+  }
+
+  private static Result result(String id, Double relevance) {
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setId(id);
+    ResultImpl result = new ResultImpl(metacard);
+    result.setRelevanceScore(relevance);
+    return result;
+  }
+
+  private static List<String> ids(List<Result> results) {
+    return results.stream().map(r -> r.getMetacard().getId()).collect(Collectors.toList());
+  }
+}
@@ -13,6 +13,8 @@
  */
 package ddf.catalog.federation.impl;
 
+import static ddf.catalog.Constants.PARTIAL_RESPONSE_KEY;
+import static ddf.catalog.Constants.QUERY_RESPONSE_LISTENER_KEY;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.extractor.Extractors.byName;
 import static org.awaitility.Awaitility.with;
@@ -35,6 +37,8 @@
 import ddf.catalog.operation.ProcessingDetails;
 import ddf.catalog.operation.Query;
 import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.QueryResponse;
+import ddf.catalog.operation.QueryResponseListener;
 import ddf.catalog.operation.SourceResponse;
 import ddf.catalog.operation.impl.ProcessingDetailsImpl;
 import ddf.catalog.operation.impl.QueryResponseImpl;
@@ -152,6 +156,45 @@ public void noQueryTimeout() throws Exception {
         .contains("Source-0");
   }
 
+  @Test
+  public void partialResponsesPublishedAsSourcesComplete() throws Exception {
+    List<QueryResponse> partialResponses = new ArrayList<>();
+    QueryResponseListener listener = partialResponses::add;
+    when(query.getTimeoutMillis()).thenReturn(0L);
+    when(queryRequest.getQuery()).thenReturn(query);
+    when(queryRequest.getPropertyValue(QUERY_RESPONSE_LISTENER_KEY)).thenReturn(listener);
+
+    SortedQueryMonitor queryMonitor =
+        new SortedQueryMonitor(
+            completionService, futures, queryResponse, queryRequest, new ArrayList<>());
+
+    final Iterator<Future<SourceResponse>> futureIter =
+        new ArrayList<>(futures.keySet()).iterator();
+    when(completionService.take()).thenAnswer((invocationOnMock -> futureIter.next()));
+    queryMonitor.run();
+
+    // The last source completes the final response rather than a partial one
+    assertThat(partialResponses).hasSize(3);
+    assertThat(partialResponses).extracting(QueryResponse::getHits).containsExactly(0L, 3L, 4L);
+    assertThat(partialResponses)
+        .extracting(response -> response.getResults().size())
+        .containsExactly(0, 3, 4);
+    assertThat(partialResponses)
+        .extracting(response -> response.getProperties().get(PARTIAL_RESPONSE_KEY))
+        .containsOnly(true);
+
+    HashMap<String, Long> hitsPerSource =
+        (HashMap<String, Long>) partialResponses.get(1).getProperties().get("hitsPerSource");
+    assertThat(hitsPerSource).containsOnlyKeys("Source-0", "Source-1");
+    assertThat(partialResponses.get(0).getProcessingDetails())
+        .extracting(byName("sourceId"))
+        .contains("Source-0");
+
+    assertThat(queryResponse.getHits()).isEqualTo(4);
+    assertThat(queryResponse.getResults().size()).isEqualTo(4);
+    assertThat(queryResponse.getProperties()).doesNotContainKey(PARTIAL_RESPONSE_KEY);
+  }
+
   @Test
   public void shortQueryTimeout() throws Exception {
     when(query.getTimeoutMillis()).thenReturn(5000L);
@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl.operations;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import ddf.catalog.impl.operations.OperationsItemSupport.ItemResults;
+import ddf.catalog.operation.ProcessingDetails;
+import ddf.catalog.plugin.StopProcessingException;
+import ddf.catalog.source.IngestException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OperationsItemSupportTest {
+
+  private static final List<Integer> ITEMS = Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8);
+
+  private ExecutorService executor;
+
+  private OperationsItemSupport opsItemSupport;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+    opsItemSupport = new OperationsItemSupport(executor);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testSerialByDefault() throws Exception {
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    ItemResults<Integer, Integer> itemResults =
+        opsItemSupport.process(
+            ITEMS,
+            item -> {
+              threads.add(Thread.currentThread().getName());
+              return item * 10;
+            });
+
+    assertThat(opsItemSupport.isParallelItemProcessing(), is(false));
+    assertThat(itemResults.getResults(), contains(10, 20, 30, 40, 50, 60, 70, 80));
+    assertThat(threads, contains(Thread.currentThread().getName()));
+  }
+
+  @Test(expected = StopProcessingException.class)
+  public void testSerialFailureFailsAllItems() throws Exception {
+    opsItemSupport.process(
+        ITEMS,
+        item -> {
+          if (item == 3) {
+            throw new StopProcessingException("item 3");
+          }
+          return item;
+        });
+  }
+
+  @Test
+  public void testParallelKeepsItemOrder() throws Exception {
+    opsItemSupport.setParallelItemProcessing(true);
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    ItemResults<Integer, Integer> itemResults =
+        opsItemSupport.process(
+            ITEMS,
+            item -> {
+              threads.add(Thread.currentThread().getName());
+              // finish the items in reverse order
+              Thread.sleep((ITEMS.size() - item) * 5L);
+              return item * 10;
+            });
+
+    assertThat(itemResults.getResults(), contains(10, 20, 30, 40, 50, 60, 70, 80));
+    assertThat(itemResults.getFailures(), is(empty()));
+    assertThat(threads, not(contains(Thread.currentThread().getName())));
+  }
+
+  @Test
+  public void testParallelFailureIsolated() throws Exception {
+    opsItemSupport.setParallelItemProcessing(true);
+    Set<ProcessingDetails> itemErrors = new HashSet<>();
+
+    ItemResults<Integer, Integer> itemResults =
+        opsItemSupport.process(
+            ITEMS,
+            item -> {
+              if (item % 4 == 0) {
+                throw new StopProcessingException("item " + item);
+              }
+              return item;
+            });
+
+    assertThat(itemResults.getResults(itemErrors, String::valueOf), contains(1, 2, 3, 5, 6, 7));
+    assertThat(itemResults.getFailures(), hasSize(2));
+    assertThat(itemResults.getFailures().get(0).getItem(), is(4));
+    assertThat(itemResults.getFailures().get(1).getItem(), is(8));
+    assertThat(
+        itemResults.getFailures().get(0).getCause(), instanceOf(StopProcessingException.class));
+    assertThat(itemErrors, hasSize(2));
+  }
+
+  @Test(expected = IngestException.class)
+  public void testParallelFailureNotIsolated() throws Exception {
+    opsItemSupport.setParallelItemProcessing(true);
+
+    opsItemSupport
+        .process(
+            ITEMS,
+            item -> {
+              if (item == 5) {
+                throw new IllegalStateException("item 5");
+              }
+              return item;
+            })
+        .getResults(null, String::valueOf);
+  }
+
+  @Test(expected = IngestException.class)
+  public void testParallelAllItemsFailed() throws Exception {
+    opsItemSupport.setParallelItemProcessing(true);
+
+    opsItemSupport
+        .process(
+            ITEMS,
+            item -> {
+              throw new StopProcessingException("item " + item);
+            })
+        .getResults(new HashSet<>(), String::valueOf);
+  }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl.operations;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.impl.operations.QueryOperations.PostProcessingResponseListener;
+import ddf.catalog.operation.QueryResponse;
+import ddf.catalog.operation.impl.QueryResponseImpl;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PostProcessingResponseListenerTest {
+
+  private final List<QueryResponse> processedResponses = new ArrayList<>();
+
+  private final List<QueryResponse> deliveredResponses = new ArrayList<>();
+
+  private PostProcessingResponseListener listener;
+
+  @Before
+  public void setUp() {
+    listener =
+        new PostProcessingResponseListener(
+            deliveredResponses::add,
+            partialResponse -> {
+              processedResponses.add(partialResponse);
+              return partialResponse;
+            },
+            Runnable::run);
+  }
+
+  @Test
+  public void testResultsAreProcessedOnce() {
+    Result first = result("1", "first");
+    Result second = result("2", "second");
+
+    listener.partialResponse(response(first));
+    listener.partialResponse(response(first, second));
+
+    assertThat(processedResponses, hasSize(2));
+    assertThat(titles(processedResponses.get(1)), contains("second"));
+    assertThat(titles(deliveredResponses.get(1)), contains("first", "second"));
+  }
+
+  @Test
+  public void testResultWithoutIdIsLeftOut() {
+    listener.partialResponse(
+        response(result("1", "first"), result(null, "without id"), result("2", "second")));
+
+    assertThat(processedResponses, hasSize(1));
+    assertThat(titles(processedResponses.get(0)), contains("first", "second"));
+    assertThat(titles(deliveredResponses.get(0)), contains("first", "second"));
+    assertThat(deliveredResponses.get(0).getPropertyValue("actualResultSize"), is(3));
+  }
+
+  @Test
+  public void testResultsSharingAnIdKeepTheirPosition() {
+    listener.partialResponse(
+        response(result("1", "first"), result("2", "second"), result("1", "third")));
+
+    assertThat(processedResponses, hasSize(2));
+    assertThat(titles(processedResponses.get(0)), contains("first", "second"));
+    assertThat(titles(processedResponses.get(1)), contains("third"));
+    assertThat(titles(deliveredResponses.get(0)), contains("first", "second", "third"));
+  }
+
+  private static Result result(String id, String title) {
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setId(id);
+    metacard.setTitle(title);
+    return new ResultImpl(metacard);
+  }
+
+  private static QueryResponse response(Result... results) {
+    return new QueryResponseImpl(null, Arrays.asList(results), true, results.length);
+  }
+
+  private static List<String> titles(QueryResponse response) {
+    return response.getResults().stream()
+        .map(result -> result.getMetacard().getTitle())
+        .collect(Collectors.toList());
+  }
+}
@@ -13,6 +13,9 @@
  */
 package org.codice.ddf.catalog.content.plugin.checksum;
 
+import static ddf.catalog.Constants.CONTENT_CHECKSUMS;
+import static ddf.catalog.Constants.CONTENT_CHECKSUM_SIZE;
+
 import ddf.catalog.content.data.ContentItem;
 import ddf.catalog.content.operation.CreateStorageRequest;
 import ddf.catalog.content.operation.UpdateStorageRequest;
@@ -23,8 +26,11 @@
 import ddf.catalog.plugin.PluginExecutionException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
 import java.security.NoSuchAlgorithmException;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import org.apache.commons.lang.StringUtils;
 import org.codice.ddf.checksum.ChecksumProvider;
 import org.slf4j.Logger;
@@ -47,7 +53,7 @@ public CreateStorageRequest process(CreateStorageRequest input) throws PluginExe
     if (input == null) {
       throw new IllegalArgumentException("CreateStorageRequest cannot be null");
     }
-    runChecksum(input.getContentItems());
+    runChecksum(input.getContentItems(), input.getProperties());
 
     return input;
   }
@@ -57,12 +63,13 @@ public UpdateStorageRequest process(UpdateStorageRequest input) throws PluginExe
     if (input == null) {
       throw new IllegalArgumentException("UpdateStorageRequest cannot be null");
     }
-    runChecksum(input.getContentItems());
+    runChecksum(input.getContentItems(), input.getProperties());
 
     return input;
   }
 
-  private void runChecksum(List<ContentItem> contentItems) throws PluginExecutionException {
+  private void runChecksum(List<ContentItem> contentItems, Map<String, Serializable> properties)
+      throws PluginExecutionException {
     if (checksumProvider == null) {
       LOGGER.debug(
           "Checksum provider was null, double check configuration is a valid checksum algorithm.");
@@ -76,9 +83,17 @@ private void runChecksum(List<ContentItem> contentItems) throws PluginExecutionE
         continue;
       }
 
+      // use the checksum the framework calculated while reading the content, if it is available
+      String checksumAlgorithm = checksumProvider.getChecksumAlgorithm();
+      String calculatedChecksum =
+          getCalculatedChecksum(properties, contentItem, checksumAlgorithm);
+      if (calculatedChecksum != null) {
+        addChecksumAttributes(contentItem.getMetacard(), checksumAlgorithm, calculatedChecksum);
+        continue;
+      }
+
       try (InputStream inputStream = contentItem.getInputStream()) {
         // calculate checksum so that it can be added as an attribute on metacard
-        String checksumAlgorithm = checksumProvider.getChecksumAlgorithm();
         String checksumValue;
 
         try {
@@ -96,6 +111,40 @@ private void runChecksum(List<ContentItem> contentItems) throws PluginExecutionE
     }
   }
 
+  /**
+   * Returns the checksum the framework calculated for a content item. A plugin that ran earlier may
+   * have replaced the content item, so the checksum is only used if it was calculated for the same
+   * instance and the same number of bytes.
+   *
+   * @return the checksum, or null if it has to be calculated
+   */
+  private String getCalculatedChecksum(
+      Map<String, Serializable> properties, ContentItem contentItem, String checksumAlgorithm) {
+    Object contentChecksums = properties == null ? null : properties.get(CONTENT_CHECKSUMS);
+    // keyed by content item instance
+    if (!(contentChecksums instanceof IdentityHashMap)) {
+      return null;
+    }
+
+    Object checksums = ((IdentityHashMap<?, ?>) contentChecksums).get(contentItem);
+    if (!(checksums instanceof Map)) {
+      return null;
+    }
+
+    Object checksum = ((Map<?, ?>) checksums).get(checksumAlgorithm);
+    Object size = ((Map<?, ?>) checksums).get(CONTENT_CHECKSUM_SIZE);
+    try {
+      if (checksum instanceof String
+          && size instanceof Long
+          && (Long) size == contentItem.getSize()) {
+        return (String) checksum;
+      }
+    } catch (IOException e) {
+      LOGGER.debug("Unable to get the size of content item {}.", contentItem.getId(), e);
+    }
+    return null;
+  }
+
   private void addChecksumAttributes(
       Metacard metacard, final String checksumAlgorithm, final String checksumValue) {
     metacard.setAttribute(new AttributeImpl(Metacard.CHECKSUM_ALGORITHM, checksumAlgorithm));
@@ -25,6 +25,7 @@
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import ddf.catalog.Constants;
 import ddf.catalog.content.data.ContentItem;
 import ddf.catalog.content.operation.CreateStorageRequest;
 import ddf.catalog.content.operation.UpdateStorageRequest;
@@ -34,10 +35,14 @@
 import ddf.catalog.plugin.PluginExecutionException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import org.codice.ddf.checksum.ChecksumProvider;
 import org.junit.Before;
 import org.junit.Test;
@@ -55,6 +60,12 @@ public class ChecksumTest {
 
   private static final String SAMPLE_CHECKSUM_VALUE = "324D54D92B2D97471F9F4624596EA9F5";
 
+  private static final String CONTENT_ITEM_ID = "contentItemId";
+
+  private static final long CONTENT_SIZE = 5;
+
+  private ContentItem mockContentItem;
+
   @Before
   public void initialize() throws IOException, NoSuchAlgorithmException {
     mockChecksumProvider = mock(ChecksumProvider.class);
@@ -70,7 +81,9 @@ public void initialize() throws IOException, NoSuchAlgorithmException {
     checksum.setChecksumAlgorithm(SAMPLE_CHECKSUM_ALGORITHM);
 
     List<ContentItem> mockContentItems = new ArrayList<>();
-    ContentItem mockContentItem = mock(ContentItem.class);
+    mockContentItem = mock(ContentItem.class);
+    when(mockContentItem.getId()).thenReturn(CONTENT_ITEM_ID);
+    when(mockContentItem.getSize()).thenReturn(CONTENT_SIZE);
     when(mockContentItem.getInputStream()).thenReturn(inputStream);
     when(mockContentItem.getMetacard()).thenReturn(new MetacardImpl());
     mockContentItems.add(mockContentItem);
@@ -143,6 +156,62 @@ public void testProcessUpdateWithValidUnrecognizedAlgorithm() throws PluginExecu
         nullValue());
   }
 
+  @Test
+  public void testProcessCreateWithChecksumCalculatedDuringIngest() throws Exception {
+    when(mockCreateRequest.getProperties())
+        .thenReturn(calculatedChecksums(mockContentItem, SAMPLE_CHECKSUM_ALGORITHM, CONTENT_SIZE));
+
+    CreateStorageRequest request = checksum.process(mockCreateRequest);
+
+    Metacard metacard = request.getContentItems().get(0).getMetacard();
+    assertThat(metacard.getAttribute(Metacard.CHECKSUM).getValue(), is("calculated"));
+    assertThat(
+        metacard.getAttribute(Metacard.CHECKSUM_ALGORITHM).getValue(),
+        is(SAMPLE_CHECKSUM_ALGORITHM));
+    verify(mockChecksumProvider, never()).calculateChecksum(any(InputStream.class));
+  }
+
+  @Test
+  public void testProcessUpdateWithChecksumCalculatedForOtherAlgorithm() throws Exception {
+    when(mockUpdateRequest.getProperties())
+        .thenReturn(calculatedChecksums(mockContentItem, "SHA-256", CONTENT_SIZE));
+
+    UpdateStorageRequest request = checksum.process(mockUpdateRequest);
+
+    assertThat(
+        request.getContentItems().get(0).getMetacard().getAttribute(Metacard.CHECKSUM).getValue(),
+        is(SAMPLE_CHECKSUM_VALUE));
+  }
+
+  @Test
+  public void testProcessCreateWithChecksumCalculatedForReplacedContentItem() throws Exception {
+    ContentItem replacedContentItem = mock(ContentItem.class);
+    when(replacedContentItem.getId()).thenReturn(CONTENT_ITEM_ID);
+    when(replacedContentItem.getSize()).thenReturn(CONTENT_SIZE);
+    when(mockCreateRequest.getProperties())
+        .thenReturn(
+            calculatedChecksums(replacedContentItem, SAMPLE_CHECKSUM_ALGORITHM, CONTENT_SIZE));
+
+    CreateStorageRequest request = checksum.process(mockCreateRequest);
+
+    assertThat(
+        request.getContentItems().get(0).getMetacard().getAttribute(Metacard.CHECKSUM).getValue(),
+        is(SAMPLE_CHECKSUM_VALUE));
+  }
+
+  @Test
+  public void testProcessCreateWithChecksumCalculatedForOtherSize() throws Exception {
+    when(mockCreateRequest.getProperties())
+        .thenReturn(
+            calculatedChecksums(mockContentItem, SAMPLE_CHECKSUM_ALGORITHM, CONTENT_SIZE + 1));
+
+    CreateStorageRequest request = checksum.process(mockCreateRequest);
+
+    assertThat(
+        request.getContentItems().get(0).getMetacard().getAttribute(Metacard.CHECKSUM).getValue(),
+        is(SAMPLE_CHECKSUM_VALUE));
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testProcessCreateWithNullInput() throws PluginExecutionException {
     checksum.process((CreateStorageRequest) null);
@@ -212,4 +281,17 @@ public void testProcessUpdateDerivedContentDoesNotSetAttribute() throws Exceptio
 
     verify(metacard, never()).setAttribute(any(Attribute.class));
   }
+
+  private static Map<String, Serializable> calculatedChecksums(
+      ContentItem contentItem, String checksumAlgorithm, long size) {
+    Map<String, Serializable> checksums = new HashMap<>();
+    checksums.put(checksumAlgorithm, "calculated");
+    checksums.put(Constants.CONTENT_CHECKSUM_SIZE, size);
+    IdentityHashMap<ContentItem, Map<String, Serializable>> contentChecksums =
+        new IdentityHashMap<>();
+    contentChecksums.put(contentItem, checksums);
+    Map<String, Serializable> properties = new HashMap<>();
+    properties.put(Constants.CONTENT_CHECKSUMS, contentChecksums);
+    return properties;
+  }
 }
@@ -34,7 +34,6 @@
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.io.StringReader;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
@@ -47,12 +46,10 @@
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.xml.stream.XMLInputFactory;
-import javax.xml.stream.XMLStreamConstants;
-import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.XMLStreamReader;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
@@ -110,6 +107,10 @@ public class DynamicSchemaResolver {
 
   private static final String SOLR_CLOUD_VERSION_FIELD = "_version_";
 
+  private static final String SOLR_METACARD_BINARY = "solr.index.metacardBinary";
+
+  private static final String SOLR_XML_TEXT_CHARACTER_LIMIT = "solr.index.xmlText.characterLimit";
+
   private static final String COULD_NOT_UPDATE_CACHE_FOR_FIELD_NAMES =
       "Could not update cache for field names.";
 
@@ -118,6 +119,7 @@ public class DynamicSchemaResolver {
           SOLR_CLOUD_VERSION_FIELD,
           SchemaFields.METACARD_TYPE_FIELD_NAME,
           SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME,
+          SchemaFields.METACARD_BINARY_FIELD_NAME,
           SCORE_FIELD_NAME);
 
   private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
@@ -147,12 +149,16 @@ public class DynamicSchemaResolver {
     }
   }
 
-  Set<String> fieldsCache = new HashSet<>();
+  Set<String> fieldsCache = ConcurrentHashMap.newKeySet();
 
   private Set<String> anyTextFields = new HashSet<>();
 
   private boolean caseInsensitiveSort;
 
+  private boolean metacardBinaryEnabled;
+
+  private XmlTextExtractor xmlTextExtractor;
+
   private int textSortCharacterLimit;
 
   private SchemaFields schemaFields;
@@ -163,11 +169,15 @@ public class DynamicSchemaResolver {
   private Cache<String, byte[]> metacardTypeNameToSerialCache =
       CacheBuilder.newBuilder().maximumSize(4096).initialCapacity(64).build();
 
+  private Cache<String, MetacardFieldMapping> metacardFieldMappingCache =
+      CacheBuilder.newBuilder().maximumSize(4096).initialCapacity(64).build();
+
   public DynamicSchemaResolver(List<String> additionalFields) {
     schemaFields = new SchemaFields();
     metadataMaximumBytes = getMetadataSizeLimit();
     anyTextFields = getAnyTextFields();
     caseInsensitiveSort = "true".equals(System.getProperty("solr.query.sort.caseInsensitive"));
+    metacardBinaryEnabled = "true".equals(System.getProperty(SOLR_METACARD_BINARY));
     try {
       textSortCharacterLimit =
           Integer.parseInt(System.getProperty("solr.index.sort.characterLimit", "127").trim());
@@ -175,6 +185,7 @@ public DynamicSchemaResolver(List<String> additionalFields) {
       LOGGER.warn("Invalid sorting character limit, defaulting to 127", nfe);
       textSortCharacterLimit = 127;
     }
+    xmlTextExtractor = new XmlTextExtractor(XML_INPUT_FACTORY, getXmlTextCharacterLimit());
     fieldsCache.add(Metacard.ID + SchemaFields.TEXT_SUFFIX);
     fieldsCache.add(Metacard.ID + SchemaFields.TEXT_SUFFIX + SchemaFields.TOKENIZED);
     fieldsCache.add(
@@ -367,6 +378,34 @@ void addFields(Metacard metacard, SolrInputDocument solrInputDocument)
     }
 
     solrInputDocument.addField(SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME, metacardTypeBytes);
+
+    if (metacardBinaryEnabled) {
+      try {
+        solrInputDocument.addField(
+            SchemaFields.METACARD_BINARY_FIELD_NAME, MetacardBinaryCodec.encode(metacard));
+      } catch (IOException e) {
+        throw new MetacardCreationException(COULD_NOT_SERIALIZE_OBJECT_MESSAGE, e);
+      }
+    }
+  }
+
+  /**
+   * Returns true if every metacard is also stored as a single binary field, see {@link
+   * MetacardBinaryCodec}. Queries then only need to return that field and the metacard type
+   * fields.
+   */
+  boolean isMetacardBinaryEnabled() {
+    return metacardBinaryEnabled;
+  }
+
+  /** @return the fields a query has to return when the metacard binary is enabled */
+  String[] getMetacardBinaryFields() {
+    return new String[] {
+      Metacard.ID + SchemaFields.TEXT_SUFFIX,
+      SchemaFields.METACARD_TYPE_FIELD_NAME,
+      SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME,
+      SchemaFields.METACARD_BINARY_FIELD_NAME
+    };
   }
 
   private String truncate(String value, int length) {
@@ -493,12 +532,13 @@ List<Serializable> getDocValues(String solrFieldName, Collection<Object> docValu
     return values;
   }
 
-  @SuppressWarnings(
-      "squid:S2093" /* try-with-resource will throw IOException with InputStream and we do not care to get that exception */)
   private Serializable getDocValue(String solrFieldName, Object docValue) {
+    return getDocValue(getType(solrFieldName), docValue);
+  }
 
-    AttributeFormat format = getType(solrFieldName);
-
+  @SuppressWarnings(
+      "squid:S2093" /* try-with-resource will throw IOException with InputStream and we do not care to get that exception */)
+  private Serializable getDocValue(AttributeFormat format, Object docValue) {
     if (AttributeFormat.SHORT.equals(format)) {
       /*
        * We have inside knowledge that user-given short objects are stored as Integers in
@@ -553,6 +593,39 @@ boolean isPrivateField(String solrFieldName) {
     return PRIVATE_SOLR_FIELDS.contains(solrFieldName);
   }
 
+  /**
+   * Returns the Solr field to attribute mapping of a metacard type, which saves having to resolve
+   * the name, format and private status of every field of every document of that type.
+   *
+   * @param metacardType the metacard type of the documents
+   * @return the cached mapping for the metacard type
+   */
+  MetacardFieldMapping getMetacardFieldMapping(MetacardType metacardType) {
+    MetacardFieldMapping mapping = metacardFieldMappingCache.getIfPresent(metacardType.getName());
+
+    if (mapping == null) {
+      mapping = new MetacardFieldMapping(metacardType, this::resolveSolrField);
+      metacardFieldMappingCache.put(metacardType.getName(), mapping);
+    }
+
+    return mapping;
+  }
+
+  private MetacardFieldMapping.SolrField resolveSolrField(String solrFieldName) {
+    if (isPrivateField(solrFieldName)) {
+      return new MetacardFieldMapping.SolrField(null, docValue -> null);
+    }
+
+    AttributeFormat format = getType(solrFieldName);
+    if (AttributeFormat.SHORT.equals(format) || AttributeFormat.OBJECT.equals(format)) {
+      return new MetacardFieldMapping.SolrField(
+          resolveFieldName(solrFieldName), docValue -> getDocValue(format, docValue));
+    }
+
+    return new MetacardFieldMapping.SolrField(
+        resolveFieldName(solrFieldName), docValue -> (Serializable) docValue);
+  }
+
   /**
    * Attempts to resolve the name of a field without being given an {@link AttributeFormat}
    *
@@ -783,62 +856,7 @@ private String findAnyMatchingNumericalField(String propertyName, String fieldSu
   @SuppressWarnings(
       "squid:S2093" /* try-with-resource will throw IOException with InputStream and we do not care to get that exception */)
   private List<String> parseTextFrom(List<Serializable> xmlDatas) {
-
-    StringBuilder builder = new StringBuilder();
-    List<String> parsedTexts = new ArrayList<>();
-    XMLStreamReader xmlStreamReader = null;
-    StringReader sr = null;
-    long starttime = System.currentTimeMillis();
-
-    try {
-      for (Serializable xmlData : xmlDatas) {
-        // xml parser does not handle leading whitespace
-        sr = new StringReader(xmlData.toString());
-        xmlStreamReader = XML_INPUT_FACTORY.createXMLStreamReader(sr);
-
-        while (xmlStreamReader.hasNext()) {
-          int event = xmlStreamReader.next();
-
-          if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
-
-            String text = xmlStreamReader.getText();
-
-            if (StringUtils.isNotBlank(text)) {
-              builder.append(" ").append(text.trim());
-            }
-          }
-          if (event == XMLStreamConstants.START_ELEMENT) {
-            for (int i = 0; i < xmlStreamReader.getAttributeCount(); i++) {
-
-              String text = xmlStreamReader.getAttributeValue(i);
-
-              if (StringUtils.isNotBlank(text)) {
-                builder.append(" ").append(text.trim());
-              }
-            }
-          }
-        }
-        parsedTexts.add(builder.toString());
-        builder.setLength(0);
-      }
-    } catch (XMLStreamException e1) {
-      LOGGER.info(
-          "Failure occurred in parsing the xml data. No data has been stored or indexed.", e1);
-    } finally {
-      IOUtils.closeQuietly(sr);
-      if (xmlStreamReader != null) {
-        try {
-          xmlStreamReader.close();
-        } catch (XMLStreamException e) {
-          LOGGER.debug("Exception closing XMLStreamReader", e);
-        }
-      }
-    }
-    long endTime = System.currentTimeMillis();
-
-    LOGGER.debug("Parsing took {} ms", endTime - starttime);
-
-    return parsedTexts;
+    return xmlTextExtractor.extract(xmlDatas);
   }
 
   private Set<AttributeDescriptor> convertAttributeDescriptors(
@@ -917,4 +935,30 @@ static Integer getMetadataSizeLimit() {
     }
     return FIVE_MEGABYTES;
   }
+
+  /**
+   * Get the maximum number of characters of text extracted from the XML metadata of a metacard from
+   * custom.system.properties. Defaults to no limit.
+   *
+   * @return the maximum number of characters extracted from a metadata document
+   */
+  private static int getXmlTextCharacterLimit() {
+    String characterLimit =
+        AccessController.doPrivileged(
+            (PrivilegedAction<String>) () -> System.getProperty(SOLR_XML_TEXT_CHARACTER_LIMIT));
+    if (StringUtils.isBlank(characterLimit)) {
+      return Integer.MAX_VALUE;
+    }
+
+    try {
+      int limit = Integer.parseInt(characterLimit.trim());
+      if (limit > 0) {
+        return limit;
+      }
+    } catch (NumberFormatException e) {
+      LOGGER.debug("Could not parse XML text character limit", e);
+    }
+    LOGGER.warn("Invalid XML text character limit {}, defaulting to no limit", characterLimit);
+    return Integer.MAX_VALUE;
+  }
 }
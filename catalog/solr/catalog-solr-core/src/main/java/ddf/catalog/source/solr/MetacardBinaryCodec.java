@@ -0,0 +1,249 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.AttributeImpl;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.apache.commons.collections.CollectionUtils;
+
+/**
+ * Encodes the attributes of a metacard into the single stored Solr field {@link
+ * SchemaFields#METACARD_BINARY_FIELD_NAME}, so that a query result can be turned back into a
+ * metacard in one pass instead of field by field.
+ *
+ * <p>The encoding starts with a version byte, followed by the number of attributes and, for each
+ * attribute, its name and its values. Each value is written as a type tag followed by the value.
+ * Values of types without a tag of their own are written with Java serialization.
+ */
+final class MetacardBinaryCodec {
+
+  static final byte VERSION = 1;
+
+  private static final byte NULL = 0;
+
+  private static final byte STRING = 1;
+
+  private static final byte DATE = 2;
+
+  private static final byte LONG = 3;
+
+  private static final byte INTEGER = 4;
+
+  private static final byte SHORT = 5;
+
+  private static final byte FLOAT = 6;
+
+  private static final byte DOUBLE = 7;
+
+  private static final byte BOOLEAN = 8;
+
+  private static final byte BYTES = 9;
+
+  private static final byte SERIALIZABLE = 10;
+
+  private MetacardBinaryCodec() {}
+
+  /**
+   * Encodes the attributes of the metacard that are described by its metacard type, which are the
+   * same attributes {@link DynamicSchemaResolver#addFields} adds to the Solr document.
+   *
+   * @param metacard the metacard to encode
+   * @return the encoded attributes
+   * @throws IOException if a value cannot be serialized
+   */
+  static byte[] encode(Metacard metacard) throws IOException {
+    List<Attribute> attributes = new ArrayList<>();
+    for (AttributeDescriptor descriptor : metacard.getMetacardType().getAttributeDescriptors()) {
+      Attribute attribute = metacard.getAttribute(descriptor.getName());
+      if (attribute != null
+          && CollectionUtils.isNotEmpty(attribute.getValues())
+          && attribute.getValues().get(0) != null) {
+        attributes.add(attribute);
+      }
+    }
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(VERSION);
+      writeVarInt(out, attributes.size());
+      for (Attribute attribute : attributes) {
+        writeString(out, attribute.getName());
+        List<Serializable> values = attribute.getValues();
+        writeVarInt(out, values.size());
+        for (Serializable value : values) {
+          writeValue(out, value);
+        }
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * @param encoded attributes encoded by {@link #encode(Metacard)}
+   * @return the decoded attributes
+   * @throws IOException if the encoding is corrupt or of an unsupported version
+   */
+  static List<Attribute> decode(byte[] encoded) throws IOException {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+      byte version = in.readByte();
+      if (version != VERSION) {
+        throw new IOException("Unsupported metacard binary version " + version);
+      }
+
+      int attributeCount = readVarInt(in);
+      List<Attribute> attributes = new ArrayList<>(attributeCount);
+      for (int i = 0; i < attributeCount; i++) {
+        String name = readString(in);
+        int valueCount = readVarInt(in);
+        List<Serializable> values = new ArrayList<>(valueCount);
+        for (int j = 0; j < valueCount; j++) {
+          values.add(readValue(in));
+        }
+        attributes.add(new AttributeImpl(name, values));
+      }
+      return attributes;
+    }
+  }
+
+  private static void writeValue(DataOutputStream out, Serializable value) throws IOException {
+    if (value == null) {
+      out.writeByte(NULL);
+    } else if (value instanceof String) {
+      out.writeByte(STRING);
+      writeString(out, (String) value);
+    } else if (value instanceof Date) {
+      out.writeByte(DATE);
+      out.writeLong(((Date) value).getTime());
+    } else if (value instanceof Long) {
+      out.writeByte(LONG);
+      out.writeLong((Long) value);
+    } else if (value instanceof Integer) {
+      out.writeByte(INTEGER);
+      out.writeInt((Integer) value);
+    } else if (value instanceof Short) {
+      out.writeByte(SHORT);
+      out.writeShort((Short) value);
+    } else if (value instanceof Float) {
+      out.writeByte(FLOAT);
+      out.writeFloat((Float) value);
+    } else if (value instanceof Double) {
+      out.writeByte(DOUBLE);
+      out.writeDouble((Double) value);
+    } else if (value instanceof Boolean) {
+      out.writeByte(BOOLEAN);
+      out.writeBoolean((Boolean) value);
+    } else if (value instanceof byte[]) {
+      out.writeByte(BYTES);
+      writeBytes(out, (byte[]) value);
+    } else {
+      ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+      try (ObjectOutputStream objectOut = new ObjectOutputStream(serialized)) {
+        objectOut.writeObject(value);
+      }
+      out.writeByte(SERIALIZABLE);
+      writeBytes(out, serialized.toByteArray());
+    }
+  }
+
+  private static Serializable readValue(DataInputStream in) throws IOException {
+    byte tag = in.readByte();
+    switch (tag) {
+      case NULL:
+        return null;
+      case STRING:
+        return readString(in);
+      case DATE:
+        return new Date(in.readLong());
+      case LONG:
+        return in.readLong();
+      case INTEGER:
+        return in.readInt();
+      case SHORT:
+        return in.readShort();
+      case FLOAT:
+        return in.readFloat();
+      case DOUBLE:
+        return in.readDouble();
+      case BOOLEAN:
+        return in.readBoolean();
+      case BYTES:
+        return readBytes(in);
+      case SERIALIZABLE:
+        try (ObjectInputStream objectIn =
+            new ObjectInputStream(new ByteArrayInputStream(readBytes(in)))) {
+          return (Serializable) objectIn.readObject();
+        } catch (ClassNotFoundException e) {
+          throw new IOException("Could not create object to return.", e);
+        }
+      default:
+        throw new IOException("Unknown metacard binary value type " + tag);
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    return new String(readBytes(in), StandardCharsets.UTF_8);
+  }
+
+  private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+    writeVarInt(out, value.length);
+    out.write(value);
+  }
+
+  private static byte[] readBytes(DataInputStream in) throws IOException {
+    byte[] value = new byte[readVarInt(in)];
+    in.readFully(value);
+    return value;
+  }
+
+  private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  private static int readVarInt(DataInputStream in) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      byte b = in.readByte();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        if (value < 0) {
+          throw new IOException("Invalid length in metacard binary");
+        }
+        return value;
+      }
+    }
+    throw new IOException("Invalid length in metacard binary");
+  }
+}
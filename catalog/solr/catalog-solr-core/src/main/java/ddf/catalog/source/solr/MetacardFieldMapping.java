@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.AttributeType.AttributeFormat;
+import ddf.catalog.data.MetacardType;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The resolved Solr field name to {@link ddf.catalog.data.Attribute} mapping of a {@link
+ * MetacardType}, so that converting a Solr document back into a metacard does not have to parse
+ * the suffix of every field of every document.
+ *
+ * <p>The fields of the attribute descriptors of the metacard type are resolved up front. Any other
+ * field found in a document is resolved the first time it is seen and then kept as well.
+ */
+class MetacardFieldMapping {
+
+  private final Map<String, SolrField> fields = new ConcurrentHashMap<>();
+
+  private final Function<String, SolrField> resolver;
+
+  MetacardFieldMapping(MetacardType metacardType, Function<String, SolrField> resolver) {
+    this.resolver = resolver;
+    for (AttributeDescriptor descriptor : metacardType.getAttributeDescriptors()) {
+      if (descriptor.getType() != null) {
+        AttributeFormat format = descriptor.getType().getAttributeFormat();
+        String suffix = SchemaFields.FORMAT_TO_SUFFIX_MAP.get(format);
+        if (suffix != null) {
+          getField(descriptor.getName() + suffix);
+        }
+      }
+    }
+  }
+
+  /**
+   * @param solrFieldName name of a field of a Solr document
+   * @return how to convert the values of the field into an attribute
+   */
+  SolrField getField(String solrFieldName) {
+    SolrField field = fields.get(solrFieldName);
+    return field != null ? field : fields.computeIfAbsent(solrFieldName, resolver);
+  }
+
+  int size() {
+    return fields.size();
+  }
+
+  /** A Solr field resolved to the attribute it stores. */
+  static class SolrField {
+
+    private final String attributeName;
+
+    private final ValueConverter converter;
+
+    /**
+     * @param attributeName name of the attribute, or {@code null} if the field is not an attribute
+     * @param converter converts the values of the field into attribute values
+     */
+    SolrField(String attributeName, ValueConverter converter) {
+      this.attributeName = attributeName;
+      this.converter = converter;
+    }
+
+    /** @return true if the field is internal to Solr or the catalog and is not an attribute */
+    boolean isPrivate() {
+      return attributeName == null;
+    }
+
+    String getAttributeName() {
+      return attributeName;
+    }
+
+    /**
+     * @param fieldValue the value of the field in a Solr document, either a single value or a
+     *     collection of values
+     * @return the attribute values
+     */
+    List<Serializable> getValues(Object fieldValue) {
+      if (fieldValue instanceof Collection) {
+        Collection<?> docValues = (Collection<?>) fieldValue;
+        List<Serializable> values = new ArrayList<>(docValues.size());
+        for (Object docValue : docValues) {
+          values.add(converter.convert(docValue));
+        }
+        return values;
+      }
+      return Collections.singletonList(converter.convert(fieldValue));
+    }
+  }
+
+  /** Converts a value stored in Solr back into an attribute value. */
+  @FunctionalInterface
+  interface ValueConverter {
+    Serializable convert(Object docValue);
+  }
+}
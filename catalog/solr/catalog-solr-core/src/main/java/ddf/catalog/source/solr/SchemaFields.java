@@ -63,6 +63,8 @@ public class SchemaFields {
 
   public static final String METACARD_TYPE_OBJECT_FIELD_NAME = "metacard_type" + OBJECT_SUFFIX;
 
+  public static final String METACARD_BINARY_FIELD_NAME = "metacard_binary" + BINARY_SUFFIX;
+
   public static final String SORT_SUFFIX = "_sort";
 
   protected static final Map<String, AttributeFormat> SUFFIX_TO_FORMAT_MAP;
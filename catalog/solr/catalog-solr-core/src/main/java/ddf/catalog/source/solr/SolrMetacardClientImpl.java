@@ -16,6 +16,8 @@
 import static ddf.catalog.Constants.ADDITIONAL_SORT_BYS;
 import static ddf.catalog.Constants.EXPERIMENTAL_FACET_PROPERTIES_KEY;
 import static ddf.catalog.Constants.EXPERIMENTAL_FACET_RESULTS_KEY;
+import static ddf.catalog.Constants.QUERY_CURSOR_MARK_KEY;
+import static ddf.catalog.Constants.QUERY_NEXT_CURSOR_MARK_KEY;
 import static ddf.catalog.Constants.SUGGESTION_BUILD_KEY;
 import static ddf.catalog.Constants.SUGGESTION_CONTEXT_KEY;
 import static ddf.catalog.Constants.SUGGESTION_DICT_KEY;
@@ -51,6 +53,7 @@
 import ddf.catalog.source.UnsupportedQueryException;
 import ddf.measure.Distance;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.Serializable;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
@@ -61,10 +64,18 @@
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.apache.commons.collections.CollectionUtils;
@@ -73,6 +84,8 @@
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrRequest.METHOD;
 import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.StreamingResponseCallback;
+import org.apache.solr.client.solrj.impl.StreamingBinaryResponseParser;
 import org.apache.solr.client.solrj.request.AbstractUpdateRequest;
 import org.apache.solr.client.solrj.response.FacetField;
 import org.apache.solr.client.solrj.response.PivotField;
@@ -84,7 +97,9 @@
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.CursorMarkParams;
 import org.apache.solr.common.util.SimpleOrderedMap;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
 import org.codice.solr.client.solrj.SolrClient;
 import org.opengis.filter.sort.SortBy;
 import org.opengis.filter.sort.SortOrder;
@@ -128,6 +143,8 @@ public class SolrMetacardClientImpl implements SolrMetacardClient {
 
   private static final String ERR_UNSUPPORTED_QUERY_MSG = "Could not complete solr query.";
 
+  private static final String UNIQUE_KEY_FIELD = Metacard.ID + SchemaFields.TEXT_SUFFIX;
+
   private final SolrClient client;
 
   private final SolrFilterDelegateFactory filterDelegateFactory;
@@ -154,6 +171,22 @@ public class SolrMetacardClientImpl implements SolrMetacardClient {
   private final int queryTimeAllowedMs =
       Math.max(NumberUtils.toInt(accessProperty(SOLR_QUERY_TIMEALLOWEDMS, "0")), 0);
 
+  private static final String SOLR_INDEX_THREADS = "solr.index.threads";
+
+  private static final int INDEX_THREADS =
+      Math.max(
+          NumberUtils.toInt(
+              accessProperty(
+                  SOLR_INDEX_THREADS, String.valueOf(Runtime.getRuntime().availableProcessors()))),
+          1);
+
+  private static final ExecutorService INDEX_EXECUTOR = createIndexExecutor();
+
+  private static final String SOLR_QUERY_STREAM_PAGE_SIZE = "solr.query.streamPageSize";
+
+  private final int streamPageSize =
+      Math.max(NumberUtils.toInt(accessProperty(SOLR_QUERY_STREAM_PAGE_SIZE, "1000")), 1);
+
   protected ResultHighlighter highlighter;
 
   public SolrMetacardClientImpl(
@@ -201,6 +234,20 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
         LOGGER.debug("Performing real time query");
         SolrQuery realTimeQuery = getRealTimeQuery(query, solrFilterDelegate.getIds());
         solrResponse = client.query(realTimeQuery, METHOD.POST);
+      } else if (queryingForAllRecords(request)) {
+        LOGGER.debug("Streaming all records matching query");
+        highlighter.processPreQuery(request, query);
+        ResultStreamingCallback callback = new ResultStreamingCallback(results::add);
+        solrResponse = streamResults(query, callback, responseProps);
+
+        if (isFacetedQuery) {
+          handleFacetResponse(solrResponse, responseProps);
+        }
+        handleSuggestionResponse(solrResponse, responseProps);
+        handlePartialResults(solrResponse, responseProps);
+        highlighter.processPostQuery(solrResponse, responseProps);
+
+        return new SourceResponseImpl(request, responseProps, results, callback.getNumFound());
       } else {
         if (userSpellcheckIsOn) {
           query.setParam(SPELLCHECK_KEY, true);
@@ -217,6 +264,8 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
 
       handlePartialResults(solrResponse, responseProps);
 
+      handleCursorMark(solrResponse, responseProps);
+
       SolrDocumentList docs = solrResponse.getResults();
       docs =
           handleSpellcheck(request, solrResponse, responseProps, query, docs, userSpellcheckIsOn);
@@ -231,6 +280,55 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
     return new SourceResponseImpl(request, responseProps, results, totalHits);
   }
 
+  /**
+   * Walks every page of the query with a Solr cursor, streaming each document to the callback as
+   * it is parsed instead of collecting the pages into {@link SolrDocumentList}s. Any start index
+   * on the query is applied by skipping documents, since cursors always start at 0.
+   *
+   * @return the response for the first page, which carries the facets and response header
+   */
+  private QueryResponse streamResults(
+      SolrQuery query, ResultStreamingCallback callback, Map<String, Serializable> responseProps)
+      throws SolrServerException, IOException, UnsupportedQueryException {
+    String requestedCursorMark = query.get(CursorMarkParams.CURSOR_MARK_PARAM);
+    String cursorMark =
+        requestedCursorMark != null ? requestedCursorMark : CursorMarkParams.CURSOR_MARK_START;
+
+    callback.skip(Optional.ofNullable(query.getStart()).orElse(0));
+    query.setStart(0);
+    query.setRows(streamPageSize);
+    addUniqueKeySort(query);
+
+    QueryResponse firstResponse = null;
+    String nextCursorMark = cursorMark;
+    do {
+      cursorMark = nextCursorMark;
+      query.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
+
+      QueryResponse solrResponse = streamQuery(query, callback);
+      callback.flush();
+      if (firstResponse == null) {
+        firstResponse = solrResponse;
+      }
+      nextCursorMark = solrResponse.getNextCursorMark();
+    } while (nextCursorMark != null && !nextCursorMark.equals(cursorMark));
+
+    if (requestedCursorMark != null) {
+      responseProps.put(QUERY_NEXT_CURSOR_MARK_KEY, cursorMark);
+    }
+
+    return firstResponse;
+  }
+
+  private QueryResponse streamQuery(SolrQuery query, StreamingResponseCallback callback)
+      throws SolrServerException, IOException {
+    org.apache.solr.client.solrj.request.QueryRequest streamingRequest =
+        new org.apache.solr.client.solrj.request.QueryRequest(query, METHOD.POST);
+    streamingRequest.setStreamingResponseCallback(callback);
+    streamingRequest.setResponseParser(new StreamingBinaryResponseParser(callback));
+    return new QueryResponse(client.request(streamingRequest), null);
+  }
+
   private List<SolrDocument> getSolrDocs(Set<String> ids) throws UnsupportedQueryException {
     List<SolrDocument> solrDocs = new ArrayList<>(ids.size());
     List<List<String>> partitions = Lists.partition(new ArrayList<>(ids), GET_BY_ID_LIMIT);
@@ -352,6 +450,14 @@ private void handlePartialResults(
     }
   }
 
+  private void handleCursorMark(
+      QueryResponse solrResponse, Map<String, Serializable> responseProps) {
+    String nextCursorMark = solrResponse.getNextCursorMark();
+    if (nextCursorMark != null) {
+      responseProps.put(QUERY_NEXT_CURSOR_MARK_KEY, nextCursorMark);
+    }
+  }
+
   private SolrDocumentList handleSpellcheck(
       QueryRequest request,
       QueryResponse solrResponse,
@@ -418,13 +524,14 @@ private Collation getCollationToResend(QueryResponse solrResponse) {
 
   private void addDocsToResults(SolrDocumentList docs, List<Result> results)
       throws UnsupportedQueryException {
+    Map<String, SolrDocument> storedDocs = getStoredDocuments(docs);
     for (SolrDocument doc : docs) {
       if (LOGGER.isDebugEnabled()) {
         LOGGER.debug("SOLR DOC: {}", doc.getFieldValue(Metacard.ID + SchemaFields.TEXT_SUFFIX));
       }
       ResultImpl tmpResult;
       try {
-        tmpResult = createResult(doc);
+        tmpResult = createResult(doc, storedDocs);
       } catch (MetacardCreationException e) {
         throw new UnsupportedQueryException("Could not create result metacard(s).", e);
       }
@@ -654,28 +761,73 @@ protected SolrQuery postAdapt(
       throw new UnsupportedQueryException("Start index must be greater than 0");
     }
 
-    // Solr is 0-based
-    query.setStart(request.getQuery().getStartIndex() - 1);
+    String cursorMark = getCursorMark(request);
+    if (cursorMark != null) {
+      // Cursors track their own position and require a start of 0
+      query.setStart(0);
+    } else {
+      // Solr is 0-based
+      query.setStart(request.getQuery().getStartIndex() - 1);
+    }
 
     if (queryingForAllRecords(request)) {
-      try {
-        query.setRows(queryForNumberOfRows(query));
-      } catch (SolrServerException | IOException | SolrException | ArithmeticException exception) {
-        throw new UnsupportedQueryException("Could not retrieve number of records.", exception);
-      }
+      // All records are streamed a page at a time, see streamResults
+      query.setRows(streamPageSize);
     } else {
       query.setRows(request.getQuery().getPageSize());
     }
 
     setSortProperty(request, query, filterDelegate);
 
+    if (cursorMark != null) {
+      addUniqueKeySort(query);
+      query.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
+    }
+
     if (queryTimeAllowedMs > 0) {
       query.setTimeAllowed(queryTimeAllowedMs);
     }
 
+    if (resolver.isMetacardBinaryEnabled()) {
+      setMetacardBinaryFields(query);
+    }
+
     return query;
   }
 
+  /**
+   * Limits the fields returned by the query to the ones needed to decode the metacard binary,
+   * keeping any pseudo fields such as the relevance score or the distance.
+   */
+  private void setMetacardBinaryFields(SolrQuery query) {
+    Set<String> fields = new LinkedHashSet<>(Arrays.asList(resolver.getMetacardBinaryFields()));
+    if (query.getFields() != null) {
+      for (String field : query.getFields().split(",")) {
+        if (!"*".equals(field)) {
+          fields.add(field);
+        }
+      }
+    }
+    query.setFields(fields.toArray(new String[0]));
+  }
+
+  private String getCursorMark(QueryRequest request) {
+    Serializable cursorMark = request.getPropertyValue(QUERY_CURSOR_MARK_KEY);
+    return cursorMark instanceof String ? (String) cursorMark : null;
+  }
+
+  /**
+   * Cursors require the sort to include the unique key so that every document has a distinct
+   * position. The id is added as the last sort criteria unless the query already sorts on it.
+   */
+  private void addUniqueKeySort(SolrQuery query) {
+    boolean sortsOnUniqueKey =
+        query.getSorts().stream().anyMatch(sort -> UNIQUE_KEY_FIELD.equals(sort.getItem()));
+    if (!sortsOnUniqueKey) {
+      query.addSort(UNIQUE_KEY_FIELD, SolrQuery.ORDER.asc);
+    }
+  }
+
   private boolean queryingForAllRecords(QueryRequest request) {
     if (ZERO_PAGESIZE_COMPATIBILTY.get()) {
       return request.getQuery().getPageSize() < 1;
@@ -684,14 +836,6 @@ private boolean queryingForAllRecords(QueryRequest request) {
     return request.getQuery().getPageSize() < 0;
   }
 
-  private int queryForNumberOfRows(SolrQuery query) throws SolrServerException, IOException {
-    int numRows;
-    query.setRows(0);
-    QueryResponse solrResponse = client.query(query, METHOD.POST);
-    numRows = Math.toIntExact(solrResponse.getResults().getNumFound());
-    return numRows;
-  }
-
   private void addDistanceSort(
       SolrQuery query, String sortField, SolrQuery.ORDER order, SolrFilterDelegate delegate) {
     if (delegate.isSortedByDistance()) {
@@ -766,8 +910,11 @@ protected String setSortProperty(
     return resolver.getSortKey(sortProperty);
   }
 
-  private ResultImpl createResult(SolrDocument doc) throws MetacardCreationException {
-    ResultImpl result = new ResultImpl(createMetacard(doc));
+  private ResultImpl createResult(SolrDocument doc, Map<String, SolrDocument> storedDocs)
+      throws MetacardCreationException {
+    Object id = doc.getFirstValue(UNIQUE_KEY_FIELD);
+    SolrDocument storedDoc = id != null ? storedDocs.get(id.toString()) : null;
+    ResultImpl result = new ResultImpl(createMetacard(storedDoc != null ? storedDoc : doc));
 
     if (doc.get(RELEVANCE_SORT_FIELD) != null) {
       result.setRelevanceScore(((Float) (doc.get(RELEVANCE_SORT_FIELD))).doubleValue());
@@ -789,18 +936,65 @@ private ResultImpl createResult(SolrDocument doc) throws MetacardCreationExcepti
     return result;
   }
 
+  /**
+   * Documents indexed before the metacard binary was enabled do not have it, so when the query
+   * only returned the metacard binary fields, all the stored fields of those documents are
+   * retrieved together, in as few requests as {@link #GET_BY_ID_LIMIT} allows.
+   *
+   * @return the stored documents without the metacard binary, by ID
+   */
+  private Map<String, SolrDocument> getStoredDocuments(Collection<SolrDocument> docs)
+      throws UnsupportedQueryException {
+    Set<String> ids = new LinkedHashSet<>();
+    for (SolrDocument doc : docs) {
+      if (isMissingMetacardBinary(doc)) {
+        ids.add(doc.getFirstValue(UNIQUE_KEY_FIELD).toString());
+      }
+    }
+    if (ids.isEmpty()) {
+      return Collections.emptyMap();
+    }
+
+    LOGGER.debug(
+        "Retrieving all stored fields of {} documents without metacard binary", ids.size());
+    Map<String, SolrDocument> storedDocs = new HashMap<>();
+    for (SolrDocument storedDoc : getSolrDocs(ids)) {
+      Object id = storedDoc.getFirstValue(UNIQUE_KEY_FIELD);
+      if (id != null) {
+        storedDocs.put(id.toString(), storedDoc);
+      }
+    }
+    return storedDocs;
+  }
+
+  private boolean isMissingMetacardBinary(SolrDocument doc) {
+    return resolver.isMetacardBinaryEnabled()
+        && !doc.containsKey(SchemaFields.METACARD_BINARY_FIELD_NAME)
+        && doc.getFirstValue(UNIQUE_KEY_FIELD) != null;
+  }
+
   public MetacardImpl createMetacard(SolrDocument doc) throws MetacardCreationException {
     MetacardType metacardType = resolver.getMetacardType(doc);
     MetacardImpl metacard = new MetacardImpl(metacardType);
 
-    for (String solrFieldName : doc.getFieldNames()) {
-      if (!resolver.isPrivateField(solrFieldName)) {
-        Collection<Object> fieldValues = doc.getFieldValues(solrFieldName);
-        Attribute attr =
-            new AttributeImpl(
-                resolver.resolveFieldName(solrFieldName),
-                resolver.getDocValues(solrFieldName, fieldValues));
-        metacard.setAttribute(attr);
+    Object metacardBinary = doc.getFirstValue(SchemaFields.METACARD_BINARY_FIELD_NAME);
+    if (metacardBinary instanceof byte[]) {
+      try {
+        for (Attribute attribute : MetacardBinaryCodec.decode((byte[]) metacardBinary)) {
+          metacard.setAttribute(attribute);
+        }
+      } catch (IOException e) {
+        throw new MetacardCreationException("Could not decode metacard binary.", e);
+      }
+      return metacard;
+    }
+    MetacardFieldMapping fieldMapping = resolver.getMetacardFieldMapping(metacardType);
+
+    for (Map.Entry<String, Object> field : doc) {
+      MetacardFieldMapping.SolrField solrField = fieldMapping.getField(field.getKey());
+      if (!solrField.isPrivate()) {
+        metacard.setAttribute(
+            new AttributeImpl(solrField.getAttributeName(), solrField.getValues(field.getValue())));
       }
     }
 
@@ -815,9 +1009,8 @@ public List<SolrInputDocument> add(List<Metacard> metacards, boolean forceAutoCo
     }
 
     boolean isNrtCommit = false;
-    List<SolrInputDocument> docs = new ArrayList<>();
+    List<SolrInputDocument> docs = getSolrInputDocuments(metacards);
     for (Metacard metacard : metacards) {
-      docs.add(getSolrInputDocument(metacard));
       if (commitNrtMetacardType.contains(metacard.getMetacardType().getName())) {
         isNrtCommit = true;
       }
@@ -836,6 +1029,50 @@ public List<SolrInputDocument> add(List<Metacard> metacards, boolean forceAutoCo
     return docs;
   }
 
+  /**
+   * Creates the Solr documents of a batch of metacards. Extracting the text of the XML attributes
+   * dominates the cost of creating a document, so the documents of a batch are created in parallel
+   * on a pool shared by all clients.
+   *
+   * @return the documents, in the order of the metacards
+   */
+  private List<SolrInputDocument> getSolrInputDocuments(List<Metacard> metacards)
+      throws IOException, MetacardCreationException {
+    List<SolrInputDocument> docs = new ArrayList<>(metacards.size());
+    if (metacards.size() == 1 || INDEX_THREADS == 1) {
+      for (Metacard metacard : metacards) {
+        docs.add(getSolrInputDocument(metacard));
+      }
+      return docs;
+    }
+
+    List<Future<SolrInputDocument>> futures = new ArrayList<>(metacards.size());
+    try {
+      for (Metacard metacard : metacards) {
+        futures.add(INDEX_EXECUTOR.submit(() -> getSolrInputDocument(metacard)));
+      }
+      for (Future<SolrInputDocument> future : futures) {
+        docs.add(future.get());
+      }
+      return docs;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while creating Solr documents");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof MetacardCreationException) {
+        throw (MetacardCreationException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new MetacardCreationException("Could not create Solr document", cause);
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
+  }
+
   protected SolrInputDocument getSolrInputDocument(Metacard metacard)
       throws MetacardCreationException {
     SolrInputDocument solrInputDocument = new SolrInputDocument();
@@ -899,6 +1136,24 @@ public String getIdentifierQuery(String fieldName, List<? extends Serializable>
     return queryBuilder.toString();
   }
 
+  /**
+   * Idle threads time out, so the pool does not need to be shut down. When every thread is busy
+   * and the queue is full, documents are created on the calling thread.
+   */
+  private static ExecutorService createIndexExecutor() {
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            INDEX_THREADS,
+            INDEX_THREADS,
+            60L,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(INDEX_THREADS * 256),
+            StandardThreadFactoryBuilder.newThreadFactory("solrIndexThread"),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
   private static String accessProperty(String key, String defaultValue) {
     PrivilegedAction<String> action = () -> System.getProperty(key, defaultValue);
     String value = AccessController.doPrivileged(action);
@@ -917,4 +1172,92 @@ private org.apache.solr.client.solrj.response.UpdateResponse softCommit(
             /* softCommit */ true)
         .process(client.getClient());
   }
+
+  /**
+   * Converts streamed {@link SolrDocument}s to {@link Result}s and hands them to a consumer.
+   *
+   * <p>Once a document without the metacard binary is streamed, it and the documents after it are
+   * held until the page has been streamed, so all the stored documents of the page are retrieved
+   * together and the results keep their order.
+   */
+  private class ResultStreamingCallback extends StreamingResponseCallback {
+
+    private final Consumer<Result> consumer;
+
+    private final List<SolrDocument> pending = new ArrayList<>();
+
+    private long remainingToSkip = 0;
+
+    private long numFound = -1;
+
+    private MetacardCreationException failure;
+
+    ResultStreamingCallback(Consumer<Result> consumer) {
+      this.consumer = consumer;
+    }
+
+    void skip(long count) {
+      remainingToSkip = count;
+    }
+
+    long getNumFound() {
+      return Math.max(numFound, 0);
+    }
+
+    void throwIfFailed() throws UnsupportedQueryException {
+      if (failure != null) {
+        throw new UnsupportedQueryException("Could not create result metacard(s).", failure);
+      }
+    }
+
+    @Override
+    public void streamSolrDocument(SolrDocument doc) {
+      if (failure != null) {
+        return;
+      }
+
+      if (remainingToSkip > 0) {
+        remainingToSkip--;
+        return;
+      }
+
+      if (!pending.isEmpty() || isMissingMetacardBinary(doc)) {
+        pending.add(doc);
+        return;
+      }
+
+      try {
+        consumer.accept(createResult(doc, Collections.emptyMap()));
+      } catch (MetacardCreationException e) {
+        failure = e;
+      }
+    }
+
+    /** Hands the documents held for the page to the consumer, once the page has been streamed. */
+    void flush() throws UnsupportedQueryException {
+      throwIfFailed();
+      if (pending.isEmpty()) {
+        return;
+      }
+
+      Map<String, SolrDocument> storedDocs = getStoredDocuments(pending);
+      try {
+        for (SolrDocument doc : pending) {
+          consumer.accept(createResult(doc, storedDocs));
+        }
+      } catch (MetacardCreationException e) {
+        throw new UnsupportedQueryException("Could not create result metacard(s).", e);
+      } finally {
+        pending.clear();
+      }
+    }
+
+    @Override
+    public void streamDocListInfo(long numFound, long start, Float maxScore) {
+      // Every page reports the same total, only the first one is kept
+      if (this.numFound < 0) {
+        this.numFound = numFound;
+      }
+    }
+  }
 }
@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.io.Serializable;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Extracts the text content and attribute values of XML documents into a single space separated
+ * string for the tokenized text fields.
+ *
+ * <p>Text is appended straight from the parser's character buffer into a string builder that is
+ * kept per thread, so extracting a document only allocates the resulting string. The XML parser
+ * recycles its own buffers per thread as well. Instances are safe to use from multiple threads.
+ */
+class XmlTextExtractor {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(XmlTextExtractor.class);
+
+  private static final String METRIC_PREFIX = "ddf.catalog.solr.xmltext";
+
+  private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+
+  /** Larger buffers are not kept, so a single huge document does not pin its buffer forever. */
+  private static final int MAXIMUM_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+  private final XMLInputFactory xmlInputFactory;
+
+  private final int characterLimit;
+
+  private final ThreadLocal<StringBuilder> buffers =
+      ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_BUFFER_SIZE));
+
+  private final Timer extractionTimer;
+
+  private final DistributionSummary extractedCharacters;
+
+  private final Counter truncatedTexts;
+
+  /**
+   * @param xmlInputFactory configured factory used to create the XML parsers
+   * @param characterLimit maximum number of characters extracted from a single document
+   */
+  XmlTextExtractor(XMLInputFactory xmlInputFactory, int characterLimit) {
+    this.xmlInputFactory = xmlInputFactory;
+    this.characterLimit = characterLimit;
+    extractionTimer = Metrics.timer(METRIC_PREFIX + ".latency");
+    extractedCharacters = Metrics.summary(METRIC_PREFIX + ".characters");
+    truncatedTexts = Metrics.counter(METRIC_PREFIX + ".truncated");
+  }
+
+  /**
+   * Extracts the text of each XML document. If a document cannot be parsed, the texts of the
+   * documents before it are returned.
+   *
+   * @param xmlDatas XML documents
+   * @return the text of each document
+   */
+  List<String> extract(List<Serializable> xmlDatas) {
+    List<String> texts = new ArrayList<>(xmlDatas.size());
+    long start = System.nanoTime();
+
+    try {
+      for (Serializable xmlData : xmlDatas) {
+        texts.add(extract(xmlData.toString()));
+      }
+    } catch (XMLStreamException e) {
+      LOGGER.info(
+          "Failure occurred in parsing the xml data. No data has been stored or indexed.", e);
+    }
+
+    long elapsed = System.nanoTime() - start;
+    extractionTimer.record(elapsed, TimeUnit.NANOSECONDS);
+    LOGGER.debug("Parsing took {} ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
+
+    return texts;
+  }
+
+  /**
+   * @param xml an XML document
+   * @return the space separated text content and attribute values of the document, at most
+   *     {@code characterLimit} characters long
+   * @throws XMLStreamException if the document cannot be parsed
+   */
+  String extract(String xml) throws XMLStreamException {
+    StringBuilder buffer = buffers.get();
+    buffer.setLength(0);
+
+    XMLStreamReader xmlStreamReader = xmlInputFactory.createXMLStreamReader(new StringReader(xml));
+    boolean truncated = false;
+    try {
+      while (xmlStreamReader.hasNext()) {
+        if (buffer.length() >= characterLimit) {
+          truncated = true;
+          break;
+        }
+
+        int event = xmlStreamReader.next();
+
+        if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+          append(
+              buffer,
+              xmlStreamReader.getTextCharacters(),
+              xmlStreamReader.getTextStart(),
+              xmlStreamReader.getTextLength());
+        } else if (event == XMLStreamConstants.START_ELEMENT) {
+          for (int i = 0; i < xmlStreamReader.getAttributeCount(); i++) {
+            String value = xmlStreamReader.getAttributeValue(i);
+            append(buffer, value.toCharArray(), 0, value.length());
+          }
+        }
+      }
+    } finally {
+      xmlStreamReader.close();
+    }
+
+    if (buffer.length() > characterLimit) {
+      buffer.setLength(characterLimit);
+      truncated = true;
+    }
+    if (truncated) {
+      truncatedTexts.increment();
+    }
+
+    String text = buffer.toString();
+    extractedCharacters.record(text.length());
+
+    if (buffer.capacity() > MAXIMUM_RETAINED_BUFFER_SIZE) {
+      buffers.remove();
+    }
+
+    return text;
+  }
+
+  /** Appends the trimmed text preceded by a space, unless the text is blank. */
+  private static void append(StringBuilder buffer, char[] text, int start, int length) {
+    int end = start + length;
+    while (start < end && text[start] <= ' ') {
+      start++;
+    }
+    while (end > start && text[end - 1] <= ' ') {
+      end--;
+    }
+
+    if (!isBlank(text, start, end)) {
+      buffer.append(' ').append(text, start, end - start);
+    }
+  }
+
+  private static boolean isBlank(char[] text, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (!Character.isWhitespace(text[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
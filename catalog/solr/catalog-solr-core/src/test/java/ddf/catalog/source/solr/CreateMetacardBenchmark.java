@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.MetacardType;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.impl.MetacardImpl;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.common.SolrDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the per document cost of converting a Solr document into a metacard by resolving every
+ * field name, with looking the fields up in the cached {@link MetacardFieldMapping}.
+ *
+ * <p>Run with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CreateMetacardBenchmark {
+
+  private DynamicSchemaResolver resolver;
+
+  private MetacardType metacardType;
+
+  private SolrDocument doc;
+
+  @Setup
+  public void setUp() throws IOException {
+    resolver = new DynamicSchemaResolver();
+    metacardType = new MetacardImpl().getMetacardType();
+
+    doc = new SolrDocument();
+    doc.addField(SchemaFields.METACARD_TYPE_FIELD_NAME, metacardType.getName());
+    doc.addField("_version_", 1L);
+    doc.addField("score", 1.0f);
+    for (AttributeDescriptor descriptor : metacardType.getAttributeDescriptors()) {
+      String suffix =
+          SchemaFields.FORMAT_TO_SUFFIX_MAP.get(descriptor.getType().getAttributeFormat());
+      doc.addField(descriptor.getName() + suffix, sampleValue(descriptor));
+    }
+    doc.addField("ext.unknown_txt", Arrays.asList("first", "second"));
+  }
+
+  @Benchmark
+  public Metacard resolveEachField() {
+    MetacardImpl metacard = new MetacardImpl(metacardType);
+
+    for (String solrFieldName : doc.getFieldNames()) {
+      if (!resolver.isPrivateField(solrFieldName)) {
+        metacard.setAttribute(
+            new AttributeImpl(
+                resolver.resolveFieldName(solrFieldName),
+                resolver.getDocValues(solrFieldName, doc.getFieldValues(solrFieldName))));
+      }
+    }
+
+    return metacard;
+  }
+
+  @Benchmark
+  public Metacard cachedFieldMapping() {
+    MetacardImpl metacard = new MetacardImpl(metacardType);
+    MetacardFieldMapping fieldMapping = resolver.getMetacardFieldMapping(metacardType);
+
+    for (Map.Entry<String, Object> field : doc) {
+      MetacardFieldMapping.SolrField solrField = fieldMapping.getField(field.getKey());
+      if (!solrField.isPrivate()) {
+        metacard.setAttribute(
+            new AttributeImpl(solrField.getAttributeName(), solrField.getValues(field.getValue())));
+      }
+    }
+
+    return metacard;
+  }
+
+  private static Object sampleValue(AttributeDescriptor descriptor) throws IOException {
+    switch (descriptor.getType().getAttributeFormat()) {
+      case DATE:
+        return new Date();
+      case SHORT:
+      case INTEGER:
+        return 42;
+      case LONG:
+        return 42L;
+      case FLOAT:
+        return 4.2f;
+      case DOUBLE:
+        return 4.2d;
+      case BOOLEAN:
+        return true;
+      case BINARY:
+        return new byte[] {1, 2, 3};
+      case OBJECT:
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+          out.writeObject(descriptor.getName());
+        }
+        return bytes.toByteArray();
+      case GEOMETRY:
+        return "POINT (1 1)";
+      case XML:
+        return "<metadata><title>benchmark</title></metadata>";
+      default:
+        return descriptor.getName() + " value";
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder().include(CreateMetacardBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+}
@@ -40,6 +40,7 @@
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -222,6 +223,69 @@ public void testAdditionalFieldConstructor() {
     assertThat(resolver.fieldsCache, hasItem(anotherExtraField));
   }
 
+  @Test
+  public void testAddFieldsWithMetacardBinary() throws Exception {
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setId("id");
+    metacard.setTitle("title");
+    SolrInputDocument solrInputDocument = new SolrInputDocument();
+
+    System.setProperty("solr.index.metacardBinary", "true");
+    try {
+      DynamicSchemaResolver resolver = new DynamicSchemaResolver();
+      resolver.addFields(metacard, solrInputDocument);
+
+      assertThat(resolver.isMetacardBinaryEnabled(), is(true));
+    } finally {
+      System.clearProperty("solr.index.metacardBinary");
+    }
+
+    List<Attribute> attributes =
+        MetacardBinaryCodec.decode(
+            (byte[]) solrInputDocument.getFieldValue(SchemaFields.METACARD_BINARY_FIELD_NAME));
+    Map<String, Serializable> values =
+        attributes.stream().collect(Collectors.toMap(Attribute::getName, Attribute::getValue));
+    assertThat(values.get(Metacard.ID), is("id"));
+    assertThat(values.get(Metacard.TITLE), is("title"));
+    assertThat(
+        dynamicSchemaResolver.isPrivateField(SchemaFields.METACARD_BINARY_FIELD_NAME), is(true));
+  }
+
+  @Test
+  public void testAddFieldsWithoutMetacardBinary() throws Exception {
+    SolrInputDocument solrInputDocument = new SolrInputDocument();
+
+    dynamicSchemaResolver.addFields(new MetacardImpl(), solrInputDocument);
+
+    assertThat(dynamicSchemaResolver.isMetacardBinaryEnabled(), is(false));
+    assertThat(
+        solrInputDocument.getFieldValue(SchemaFields.METACARD_BINARY_FIELD_NAME), is(nullValue()));
+  }
+
+  @Test
+  public void testMetacardFieldMapping() {
+    DynamicSchemaResolver resolver = new DynamicSchemaResolver();
+    MetacardType metacardType = new MetacardImpl().getMetacardType();
+
+    MetacardFieldMapping mapping = resolver.getMetacardFieldMapping(metacardType);
+
+    assertThat(resolver.getMetacardFieldMapping(metacardType), is(mapping));
+    assertThat(mapping.size(), is(metacardType.getAttributeDescriptors().size()));
+    assertThat(mapping.getField(SchemaFields.METACARD_TYPE_FIELD_NAME).isPrivate(), is(true));
+    assertThat(mapping.getField("_version_").isPrivate(), is(true));
+
+    MetacardFieldMapping.SolrField title = mapping.getField(Metacard.TITLE + "_txt");
+    assertThat(title.isPrivate(), is(false));
+    assertThat(title.getAttributeName(), is(Metacard.TITLE));
+    assertThat(title.getValues("title"), is(Collections.<Serializable>singletonList("title")));
+
+    MetacardFieldMapping.SolrField extra = mapping.getField("extra_shr");
+    assertThat(extra.getAttributeName(), is("extra"));
+    assertThat(
+        extra.getValues(Arrays.asList(1, 2)),
+        is(Arrays.<Serializable>asList((short) 1, (short) 2)));
+  }
+
   private MetacardType deserializeMetacardType(byte[] serializedMetacardType) throws IOException {
     return METACARD_TYPE_MAPPER.readValue(serializedMetacardType, MetacardType.class);
   }
@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.AttributeDescriptorImpl;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.impl.BasicTypes;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.MetacardTypeImpl;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+public class MetacardBinaryCodecTest {
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    Set<AttributeDescriptor> descriptors = new HashSet<>();
+    descriptors.add(descriptor("string", BasicTypes.STRING_TYPE));
+    descriptors.add(descriptor("date", BasicTypes.DATE_TYPE));
+    descriptors.add(descriptor("long", BasicTypes.LONG_TYPE));
+    descriptors.add(descriptor("integer", BasicTypes.INTEGER_TYPE));
+    descriptors.add(descriptor("short", BasicTypes.SHORT_TYPE));
+    descriptors.add(descriptor("float", BasicTypes.FLOAT_TYPE));
+    descriptors.add(descriptor("double", BasicTypes.DOUBLE_TYPE));
+    descriptors.add(descriptor("boolean", BasicTypes.BOOLEAN_TYPE));
+    descriptors.add(descriptor("binary", BasicTypes.BINARY_TYPE));
+    descriptors.add(descriptor("object", BasicTypes.OBJECT_TYPE));
+    descriptors.add(descriptor("multi", BasicTypes.STRING_TYPE));
+    descriptors.add(descriptor("unset", BasicTypes.STRING_TYPE));
+    MetacardImpl metacard = new MetacardImpl(new MetacardTypeImpl("codec", descriptors));
+
+    String longString = StringUtils.repeat("\u00e9t\u00e9 ", 20000);
+    Date date = new Date();
+    metacard.setAttribute("string", longString);
+    metacard.setAttribute("date", date);
+    metacard.setAttribute("long", Long.MAX_VALUE);
+    metacard.setAttribute("integer", -1);
+    metacard.setAttribute("short", (short) 7);
+    metacard.setAttribute("float", 1.5f);
+    metacard.setAttribute("double", Math.PI);
+    metacard.setAttribute("boolean", true);
+    metacard.setAttribute("binary", new byte[] {1, 2, 3});
+    metacard.setAttribute("object", URI.create("http://example.com"));
+    metacard.setAttribute(new AttributeImpl("multi", Arrays.asList("a", null, "c")));
+
+    Map<String, Attribute> attributes = decode(MetacardBinaryCodec.encode(metacard));
+
+    assertThat(attributes.get("string").getValue(), is(longString));
+    assertThat(attributes.get("date").getValue(), is(date));
+    assertThat(attributes.get("long").getValue(), is(Long.MAX_VALUE));
+    assertThat(attributes.get("integer").getValue(), is(-1));
+    assertThat(attributes.get("short").getValue(), is((short) 7));
+    assertThat(attributes.get("float").getValue(), is(1.5f));
+    assertThat(attributes.get("double").getValue(), is(Math.PI));
+    assertThat(attributes.get("boolean").getValue(), is(true));
+    assertThat(attributes.get("binary").getValue(), is(new byte[] {1, 2, 3}));
+    assertThat(attributes.get("object").getValue(), is(URI.create("http://example.com")));
+    assertThat(attributes.get("multi").getValues(), contains("a", null, "c"));
+    assertThat(attributes.get("unset"), is(nullValue()));
+  }
+
+  @Test
+  public void testOnlyEncodesDescribedAttributes() throws Exception {
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setTitle("title");
+    metacard.setAttribute("not.described", "value");
+
+    Map<String, Attribute> attributes = decode(MetacardBinaryCodec.encode(metacard));
+
+    assertThat(attributes.get(Metacard.TITLE).getValue(), is("title"));
+    assertThat(attributes.get("not.described"), is(nullValue()));
+  }
+
+  @Test(expected = IOException.class)
+  public void testUnsupportedVersion() throws Exception {
+    byte[] encoded = MetacardBinaryCodec.encode(new MetacardImpl());
+    encoded[0] = MetacardBinaryCodec.VERSION + 1;
+
+    MetacardBinaryCodec.decode(encoded);
+  }
+
+  @Test(expected = IOException.class)
+  public void testTruncated() throws Exception {
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setTitle("title");
+    byte[] encoded = MetacardBinaryCodec.encode(metacard);
+
+    MetacardBinaryCodec.decode(Arrays.copyOf(encoded, encoded.length - 1));
+  }
+
+  private static Map<String, Attribute> decode(byte[] encoded) throws IOException {
+    List<Attribute> attributes = MetacardBinaryCodec.decode(encoded);
+    return attributes.stream().collect(Collectors.toMap(Attribute::getName, Function.identity()));
+  }
+
+  private static AttributeDescriptor descriptor(
+      String name, ddf.catalog.data.AttributeType<? extends Serializable> type) {
+    return new AttributeDescriptorImpl(name, true, true, false, true, type);
+  }
+}
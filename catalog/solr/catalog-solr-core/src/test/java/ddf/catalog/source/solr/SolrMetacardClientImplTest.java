@@ -13,7 +13,10 @@
  */
 package ddf.catalog.source.solr;
 
+import static ddf.catalog.Constants.QUERY_CURSOR_MARK_KEY;
+import static ddf.catalog.Constants.QUERY_CURSOR_MARK_START;
 import static ddf.catalog.Constants.QUERY_HIGHLIGHT_KEY;
+import static ddf.catalog.Constants.QUERY_NEXT_CURSOR_MARK_KEY;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.is;
@@ -22,6 +25,7 @@
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -33,6 +37,7 @@
 import ddf.catalog.data.Result;
 import ddf.catalog.data.impl.AttributeDescriptorImpl;
 import ddf.catalog.data.impl.BasicTypes;
+import ddf.catalog.data.impl.MetacardImpl;
 import ddf.catalog.data.impl.MetacardTypeImpl;
 import ddf.catalog.filter.FilterAdapter;
 import ddf.catalog.filter.FilterBuilder;
@@ -48,7 +53,6 @@
 import ddf.catalog.operation.impl.QueryRequestImpl;
 import ddf.catalog.source.UnsupportedQueryException;
 import java.io.IOException;
-import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -63,12 +67,14 @@
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrRequest;
 import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.StreamingResponseCallback;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.response.SpellCheckResponse;
 import org.apache.solr.client.solrj.response.SpellCheckResponse.Collation;
 import org.apache.solr.client.solrj.response.UpdateResponse;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CursorMarkParams;
 import org.apache.solr.common.util.NamedList;
 import org.codice.solr.client.solrj.SolrClient;
 import org.junit.Before;
@@ -174,6 +180,89 @@ public void testDeleteLargeSet() throws SolrServerException, IOException {
     clientImpl.deleteByIds(Metacard.TITLE, terms, false);
   }
 
+  @Test
+  public void testQueryWithMetacardBinary() throws Exception {
+    QueryRequest request = createQuery(builder.attribute("anyText").is().like().text("normal"));
+
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setTitle("normal");
+    SolrDocument doc = new SolrDocument();
+    doc.addField(SchemaFields.METACARD_BINARY_FIELD_NAME, MetacardBinaryCodec.encode(metacard));
+    SolrDocumentList docs = new SolrDocumentList();
+    docs.add(doc);
+
+    when(queryResponse.getResults()).thenReturn(docs);
+    when(solrQuery.getFields()).thenReturn("*," + SolrMetacardClientImpl.RELEVANCE_SORT_FIELD);
+    when(dynamicSchemaResolver.getMetacardType(any())).thenReturn(MetacardImpl.BASIC_METACARD);
+    when(dynamicSchemaResolver.isMetacardBinaryEnabled()).thenReturn(true);
+    when(dynamicSchemaResolver.getMetacardBinaryFields()).thenCallRealMethod();
+
+    List<Result> results = clientImpl.query(request).getResults();
+
+    verify(solrQuery)
+        .setFields(
+            Metacard.ID + SchemaFields.TEXT_SUFFIX,
+            SchemaFields.METACARD_TYPE_FIELD_NAME,
+            SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME,
+            SchemaFields.METACARD_BINARY_FIELD_NAME,
+            SolrMetacardClientImpl.RELEVANCE_SORT_FIELD);
+    verify(client, never()).getById(anyList());
+    assertThat(results.size(), is(1));
+    assertThat(results.get(0).getMetacard().getTitle(), is("normal"));
+  }
+
+  @Test
+  public void testQueryWithMetacardBinaryRetrievesDocumentsWithoutIt() throws Exception {
+    QueryRequest request = createQuery(builder.attribute("anyText").is().like().text("normal"));
+    Map<String, String> attributes = Collections.singletonMap("title", "normal");
+
+    SolrDocumentList docs = new SolrDocumentList();
+    docs.add(createSolrDocument(Metacard.ID + SchemaFields.TEXT_SUFFIX, "1234"));
+    when(queryResponse.getResults()).thenReturn(docs);
+    when(client.getById(Collections.singletonList("1234")))
+        .thenReturn(createStoredSolrDocuments("1234"));
+    when(dynamicSchemaResolver.isMetacardBinaryEnabled()).thenReturn(true);
+    when(dynamicSchemaResolver.getMetacardBinaryFields()).thenCallRealMethod();
+    mockDynamicSchemsolverCalls(createAttributeDescriptor(Arrays.asList("title")), attributes);
+
+    List<Result> results = clientImpl.query(request).getResults();
+
+    assertThat(results.size(), is(1));
+    assertThat(results.get(0).getMetacard().getAttribute("title").getValue(), is("stored 1234"));
+  }
+
+  @Test
+  public void testQueryWithMetacardBinaryRetrievesDocumentsWithoutItTogether() throws Exception {
+    QueryRequest request = createQuery(builder.attribute("anyText").is().like().text("normal"));
+
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setTitle("binary");
+    SolrDocument binaryDoc = createSolrDocument(Metacard.ID + SchemaFields.TEXT_SUFFIX, "2");
+    binaryDoc.addField(
+        SchemaFields.METACARD_BINARY_FIELD_NAME, MetacardBinaryCodec.encode(metacard));
+
+    SolrDocumentList docs = new SolrDocumentList();
+    docs.add(createSolrDocument(Metacard.ID + SchemaFields.TEXT_SUFFIX, "1"));
+    docs.add(binaryDoc);
+    docs.add(createSolrDocument(Metacard.ID + SchemaFields.TEXT_SUFFIX, "3"));
+    when(queryResponse.getResults()).thenReturn(docs);
+    when(client.getById(Arrays.asList("1", "3"))).thenReturn(createStoredSolrDocuments("3", "1"));
+    when(dynamicSchemaResolver.isMetacardBinaryEnabled()).thenReturn(true);
+    when(dynamicSchemaResolver.getMetacardBinaryFields()).thenCallRealMethod();
+    mockDynamicSchemsolverCalls(
+        createAttributeDescriptor(Arrays.asList(Metacard.ID, Metacard.TITLE)),
+        Collections.emptyMap());
+
+    List<Result> results = clientImpl.query(request).getResults();
+
+    verify(client).getById(anyList());
+    verify(client, never()).getById(anyString());
+    assertThat(results.size(), is(3));
+    assertThat(results.get(0).getMetacard().getTitle(), is("stored 1"));
+    assertThat(results.get(1).getMetacard().getTitle(), is("binary"));
+    assertThat(results.get(2).getMetacard().getTitle(), is("stored 3"));
+  }
+
   @Test
   public void testQueryOneResults() throws Exception {
     QueryRequest request = createQuery(builder.attribute("anyText").is().like().text("normal"));
@@ -294,6 +383,101 @@ public void testPartialResults() throws Exception {
     assertThat(response.getPropertyValue("partial-results"), is(Boolean.TRUE));
   }
 
+  @Test
+  public void testCursorQuery() throws Exception {
+    QueryRequest request = createQuery(builder.attribute("anyText").is().like().text("normal"));
+    request.getProperties().put(QUERY_CURSOR_MARK_KEY, QUERY_CURSOR_MARK_START);
+    when(solrFilterDelegateFactory.newInstance(
+            dynamicSchemaResolver,
+            Collections.singletonMap(QUERY_CURSOR_MARK_KEY, QUERY_CURSOR_MARK_START)))
+        .thenReturn(mock(SolrFilterDelegate.class));
+
+    List<String> names = Collections.singletonList("title");
+    List<String> values = Collections.singletonList("normal");
+    Map<String, String> attributes = createAttributes(names, values);
+
+    when(queryResponse.getResults()).thenReturn(createSolrDocumentList(attributes));
+    when(queryResponse.getNextCursorMark()).thenReturn("AoEpMTIzNA==");
+    mockDynamicSchemsolverCalls(createAttributeDescriptor(names), attributes);
+
+    SourceResponse response = clientImpl.query(request);
+
+    verify(solrQuery).setStart(0);
+    verify(solrQuery).addSort("id_txt", SolrQuery.ORDER.asc);
+    verify(solrQuery).set(CursorMarkParams.CURSOR_MARK_PARAM, QUERY_CURSOR_MARK_START);
+    assertThat(response.getResults().size(), is(1));
+    assertThat(response.getPropertyValue(QUERY_NEXT_CURSOR_MARK_KEY), is("AoEpMTIzNA=="));
+  }
+
+  @Test
+  public void testQueryAllRecordsStreamsCursorPages() throws Exception {
+    QueryRequest request =
+        new QueryRequestImpl(
+            new QueryImpl(
+                builder.attribute("anyText").is().like().text("normal"),
+                1,
+                -1,
+                new SortByImpl("someAttribute", SortOrder.DESCENDING),
+                false,
+                1000));
+
+    List<String> names = Collections.singletonList("title");
+    List<String> values = Collections.singletonList("normal");
+    Map<String, String> attributes = createAttributes(names, values);
+    mockDynamicSchemsolverCalls(createAttributeDescriptor(names), attributes);
+
+    mockStreamingRequests(createSolrDocumentList(attributes), "AoEpMQ==", "AoEpMg==", "AoEpMg==");
+
+    SourceResponse response = clientImpl.query(request);
+
+    verify(client, never()).query(solrQuery, SolrRequest.METHOD.POST);
+    verify(client, times(3)).request(any(SolrRequest.class));
+    verify(solrQuery).set(CursorMarkParams.CURSOR_MARK_PARAM, QUERY_CURSOR_MARK_START);
+    verify(solrQuery).set(CursorMarkParams.CURSOR_MARK_PARAM, "AoEpMQ==");
+    verify(solrQuery).set(CursorMarkParams.CURSOR_MARK_PARAM, "AoEpMg==");
+    assertThat(response.getResults().size(), is(2));
+    assertThat(response.getHits(), is(2L));
+    assertThat(response.getResults().get(0).getMetacard().getTitle(), is("normal"));
+  }
+
+  @Test
+  public void testQueryAllRecordsRetrievesDocumentsWithoutMetacardBinaryPerPage() throws Exception {
+    QueryRequest request =
+        new QueryRequestImpl(
+            new QueryImpl(
+                builder.attribute("anyText").is().like().text("normal"),
+                1,
+                -1,
+                new SortByImpl("someAttribute", SortOrder.DESCENDING),
+                false,
+                1000));
+
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setTitle("binary");
+    SolrDocument binaryDoc = createSolrDocument(Metacard.ID + SchemaFields.TEXT_SUFFIX, "2");
+    binaryDoc.addField(
+        SchemaFields.METACARD_BINARY_FIELD_NAME, MetacardBinaryCodec.encode(metacard));
+
+    SolrDocumentList page = new SolrDocumentList();
+    page.add(createSolrDocument(Metacard.ID + SchemaFields.TEXT_SUFFIX, "1"));
+    page.add(binaryDoc);
+    when(client.getById(Collections.singletonList("1"))).thenReturn(createStoredSolrDocuments("1"));
+    when(dynamicSchemaResolver.isMetacardBinaryEnabled()).thenReturn(true);
+    when(dynamicSchemaResolver.getMetacardBinaryFields()).thenCallRealMethod();
+    mockDynamicSchemsolverCalls(
+        createAttributeDescriptor(Arrays.asList(Metacard.ID, Metacard.TITLE)),
+        Collections.emptyMap());
+
+    mockStreamingRequests(page, "AoEpMQ==", "AoEpMQ==");
+
+    List<Result> results = clientImpl.query(request).getResults();
+
+    verify(client).getById(anyList());
+    assertThat(results.size(), is(2));
+    assertThat(results.get(0).getMetacard().getTitle(), is("stored 1"));
+    assertThat(results.get(1).getMetacard().getTitle(), is("binary"));
+  }
+
   @Test
   public void testHighlightOn() throws Exception {
     System.setProperty(ResultHighlighter.HIGHLIGHT_ENABLE_PROPERTY, "true");
@@ -377,10 +561,37 @@ private void mockDynamicSchemsolverCalls(
     when(dynamicSchemaResolver.getMetacardType(any())).thenReturn(metacardType);
     when(dynamicSchemaResolver.resolveFieldName(any())).thenCallRealMethod();
 
-    for (String name : attributes.keySet()) {
-      List<Serializable> value = Collections.singletonList(attributes.get(name));
-      when(dynamicSchemaResolver.getDocValues(name, (Collection) value)).thenReturn(value);
-    }
+    DynamicSchemaResolver fieldMappingResolver = new DynamicSchemaResolver();
+    when(dynamicSchemaResolver.getMetacardFieldMapping(any()))
+        .thenAnswer(
+            invocation -> fieldMappingResolver.getMetacardFieldMapping(invocation.getArgument(0)));
+  }
+
+  /**
+   * Makes the client stream {@code page} once for every cursor mark but the last, replying with the
+   * given cursor marks in order.
+   */
+  private void mockStreamingRequests(SolrDocumentList page, String... nextCursorMarks)
+      throws Exception {
+    int[] pages = {0};
+    long numFound = (long) page.size() * (nextCursorMarks.length - 1);
+
+    when(client.request(any(SolrRequest.class)))
+        .thenAnswer(
+            invocation -> {
+              StreamingResponseCallback callback =
+                  ((org.apache.solr.client.solrj.request.QueryRequest) invocation.getArgument(0))
+                      .getStreamingResponseCallback();
+              int current = pages[0]++;
+              callback.streamDocListInfo(numFound, 0, null);
+              if (current < nextCursorMarks.length - 1) {
+                page.forEach(callback::streamSolrDocument);
+              }
+
+              NamedList<Object> response = new NamedList<>();
+              response.add(CursorMarkParams.CURSOR_MARK_NEXT, nextCursorMarks[current]);
+              return response;
+            });
   }
 
   private QueryRequest createQuery(Filter query) {
@@ -421,6 +632,16 @@ private SolrDocument createSolrDocument(String name, String value) {
     return solrDocument;
   }
 
+  private SolrDocumentList createStoredSolrDocuments(String... ids) {
+    SolrDocumentList solrDocumentList = new SolrDocumentList();
+    for (String id : ids) {
+      SolrDocument solrDocument = createSolrDocument(Metacard.ID + SchemaFields.TEXT_SUFFIX, id);
+      solrDocument.addField("title" + SchemaFields.TEXT_SUFFIX, "stored " + id);
+      solrDocumentList.add(solrDocument);
+    }
+    return solrDocumentList;
+  }
+
   private SolrDocumentList createSolrDocuments(Map<String, Map<String, String>> docs) {
     SolrDocumentList solrDocumentList = new SolrDocumentList();
     List<String> names = new ArrayList<>(docs.keySet());
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.xml.stream.XMLInputFactory;
+import org.apache.commons.lang.StringUtils;
+import org.codehaus.stax2.XMLInputFactory2;
+import org.junit.Test;
+
+public class XmlTextExtractorTest {
+
+  private static final String XML =
+      "<metadata lang=\"en\">\n  <title>  A title </title>\n"
+          + "  <description><![CDATA[ described ]]></description>\n  <empty> </empty>\n"
+          + "</metadata>";
+
+  @Test
+  public void testExtractsTextAndAttributes() throws Exception {
+    assertThat(extractor(Integer.MAX_VALUE).extract(XML), is(" en A title described"));
+  }
+
+  @Test
+  public void testCharacterLimit() throws Exception {
+    XmlTextExtractor extractor = extractor(8);
+
+    assertThat(extractor.extract(XML), is(" en A ti"));
+    assertThat(extractor.extract("<a>b</a>"), is(" b"));
+  }
+
+  @Test
+  public void testStopsAtInvalidDocument() {
+    List<Serializable> xmlDatas = Arrays.asList("<a>first</a>", "<a>second</b>", "<a>third</a>");
+
+    assertThat(extractor(Integer.MAX_VALUE).extract(xmlDatas), contains(" first"));
+  }
+
+  @Test
+  public void testReleasesLargeBuffers() throws Exception {
+    XmlTextExtractor extractor = extractor(Integer.MAX_VALUE);
+    String xml = "<a>" + StringUtils.repeat("<b>text</b>", 256 * 1024) + "</a>";
+
+    assertThat(extractor.extract(xml), is(StringUtils.repeat(" text", 256 * 1024)));
+    assertThat(extractor.extract("<a>small</a>"), is(" small"));
+  }
+
+  @Test
+  public void testConcurrentExtraction() throws Exception {
+    XmlTextExtractor extractor = extractor(Integer.MAX_VALUE);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Callable<String>> tasks =
+          IntStream.range(0, 64)
+              .mapToObj(i -> (Callable<String>) () -> extractor.extract("<a>" + i + "</a>"))
+              .collect(Collectors.toList());
+      List<Future<String>> results = executor.invokeAll(tasks);
+      for (int i = 0; i < results.size(); i++) {
+        assertThat(results.get(i).get(), is(" " + i));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static XmlTextExtractor extractor(int characterLimit) {
+    XMLInputFactory xmlInputFactory = XMLInputFactory2.newInstance();
+    xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    return new XmlTextExtractor(xmlInputFactory, characterLimit);
+  }
+}
@@ -99,6 +99,8 @@ public class GazetteerQueryCatalog implements GeoEntryQueryable {
 
   private List<Filter> featureCodeFilters;
 
+  private GazetteerSpatialIndex gazetteerSpatialIndex;
+
   public GazetteerQueryCatalog(CatalogFramework catalogFramework, FilterBuilder filterBuilder) {
     this.catalogFramework = catalogFramework;
     this.filterBuilder = filterBuilder;
@@ -118,6 +120,14 @@ public GazetteerQueryCatalog(CatalogFramework catalogFramework, FilterBuilder fi
         filterBuilder.attribute(Core.METACARD_TAGS).is().like().text(GAZETTEER_METACARD_TAG);
   }
 
+  /**
+   * Sets the in-memory index used for {@link #getNearestCities(String, int, int)} and {@link
+   * #getCountryCode(String, int)}. The catalog is queried instead while the index is not loaded.
+   */
+  public void setGazetteerSpatialIndex(GazetteerSpatialIndex gazetteerSpatialIndex) {
+    this.gazetteerSpatialIndex = gazetteerSpatialIndex;
+  }
+
   @Override
   public List<GeoEntry> query(String queryString, int maxResults) throws GeoEntryQueryException {
     Filter textFilter = filterBuilder.attribute(Core.TITLE).is().like().text(queryString);
@@ -266,6 +276,19 @@ private String getStringAttributeFromMetacard(Metacard metacard, String attribut
   @Override
   public List<NearbyLocation> getNearestCities(String location, int radiusInKm, int maxResults)
       throws ParseException, GeoEntryQueryException {
+    if (isSpatialIndexLoaded()) {
+      try {
+        Geometry geometry = WKT_READER_THREAD_LOCAL.get().read(location);
+        Point center = geometry.getCentroid();
+        return gazetteerSpatialIndex.getNearestCities(geometry, radiusInKm, maxResults).stream()
+            .filter(place -> StringUtils.isNotEmpty(place.getName()))
+            .map(place -> createNearbyLocation(center, place.getCoordinate(), place.getName()))
+            .collect(Collectors.toList());
+      } catch (org.locationtech.jts.io.ParseException e) {
+        LOGGER.debug("Unable to parse location {}. Querying the catalog.", location, e);
+      }
+    }
+
     Filter featureCodeFilter = filterBuilder.anyOf(featureCodeFilters);
     int radiusInMeters = radiusInKm * KM_TO_M;
 
@@ -298,27 +321,28 @@ private NearbyLocation transformMetacardToNearbyLocation(String location, Metaca
       return null;
     }
 
-    Double lat;
-    Double lon;
-    PointImpl centerPoint;
-
     try {
       Geometry geometry = WKT_READER_THREAD_LOCAL.get().read(metacardLocation);
-      Coordinate coordinate = geometry.getCoordinate();
-      lat = coordinate.x;
-      lon = coordinate.y;
-
       Point center = WKT_READER_THREAD_LOCAL.get().read(location).getCentroid();
-      centerPoint = new PointImpl(center.getY(), center.getX(), SPATIAL_CONTEXT);
-
+      return createNearbyLocation(center, geometry.getCoordinate(), name);
     } catch (org.locationtech.jts.io.ParseException e) {
       LOGGER.debug("GeoEntry metacard does not contain location attribute.");
       return null;
     }
+  }
+
+  private NearbyLocation createNearbyLocation(Point center, Coordinate coordinate, String name) {
+    Double lat = coordinate.x;
+    Double lon = coordinate.y;
+    PointImpl centerPoint = new PointImpl(center.getY(), center.getX(), SPATIAL_CONTEXT);
 
     return new NearbyLocationImpl(centerPoint, new PointImpl(lon, lat, SPATIAL_CONTEXT), name);
   }
 
+  private boolean isSpatialIndexLoaded() {
+    return gazetteerSpatialIndex != null && gazetteerSpatialIndex.isLoaded();
+  }
+
   @Override
   public Optional<String> getCountryCode(String wktLocation, int radius)
       throws GeoEntryQueryException, ParseException {
@@ -326,6 +350,9 @@ public Optional<String> getCountryCode(String wktLocation, int radius)
 
     try {
       Point center = WKT_READER_THREAD_LOCAL.get().read(wktLocation).getCentroid();
+      if (isSpatialIndexLoaded()) {
+        return gazetteerSpatialIndex.getCountryCode(center, radius);
+      }
       Geometry geometry = GEOMETRY_FACTORY.createPoint(center.getCoordinate());
       wkt = WKT_WRITER_THREAD_LOCAL.get().write(geometry);
     } catch (org.locationtech.jts.io.ParseException e) {
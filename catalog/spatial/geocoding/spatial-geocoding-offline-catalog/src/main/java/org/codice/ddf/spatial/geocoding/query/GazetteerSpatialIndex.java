@@ -0,0 +1,474 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.spatial.geocoding.query;
+
+import static ddf.catalog.Constants.QUERY_CURSOR_MARK_KEY;
+import static ddf.catalog.Constants.QUERY_CURSOR_MARK_START;
+import static org.codice.ddf.spatial.geocoding.GeoCodingConstants.GAZETTEER_METACARD_TAG;
+
+import ddf.catalog.CatalogFramework;
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.types.Core;
+import ddf.catalog.data.types.Location;
+import ddf.catalog.filter.FilterBuilder;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.util.impl.CatalogQueryException;
+import ddf.catalog.util.impl.ResultIterable;
+import ddf.security.service.SecurityServiceException;
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+import org.codice.ddf.security.Security;
+import org.codice.ddf.spatial.geocoding.GeoCodingConstants;
+import org.codice.ddf.spatial.geocoding.GeoEntryAttributes;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygonal;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+import org.locationtech.jts.operation.distance.DistanceOp;
+import org.locationtech.spatial4j.context.SpatialContext;
+import org.locationtech.spatial4j.distance.DistanceUtils;
+import org.opengis.filter.Filter;
+import org.opengis.filter.sort.SortBy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the cities and country shapes of the gazetteer in memory so the country code of a location
+ * and the cities near it can be found without querying the catalog.
+ *
+ * <p>Running the index pages through the gazetteer cities and country shapes in the catalog with a
+ * cursor and loads them into two STR-trees: one of the country polygons and one of the cities. The
+ * loaded index replaces the previous one as a whole, so lookups are never blocked by a load and
+ * never see half of one.
+ *
+ * <p>A gazetteer with more than {@link #setMaxEntries(int) maxEntries} cities and country shapes
+ * is not held in memory, and setting it to 0 turns the index off. Until a load has finished, or
+ * when the gazetteer is too large, {@link #isLoaded()} is false and the gazetteer should be
+ * queried through the catalog.
+ */
+public class GazetteerSpatialIndex implements Runnable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(GazetteerSpatialIndex.class);
+
+  private static final SpatialContext SPATIAL_CONTEXT = SpatialContext.GEO;
+
+  private static final int PAGE_SIZE = 1000;
+
+  private static final long TIMEOUT = TimeUnit.SECONDS.toMillis(90);
+
+  private static final int DEFAULT_MAX_ENTRIES = 250_000;
+
+  private static final ThreadLocal<WKTReader> WKT_READER_THREAD_LOCAL =
+      ThreadLocal.withInitial(WKTReader::new);
+
+  private final CatalogFramework catalogFramework;
+
+  private final Security security;
+
+  private final Filter loadFilter;
+
+  private volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+
+  private volatile Snapshot snapshot;
+
+  public GazetteerSpatialIndex(
+      CatalogFramework catalogFramework, FilterBuilder filterBuilder, Security security) {
+    this.catalogFramework = catalogFramework;
+    this.security = security;
+
+    final List<Filter> entryFilters = new ArrayList<>();
+    entryFilters.add(
+        filterBuilder
+            .attribute(Core.METACARD_TAGS)
+            .is()
+            .like()
+            .text(GeoCodingConstants.COUNTRY_TAG));
+    for (String cityFeatureCode : GeoCodingConstants.CITY_FEATURE_CODES) {
+      entryFilters.add(
+          filterBuilder
+              .attribute(GeoEntryAttributes.FEATURE_CODE_ATTRIBUTE_NAME)
+              .is()
+              .equalTo()
+              .text(cityFeatureCode));
+    }
+    this.loadFilter =
+        filterBuilder.allOf(
+            filterBuilder.attribute(Core.METACARD_TAGS).is().like().text(GAZETTEER_METACARD_TAG),
+            filterBuilder.anyOf(entryFilters));
+  }
+
+  /**
+   * Sets the largest number of cities and country shapes to hold in memory. A gazetteer with more
+   * entries is queried through the catalog instead, and 0 turns the index off. A new limit applies
+   * from the next load, except that turning the index off drops the loaded entries right away.
+   *
+   * @param maxEntries the largest number of entries to load, or 0 to turn the index off
+   */
+  public void setMaxEntries(int maxEntries) {
+    this.maxEntries = Math.max(0, maxEntries);
+    if (this.maxEntries == 0) {
+      snapshot = null;
+    }
+  }
+
+  /** Loads the gazetteer from the catalog and replaces the index with it. */
+  @Override
+  public void run() {
+    reload();
+  }
+
+  /**
+   * Loads the gazetteer from the catalog and replaces the index with it.
+   *
+   * @return false if the gazetteer could not be queried, in which case the load should be tried
+   *     again later
+   */
+  public boolean reload() {
+    LOGGER.trace("Loading the gazetteer spatial index.");
+    return security.runAsAdmin(
+        () -> {
+          try {
+            return security.runWithSubjectOrElevate(this::load);
+          } catch (SecurityServiceException | InvocationTargetException e) {
+            LOGGER.debug("Unable to load the gazetteer spatial index.", e);
+            return false;
+          }
+        });
+  }
+
+  /** Returns whether the index has been loaded and can answer lookups. */
+  public boolean isLoaded() {
+    return snapshot != null;
+  }
+
+  /**
+   * Returns the country code of the gazetteer entry closest to {@code center} within {@code
+   * radiusInKm}: the country whose shape contains it, or else the nearest country shape or city.
+   *
+   * @param center the point to look up
+   * @param radiusInKm the distance from {@code center} to search, in kilometers
+   * @return the country code, or empty if there is no gazetteer entry within {@code radiusInKm} or
+   *     the index has not been loaded
+   */
+  public Optional<String> getCountryCode(Point center, int radiusInKm) {
+    final Snapshot current = snapshot;
+    if (current == null) {
+      return Optional.empty();
+    }
+
+    final Envelope searchEnvelope = searchEnvelope(center.getEnvelopeInternal(), radiusInKm);
+
+    String countryCode = null;
+    double closestInKm = Double.MAX_VALUE;
+
+    for (Country country : current.query(current.countries, searchEnvelope, Country.class)) {
+      if (country.shape.contains(center)) {
+        return Optional.of(country.countryCode);
+      }
+
+      final double distanceInKm = distanceInKm(country.shape.getGeometry(), center);
+      if (distanceInKm <= radiusInKm && distanceInKm < closestInKm) {
+        closestInKm = distanceInKm;
+        countryCode = country.countryCode;
+      }
+    }
+
+    for (Place place : current.query(current.places, searchEnvelope, Place.class)) {
+      final double distanceInKm = distanceInKm(center.getCoordinate(), place.coordinate);
+      if (place.countryCode != null && distanceInKm <= radiusInKm && distanceInKm < closestInKm) {
+        closestInKm = distanceInKm;
+        countryCode = place.countryCode;
+      }
+    }
+
+    return Optional.ofNullable(countryCode);
+  }
+
+  /**
+   * Returns the cities within {@code radiusInKm} of {@code location}, nearest first.
+   *
+   * @param location the location to search around
+   * @param radiusInKm the distance from {@code location} to search, in kilometers
+   * @param maxResults the maximum number of cities to return
+   * @return the cities, or an empty list if the index has not been loaded
+   */
+  List<Place> getNearestCities(Geometry location, int radiusInKm, int maxResults) {
+    final Snapshot current = snapshot;
+    if (current == null) {
+      return new ArrayList<>();
+    }
+
+    final Envelope searchEnvelope = searchEnvelope(location.getEnvelopeInternal(), radiusInKm);
+    final PreparedGeometry preparedLocation =
+        location instanceof Point ? null : PreparedGeometryFactory.prepare(location);
+
+    final List<PlaceDistance> cities = new ArrayList<>();
+    for (Place place : current.query(current.places, searchEnvelope, Place.class)) {
+      final double distanceInKm =
+          preparedLocation == null
+              ? distanceInKm(location.getCoordinate(), place.coordinate)
+              : distanceInKm(preparedLocation, place);
+      if (distanceInKm <= radiusInKm) {
+        cities.add(new PlaceDistance(place, distanceInKm));
+      }
+    }
+
+    return cities.stream()
+        .sorted(Comparator.comparingDouble(city -> city.distanceInKm))
+        .limit(maxResults)
+        .map(city -> city.place)
+        .collect(Collectors.toList());
+  }
+
+  private boolean load() {
+    final int limit = maxEntries;
+    if (limit == 0) {
+      LOGGER.debug("The gazetteer spatial index is turned off.");
+      snapshot = null;
+      return true;
+    }
+
+    final long start = System.currentTimeMillis();
+    final STRtree countries = new STRtree();
+    final STRtree places = new STRtree();
+    int entries = 0;
+
+    final QueryRequest queryRequest =
+        new QueryRequestImpl(
+            new QueryImpl(loadFilter, 1, PAGE_SIZE, SortBy.NATURAL_ORDER, false, TIMEOUT));
+    queryRequest.getProperties().put(QUERY_CURSOR_MARK_KEY, QUERY_CURSOR_MARK_START);
+
+    try {
+      for (Result result : ResultIterable.resultIterable(catalogFramework, queryRequest)) {
+        if (add(result.getMetacard(), countries, places) && ++entries > limit) {
+          LOGGER.info(
+              "The gazetteer has more than {} cities and country shapes, so it will be queried through the catalog instead of being held in memory.",
+              limit);
+          snapshot = null;
+          return true;
+        }
+      }
+    } catch (CatalogQueryException e) {
+      LOGGER.debug("Unable to load the gazetteer spatial index.", e);
+      return false;
+    }
+
+    // Building the trees up front makes them read-only, so they can be queried concurrently.
+    countries.build();
+    places.build();
+    snapshot = new Snapshot(countries, places);
+
+    LOGGER.debug(
+        "Loaded {} gazetteer entries into the spatial index in {} ms.",
+        entries,
+        System.currentTimeMillis() - start);
+    return true;
+  }
+
+  private static boolean add(Metacard metacard, STRtree countries, STRtree places) {
+    final String wkt = getString(metacard, Core.LOCATION);
+    if (StringUtils.isBlank(wkt)) {
+      return false;
+    }
+
+    final Geometry geometry;
+    try {
+      geometry = WKT_READER_THREAD_LOCAL.get().read(wkt);
+    } catch (ParseException e) {
+      LOGGER.debug("Skipping gazetteer metacard {} with invalid location.", metacard.getId(), e);
+      return false;
+    }
+
+    final String countryCode = StringUtils.trimToNull(getString(metacard, Location.COUNTRY_CODE));
+
+    if (geometry instanceof Polygonal) {
+      if (countryCode == null) {
+        return false;
+      }
+      countries.insert(
+          geometry.getEnvelopeInternal(),
+          new Country(PreparedGeometryFactory.prepare(geometry), countryCode));
+    } else if (geometry instanceof Point
+        && !geometry.isEmpty()
+        && GeoCodingConstants.CITY_FEATURE_CODES.contains(
+            getString(metacard, GeoEntryAttributes.FEATURE_CODE_ATTRIBUTE_NAME))) {
+      places.insert(
+          geometry.getEnvelopeInternal(),
+          new Place(getString(metacard, Core.TITLE), countryCode, geometry.getCoordinate()));
+    } else {
+      return false;
+    }
+
+    return true;
+  }
+
+  private static String getString(Metacard metacard, String attributeName) {
+    final Attribute attribute = metacard.getAttribute(attributeName);
+    if (attribute != null) {
+      final Serializable value = attribute.getValue();
+      if (value instanceof String) {
+        return (String) value;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns {@code envelope} expanded by {@code radiusInKm} in every direction, in degrees. The
+   * expansion in longitude grows towards the poles so the envelope always covers the radius.
+   */
+  private static Envelope searchEnvelope(Envelope envelope, int radiusInKm) {
+    final double latitudeDelta = radiusInKm * DistanceUtils.KM_TO_DEG;
+    final double maxAbsLatitude =
+        Math.max(Math.abs(envelope.getMinY()), Math.abs(envelope.getMaxY())) + latitudeDelta;
+    final double longitudeDelta =
+        maxAbsLatitude >= 90 ? 360 : Math.min(360, latitudeDelta / cosine(maxAbsLatitude));
+
+    final Envelope searchEnvelope = new Envelope(envelope);
+    searchEnvelope.expandBy(longitudeDelta, latitudeDelta);
+    return searchEnvelope;
+  }
+
+  private static double cosine(double degrees) {
+    return Math.cos(Math.toRadians(degrees));
+  }
+
+  private static double distanceInKm(PreparedGeometry location, Place place) {
+    final Point point = location.getGeometry().getFactory().createPoint(place.coordinate);
+    if (location.contains(point)) {
+      return 0;
+    }
+    return distanceInKm(location.getGeometry(), point);
+  }
+
+  private static double distanceInKm(Geometry geometry, Point point) {
+    final Coordinate[] nearestPoints = DistanceOp.nearestPoints(geometry, point);
+    return distanceInKm(nearestPoints[0], nearestPoints[1]);
+  }
+
+  private static double distanceInKm(Coordinate from, Coordinate to) {
+    return SPATIAL_CONTEXT.calcDistance(
+            SPATIAL_CONTEXT.getShapeFactory().pointXY(from.x, from.y),
+            SPATIAL_CONTEXT.getShapeFactory().pointXY(to.x, to.y))
+        * DistanceUtils.DEG_TO_KM;
+  }
+
+  /** A city in the gazetteer. */
+  static final class Place {
+    private final String name;
+
+    private final String countryCode;
+
+    private final Coordinate coordinate;
+
+    Place(String name, String countryCode, Coordinate coordinate) {
+      this.name = name;
+      this.countryCode = countryCode;
+      this.coordinate = coordinate;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    Coordinate getCoordinate() {
+      return coordinate;
+    }
+  }
+
+  private static final class Country {
+    private final PreparedGeometry shape;
+
+    private final String countryCode;
+
+    private Country(PreparedGeometry shape, String countryCode) {
+      this.shape = shape;
+      this.countryCode = countryCode;
+    }
+  }
+
+  private static final class PlaceDistance {
+    private final Place place;
+
+    private final double distanceInKm;
+
+    private PlaceDistance(Place place, double distanceInKm) {
+      this.place = place;
+      this.distanceInKm = distanceInKm;
+    }
+  }
+
+  private static final class Snapshot {
+    private final STRtree countries;
+
+    private final STRtree places;
+
+    private Snapshot(STRtree countries, STRtree places) {
+      this.countries = countries;
+      this.places = places;
+    }
+
+    /**
+     * Returns the items of {@code tree} whose envelopes intersect {@code envelope}, also looking
+     * across the antimeridian when {@code envelope} extends past it.
+     */
+    private <T> List<T> query(STRtree tree, Envelope envelope, Class<T> type) {
+      final List<T> items = new ArrayList<>();
+      for (Object item : tree.query(envelope)) {
+        items.add(type.cast(item));
+      }
+
+      final List<Envelope> wrappedEnvelopes = new ArrayList<>();
+      if (envelope.getMinX() < -180) {
+        wrappedEnvelopes.add(shift(envelope, 360));
+      }
+      if (envelope.getMaxX() > 180) {
+        wrappedEnvelopes.add(shift(envelope, -360));
+      }
+
+      for (Envelope wrappedEnvelope : wrappedEnvelopes) {
+        for (Object item : tree.query(wrappedEnvelope)) {
+          if (!items.contains(item)) {
+            items.add(type.cast(item));
+          }
+        }
+      }
+      return items;
+    }
+
+    private static Envelope shift(Envelope envelope, double longitude) {
+      return new Envelope(
+          envelope.getMinX() + longitude,
+          envelope.getMaxX() + longitude,
+          envelope.getMinY(),
+          envelope.getMaxY());
+    }
+  }
+}
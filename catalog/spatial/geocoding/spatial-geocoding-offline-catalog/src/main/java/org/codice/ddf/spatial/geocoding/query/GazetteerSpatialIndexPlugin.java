@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.spatial.geocoding.query;
+
+import static org.codice.ddf.spatial.geocoding.GeoCodingConstants.GAZETTEER_METACARD_TAG;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.operation.CreateResponse;
+import ddf.catalog.operation.DeleteResponse;
+import ddf.catalog.operation.Update;
+import ddf.catalog.operation.UpdateResponse;
+import ddf.catalog.plugin.PluginExecutionException;
+import ddf.catalog.plugin.PostIngestPlugin;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reloads the {@link GazetteerSpatialIndex} once the gazetteer has stopped changing for a minute,
+ * so a bulk ingest of gazetteer entries reloads it once rather than once per batch.
+ *
+ * <p>A load that fails, for instance because the catalog is not ready yet, is tried again after
+ * twice the previous delay, up to {@link #MAX_RETRY_DELAY_MINUTES}, until one succeeds.
+ */
+public class GazetteerSpatialIndexPlugin implements PostIngestPlugin {
+  private static final Logger LOGGER = LoggerFactory.getLogger(GazetteerSpatialIndexPlugin.class);
+
+  static final long LOAD_DELAY_MINUTES = 1;
+
+  static final long MAX_RETRY_DELAY_MINUTES = 32;
+
+  private final ScheduledThreadPoolExecutor executor;
+
+  private final GazetteerSpatialIndex gazetteerSpatialIndex;
+
+  private ScheduledFuture<?> future;
+
+  private long scheduledLoads;
+
+  public GazetteerSpatialIndexPlugin(
+      final ScheduledThreadPoolExecutor executor,
+      final GazetteerSpatialIndex gazetteerSpatialIndex) {
+    this.executor = executor;
+    this.gazetteerSpatialIndex = gazetteerSpatialIndex;
+  }
+
+  /** Schedules the first load of the index, once the catalog has had time to start. */
+  public void init() {
+    try {
+      scheduleSpatialIndexLoad();
+    } catch (PluginExecutionException e) {
+      LOGGER.debug("Unable to schedule the first load of the gazetteer spatial index.", e);
+    }
+  }
+
+  @Override
+  public CreateResponse process(final CreateResponse input) throws PluginExecutionException {
+    final List<Metacard> metacards = input.getCreatedMetacards();
+    if (containsGazetteerMetacards(metacards)) {
+      LOGGER.trace("Create response contains gazetteer metacards. Loading spatial index.");
+      scheduleSpatialIndexLoad();
+    }
+    return input;
+  }
+
+  @Override
+  public UpdateResponse process(final UpdateResponse input) throws PluginExecutionException {
+    if (containsGazetteerMetacards(input)) {
+      LOGGER.trace("Update response contains gazetteer metacards. Loading spatial index.");
+      scheduleSpatialIndexLoad();
+    }
+    return input;
+  }
+
+  @Override
+  public DeleteResponse process(final DeleteResponse input) throws PluginExecutionException {
+    final List<Metacard> metacards = input.getDeletedMetacards();
+    if (containsGazetteerMetacards(metacards)) {
+      LOGGER.trace("Delete response contains gazetteer metacards. Loading spatial index.");
+      scheduleSpatialIndexLoad();
+    }
+    return input;
+  }
+
+  private boolean containsGazetteerMetacards(final List<Metacard> metacards) {
+    return metacards.stream().anyMatch(m -> m.getTags().contains(GAZETTEER_METACARD_TAG));
+  }
+
+  private boolean containsGazetteerMetacards(final UpdateResponse updateResponse) {
+    return updateResponse.getUpdatedMetacards().stream().anyMatch(this::containsGazetteerMetacard);
+  }
+
+  private boolean containsGazetteerMetacard(final Update update) {
+    return update.getOldMetacard().getTags().contains(GAZETTEER_METACARD_TAG)
+        || update.getNewMetacard().getTags().contains(GAZETTEER_METACARD_TAG);
+  }
+
+  private synchronized void scheduleSpatialIndexLoad() throws PluginExecutionException {
+    try {
+      schedule(LOAD_DELAY_MINUTES);
+    } catch (RejectedExecutionException e) {
+      LOGGER.warn(
+          "The gazetteer spatial index could not be reloaded. Country codes and nearby cities will "
+              + "be looked up in the catalog until it is.");
+      throw new PluginExecutionException(e);
+    }
+  }
+
+  private synchronized void schedule(final long delayInMinutes) {
+    if (future != null) {
+      future.cancel(false);
+    }
+
+    final long load = ++scheduledLoads;
+    future =
+        executor.schedule(
+            () -> loadSpatialIndex(load, delayInMinutes), delayInMinutes, TimeUnit.MINUTES);
+  }
+
+  private void loadSpatialIndex(final long load, final long delayInMinutes) {
+    if (gazetteerSpatialIndex.reload()) {
+      return;
+    }
+
+    final long retryDelayInMinutes = Math.min(2 * delayInMinutes, MAX_RETRY_DELAY_MINUTES);
+    synchronized (this) {
+      // A load scheduled while this one was running replaces the retry
+      if (load != scheduledLoads) {
+        return;
+      }
+
+      LOGGER.warn(
+          "The gazetteer spatial index could not be loaded, it will be tried again in {} minutes. Country codes and nearby cities will be looked up in the catalog until it is.",
+          retryDelayInMinutes);
+      try {
+        schedule(retryDelayInMinutes);
+      } catch (RejectedExecutionException e) {
+        LOGGER.debug("Unable to schedule another load of the gazetteer spatial index.", e);
+      }
+    }
+  }
+}
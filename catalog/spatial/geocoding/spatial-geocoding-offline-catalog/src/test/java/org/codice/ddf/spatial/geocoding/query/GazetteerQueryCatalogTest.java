@@ -20,6 +20,7 @@
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import ddf.catalog.CatalogFramework;
@@ -40,10 +41,13 @@
 import ddf.catalog.operation.impl.QueryResponseImpl;
 import ddf.catalog.source.SourceUnavailableException;
 import ddf.catalog.source.UnsupportedQueryException;
+import java.security.PrivilegedAction;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import org.codice.ddf.security.Security;
 import org.codice.ddf.spatial.geocoding.GeoCodingConstants;
 import org.codice.ddf.spatial.geocoding.GeoEntry;
 import org.codice.ddf.spatial.geocoding.GeoEntryAttributes;
@@ -280,6 +284,39 @@ public void testGetCountryCode() throws Exception {
     assertThat(countryCode.get(), is(USA_COUNTRY_CODE));
   }
 
+  @Test
+  public void testGetNearestCitiesFromSpatialIndex() throws Exception {
+    queryCatalog.setGazetteerSpatialIndex(loadSpatialIndex());
+    when(catalogFramework.query(any(QueryRequest.class))).thenThrow(FederationException.class);
+
+    List<NearbyLocation> nearbyLocations =
+        queryCatalog.getNearestCities(NEAR_BOSTON_WKT, RADIUS_IN_KM, MAX_RESULTS);
+    assertThat(nearbyLocations.size(), is(1));
+    NearbyLocation nearbyLocation = nearbyLocations.get(0);
+    assertThat(nearbyLocation.getCardinalDirection(), is("S"));
+    assertThat(nearbyLocation.getDistance(), is(closeTo(1.3, .01)));
+    assertThat(nearbyLocation.getName(), is(BOSTON));
+  }
+
+  @Test
+  public void testGetCountryCodeFromSpatialIndex() throws Exception {
+    queryCatalog.setGazetteerSpatialIndex(loadSpatialIndex());
+    when(catalogFramework.query(any(QueryRequest.class))).thenThrow(FederationException.class);
+
+    Optional<String> countryCode = queryCatalog.getCountryCode(NEAR_BOSTON_WKT, RADIUS_IN_KM);
+    assertThat(countryCode.get(), is(USA_COUNTRY_CODE));
+  }
+
+  @Test
+  public void testGetCountryCodeSpatialIndexNotLoaded() throws Exception {
+    queryCatalog.setGazetteerSpatialIndex(
+        new GazetteerSpatialIndex(catalogFramework, FILTER_BUILDER, mock(Security.class)));
+
+    Optional<String> countryCode = queryCatalog.getCountryCode(NEAR_BOSTON_WKT, RADIUS_IN_KM);
+    assertThat(countryCode.get(), is(USA_COUNTRY_CODE));
+    verify(catalogFramework).query(any(QueryRequest.class));
+  }
+
   @Test
   public void testGetCountryCodeNoResults() throws Exception {
     QueryResponse queryResponse =
@@ -318,6 +355,20 @@ public void testGetCountryCodeSourceUnavailableException() throws Exception {
     queryCatalog.getCountryCode(NEAR_BOSTON_WKT, RADIUS_IN_KM);
   }
 
+  private GazetteerSpatialIndex loadSpatialIndex() throws Exception {
+    Security security = mock(Security.class);
+    when(security.runAsAdmin(any()))
+        .thenAnswer(invocation -> invocation.<PrivilegedAction<?>>getArgument(0).run());
+    when(security.runWithSubjectOrElevate(any()))
+        .thenAnswer(invocation -> invocation.<Callable<?>>getArgument(0).call());
+
+    GazetteerSpatialIndex gazetteerSpatialIndex =
+        new GazetteerSpatialIndex(catalogFramework, FILTER_BUILDER, security);
+    gazetteerSpatialIndex.run();
+    assertThat(gazetteerSpatialIndex.isLoaded(), is(true));
+    return gazetteerSpatialIndex;
+  }
+
   private Metacard generateEmptyMetacard() {
     return new MetacardImpl(GEO_ENTRY_METACARD_TYPE);
   }
@@ -0,0 +1,215 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.spatial.geocoding.query;
+
+import static org.codice.ddf.spatial.geocoding.GeoCodingConstants.GAZETTEER_METACARD_TAG;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ddf.catalog.CatalogFramework;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.MetacardType;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.MetacardTypeImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.data.impl.types.LocationAttributes;
+import ddf.catalog.data.types.Core;
+import ddf.catalog.data.types.Location;
+import ddf.catalog.filter.FilterBuilder;
+import ddf.catalog.filter.proxy.builder.GeotoolsFilterBuilder;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.impl.QueryResponseImpl;
+import java.security.PrivilegedAction;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.codice.ddf.security.Security;
+import org.codice.ddf.spatial.geocoding.GeoCodingConstants;
+import org.codice.ddf.spatial.geocoding.GeoEntryAttributes;
+import org.codice.ddf.spatial.geocoding.GeoEntryQueryException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the cost of enriching a batch of 1,000 ingested metacards the way the GeoCoder plugin
+ * does, looking up the country code of each metacard's location and the city nearest to it, when
+ * the gazetteer is held in a {@link GazetteerSpatialIndex}.
+ *
+ * <p>The gazetteer is synthetic: 2,592 five-degree country shapes covering the globe and 100,000
+ * places, a fifth of them cities. The cost of the same lookups against the catalog depends on the
+ * catalog provider and is not measured here.
+ *
+ * <p>Run with {@code main} from the test classpath; the GC profiler reports the bytes allocated per
+ * operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GazetteerSpatialIndexBenchmark {
+
+  private static final int PLACES = 100_000;
+
+  private static final int BATCH_SIZE = 1000;
+
+  private static final int RADIUS_IN_KM = 50;
+
+  private static final MetacardType GEO_ENTRY_METACARD_TYPE =
+      new MetacardTypeImpl(
+          "GeoEntryAttributes", Arrays.asList(new LocationAttributes(), new GeoEntryAttributes()));
+
+  private GazetteerQueryCatalog queryCatalog;
+
+  private List<String> batch;
+
+  @Setup
+  public void setUp() throws Exception {
+    Random random = new Random(1);
+    List<Result> gazetteer = new ArrayList<>();
+
+    for (int lon = -180; lon < 180; lon += 5) {
+      for (int lat = -90; lat < 90; lat += 5) {
+        gazetteer.add(
+            new ResultImpl(
+                country(
+                    String.format(Locale.ROOT, "C%d_%d", lon, lat),
+                    String.format(
+                        Locale.ROOT,
+                        "POLYGON ((%d %d, %d %d, %d %d, %d %d, %d %d))",
+                        lon,
+                        lat,
+                        lon + 5,
+                        lat,
+                        lon + 5,
+                        lat + 5,
+                        lon,
+                        lat + 5,
+                        lon,
+                        lat))));
+      }
+    }
+
+    for (int i = 0; i < PLACES; i++) {
+      gazetteer.add(
+          new ResultImpl(
+              place("Place " + i, i % 5 == 0 ? "PPL" : "STM", randomPoint(random, 60))));
+    }
+
+    batch = new ArrayList<>(BATCH_SIZE);
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      batch.add(randomPoint(random, 60));
+    }
+
+    CatalogFramework catalogFramework = mock(CatalogFramework.class);
+    when(catalogFramework.query(any(QueryRequest.class)))
+        .thenReturn(new QueryResponseImpl(null, gazetteer, gazetteer.size()))
+        .thenReturn(new QueryResponseImpl(null, Collections.emptyList(), 0));
+
+    Security security = mock(Security.class);
+    when(security.runAsAdmin(any()))
+        .thenAnswer(invocation -> invocation.<PrivilegedAction<?>>getArgument(0).run());
+    when(security.runWithSubjectOrElevate(any()))
+        .thenAnswer(invocation -> invocation.<Callable<?>>getArgument(0).call());
+
+    FilterBuilder filterBuilder = new GeotoolsFilterBuilder();
+    GazetteerSpatialIndex gazetteerSpatialIndex =
+        new GazetteerSpatialIndex(catalogFramework, filterBuilder, security);
+    gazetteerSpatialIndex.run();
+
+    queryCatalog = new GazetteerQueryCatalog(catalogFramework, filterBuilder);
+    queryCatalog.setGazetteerSpatialIndex(gazetteerSpatialIndex);
+  }
+
+  @Benchmark
+  public int countryCode() throws GeoEntryQueryException, ParseException {
+    int found = 0;
+    for (String location : batch) {
+      if (queryCatalog.getCountryCode(location, RADIUS_IN_KM).isPresent()) {
+        found++;
+      }
+    }
+    return found;
+  }
+
+  @Benchmark
+  public int nearestCity() throws GeoEntryQueryException, ParseException {
+    int found = 0;
+    for (String location : batch) {
+      found += queryCatalog.getNearestCities(location, RADIUS_IN_KM, 1).size();
+    }
+    return found;
+  }
+
+  private static String randomPoint(Random random, double maxLatitude) {
+    return String.format(
+        Locale.ROOT,
+        "POINT (%f %f)",
+        random.nextDouble() * 360 - 180,
+        random.nextDouble() * maxLatitude * 2 - maxLatitude);
+  }
+
+  private static Metacard place(String name, String featureCode, String wkt) {
+    Metacard metacard = gazetteerMetacard(GeoCodingConstants.GEONAMES_TAG, "XX", wkt);
+    metacard.setAttribute(new AttributeImpl(Core.TITLE, name));
+    metacard.setAttribute(
+        new AttributeImpl(GeoEntryAttributes.FEATURE_CODE_ATTRIBUTE_NAME, featureCode));
+    return metacard;
+  }
+
+  private static Metacard country(String countryCode, String wkt) {
+    return gazetteerMetacard(GeoCodingConstants.COUNTRY_TAG, countryCode, wkt);
+  }
+
+  private static Metacard gazetteerMetacard(String tag, String countryCode, String wkt) {
+    Metacard metacard = new MetacardImpl(GEO_ENTRY_METACARD_TYPE);
+    metacard.setAttribute(new AttributeImpl(Location.COUNTRY_CODE, countryCode));
+    metacard.setAttribute(new AttributeImpl(Core.LOCATION, wkt));
+    metacard.setAttribute(
+        new AttributeImpl(Core.METACARD_TAGS, Arrays.asList(GAZETTEER_METACARD_TAG, tag)));
+    return metacard;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder()
+            .include(GazetteerSpatialIndexBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.spatial.geocoding.query;
+
+import static org.codice.ddf.spatial.geocoding.GeoCodingConstants.GAZETTEER_METACARD_TAG;
+import static org.codice.ddf.spatial.geocoding.query.GazetteerSpatialIndexPlugin.LOAD_DELAY_MINUTES;
+import static org.codice.ddf.spatial.geocoding.query.GazetteerSpatialIndexPlugin.MAX_RETRY_DELAY_MINUTES;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.operation.CreateResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GazetteerSpatialIndexPluginTest {
+
+  private final List<Runnable> loads = new ArrayList<>();
+
+  private final List<Long> delays = new ArrayList<>();
+
+  private GazetteerSpatialIndex gazetteerSpatialIndex;
+
+  private GazetteerSpatialIndexPlugin gazetteerSpatialIndexPlugin;
+
+  @Before
+  public void setUp() {
+    final ScheduledThreadPoolExecutor executor = mock(ScheduledThreadPoolExecutor.class);
+    doAnswer(
+            invocation -> {
+              loads.add(invocation.getArgument(0));
+              delays.add(
+                  invocation.<TimeUnit>getArgument(2).toMinutes(invocation.<Long>getArgument(1)));
+              return mock(ScheduledFuture.class);
+            })
+        .when(executor)
+        .schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+
+    gazetteerSpatialIndex = mock(GazetteerSpatialIndex.class);
+    gazetteerSpatialIndexPlugin = new GazetteerSpatialIndexPlugin(executor, gazetteerSpatialIndex);
+  }
+
+  @Test
+  public void testSuccessfulLoadIsNotRetried() {
+    when(gazetteerSpatialIndex.reload()).thenReturn(true);
+
+    gazetteerSpatialIndexPlugin.init();
+    runLastLoad();
+
+    assertThat(delays, contains(LOAD_DELAY_MINUTES));
+  }
+
+  @Test
+  public void testFailedLoadIsRetriedWithBackoff() {
+    when(gazetteerSpatialIndex.reload()).thenReturn(false, false, true);
+
+    gazetteerSpatialIndexPlugin.init();
+    runLastLoad();
+    runLastLoad();
+    runLastLoad();
+
+    verify(gazetteerSpatialIndex, times(3)).reload();
+    assertThat(
+        delays, contains(LOAD_DELAY_MINUTES, 2 * LOAD_DELAY_MINUTES, 4 * LOAD_DELAY_MINUTES));
+  }
+
+  @Test
+  public void testRetryDelayIsCapped() {
+    when(gazetteerSpatialIndex.reload()).thenReturn(false);
+
+    gazetteerSpatialIndexPlugin.init();
+    for (int i = 0; i < 8; i++) {
+      runLastLoad();
+    }
+
+    assertThat(
+        delays.subList(delays.size() - 2, delays.size()),
+        contains(MAX_RETRY_DELAY_MINUTES, MAX_RETRY_DELAY_MINUTES));
+  }
+
+  @Test
+  public void testLoadScheduledDuringFailedLoadReplacesRetry() throws Exception {
+    final CreateResponse createResponse = mock(CreateResponse.class);
+    final Metacard metacard = mock(Metacard.class);
+    when(metacard.getTags()).thenReturn(Collections.singleton(GAZETTEER_METACARD_TAG));
+    when(createResponse.getCreatedMetacards()).thenReturn(Collections.singletonList(metacard));
+    when(gazetteerSpatialIndex.reload())
+        .thenAnswer(
+            invocation -> {
+              gazetteerSpatialIndexPlugin.process(createResponse);
+              return false;
+            });
+
+    gazetteerSpatialIndexPlugin.init();
+    runLastLoad();
+
+    assertThat(delays, contains(LOAD_DELAY_MINUTES, LOAD_DELAY_MINUTES));
+  }
+
+  private void runLastLoad() {
+    loads.get(loads.size() - 1).run();
+  }
+}
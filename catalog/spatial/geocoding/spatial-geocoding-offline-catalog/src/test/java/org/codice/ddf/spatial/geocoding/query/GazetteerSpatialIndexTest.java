@@ -0,0 +1,319 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.spatial.geocoding.query;
+
+import static ddf.catalog.Constants.QUERY_CURSOR_MARK_KEY;
+import static ddf.catalog.Constants.QUERY_CURSOR_MARK_START;
+import static ddf.catalog.Constants.QUERY_NEXT_CURSOR_MARK_KEY;
+import static org.codice.ddf.spatial.geocoding.GeoCodingConstants.GAZETTEER_METACARD_TAG;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ddf.catalog.CatalogFramework;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.MetacardType;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.MetacardTypeImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.data.impl.types.LocationAttributes;
+import ddf.catalog.data.types.Core;
+import ddf.catalog.data.types.Location;
+import ddf.catalog.federation.FederationException;
+import ddf.catalog.filter.proxy.builder.GeotoolsFilterBuilder;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.QueryResponse;
+import ddf.catalog.operation.impl.QueryResponseImpl;
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import org.codice.ddf.security.Security;
+import org.codice.ddf.spatial.geocoding.GeoCodingConstants;
+import org.codice.ddf.spatial.geocoding.GeoEntryAttributes;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.io.WKTReader;
+
+public class GazetteerSpatialIndexTest {
+
+  private static final MetacardType GEO_ENTRY_METACARD_TYPE =
+      new MetacardTypeImpl(
+          "GeoEntryAttributes", Arrays.asList(new LocationAttributes(), new GeoEntryAttributes()));
+
+  private static final String BOSTON_WKT = "POINT (-71.0595703125 42.35771940022451)";
+
+  private static final String USA_SHAPE_WKT = "POLYGON ((-80 35, -70 35, -70 45, -80 45, -80 35))";
+
+  private CatalogFramework catalogFramework;
+
+  private GazetteerSpatialIndex gazetteerSpatialIndex;
+
+  @Before
+  public void setUp() throws Exception {
+    catalogFramework = mock(CatalogFramework.class);
+
+    Security security = mock(Security.class);
+    when(security.runAsAdmin(any()))
+        .thenAnswer(invocation -> invocation.<PrivilegedAction<?>>getArgument(0).run());
+    when(security.runWithSubjectOrElevate(any()))
+        .thenAnswer(
+            invocation -> {
+              try {
+                return invocation.<Callable<?>>getArgument(0).call();
+              } catch (Exception e) {
+                throw new InvocationTargetException(e);
+              }
+            });
+
+    gazetteerSpatialIndex =
+        new GazetteerSpatialIndex(catalogFramework, new GeotoolsFilterBuilder(), security);
+  }
+
+  @Test
+  public void testNotLoaded() throws Exception {
+    assertThat(gazetteerSpatialIndex.isLoaded(), is(false));
+    assertThat(gazetteerSpatialIndex.getCountryCode(point(BOSTON_WKT), 50), is(Optional.empty()));
+    assertThat(gazetteerSpatialIndex.getNearestCities(point(BOSTON_WKT), 50, 1), is(empty()));
+  }
+
+  @Test
+  public void testQueryFailureLeavesIndexNotLoaded() throws Exception {
+    when(catalogFramework.query(any(QueryRequest.class))).thenThrow(FederationException.class);
+
+    gazetteerSpatialIndex.run();
+
+    assertThat(gazetteerSpatialIndex.isLoaded(), is(false));
+  }
+
+  @Test
+  public void testGetCountryCodeInsideCountryShape() throws Exception {
+    load(country("USA", USA_SHAPE_WKT), place("Halifax", "CAN", "PPLA", "POINT (-70.1 42.4)"));
+
+    assertThat(
+        gazetteerSpatialIndex.getCountryCode(point("POINT (-70.2 42.4)"), 50),
+        is(Optional.of("USA")));
+  }
+
+  @Test
+  public void testGetCountryCodeNearestWithinRadius() throws Exception {
+    load(
+        country("USA", USA_SHAPE_WKT),
+        country("CAN", "POLYGON ((-69 35, -60 35, -60 45, -69 45, -69 35))"));
+
+    assertThat(
+        gazetteerSpatialIndex.getCountryCode(point("POINT (-69.6 40)"), 100),
+        is(Optional.of("USA")));
+    assertThat(
+        gazetteerSpatialIndex.getCountryCode(point("POINT (-69.4 40)"), 100),
+        is(Optional.of("CAN")));
+  }
+
+  @Test
+  public void testGetCountryCodeFromPlace() throws Exception {
+    load(place("Boston", "USA", "PPLA", BOSTON_WKT));
+
+    assertThat(
+        gazetteerSpatialIndex.getCountryCode(point("POINT (-71.07 42.35)"), 50),
+        is(Optional.of("USA")));
+  }
+
+  @Test
+  public void testGetCountryCodeOutsideRadius() throws Exception {
+    load(country("USA", USA_SHAPE_WKT), place("Boston", "USA", "PPLA", BOSTON_WKT));
+
+    assertThat(
+        gazetteerSpatialIndex.getCountryCode(point("POINT (-60 30)"), 50), is(Optional.empty()));
+  }
+
+  @Test
+  public void testGetCountryCodeAcrossAntimeridian() throws Exception {
+    load(place("Taveuni", "FJI", "PPL", "POINT (179.95 -16.8)"));
+
+    assertThat(
+        gazetteerSpatialIndex.getCountryCode(point("POINT (-179.95 -16.8)"), 50),
+        is(Optional.of("FJI")));
+  }
+
+  @Test
+  public void testGetNearestCities() throws Exception {
+    load(
+        place("Boston", "USA", "PPLA", BOSTON_WKT),
+        place("Cambridge", "USA", "PPL", "POINT (-71.1097 42.3736)"),
+        place("Quincy", "USA", "PPL", "POINT (-71.0023 42.2529)"),
+        place("Worcester", "USA", "PPLA2", "POINT (-71.8023 42.2626)"),
+        place("Blue Hill", "USA", "MT", "POINT (-71.1143 42.2120)"),
+        country("USA", USA_SHAPE_WKT));
+
+    assertThat(
+        names(gazetteerSpatialIndex.getNearestCities(point("POINT (-71.08 42.36)"), 50, 10)),
+        contains("Boston", "Cambridge", "Quincy"));
+    assertThat(
+        names(gazetteerSpatialIndex.getNearestCities(point("POINT (-71.08 42.36)"), 50, 2)),
+        contains("Boston", "Cambridge"));
+  }
+
+  @Test
+  public void testGetNearestCitiesToPolygon() throws Exception {
+    load(
+        place("Boston", "USA", "PPLA", BOSTON_WKT),
+        place("Worcester", "USA", "PPLA2", "POINT (-71.8023 42.2626)"));
+
+    assertThat(
+        names(
+            gazetteerSpatialIndex.getNearestCities(
+                new WKTReader().read("POLYGON ((-72 42, -71.5 42, -71.5 42.5, -72 42.5, -72 42))"),
+                10,
+                10)),
+        contains("Worcester"));
+  }
+
+  @Test
+  public void testLoadPagesWithCursor() throws Exception {
+    List<Metacard> firstPage = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      firstPage.add(place("Place " + i, "USA", "MT", "POINT (-100 40)"));
+    }
+    QueryResponse firstResponse = response(firstPage, 1001, "page2");
+    QueryResponse secondResponse =
+        response(Arrays.asList(place("Boston", "USA", "PPLA", BOSTON_WKT)), 1001, "page2");
+    List<Serializable> cursorMarks = new ArrayList<>();
+    when(catalogFramework.query(any(QueryRequest.class)))
+        .thenAnswer(
+            invocation -> {
+              cursorMarks.add(
+                  invocation.<QueryRequest>getArgument(0).getPropertyValue(QUERY_CURSOR_MARK_KEY));
+              return cursorMarks.size() == 1 ? firstResponse : secondResponse;
+            });
+
+    gazetteerSpatialIndex.run();
+
+    assertThat(cursorMarks, contains(QUERY_CURSOR_MARK_START, "page2"));
+    assertThat(
+        names(gazetteerSpatialIndex.getNearestCities(point(BOSTON_WKT), 50, 10)),
+        contains("Boston"));
+  }
+
+  @Test
+  public void testGazetteerLargerThanMaxEntriesIsNotLoaded() throws Exception {
+    load(place("Boston", "USA", "PPLA", BOSTON_WKT));
+    gazetteerSpatialIndex.setMaxEntries(2);
+
+    QueryResponse queryResponse =
+        response(
+            Arrays.asList(
+                place("Boston", "USA", "PPLA", BOSTON_WKT),
+                place("Cambridge", "USA", "PPL", "POINT (-71.1097 42.3736)"),
+                country("USA", USA_SHAPE_WKT)));
+    when(catalogFramework.query(any(QueryRequest.class))).thenReturn(queryResponse);
+    gazetteerSpatialIndex.run();
+
+    assertThat(gazetteerSpatialIndex.isLoaded(), is(false));
+    assertThat(gazetteerSpatialIndex.getNearestCities(point(BOSTON_WKT), 50, 10), is(empty()));
+  }
+
+  @Test
+  public void testZeroMaxEntriesTurnsIndexOff() throws Exception {
+    load(place("Boston", "USA", "PPLA", BOSTON_WKT));
+
+    gazetteerSpatialIndex.setMaxEntries(0);
+    assertThat(gazetteerSpatialIndex.isLoaded(), is(false));
+
+    gazetteerSpatialIndex.run();
+    assertThat(gazetteerSpatialIndex.isLoaded(), is(false));
+    verify(catalogFramework, times(1)).query(any(QueryRequest.class));
+  }
+
+  @Test
+  public void testReloadReplacesIndex() throws Exception {
+    load(place("Boston", "USA", "PPLA", BOSTON_WKT));
+    load(
+        place("Cambridge", "USA", "PPL", "POINT (-71.1097 42.3736)"),
+        place("Nowhere", "USA", "PPL", "not wkt"),
+        country(null, USA_SHAPE_WKT));
+
+    assertThat(
+        names(gazetteerSpatialIndex.getNearestCities(point(BOSTON_WKT), 50, 10)),
+        contains("Cambridge"));
+  }
+
+  private void load(Metacard... metacards) throws Exception {
+    QueryResponse queryResponse = response(Arrays.asList(metacards));
+    when(catalogFramework.query(any(QueryRequest.class))).thenReturn(queryResponse);
+    gazetteerSpatialIndex.run();
+    assertThat(gazetteerSpatialIndex.isLoaded(), is(true));
+  }
+
+  private static QueryResponse response(List<Metacard> metacards) {
+    return response(metacards, metacards.size(), QUERY_CURSOR_MARK_START);
+  }
+
+  private static QueryResponse response(
+      List<Metacard> metacards, long hits, String nextCursorMark) {
+    List<Result> results = metacards.stream().map(ResultImpl::new).collect(Collectors.toList());
+    Map<String, Serializable> properties =
+        Collections.singletonMap(QUERY_NEXT_CURSOR_MARK_KEY, nextCursorMark);
+    return new QueryResponseImpl(mock(QueryRequest.class), results, true, hits, properties);
+  }
+
+  private static Metacard place(String name, String countryCode, String featureCode, String wkt) {
+    Metacard metacard = new MetacardImpl(GEO_ENTRY_METACARD_TYPE);
+    metacard.setAttribute(new AttributeImpl(Core.TITLE, name));
+    metacard.setAttribute(new AttributeImpl(Location.COUNTRY_CODE, countryCode));
+    metacard.setAttribute(
+        new AttributeImpl(GeoEntryAttributes.FEATURE_CODE_ATTRIBUTE_NAME, featureCode));
+    metacard.setAttribute(new AttributeImpl(Core.LOCATION, wkt));
+    metacard.setAttribute(
+        new AttributeImpl(
+            Core.METACARD_TAGS,
+            Arrays.asList(GAZETTEER_METACARD_TAG, GeoCodingConstants.GEONAMES_TAG)));
+    return metacard;
+  }
+
+  private static Metacard country(String countryCode, String wkt) {
+    Metacard metacard = new MetacardImpl(GEO_ENTRY_METACARD_TYPE);
+    metacard.setAttribute(new AttributeImpl(Location.COUNTRY_CODE, countryCode));
+    metacard.setAttribute(new AttributeImpl(Core.LOCATION, wkt));
+    metacard.setAttribute(
+        new AttributeImpl(
+            Core.METACARD_TAGS,
+            Arrays.asList(GAZETTEER_METACARD_TAG, GeoCodingConstants.COUNTRY_TAG)));
+    return metacard;
+  }
+
+  private static Point point(String wkt) throws Exception {
+    return (Point) new WKTReader().read(wkt);
+  }
+
+  private static List<String> names(List<GazetteerSpatialIndex.Place> places) {
+    return places.stream().map(GazetteerSpatialIndex.Place::getName).collect(Collectors.toList());
+  }
+}
@@ -23,14 +23,19 @@
 import ddf.catalog.transform.MetacardTransformer;
 import ddf.geo.formatter.CompositeGeometry;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.Serializable;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
-import java.util.TimeZone;
 import javax.activation.MimeType;
 import javax.activation.MimeTypeParseException;
 import javax.xml.bind.DatatypeConverter;
@@ -65,6 +70,11 @@ public class GeoJsonMetacardTransformer implements MetacardTransformer {
 
   private static final String SOURCE_ID_PROPERTY = "source-id";
 
+  private static final int BUFFER_SIZE = 4096;
+
+  private static final DateTimeFormatter DATE_FORMATTER =
+      DateTimeFormatter.ofPattern(ISO_8601_DATE_FORMAT).withZone(ZoneOffset.UTC);
+
   protected static final MimeType DEFAULT_MIME_TYPE = new MimeType();
 
   static {
@@ -116,16 +126,72 @@ public static JSONObject convertToJSON(Metacard metacard) throws CatalogTransfor
     return rootObject;
   }
 
+  /**
+   * Writes the same GeoJSON feature as {@link #convertToJSON(Metacard)} builds, member by member,
+   * without building a {@link JSONObject} for it first.
+   *
+   * @param metacard the metacard to write
+   * @param writer the writer the feature is written to; it is neither flushed nor closed
+   * @throws CatalogTransformerException if the metacard is null or one of its attributes cannot be
+   *     converted
+   * @throws IOException if the writer fails
+   */
+  private static void writeJSON(Metacard metacard, Writer writer)
+      throws CatalogTransformerException, IOException {
+    if (metacard == null) {
+      throw new CatalogTransformerException("Cannot transform null metacard.");
+    }
+
+    boolean hasSourceId = metacard.getSourceId() != null && !"".equals(metacard.getSourceId());
+    Object geometry = null;
+
+    writer.write("{\"type\":\"Feature\",\"" + CompositeGeometry.PROPERTIES_KEY + "\":{");
+    for (AttributeDescriptor ad : metacard.getMetacardType().getAttributeDescriptors()) {
+
+      Attribute attribute = metacard.getAttribute(ad.getName());
+      if (attribute != null) {
+        Object value = convertAttribute(attribute, ad);
+        if (value == null) {
+          continue;
+        }
+
+        String name = attribute.getName();
+        if (Metacard.GEOGRAPHY.equals(name)) {
+          geometry = value;
+        } else if (!METACARD_TYPE_PROPERTY_KEY.equals(name)
+            && !(hasSourceId && SOURCE_ID_PROPERTY.equals(name))) {
+          // the same keys convertToJSON replaces are skipped, so each key is written once
+          writeMember(name, value, writer);
+          writer.write(',');
+        }
+      }
+    }
+
+    writeMember(METACARD_TYPE_PROPERTY_KEY, metacard.getMetacardType().getName(), writer);
+
+    if (hasSourceId) {
+      writer.write(',');
+      writeMember(SOURCE_ID_PROPERTY, metacard.getSourceId(), writer);
+    }
+
+    writer.write("},");
+    writeMember(CompositeGeometry.GEOMETRY_KEY, geometry, writer);
+    writer.write('}');
+  }
+
   @Override
   public BinaryContent transform(Metacard metacard, Map<String, Serializable> arguments)
       throws CatalogTransformerException {
 
-    JSONObject rootObject = convertToJSON(metacard);
-
-    String jsonText = JSONValue.toJSONString(rootObject);
+    ByteArrayOutputStream jsonBytes = new ByteArrayOutputStream(BUFFER_SIZE);
+    try (Writer writer = new OutputStreamWriter(jsonBytes, StandardCharsets.UTF_8)) {
+      writeJSON(metacard, writer);
+    } catch (IOException e) {
+      throw new CatalogTransformerException("Could not perform transform: unable to write JSON", e);
+    }
 
     return new BinaryContentImpl(
-        new ByteArrayInputStream(jsonText.getBytes(StandardCharsets.UTF_8)), DEFAULT_MIME_TYPE);
+        new ByteArrayInputStream(jsonBytes.toByteArray()), DEFAULT_MIME_TYPE);
   }
 
   @Override
@@ -140,6 +206,13 @@ public String toString() {
         + "}";
   }
 
+  private static void writeMember(String name, Object value, Writer writer) throws IOException {
+    writer.write('"');
+    writer.write(JSONValue.escape(name));
+    writer.write("\":");
+    JSONValue.writeJSONString(value, writer);
+  }
+
   private static Object convertAttribute(Attribute attribute, AttributeDescriptor descriptor)
       throws CatalogTransformerException {
     if (descriptor.isMultiValued()) {
@@ -163,10 +236,7 @@ private static Object convertValue(Serializable value, AttributeType.AttributeFo
       case BOOLEAN:
         return value;
       case DATE:
-        SimpleDateFormat dateFormat = new SimpleDateFormat(ISO_8601_DATE_FORMAT);
-        dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
-
-        return dateFormat.format((Date) value);
+        return DATE_FORMATTER.format(Instant.ofEpochMilli(((Date) value).getTime()));
       case BINARY:
         byte[] bytes = (byte[]) value;
         String base64 = DatatypeConverter.printBase64Binary(bytes);
@@ -41,6 +41,7 @@
 import java.io.Serializable;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Date;
@@ -114,6 +115,21 @@ public void testNoGeo() throws CatalogTransformerException, IOException, ParseEx
     verifyBasicMetacardJson(now, obj2);
   }
 
+  @Test
+  public void testTransformMatchesConvertToJson()
+      throws CatalogTransformerException, IOException, ParseException {
+    MetacardImpl metacard = new MetacardImpl();
+    setupBasicMetacard(new Date(), metacard);
+    metacard.setLocation(DEFAULT_LOCATION);
+    metacard.setDescription("quote \" and \u00fc");
+
+    BinaryContent content = new GeoJsonMetacardTransformer().transform(metacard, null);
+
+    assertThat(
+        PARSER.parse(new String(content.getByteArray(), StandardCharsets.UTF_8)),
+        is(PARSER.parse(GeoJsonMetacardTransformer.convertToJSON(metacard).toJSONString())));
+  }
+
   /**
    * Tests that improper WKT throws an exception
    *
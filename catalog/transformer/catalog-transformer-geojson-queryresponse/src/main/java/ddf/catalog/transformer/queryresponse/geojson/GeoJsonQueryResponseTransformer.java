@@ -14,35 +14,28 @@
 package ddf.catalog.transformer.queryresponse.geojson;
 
 import ddf.catalog.data.BinaryContent;
-import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
 import ddf.catalog.data.impl.BinaryContentImpl;
 import ddf.catalog.operation.SourceResponse;
 import ddf.catalog.transform.CatalogTransformerException;
 import ddf.catalog.transform.MetacardTransformer;
 import ddf.catalog.transform.QueryResponseTransformer;
-import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.Serializable;
-import java.io.UnsupportedEncodingException;
-import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import javax.activation.MimeType;
 import javax.activation.MimeTypeParseException;
-import net.minidev.json.JSONArray;
-import net.minidev.json.JSONObject;
-import net.minidev.json.JSONValue;
-import net.minidev.json.parser.JSONParser;
-import net.minidev.json.parser.ParseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Implements the {@link QueryResponseTransformer} interface to transform a {@link SourceResponse}
- * instance to GeoJSON. This class creates JSON objects for the list of {@link
- * ddf.catalog.data.Metacard}s that are the results from a query. This class leverages the {@link
- * GeoJsonMetacardTransformer} to convert metacards to JSON.
+ * instance to GeoJSON. The list of {@link ddf.catalog.data.Metacard}s that are the results from a
+ * query is streamed one result at a time as the content is read. This class leverages the GeoJSON
+ * metacard transformer to convert metacards to JSON.
  *
- * @see GeoJsonMetacardTransformer
  * @see QueryResponseTransformer
  * @see ddf.catalog.data.Metacard
  * @see ddf.catalog.data.Attribute
@@ -72,37 +65,6 @@ public GeoJsonQueryResponseTransformer(MetacardTransformer metacardTransformer)
     this.metacardTransformer = metacardTransformer;
   }
 
-  private JSONObject convertToJSON(Result result) throws CatalogTransformerException {
-    JSONObject rootObject = new JSONObject();
-
-    addNonNullObject(rootObject, "distance", result.getDistanceInMeters());
-    addNonNullObject(rootObject, "relevance", result.getRelevanceScore());
-    addNonNullObject(rootObject, "metacard", createGeoJSON(result.getMetacard()));
-
-    return rootObject;
-  }
-
-  private Object createGeoJSON(Metacard metacard) throws CatalogTransformerException {
-    if (metacardTransformer == null) {
-      throw new CatalogTransformerException("The metacard transformer cannot be null");
-    }
-
-    BinaryContent rawContent = metacardTransformer.transform(metacard, null);
-    JSONParser jsonParser = new JSONParser(JSONParser.DEFAULT_PERMISSIVE_MODE);
-    try {
-      return jsonParser.parse(rawContent.getInputStream());
-    } catch (ParseException | UnsupportedEncodingException e) {
-      throw new CatalogTransformerException(
-          "Unable to parse transformed metacard content as JSON", e);
-    }
-  }
-
-  private static void addNonNullObject(JSONObject obj, String name, Object value) {
-    if (value != null) {
-      obj.put(name, value);
-    }
-  }
-
   @Override
   public BinaryContent transform(
       SourceResponse upstreamResponse, Map<String, Serializable> arguments)
@@ -112,26 +74,30 @@ public BinaryContent transform(
           "Cannot transform null " + SourceResponse.class.getName());
     }
 
-    JSONObject rootObject = new JSONObject();
-
-    addNonNullObject(rootObject, "hits", upstreamResponse.getHits());
+    List<Result> results =
+        upstreamResponse.getResults() == null
+            ? Collections.emptyList()
+            : upstreamResponse.getResults();
 
-    JSONArray resultsList = new JSONArray();
-
-    if (upstreamResponse.getResults() != null) {
-      for (Result result : upstreamResponse.getResults()) {
-        if (result == null) {
-          throw new CatalogTransformerException("Cannot transform null " + Result.class.getName());
-        }
-        resultsList.add(convertToJSON(result));
+    for (Result result : results) {
+      if (result == null) {
+        throw new CatalogTransformerException("Cannot transform null " + Result.class.getName());
       }
     }
-    addNonNullObject(rootObject, "results", resultsList);
+    if (!results.isEmpty() && metacardTransformer == null) {
+      throw new CatalogTransformerException("The metacard transformer cannot be null");
+    }
 
-    String jsonText = JSONValue.toJSONString(rootObject);
+    GeoJsonResponseInputStream json =
+        new GeoJsonResponseInputStream(
+            upstreamResponse.getHits(), results.iterator(), metacardTransformer);
+    try {
+      json.start();
+    } catch (IOException e) {
+      throw new CatalogTransformerException("Unable to write query response as GeoJSON", e);
+    }
 
-    return new BinaryContentImpl(
-        new ByteArrayInputStream(jsonText.getBytes(StandardCharsets.UTF_8)), DEFAULT_MIME_TYPE);
+    return new BinaryContentImpl(json, DEFAULT_MIME_TYPE);
   }
 
   @Override
@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.transformer.queryresponse.geojson;
+
+import ddf.catalog.data.BinaryContent;
+import ddf.catalog.data.Result;
+import ddf.catalog.transform.CatalogTransformerException;
+import ddf.catalog.transform.MetacardTransformer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import net.minidev.json.JSONValue;
+
+/**
+ * Reads the GeoJSON of a query response, writing each result only when the bytes before it have
+ * been read.
+ *
+ * <p>The response is written one result at a time into a buffer that is reused for every result,
+ * so the memory held by the stream is the size of the largest result, not of the response. The
+ * content of the metacard transformer is copied in as it is, without being parsed, and must be
+ * JSON.
+ *
+ * <p>A result that cannot be transformed surfaces as an {@link IOException} when it is read.
+ */
+class GeoJsonResponseInputStream extends InputStream {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final long hits;
+
+  private final Iterator<Result> results;
+
+  private final MetacardTransformer metacardTransformer;
+
+  private final Buffer buffer = new Buffer();
+
+  private final Writer writer = new OutputStreamWriter(buffer, StandardCharsets.UTF_8);
+
+  private int position;
+
+  private boolean started;
+
+  private boolean finished;
+
+  GeoJsonResponseInputStream(
+      long hits, Iterator<Result> results, MetacardTransformer metacardTransformer) {
+    this.hits = hits;
+    this.results = results;
+    this.metacardTransformer = metacardTransformer;
+  }
+
+  /**
+   * Writes the start of the response and its first result, so a failure to transform the first
+   * result can be reported before the stream is handed on.
+   */
+  void start() throws CatalogTransformerException, IOException {
+    if (!started) {
+      writeNext();
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    while (position == buffer.size()) {
+      if (!next()) {
+        return -1;
+      }
+    }
+    return buffer.bytes()[position++] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+    while (position == buffer.size()) {
+      if (!next()) {
+        return -1;
+      }
+    }
+    int count = Math.min(len, buffer.size() - position);
+    System.arraycopy(buffer.bytes(), position, b, off, count);
+    position += count;
+    return count;
+  }
+
+  @Override
+  public int available() {
+    return buffer.size() - position;
+  }
+
+  private boolean next() throws IOException {
+    if (finished) {
+      return false;
+    }
+    try {
+      writeNext();
+    } catch (CatalogTransformerException e) {
+      finished = true;
+      throw new IOException("Unable to transform query response to GeoJSON", e);
+    }
+    return true;
+  }
+
+  private void writeNext() throws CatalogTransformerException, IOException {
+    buffer.reset();
+    position = 0;
+
+    if (!started) {
+      writer.write("{\"hits\":");
+      writer.write(Long.toString(hits));
+      writer.write(",\"results\":[");
+    }
+
+    if (results.hasNext()) {
+      if (started) {
+        writer.write(',');
+      }
+      writeResult(results.next());
+    } else {
+      writer.write("]}");
+      finished = true;
+    }
+
+    started = true;
+    writer.flush();
+  }
+
+  private void writeResult(Result result) throws CatalogTransformerException, IOException {
+    writer.write('{');
+    if (result.getDistanceInMeters() != null) {
+      writer.write("\"distance\":");
+      JSONValue.writeJSONString(result.getDistanceInMeters(), writer);
+      writer.write(',');
+    }
+    if (result.getRelevanceScore() != null) {
+      writer.write("\"relevance\":");
+      JSONValue.writeJSONString(result.getRelevanceScore(), writer);
+      writer.write(',');
+    }
+    writer.write("\"metacard\":");
+
+    BinaryContent content = metacardTransformer.transform(result.getMetacard(), null);
+    writer.flush();
+    try (InputStream json = content.getInputStream()) {
+      json.transferTo(buffer);
+    }
+
+    writer.write('}');
+  }
+
+  /** Exposes the bytes written, so they can be read without a copy. */
+  private static class Buffer extends ByteArrayOutputStream {
+
+    Buffer() {
+      super(BUFFER_SIZE);
+    }
+
+    byte[] bytes() {
+      return buf;
+    }
+  }
+}
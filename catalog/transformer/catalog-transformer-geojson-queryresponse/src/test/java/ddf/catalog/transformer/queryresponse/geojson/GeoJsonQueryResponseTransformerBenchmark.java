@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.transformer.queryresponse.geojson;
+
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.SourceResponseImpl;
+import ddf.catalog.transform.CatalogTransformerException;
+import ddf.catalog.transform.MetacardTransformer;
+import ddf.catalog.transformer.metacard.geojson.GeoJsonMetacardTransformer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+import net.minidev.json.JSONValue;
+import net.minidev.json.parser.JSONParser;
+import net.minidev.json.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares transforming a query response to GeoJSON with {@link GeoJsonQueryResponseTransformer},
+ * with transforming it the way the transformer used to: parsing the content of the metacard
+ * transformer for every result, building a JSON tree for the response and serializing the tree to
+ * a string.
+ *
+ * <p>The results carry polygons, line strings and multi-polygons, so most of each feature is its
+ * geometry. The benchmarks run for several response sizes and numbers of vertices per geometry.
+ *
+ * <p>Run with {@code main} from the test classpath; the GC profiler reports the bytes allocated per
+ * operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeoJsonQueryResponseTransformerBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  public int results;
+
+  @Param({"16", "1024"})
+  public int vertices;
+
+  private final byte[] sink = new byte[8192];
+
+  private MetacardTransformer metacardTransformer;
+
+  private GeoJsonQueryResponseTransformer transformer;
+
+  private SourceResponse response;
+
+  @Setup
+  public void setUp() {
+    metacardTransformer = new GeoJsonMetacardTransformer();
+    transformer = new GeoJsonQueryResponseTransformer(metacardTransformer);
+    response = createResponse(results, vertices);
+  }
+
+  @Benchmark
+  public long streaming() throws CatalogTransformerException, IOException {
+    long length = 0;
+    try (InputStream json = transformer.transform(response, null).getInputStream()) {
+      int read;
+      while ((read = json.read(sink)) != -1) {
+        length += read;
+      }
+    }
+    return length;
+  }
+
+  @Benchmark
+  public byte[] reparse() throws CatalogTransformerException, ParseException {
+    JSONArray results = new JSONArray();
+    for (Result result : response.getResults()) {
+      JSONObject resultObject = new JSONObject();
+      resultObject.put("relevance", result.getRelevanceScore());
+      resultObject.put("metacard", parse(metacardTransformer, result));
+      results.add(resultObject);
+    }
+
+    JSONObject rootObject = new JSONObject();
+    rootObject.put("hits", response.getHits());
+    rootObject.put("results", results);
+    return JSONValue.toJSONString(rootObject).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static Object parse(MetacardTransformer metacardTransformer, Result result)
+      throws CatalogTransformerException, ParseException {
+    JSONParser jsonParser = new JSONParser(JSONParser.DEFAULT_PERMISSIVE_MODE);
+    try {
+      return jsonParser.parse(
+          metacardTransformer.transform(result.getMetacard(), null).getInputStream());
+    } catch (UnsupportedEncodingException e) {
+      throw new CatalogTransformerException(e);
+    }
+  }
+
+  static SourceResponse createResponse(int count, int vertices) {
+    List<Result> results = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      MetacardImpl metacard = new MetacardImpl();
+      metacard.setId(String.format("%032x", i));
+      metacard.setSourceId("ddf.distribution");
+      metacard.setTitle("Track " + i);
+      metacard.setCreatedDate(new Date());
+      metacard.setModifiedDate(new Date());
+      metacard.setContentTypeName("application/vnd.geo+json");
+      metacard.setLocation(createGeometry(i, vertices));
+      metacard.setResourceURI(URI.create("content:" + metacard.getId()));
+
+      ResultImpl result = new ResultImpl(metacard);
+      result.setRelevanceScore(0.75);
+      results.add(result);
+    }
+    return new SourceResponseImpl(null, results, (long) count);
+  }
+
+  /**
+   * Returns a polygon, a line string or a multi-polygon of about {@code vertices} points, placed
+   * around the globe by {@code index}.
+   */
+  private static String createGeometry(int index, int vertices) {
+    double lon = (index * 7.3) % 340 - 170;
+    double lat = (index * 3.1) % 160 - 80;
+    switch (index % 3) {
+      case 0:
+        return "POLYGON ((" + ring(lon, lat, 2, vertices) + "))";
+      case 1:
+        return "LINESTRING (" + line(lon, lat, vertices) + ")";
+      default:
+        return "MULTIPOLYGON ((("
+            + ring(lon - 3, lat, 1, vertices / 2)
+            + ")), (("
+            + ring(lon + 3, lat, 1, vertices / 2)
+            + ")))";
+    }
+  }
+
+  private static String ring(double lon, double lat, double radius, int vertices) {
+    StringBuilder ring = new StringBuilder();
+    for (int i = 0; i <= vertices; i++) {
+      double angle = 2 * Math.PI * (i % vertices) / vertices;
+      if (i > 0) {
+        ring.append(", ");
+      }
+      ring.append(lon + radius * Math.cos(angle))
+          .append(' ')
+          .append(lat + radius * Math.sin(angle));
+    }
+    return ring.toString();
+  }
+
+  private static String line(double lon, double lat, int vertices) {
+    StringBuilder line = new StringBuilder();
+    for (int i = 0; i < vertices; i++) {
+      if (i > 0) {
+        line.append(", ");
+      }
+      line.append(lon + 4.0 * i / vertices).append(' ').append(lat + (i % 2) * 0.25);
+    }
+    return line.toString();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder()
+            .include(GeoJsonQueryResponseTransformerBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+    new Runner(options).run();
+  }
+}
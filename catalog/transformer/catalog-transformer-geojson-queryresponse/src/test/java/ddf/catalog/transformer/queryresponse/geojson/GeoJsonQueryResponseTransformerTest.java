@@ -30,7 +30,10 @@
 import ddf.catalog.transform.CatalogTransformerException;
 import ddf.catalog.transform.MetacardTransformer;
 import ddf.catalog.transformer.metacard.geojson.GeoJsonMetacardTransformer;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
@@ -155,6 +158,71 @@ public void testCustomTransformerWithJsonArray()
     assertThat(((JSONObject) metacard.get(1)).get("id"), is("1"));
   }
 
+  @Test
+  public void testCustomTransformerContentIsCopiedAsIs()
+      throws CatalogTransformerException, IOException {
+    String metacardJson = "{ \"id\" : \"0\",\n  \"title\" : \"\u00fc\" }";
+    GeoJsonQueryResponseTransformer geoJsonQRT =
+        new GeoJsonQueryResponseTransformer(createCustomMetacardTransformer(metacardJson));
+
+    SourceResponse response = setupResponse(2, 2L);
+    BinaryContent content = geoJsonQRT.transform(response, null);
+
+    assertThat(
+        new String(content.getByteArray(), StandardCharsets.UTF_8),
+        is(
+            "{\"hits\":2,\"results\":["
+                + "{\"relevance\":0.75,\"metacard\":"
+                + metacardJson
+                + "},{\"relevance\":0.75,\"metacard\":"
+                + metacardJson
+                + "}]}"));
+  }
+
+  @Test
+  public void testLargeResponseReadInSmallPieces()
+      throws CatalogTransformerException, IOException, ParseException {
+    final int resultCount = 500;
+    SourceResponse sourceResponse = setupResponse(resultCount, resultCount);
+
+    BinaryContent content = geoJsonQueryResponseTransformer.transform(sourceResponse, null);
+
+    ByteArrayOutputStream jsonBytes = new ByteArrayOutputStream();
+    byte[] piece = new byte[7];
+    int read;
+    try (InputStream json = content.getInputStream()) {
+      while ((read = json.read(piece)) != -1) {
+        jsonBytes.write(piece, 0, read);
+      }
+    }
+
+    JSONObject obj = (JSONObject) PARSER.parse(jsonBytes.toString(StandardCharsets.UTF_8.name()));
+    verifyResponse(obj, resultCount, resultCount);
+  }
+
+  @Test(expected = IOException.class)
+  public void testTransformFailureAfterFirstResult()
+      throws CatalogTransformerException, IOException {
+    MetacardTransformer failsAfterFirst =
+        new MetacardTransformer() {
+          private int transformed;
+
+          @Override
+          public BinaryContent transform(Metacard metacard, Map<String, Serializable> arguments)
+              throws CatalogTransformerException {
+            if (transformed++ > 0) {
+              throw new CatalogTransformerException("Unable to transform metacard");
+            }
+            return new BinaryContentImpl(IOUtils.toInputStream("{}", StandardCharsets.UTF_8));
+          }
+        };
+
+    BinaryContent content =
+        new GeoJsonQueryResponseTransformer(failsAfterFirst).transform(setupResponse(3, 3L), null);
+
+    content.getByteArray();
+  }
+
   private MetacardTransformer createCustomMetacardTransformer(String binContent) {
     return (metacard, arguments) ->
         new BinaryContentImpl(IOUtils.toInputStream(binContent, StandardCharsets.UTF_8));
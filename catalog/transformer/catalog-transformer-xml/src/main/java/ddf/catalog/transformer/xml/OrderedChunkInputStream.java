@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.transformer.xml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Reads the bytes produced by a sequence of chunk tasks, in the order of the sequence.
+ *
+ * <p>The tasks run in parallel on an executor, but at most {@code maxInFlight} of them are
+ * submitted and not yet read at any time: the next task is only submitted once the oldest chunk has
+ * been handed to the reader. The memory held by the stream is therefore bounded by a few chunks, no
+ * matter how many tasks the sequence has.
+ *
+ * <p>A failed task surfaces as an {@link IOException} when its chunk is read. Closing the stream
+ * cancels the tasks that have not been read.
+ */
+class OrderedChunkInputStream extends InputStream {
+
+  private static final byte[] EMPTY = new byte[0];
+
+  private final ExecutorService executor;
+
+  private final Iterator<Callable<byte[]>> tasks;
+
+  private final int maxInFlight;
+
+  private final Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+
+  private byte[] chunk = EMPTY;
+
+  private int position;
+
+  private boolean closed;
+
+  OrderedChunkInputStream(
+      ExecutorService executor, Iterator<Callable<byte[]>> tasks, int maxInFlight) {
+    this.executor = executor;
+    this.tasks = tasks;
+    this.maxInFlight = Math.max(1, maxInFlight);
+    submit();
+  }
+
+  /**
+   * Waits for the first chunk, so a failure to produce it can be reported before the stream is
+   * handed on.
+   *
+   * @throws IOException if the first task failed
+   */
+  void awaitFirstChunk() throws IOException {
+    if (position == chunk.length) {
+      nextChunk();
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    while (position == chunk.length) {
+      if (!nextChunk()) {
+        return -1;
+      }
+    }
+    return chunk[position++] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+    while (position == chunk.length) {
+      if (!nextChunk()) {
+        return -1;
+      }
+    }
+    int count = Math.min(len, chunk.length - position);
+    System.arraycopy(chunk, position, b, off, count);
+    position += count;
+    return count;
+  }
+
+  @Override
+  public int available() {
+    return chunk.length - position;
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    chunk = EMPTY;
+    position = 0;
+    Future<byte[]> pending;
+    while ((pending = inFlight.poll()) != null) {
+      pending.cancel(true);
+    }
+  }
+
+  private boolean nextChunk() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+
+    Future<byte[]> head = inFlight.poll();
+    if (head == null) {
+      return false;
+    }
+
+    try {
+      chunk = head.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      close();
+      throw new InterruptedIOException("Interrupted while waiting for the next chunk");
+    } catch (ExecutionException e) {
+      close();
+      throw new IOException("Failed to produce the next chunk", e.getCause());
+    }
+    position = 0;
+
+    submit();
+    return true;
+  }
+
+  private void submit() {
+    while (inFlight.size() < maxInFlight && tasks.hasNext()) {
+      inFlight.add(executor.submit(tasks.next()));
+    }
+  }
+}
@@ -15,6 +15,7 @@
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import ddf.catalog.data.BinaryContent;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
@@ -27,18 +28,26 @@
 import ddf.catalog.transformer.api.PrintWriterProvider;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.SequenceInputStream;
 import java.io.Serializable;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.activation.MimeType;
 import javax.activation.MimeTypeParseException;
+import javax.annotation.Nullable;
 import javax.xml.bind.DataBindingException;
 import org.codice.ddf.parser.Parser;
 import org.codice.ddf.platform.util.ForkJoinPoolFactory;
@@ -49,12 +58,25 @@
 /**
  * Transforms a {@link SourceResponse} object into Metacard Element XML text, which is GML 3.1.1.
  * compliant XML.
+ *
+ * <p>By default the response is streamed: the results are marshalled in chunks of {@code
+ * threshold} metacards in parallel, and each chunk is written to the returned content in order as
+ * soon as it and the chunks before it are ready. At most {@code maxChunksInFlight} chunks are
+ * marshalled ahead of the reader, so the memory held by a response does not grow with the number
+ * of results. When streaming is disabled the whole document is marshalled before it is returned.
  */
 public class XmlResponseQueueTransformer extends AbstractXmlTransformer
     implements QueryResponseTransformer {
 
   public static final int BUFFER_SIZE = 1024;
 
+  public static final int DEFAULT_THRESHOLD = 50;
+
+  public static final int DEFAULT_MAX_CHUNKS_IN_FLIGHT = 8;
+
+  /** Marks where the metacards go in the document built around them when streaming. */
+  private static final String CONTENT_PLACEHOLDER = "<!--metacards-->";
+
   private static class MetacardForkTask extends RecursiveTask<StringWriter> {
     private static final long serialVersionUID = 1L;
 
@@ -132,14 +154,8 @@ protected StringWriter compute() {
 
     private StringWriter doCompute() {
       StringWriter sw = new StringWriter(BUFFER_SIZE);
-      Map<String, Serializable> args = new HashMap<>();
-      args.put(MetacardMarshallerImpl.OMIT_XML_DECL, Boolean.TRUE);
       try {
-        for (Result result : resultList) {
-          Metacard metacard = result.getMetacard();
-          String xmlString = metacardMarshaller.marshal(metacard, args);
-          sw.append(xmlString);
-        }
+        marshal(resultList, metacardMarshaller, sw);
       } catch (XmlPullParserException | IOException | CatalogTransformerException e) {
         cancelOperation.set(true);
         throw new DataBindingException("Failure to write node; operation aborted", e);
@@ -164,7 +180,11 @@ private void readObject(ObjectInputStream stream) throws IOException, ClassNotFo
 
   private final MetacardMarshaller metacardMarshaller;
 
-  private int threshold;
+  private int threshold = DEFAULT_THRESHOLD;
+
+  private boolean streaming = true;
+
+  private int maxChunksInFlight = DEFAULT_MAX_CHUNKS_IN_FLIGHT;
 
   private static final Logger LOGGER = LoggerFactory.getLogger(XmlResponseQueueTransformer.class);
 
@@ -220,40 +240,122 @@ public void setThreshold(int threshold) {
     this.threshold = threshold <= 1 ? 2 : threshold;
   }
 
+  /**
+   * @param streaming whether responses are streamed in threshold-sized chunks as they are
+   *     marshalled, rather than marshalled completely before they are returned
+   */
+  public void setStreaming(boolean streaming) {
+    this.streaming = streaming;
+  }
+
+  /**
+   * @param maxChunksInFlight the maximum number of chunks of a streamed response that are
+   *     marshalled ahead of the reader
+   */
+  public void setMaxChunksInFlight(int maxChunksInFlight) {
+    this.maxChunksInFlight = Math.max(1, maxChunksInFlight);
+  }
+
   @Override
   public BinaryContent transform(SourceResponse response, Map<String, Serializable> args)
       throws CatalogTransformerException {
     try {
-      PrintWriter writer = printWriterProvider.build(Metacard.class);
-      writer.setRawValue("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
-
-      writer.startNode("metacards");
-      for (Map.Entry<String, String> nsRow : NAMESPACE_MAP.entrySet()) {
-        writer.addAttribute(nsRow.getKey(), nsRow.getValue());
+      List<Result> results = response.getResults();
+      if (results == null || results.isEmpty()) {
+        return toContent(buildDocument(null));
       }
 
-      if (response.getResults() != null && !response.getResults().isEmpty()) {
-        StringWriter metacardContent =
-            fjp.invoke(
-                new MetacardForkTask(
-                    ImmutableList.copyOf(response.getResults()),
-                    fjp,
-                    geometryTransformer,
-                    threshold,
-                    metacardMarshaller));
-
-        writer.setRawValue(metacardContent.getBuffer().toString());
+      ImmutableList<Result> resultList = ImmutableList.copyOf(results);
+      if (streaming) {
+        return stream(resultList);
       }
 
-      writer.endNode(); // metacards
+      StringWriter metacardContent =
+          fjp.invoke(
+              new MetacardForkTask(
+                  resultList, fjp, geometryTransformer, threshold, metacardMarshaller));
 
-      ByteArrayInputStream bais =
-          new ByteArrayInputStream(writer.makeString().getBytes(StandardCharsets.UTF_8));
-
-      return new BinaryContentImpl(bais, mimeType);
+      return toContent(buildDocument(metacardContent.getBuffer().toString()));
     } catch (Exception e) {
       LOGGER.info("Failed Query response transformation", e);
       throw new CatalogTransformerException("Failed Query response transformation");
     }
   }
+
+  /**
+   * Streams the document, the metacards in threshold-sized chunks marshalled on the fork-join pool.
+   * The first chunk is waited for, so a response that cannot be marshalled at all still fails the
+   * transformation; later failures surface as an {@link IOException} from the returned content.
+   */
+  private BinaryContent stream(ImmutableList<Result> results) throws IOException {
+    String document = buildDocument(CONTENT_PLACEHOLDER);
+    int contentStart = document.indexOf(CONTENT_PLACEHOLDER);
+    byte[] head = document.substring(0, contentStart).getBytes(StandardCharsets.UTF_8);
+    byte[] tail =
+        document
+            .substring(contentStart + CONTENT_PLACEHOLDER.length())
+            .getBytes(StandardCharsets.UTF_8);
+
+    Iterator<Callable<byte[]>> chunks =
+        Lists.partition(results, threshold).stream()
+            .<Callable<byte[]>>map(chunk -> () -> marshalChunk(chunk))
+            .iterator();
+    OrderedChunkInputStream content =
+        new OrderedChunkInputStream(fjp, chunks, maxChunksInFlight);
+    try {
+      content.awaitFirstChunk();
+    } catch (IOException e) {
+      content.close();
+      throw e;
+    }
+
+    InputStream streamed =
+        new SequenceInputStream(
+            Collections.enumeration(
+                Arrays.asList(
+                    new ByteArrayInputStream(head), content, new ByteArrayInputStream(tail))));
+    return new BinaryContentImpl(streamed, mimeType);
+  }
+
+  private byte[] marshalChunk(List<Result> chunk)
+      throws XmlPullParserException, IOException, CatalogTransformerException {
+    StringBuilder sb = new StringBuilder(BUFFER_SIZE);
+    marshal(chunk, metacardMarshaller, sb);
+    return sb.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private String buildDocument(@Nullable String metacardContent) {
+    PrintWriter writer = printWriterProvider.build(Metacard.class);
+    writer.setRawValue("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+
+    writer.startNode("metacards");
+    for (Map.Entry<String, String> nsRow : NAMESPACE_MAP.entrySet()) {
+      writer.addAttribute(nsRow.getKey(), nsRow.getValue());
+    }
+
+    if (metacardContent != null) {
+      writer.setRawValue(metacardContent);
+    }
+
+    writer.endNode(); // metacards
+
+    return writer.makeString();
+  }
+
+  private BinaryContent toContent(String document) {
+    ByteArrayInputStream bais =
+        new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8));
+
+    return new BinaryContentImpl(bais, mimeType);
+  }
+
+  private static void marshal(List<Result> results, MetacardMarshaller mcm, Appendable out)
+      throws XmlPullParserException, IOException, CatalogTransformerException {
+    Map<String, Serializable> args = new HashMap<>();
+    args.put(MetacardMarshallerImpl.OMIT_XML_DECL, Boolean.TRUE);
+    for (Result result : results) {
+      Metacard metacard = result.getMetacard();
+      out.append(mcm.marshal(metacard, args));
+    }
+  }
 }
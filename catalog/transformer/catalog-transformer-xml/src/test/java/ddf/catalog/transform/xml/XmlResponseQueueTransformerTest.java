@@ -16,7 +16,9 @@
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathEvaluatesTo;
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathExists;
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathNotExists;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
@@ -56,6 +58,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.activation.MimeType;
 import javax.activation.MimeTypeParseException;
 import org.codice.ddf.parser.Parser;
@@ -502,6 +505,90 @@ public void testMetacardMarshallThrowsXmlPullParserException()
     // then exception
   }
 
+  @Test
+  public void testStreamingMatchesBuffered() throws Exception {
+    SourceResponse response = givenSourceResponse(givenMetacards(25));
+
+    PrintWriterProvider pwp = new PrintWriterProviderImpl();
+    MetacardMarshaller mcm = new MetacardMarshallerImpl(parser, pwp);
+
+    XmlResponseQueueTransformer bufferedXform =
+        new XmlResponseQueueTransformer(parser, pwp, mcm, getMimeType());
+    bufferedXform.setThreshold(30);
+    bufferedXform.setStreaming(false);
+
+    XmlResponseQueueTransformer streamingXform =
+        new XmlResponseQueueTransformer(parser, pwp, mcm, getMimeType());
+    streamingXform.setThreshold(2);
+    streamingXform.setMaxChunksInFlight(3);
+
+    String bufferedOutput = new String(bufferedXform.transform(response, null).getByteArray());
+    String streamingOutput = new String(streamingXform.transform(response, null).getByteArray());
+
+    assertThat(streamingOutput, is(bufferedOutput));
+    verifyDefaults("1", streamingOutput);
+    verifyDefaults("25", streamingOutput);
+  }
+
+  @Test
+  public void testStreamingWritesChunksInOrderWithBoundedChunksInFlight() throws Exception {
+    SourceResponse response = givenSourceResponse(givenMetacards(40));
+
+    AtomicInteger marshalled = new AtomicInteger();
+    MetacardMarshaller mockMetacardMarshaller = mock(MetacardMarshaller.class);
+    when(mockMetacardMarshaller.marshal(any(Metacard.class), any(Map.class)))
+        .thenAnswer(
+            invocation -> {
+              marshalled.incrementAndGet();
+              return "<id>" + ((Metacard) invocation.getArgument(0)).getId() + "</id>";
+            });
+
+    XmlResponseQueueTransformer xrqt =
+        new XmlResponseQueueTransformer(
+            parser, new PrintWriterProviderImpl(), mockMetacardMarshaller, getMimeType());
+    xrqt.setThreshold(2);
+    xrqt.setMaxChunksInFlight(3);
+
+    BinaryContent content = xrqt.transform(response, null);
+
+    // the chunk being read and the chunks in flight behind it
+    assertThat(marshalled.get(), lessThanOrEqualTo(8));
+
+    String output = new String(content.getByteArray());
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 40; i++) {
+      expected.append("<id>id").append(i).append("</id>");
+    }
+    assertThat(output, containsString(expected.toString()));
+    assertThat(marshalled.get(), is(40));
+  }
+
+  @Test(expected = IOException.class)
+  public void testStreamingFailureAfterFirstChunk() throws Exception {
+    SourceResponse response = givenSourceResponse(givenMetacards(10));
+
+    MetacardMarshaller mockMetacardMarshaller = mock(MetacardMarshaller.class);
+    when(mockMetacardMarshaller.marshal(any(Metacard.class), any(Map.class)))
+        .thenAnswer(
+            invocation -> {
+              String id = ((Metacard) invocation.getArgument(0)).getId();
+              if ("id7".equals(id)) {
+                throw new XmlPullParserException("");
+              }
+              return "<id>" + id + "</id>";
+            });
+
+    XmlResponseQueueTransformer xrqt =
+        new XmlResponseQueueTransformer(
+            parser, new PrintWriterProviderImpl(), mockMetacardMarshaller, getMimeType());
+    xrqt.setThreshold(2);
+
+    BinaryContent content = xrqt.transform(response, null);
+
+    // then exception
+    content.getByteArray();
+  }
+
   /** @return */
   private MetacardType getMetacardTypeStub(String name, Set<AttributeDescriptor> descriptors) {
 
@@ -558,6 +645,14 @@ private SourceResponseImpl givenSourceResponse(Metacard... metacards) {
     return new SourceResponseImpl(null, results);
   }
 
+  private Metacard[] givenMetacards(int count) {
+    Metacard[] metacards = new Metacard[count];
+    for (int i = 0; i < count; i++) {
+      metacards[i] = new MetacardStub("source" + i, "id" + i);
+    }
+    return metacards;
+  }
+
   private SourceResponse givenMetacardTypeName(String metacardTypeName) {
     MetacardType type = getMetacardTypeStub(metacardTypeName, new HashSet<AttributeDescriptor>());
 
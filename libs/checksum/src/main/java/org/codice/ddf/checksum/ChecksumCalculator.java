@@ -0,0 +1,38 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.checksum;
+
+/**
+ * Calculates a checksum incrementally from content that is being read for another purpose, so that
+ * the content does not have to be read a second time to calculate its checksum.
+ */
+public interface ChecksumCalculator {
+
+  /**
+   * Updates the checksum with the next bytes of the content
+   *
+   * @param bytes buffer holding the bytes
+   * @param offset offset of the first byte in the buffer
+   * @param length number of bytes
+   */
+  void update(byte[] bytes, int offset, int length);
+
+  /**
+   * Returns the checksum of all bytes the checksum was updated with. It is the same value {@link
+   * ChecksumProvider#calculateChecksum(java.io.InputStream)} returns for the same content.
+   *
+   * @return calculated checksum value
+   */
+  String getChecksum();
+}
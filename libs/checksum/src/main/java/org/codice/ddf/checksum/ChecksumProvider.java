@@ -27,6 +27,17 @@ public interface ChecksumProvider {
    */
   String calculateChecksum(InputStream inputStream) throws IOException, NoSuchAlgorithmException;
 
+  /**
+   * Creates a {@link ChecksumCalculator} for checksums calculated while the content is read for
+   * another purpose
+   *
+   * @return a new calculator, or {@code null} if checksums can only be calculated from an {@link
+   *     InputStream}
+   */
+  default ChecksumCalculator newChecksumCalculator() throws NoSuchAlgorithmException {
+    return null;
+  }
+
   /**
    * Returns identifier for check sum algorithm
    *
@@ -19,6 +19,7 @@
 import java.util.zip.Adler32;
 import java.util.zip.CheckedInputStream;
 import org.codice.ddf.checksum.AbstractChecksumProvider;
+import org.codice.ddf.checksum.ChecksumCalculator;
 
 /**
  * The Adler32 checksum algorithm is nearly as reliable as CRC32 but is significantly faster. For
@@ -47,6 +48,23 @@ public String calculateChecksum(InputStream inputStream)
     return Long.toHexString(checksumValue);
   }
 
+  @Override
+  public ChecksumCalculator newChecksumCalculator() {
+    Adler32 checksum = new Adler32();
+
+    return new ChecksumCalculator() {
+      @Override
+      public void update(byte[] bytes, int offset, int length) {
+        checksum.update(bytes, offset, length);
+      }
+
+      @Override
+      public String getChecksum() {
+        return Long.toHexString(checksum.getValue());
+      }
+    };
+  }
+
   @Override
   public String getChecksumAlgorithm() {
     return DIGEST_ALGORITHM;
@@ -15,9 +15,12 @@
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.codice.ddf.checksum.AbstractChecksumProvider;
+import org.codice.ddf.checksum.ChecksumCalculator;
 
 public class Sha256ChecksumProvider extends AbstractChecksumProvider {
 
@@ -33,6 +36,23 @@ public String calculateChecksum(InputStream inputStream)
     return DigestUtils.sha256Hex(inputStream);
   }
 
+  @Override
+  public ChecksumCalculator newChecksumCalculator() throws NoSuchAlgorithmException {
+    MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+
+    return new ChecksumCalculator() {
+      @Override
+      public void update(byte[] bytes, int offset, int length) {
+        digest.update(bytes, offset, length);
+      }
+
+      @Override
+      public String getChecksum() {
+        return Hex.encodeHexString(digest.digest());
+      }
+    };
+  }
+
   @Override
   public String getChecksumAlgorithm() {
     return DIGEST_ALGORITHM;
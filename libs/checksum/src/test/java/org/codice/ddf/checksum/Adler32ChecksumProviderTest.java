@@ -23,6 +23,7 @@
 import java.io.ObjectOutputStream;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import org.apache.commons.io.IOUtils;
 import org.codice.ddf.checksum.impl.Adler32ChecksumProvider;
 import org.junit.Assert;
 import org.junit.Before;
@@ -81,6 +82,22 @@ public void testCalculateChecksumObject() throws IOException, NoSuchAlgorithmExc
     Assert.assertThat(checksumValue, is(checksumCompareHash));
   }
 
+  @Test
+  public void testChecksumCalculator() throws IOException, NoSuchAlgorithmException {
+    final char[] chars = new char[1024 * 100];
+    Arrays.fill(chars, 'a');
+    byte[] bytes = IOUtils.toByteArray(getInputStreamFromObject(chars));
+
+    ChecksumCalculator checksumCalculator = checksumProvider.newChecksumCalculator();
+    for (int offset = 0; offset < bytes.length; offset += 4096) {
+      checksumCalculator.update(bytes, offset, Math.min(4096, bytes.length - offset));
+    }
+
+    assertThat(
+        checksumCalculator.getChecksum(),
+        is(checksumProvider.calculateChecksum(new ByteArrayInputStream(bytes))));
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testCalculateChecksumWithNullInputStream()
       throws IOException, NoSuchAlgorithmException {
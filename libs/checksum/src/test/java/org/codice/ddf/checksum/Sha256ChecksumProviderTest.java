@@ -22,6 +22,7 @@
 import java.io.InputStream;
 import java.io.ObjectOutputStream;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import org.codice.ddf.checksum.impl.Sha256ChecksumProvider;
 import org.junit.Assert;
 import org.junit.Before;
@@ -82,6 +83,21 @@ public void testCalculateChecksumObject() throws IOException, NoSuchAlgorithmExc
         checksumValue, is("7b42b8b57b09e1f451a6cf6b63b35724520f46f7f927dbae7f6ab209128800ff"));
   }
 
+  @Test
+  public void testChecksumCalculator() throws IOException, NoSuchAlgorithmException {
+    byte[] bytes = new byte[1024 * 100];
+    Arrays.fill(bytes, (byte) 'a');
+
+    ChecksumCalculator checksumCalculator = checksumProvider.newChecksumCalculator();
+    for (int offset = 0; offset < bytes.length; offset += 4096) {
+      checksumCalculator.update(bytes, offset, Math.min(4096, bytes.length - offset));
+    }
+
+    assertThat(
+        checksumCalculator.getChecksum(),
+        is(checksumProvider.calculateChecksum(new ByteArrayInputStream(bytes))));
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testCalculateChecksumWithNullInputStream()
       throws IOException, NoSuchAlgorithmException {
@@ -45,6 +45,8 @@ public class KlvContext {
 
   private final Map<String, KlvDataElement> keyToDataElementMap;
 
+  private volatile KlvKeyTable keyTable;
+
   /**
    * Constructs a {@code KlvContext} containing the properties of a specific KLV-encoded data set.
    *
@@ -95,6 +97,7 @@ public void addDataElement(final KlvDataElement dataElement) {
     Preconditions.checkArgument(dataElement != null, "The data element cannot be null.");
     nameToDataElementMap.put(dataElement.getName(), dataElement);
     keyToDataElementMap.put(dataElement.getKeyAsString(), dataElement);
+    keyTable = null;
   }
 
   /**
@@ -111,6 +114,7 @@ public void addDataElements(final Collection<? extends KlvDataElement> dataEleme
           nameToDataElementMap.put(dataElement.getName(), dataElement);
           keyToDataElementMap.put(dataElement.getKeyAsString(), dataElement);
         });
+    keyTable = null;
   }
 
   public KeyLength getKeyLength() {
@@ -157,4 +161,17 @@ public KlvDataElement getDataElementByName(final String name) {
   Map<String, KlvDataElement> getKeyToDataElementMap() {
     return keyToDataElementMap;
   }
+
+  /**
+   * Returns a table of the data elements in this context by key, built the first time it is needed
+   * after a data element is added.
+   */
+  KlvKeyTable getKeyTable() {
+    KlvKeyTable table = keyTable;
+    if (table == null) {
+      table = new KlvKeyTable(keyLength.value(), keyToDataElementMap.values());
+      keyTable = table;
+    }
+    return table;
+  }
 }
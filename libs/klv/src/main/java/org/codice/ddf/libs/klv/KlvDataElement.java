@@ -59,6 +59,24 @@ public final String getName() {
 
   protected abstract void decodeValue(Klv klv);
 
+  /**
+   * Decodes the value of {@code klv} as this data element describes, without storing it in this
+   * data element. Unlike {@link #getValue()}, it can be used with the data elements of a shared
+   * {@link KlvContext}, such as those handed to a {@link KlvVisitor}.
+   *
+   * <p>The default implementation decodes the value into a copy of this data element. Subclasses
+   * should override it to decode the value directly.
+   *
+   * @param klv the encoded data element
+   * @return the decoded value
+   */
+  @SuppressWarnings("unchecked")
+  public T decode(final Klv klv) {
+    final KlvDataElement<T> dataElement = copy();
+    dataElement.decodeValue(klv);
+    return dataElement.getValue();
+  }
+
   public T getValue() {
     return value;
   }
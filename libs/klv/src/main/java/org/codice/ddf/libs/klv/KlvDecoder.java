@@ -14,13 +14,25 @@
 package org.codice.ddf.libs.klv;
 
 import com.google.common.base.Preconditions;
-import java.util.List;
-import java.util.Map;
-import javax.xml.bind.DatatypeConverter;
+import java.nio.ByteBuffer;
+import java.util.function.BiConsumer;
 import org.codice.ddf.libs.klv.data.Klv;
+import org.codice.ddf.libs.klv.data.set.KlvLocalSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-/** Decodes bytes that contain KLV-encoded data. */
+/**
+ * Decodes bytes that contain KLV-encoded data.
+ *
+ * <p>The data elements are read in place: a single {@link Klv} is pointed at each in turn, and its
+ * key is looked up in the {@link KlvContext} without being copied. {@link #decode(ByteBuffer,
+ * KlvVisitor)} hands each data element to a visitor as it is read, so nothing is allocated per data
+ * element; the other {@code decode} methods copy the data elements they find into a new {@code
+ * KlvContext}.
+ */
 public class KlvDecoder {
+  private static final Logger LOGGER = LoggerFactory.getLogger(KlvDecoder.class);
+
   private final KlvContext klvContext;
 
   /**
@@ -51,40 +63,112 @@ public KlvDecoder(final KlvContext klvContext) {
    */
   public KlvContext decode(final byte[] klvBytes) throws KlvDecodingException {
     Preconditions.checkArgument(klvBytes != null, "The array of bytes to decode cannot be null.");
+    return decode(ByteBuffer.wrap(klvBytes));
+  }
 
-    List<Klv> klvDataElements;
-
-    try {
-      klvDataElements =
-          Klv.bytesToList(
-              klvBytes,
-              0,
-              klvBytes.length,
-              klvContext.getKeyLength(),
-              klvContext.getLengthEncoding());
-    } catch (RuntimeException e) {
-      throw new KlvDecodingException(
-          String.format(
-              "Could not decode KLV using the given key length %s and length encoding %s",
-              klvContext.getKeyLength(), klvContext.getLengthEncoding()),
-          e);
-    }
+  /**
+   * Decodes the KLV data between the position and the limit of {@code klvBuffer} the same way as
+   * {@link #decode(byte[])}. The position of the buffer is not changed.
+   *
+   * @param klvBuffer buffer encoding data in KLV format
+   * @return a new {@code KlvContext} containing the decoded KLV data elements
+   * @throws IllegalArgumentException if {@code klvBuffer} is null
+   * @throws KlvDecodingException if the KLV cannot be decoded using the given context information
+   */
+  public KlvContext decode(final ByteBuffer klvBuffer) throws KlvDecodingException {
+    Preconditions.checkArgument(klvBuffer != null, "The buffer to decode cannot be null.");
 
     final KlvContext decodedContext =
         new KlvContext(klvContext.getKeyLength(), klvContext.getLengthEncoding());
-    final Map<String, KlvDataElement> keyToDataElementMap = klvContext.getKeyToDataElementMap();
 
-    klvDataElements.forEach(
-        klv -> {
-          final String key = DatatypeConverter.printHexBinary(klv.getFullKey());
+    walk(
+        klvBuffer,
+        (dataElement, klv) -> {
+          final KlvDataElement dataElementCopy = dataElement.copy();
+          dataElementCopy.decodeValue(klv);
+          decodedContext.addDataElement(dataElementCopy);
+        });
+
+    return decodedContext;
+  }
+
+  /**
+   * Decodes the KLV data between the position and the limit of {@code klvBuffer}, handing each data
+   * element that is in the {@link KlvContext} to {@code visitor} as it is read. Local sets given in
+   * the {@code KlvContext} are decoded recursively; a local set that cannot be decoded is skipped
+   * from the point of the error, as it is by {@link #decode(byte[])}. The position of the buffer is
+   * not changed.
+   *
+   * @param klvBuffer buffer encoding data in KLV format
+   * @param visitor the visitor to hand the data elements to
+   * @throws IllegalArgumentException if any of the arguments are null
+   * @throws KlvDecodingException if the KLV cannot be decoded using the given context information
+   */
+  public void decode(final ByteBuffer klvBuffer, final KlvVisitor visitor)
+      throws KlvDecodingException {
+    Preconditions.checkArgument(klvBuffer != null, "The buffer to decode cannot be null.");
+    Preconditions.checkArgument(visitor != null, "The visitor cannot be null.");
 
-          if (keyToDataElementMap.containsKey(key)) {
-            final KlvDataElement dataElementCopy = keyToDataElementMap.get(key).copy();
-            dataElementCopy.decodeValue(klv);
-            decodedContext.addDataElement(dataElementCopy);
+    walk(
+        klvBuffer,
+        (dataElement, klv) -> {
+          if (dataElement instanceof KlvLocalSet) {
+            visitLocalSet((KlvLocalSet) dataElement, klv, visitor);
+          } else {
+            visitor.visit(dataElement, klv);
           }
         });
+  }
 
-    return decodedContext;
+  private static void visitLocalSet(
+      final KlvLocalSet localSet, final Klv klv, final KlvVisitor visitor) {
+    visitor.startLocalSet(localSet);
+    try {
+      new KlvDecoder(localSet.getLocalSetKlvContext()).decode(klv.getValueAsByteBuffer(), visitor);
+    } catch (KlvDecodingException e) {
+      LOGGER.debug("Couldn't decode the KLV local set named {}", localSet.getName(), e);
+    } finally {
+      visitor.endLocalSet(localSet);
+    }
+  }
+
+  private void walk(final ByteBuffer klvBuffer, final BiConsumer<KlvDataElement, Klv> consumer)
+      throws KlvDecodingException {
+    final byte[] bytes;
+    int offset;
+    final int limit;
+
+    if (klvBuffer.hasArray()) {
+      bytes = klvBuffer.array();
+      offset = klvBuffer.arrayOffset() + klvBuffer.position();
+      limit = klvBuffer.arrayOffset() + klvBuffer.limit();
+    } else {
+      bytes = new byte[klvBuffer.remaining()];
+      klvBuffer.duplicate().get(bytes);
+      offset = 0;
+      limit = bytes.length;
+    }
+
+    final KlvKeyTable keyTable = klvContext.getKeyTable();
+    final Klv klv = new Klv();
+
+    while (offset < limit) {
+      try {
+        offset =
+            klv.wrap(
+                bytes, offset, limit, klvContext.getKeyLength(), klvContext.getLengthEncoding());
+      } catch (RuntimeException e) {
+        throw new KlvDecodingException(
+            String.format(
+                "Could not decode KLV using the given key length %s and length encoding %s",
+                klvContext.getKeyLength(), klvContext.getLengthEncoding()),
+            e);
+      }
+
+      final KlvDataElement dataElement = keyTable.get(klv);
+      if (dataElement != null) {
+        consumer.accept(dataElement, klv);
+      }
+    }
   }
 }
@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.libs.klv;
+
+import java.util.Collection;
+import org.codice.ddf.libs.klv.data.Klv;
+
+/**
+ * Finds the {@link KlvDataElement} for the key of a {@link Klv} without copying the key or turning
+ * it into a string. The keys are held as the same pair of longs that {@link
+ * Klv#getKeyMostSignificantBits()} and {@link Klv#getKeyLeastSignificantBits()} return, in an
+ * open-addressing table with linear probing.
+ */
+class KlvKeyTable {
+  private final int keyLength;
+
+  private final long[] mostSignificantBits;
+
+  private final long[] leastSignificantBits;
+
+  private final KlvDataElement[] dataElements;
+
+  private final int mask;
+
+  /**
+   * Builds a table of the given data elements. Data elements whose keys are not {@code keyLength}
+   * bytes long can never match a key of the context and are left out.
+   */
+  KlvKeyTable(final int keyLength, final Collection<KlvDataElement> dataElements) {
+    this.keyLength = keyLength;
+
+    // Keep the table at most half full so probe sequences stay short.
+    int capacity = Integer.highestOneBit(Math.max(dataElements.size(), 1) * 2) * 2;
+    this.mostSignificantBits = new long[capacity];
+    this.leastSignificantBits = new long[capacity];
+    this.dataElements = new KlvDataElement[capacity];
+    this.mask = capacity - 1;
+
+    dataElements.forEach(this::put);
+  }
+
+  /**
+   * Returns the data element with the key of the given KLV set.
+   *
+   * @param klv the KLV set
+   * @return the data element with the key of {@code klv}, or null if there is none
+   */
+  KlvDataElement get(final Klv klv) {
+    if (klv.getKeyLength().value() != keyLength) {
+      return null;
+    }
+
+    final long msb = klv.getKeyMostSignificantBits();
+    final long lsb = klv.getKeyLeastSignificantBits();
+    for (int i = index(msb, lsb); dataElements[i] != null; i = (i + 1) & mask) {
+      if (mostSignificantBits[i] == msb && leastSignificantBits[i] == lsb) {
+        return dataElements[i];
+      }
+    }
+    return null;
+  }
+
+  private void put(final KlvDataElement dataElement) {
+    final byte[] key = dataElement.keyBytes;
+    if (key.length != keyLength) {
+      return;
+    }
+
+    long msb = 0;
+    long lsb = 0;
+    for (byte b : key) {
+      msb = (msb << 8) | (lsb >>> 56);
+      lsb = (lsb << 8) | (b & 0xFF);
+    }
+
+    int i = index(msb, lsb);
+    while (dataElements[i] != null
+        && (mostSignificantBits[i] != msb || leastSignificantBits[i] != lsb)) {
+      i = (i + 1) & mask;
+    }
+    mostSignificantBits[i] = msb;
+    leastSignificantBits[i] = lsb;
+    dataElements[i] = dataElement;
+  }
+
+  private int index(final long msb, final long lsb) {
+    long hash = (msb * 31 + lsb) * 0x9E3779B97F4A7C15L;
+    return (int) (hash >>> 32) & mask;
+  }
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.libs.klv;
+
+import org.codice.ddf.libs.klv.data.Klv;
+import org.codice.ddf.libs.klv.data.numerical.KlvNumericalDataElement;
+import org.codice.ddf.libs.klv.data.set.KlvLocalSet;
+
+/**
+ * Receives the data elements found by {@link KlvDecoder#decode(java.nio.ByteBuffer, KlvVisitor)},
+ * in the order they appear in the encoded data.
+ *
+ * <p>Nothing is copied for the visitor: the {@link Klv} passed to {@link #visit} is a view of the
+ * encoded bytes that is reused for the next data element, so it is only valid during the call, and
+ * the {@link KlvDataElement} is the one in the {@link KlvContext} given to the decoder, which must
+ * not be modified. A visitor reads the value during the call with {@link KlvDataElement#decode},
+ * which leaves the data element as it is; the numerical data elements also decode it without
+ * boxing, with {@link KlvNumericalDataElement#decodeAsLong}, {@link
+ * KlvNumericalDataElement#decodeAsDouble} and {@link KlvNumericalDataElement#isErrorIndicated(Klv)}.
+ */
+public interface KlvVisitor {
+
+  /**
+   * Called for each data element in the encoded data whose key is in the {@link KlvContext}, apart
+   * from {@link KlvLocalSet}s, whose data elements are visited in turn between {@link
+   * #startLocalSet} and {@link #endLocalSet}.
+   *
+   * @param dataElement the data element in the context with the key of {@code klv}
+   * @param klv the encoded data element, valid only during the call
+   */
+  void visit(KlvDataElement<?> dataElement, Klv klv);
+
+  /**
+   * Called before the data elements of a local set are visited.
+   *
+   * @param localSet the local set in the context
+   */
+  default void startLocalSet(KlvLocalSet localSet) {}
+
+  /**
+   * Called after the data elements of a local set have been visited.
+   *
+   * @param localSet the local set in the context
+   */
+  default void endLocalSet(KlvLocalSet localSet) {}
+}
@@ -13,8 +13,8 @@
  */
 package org.codice.ddf.libs.klv.data;
 
-import com.google.common.base.Preconditions;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
@@ -38,6 +38,10 @@
  * fields unless there are fewer bytes actually given. In that case, the number of bytes given will
  * be used. This is to make the code more robust for reading corrupted data.
  *
+ * <p>A KLV set is a view of the bytes it was read from: neither its key nor its value is copied
+ * out of the array. A single instance can be pointed at one set after another with {@link #wrap},
+ * so a long array of sets can be read without creating an object for each.
+ *
  * @author Robert Harder
  * @author rharder # users.sourceforge.net
  * @version 0.3
@@ -92,73 +96,76 @@ public int value() {
     }
   }
 
+  private static final byte[] NO_BYTES = new byte[0];
+
   /** Number of bytes in key. */
-  private KeyLength keyLength;
+  private KeyLength keyLength = KeyLength.ONE_BYTE;
 
-  /** The key if the key length is greater than four bytes. */
-  private byte[] keyIfLong;
+  /** The first eight bytes of a sixteen-byte key, zero for shorter keys. */
+  private long keyMostSignificantBits;
 
-  /** The key if the key length is four bytes or fewer. */
-  private int keyIfShort;
+  /** The last eight bytes of a sixteen-byte key, or the whole of a shorter key. */
+  private long keyLeastSignificantBits;
 
   /**
    * The bytes from which the KLV set is made up. May include irrelevant bytes so that byte arrays
    * with offset and length specified separately so arrays can be passed around with a minimum of
    * copying.
    */
-  private byte[] value;
+  private byte[] bytes = NO_BYTES;
 
-  /**
-   * When instantiated by reading a byte array, this private field will record the offset of the
-   * next byte in the array where perhaps another KLV set begins. This is used by the {@link
-   * #bytesToList} method to create a list of KLV sets from a long byte array.
-   */
-  private int offsetAfterInstantiation;
+  /** The offset of the value in {@link #bytes}. */
+  private int valueOffset;
+
+  /** The number of bytes in the value. */
+  private int valueLength;
+
+  /** Creates an empty KLV set, to be pointed at the sets in a byte array with {@link #wrap}. */
+  public Klv() {}
 
   /**
-   * Creates a KLV set from the given byte array, the given offset in that array, the total length
-   * of the KLV set in the byte array, the specified key length, and the specified length field
-   * encoding.
-   *
-   * <p>If there are not as many bytes in the array as the length field suggests, as many bytes as
-   * possible will be stored as the value, and the length field will reflect the actual length.
+   * Points this KLV set at the set in the given byte array that starts at the given offset,
+   * assuming the specified key length and length field encoding. Nothing is copied: the key and
+   * value are read from the array.
    *
-   * @param theBytes The bytes that make up the entire KLV set
-   * @param offset The offset from beginning of theBytes
+   * @param theBytes The bytes that make up the KLV set
+   * @param offset The offset from beginning of theBytes where the set starts
+   * @param limit The offset in theBytes where the bytes that may belong to the set end
    * @param keyLength The number of bytes in the key.
    * @param lengthEncoding The length field encoding type.
-   * @throws IndexOutOfBoundsException If offset is out of range of the byte array.
+   * @return the offset in theBytes after the set, where perhaps another KLV set begins
+   * @throws IndexOutOfBoundsException If offset is out of range of the byte array, or there are
+   *     not as many bytes before the limit as the key, the length field or the value need
    */
-  private Klv(
+  public int wrap(
       final byte[] theBytes,
       final int offset,
+      final int limit,
       final KeyLength keyLength,
       final LengthEncoding lengthEncoding) {
-    Preconditions.checkElementIndex(
-        offset, theBytes.length, String.format(OUT_OF_RANGE_FORMAT, offset, theBytes.length));
+    if (offset < 0 || offset >= limit || limit > theBytes.length) {
+      throw new IndexOutOfBoundsException(
+          String.format(OUT_OF_RANGE_FORMAT, offset, theBytes.length));
+    }
 
     // These methods will interpret the byte array
     // and set the appropriate key length and length encoding flags.
     // setLength returns the offset of where the length field ends
-    // and the value portion begins. It also initializes an array in
-    // this.value of the appropriate length.
-    setKey(theBytes, offset, keyLength);
+    // and the value portion begins.
+    setKey(theBytes, offset, limit, keyLength);
 
     // Set length and verify enough bytes exist
-    // setLength(..) also establishes a this.value array.
-    final int valueOffset = setLength(theBytes, offset + keyLength.value(), lengthEncoding);
-    final int remaining = theBytes.length - valueOffset;
-    checkEnoughBytesRemaining(
-        remaining,
-        this.value.length,
-        String.format(
-            "Not enough bytes left in array (%d) for the declared length (%d).",
-            remaining, this.value.length));
-
-    System.arraycopy(theBytes, valueOffset, this.value, 0, this.value.length);
-
-    // Private field used when creating a list of KLVs from a long array.
-    this.offsetAfterInstantiation = valueOffset + this.value.length;
+    this.valueOffset = setLength(theBytes, offset + keyLength.value(), limit, lengthEncoding);
+    final int remaining = limit - this.valueOffset;
+    if (remaining < this.valueLength) {
+      throw new IndexOutOfBoundsException(
+          String.format(
+              "Not enough bytes left in array (%d) for the declared length (%d).",
+              remaining, this.valueLength));
+    }
+
+    this.bytes = theBytes;
+    return this.valueOffset + this.valueLength;
   }
 
   /**
@@ -171,29 +178,42 @@ public byte[] getFullKey() {
     final int length = this.keyLength.value;
     final byte[] key = new byte[length];
 
-    switch (this.keyLength) {
-      case ONE_BYTE:
-        key[0] = (byte) this.keyIfShort;
-        break;
+    for (int i = 0; i < length; i++) {
+      final int shift = (length - 1 - i) * 8;
+      key[i] =
+          (byte)
+              (shift < 64
+                  ? this.keyLeastSignificantBits >>> shift
+                  : this.keyMostSignificantBits >>> (shift - 64));
+    }
 
-      case TWO_BYTES:
-        key[0] = (byte) (this.keyIfShort >> 8);
-        key[1] = (byte) this.keyIfShort;
-        break;
+    return key;
+  }
 
-      case FOUR_BYTES:
-        key[0] = (byte) (this.keyIfShort >> 24);
-        key[1] = (byte) (this.keyIfShort >> 16);
-        key[2] = (byte) (this.keyIfShort >> 8);
-        key[3] = (byte) this.keyIfShort;
-        break;
+  /** Returns the number of bytes in the key. */
+  public KeyLength getKeyLength() {
+    return this.keyLength;
+  }
 
-      case SIXTEEN_BYTES:
-        System.arraycopy(this.keyIfLong, 0, key, 0, 16);
-        break;
-    }
+  /**
+   * Returns the first eight bytes of a sixteen-byte key as a big-endian long, or zero if the key
+   * is shorter than sixteen bytes. Together with {@link #getKeyLeastSignificantBits()} this allows
+   * keys to be compared without copying them.
+   *
+   * @return the most significant bits of the key
+   */
+  public long getKeyMostSignificantBits() {
+    return this.keyMostSignificantBits;
+  }
 
-    return key;
+  /**
+   * Returns the last eight bytes of a sixteen-byte key, or the whole of a shorter key, as an
+   * unsigned big-endian long.
+   *
+   * @return the least significant bits of the key
+   */
+  public long getKeyLeastSignificantBits() {
+    return this.keyLeastSignificantBits;
   }
 
   /**
@@ -202,7 +222,22 @@ public byte[] getFullKey() {
    * @return the value
    */
   public byte[] getValue() {
-    return Arrays.copyOf(this.value, this.value.length);
+    return Arrays.copyOfRange(this.bytes, this.valueOffset, this.valueOffset + this.valueLength);
+  }
+
+  /**
+   * Returns the value of this KLV set as a buffer that shares the underlying byte array, positioned
+   * at the start of the value.
+   *
+   * @return the value
+   */
+  public ByteBuffer getValueAsByteBuffer() {
+    return ByteBuffer.wrap(this.bytes, this.valueOffset, this.valueLength).slice();
+  }
+
+  /** Returns the number of bytes in the value. */
+  public int getValueLength() {
+    return this.valueLength;
   }
 
   /**
@@ -211,12 +246,7 @@ public byte[] getValue() {
    * @return the value as an 8-bit signed integer
    */
   public int getValueAs8bitSignedInt() {
-    final byte[] bytes = getValue();
-    byte value = 0;
-    if (bytes.length > 0) {
-      value = bytes[0];
-    }
-    return value;
+    return this.valueLength > 0 ? this.bytes[this.valueOffset] : 0;
   }
 
   /**
@@ -225,12 +255,7 @@ public int getValueAs8bitSignedInt() {
    * @return the value as an 8-bit unsigned integer
    */
   public int getValueAs8bitUnsignedInt() {
-    final byte[] bytes = getValue();
-    int value = 0;
-    if (bytes.length > 0) {
-      value = bytes[0] & 0xFF;
-    }
-    return value;
+    return this.valueLength > 0 ? this.bytes[this.valueOffset] & 0xFF : 0;
   }
 
   /**
@@ -239,14 +264,7 @@ public int getValueAs8bitUnsignedInt() {
    * @return the value as a 16-bit signed integer
    */
   public int getValueAs16bitSignedInt() {
-    final byte[] bytes = getValue();
-    final int length = bytes.length;
-    final int shortLen = length < 2 ? length : 2;
-    short value = 0;
-    for (int i = 0; i < shortLen; i++) {
-      value |= (bytes[i] & 0xFF) << (shortLen * 8 - i * 8 - 8);
-    }
-    return value;
+    return (short) getValueAsBigEndian(2);
   }
 
   /**
@@ -255,14 +273,7 @@ public int getValueAs16bitSignedInt() {
    * @return the value as a 16-bit unsigned integer
    */
   public int getValueAs16bitUnsignedInt() {
-    final byte[] bytes = getValue();
-    final int length = bytes.length;
-    final int shortLen = length < 2 ? length : 2;
-    int value = 0;
-    for (int i = 0; i < shortLen; i++) {
-      value |= (bytes[i] & 0xFF) << (shortLen * 8 - i * 8 - 8);
-    }
-    return value;
+    return (int) getValueAsBigEndian(2);
   }
 
   /**
@@ -273,14 +284,7 @@ public int getValueAs16bitUnsignedInt() {
    * @return the value as an int
    */
   public int getValueAs32bitInt() {
-    final byte[] bytes = getValue();
-    final int length = bytes.length;
-    final int shortLen = length < 4 ? length : 4;
-    int value = 0;
-    for (int i = 0; i < shortLen; i++) {
-      value |= (bytes[i] & 0xFF) << (shortLen * 8 - i * 8 - 8);
-    }
-    return value;
+    return (int) getValueAsBigEndian(4);
   }
 
   /**
@@ -291,14 +295,7 @@ public int getValueAs32bitInt() {
    * @return the value as a long
    */
   public long getValueAs64bitLong() {
-    final byte[] bytes = getValue();
-    final int length = bytes.length;
-    final int shortLen = length < 8 ? length : 8;
-    long value = 0;
-    for (int i = 0; i < shortLen; i++) {
-      value |= (long) (bytes[i] & 0xFF) << (shortLen * 8 - i * 8 - 8);
-    }
-    return value;
+    return getValueAsBigEndian(8);
   }
 
   /**
@@ -310,7 +307,7 @@ public long getValueAs64bitLong() {
    * @return the value as a float
    */
   public float getValueAsFloat() {
-    return this.getValue().length < 4 ? Float.NaN : Float.intBitsToFloat(getValueAs32bitInt());
+    return this.valueLength < 4 ? Float.NaN : Float.intBitsToFloat(getValueAs32bitInt());
   }
 
   /**
@@ -322,7 +319,7 @@ public float getValueAsFloat() {
    * @return the value as a double
    */
   public double getValueAsDouble() {
-    return this.getValue().length < 8 ? Double.NaN : Double.longBitsToDouble(getValueAs64bitLong());
+    return this.valueLength < 8 ? Double.NaN : Double.longBitsToDouble(getValueAs64bitLong());
   }
 
   /**
@@ -334,7 +331,17 @@ public double getValueAsDouble() {
    *     encoding
    */
   public String getValueAsString(final String charsetName) throws UnsupportedEncodingException {
-    return new String(getValue(), charsetName);
+    return new String(this.bytes, this.valueOffset, this.valueLength, charsetName);
+  }
+
+  /** Returns up to the first {@code maxBytes} bytes of the value as an unsigned big-endian long. */
+  private long getValueAsBigEndian(final int maxBytes) {
+    final int length = Math.min(this.valueLength, maxBytes);
+    long value = 0;
+    for (int i = 0; i < length; i++) {
+      value = (value << 8) | (this.bytes[this.valueOffset + i] & 0xFF);
+    }
+    return value;
   }
 
   /**
@@ -344,104 +351,78 @@ public String getValueAsString(final String charsetName) throws UnsupportedEncod
    *
    * @param inTheseBytes The byte array containing the key (and other stuff)
    * @param offset The offset where to look for the key
+   * @param limit The offset where the bytes that may belong to the set end
    * @param keyLength The length of the key
-   * @return <tt>this</tt> to aid in stringing together commands
-   * @throws IndexOutOfBoundsException If offset is invalid
+   * @throws IndexOutOfBoundsException If there are not enough bytes for the key
    */
-  private Klv setKey(final byte[] inTheseBytes, final int offset, final KeyLength keyLength) {
-    Preconditions.checkElementIndex(
-        offset,
-        inTheseBytes.length,
-        String.format(OUT_OF_RANGE_FORMAT, offset, inTheseBytes.length));
-
-    final int remaining = inTheseBytes.length - offset;
-    checkEnoughBytesRemaining(
-        remaining,
-        keyLength.value(),
-        String.format("Not enough bytes for %d-byte key.", keyLength.value()));
+  private void setKey(
+      final byte[] inTheseBytes, final int offset, final int limit, final KeyLength keyLength) {
+    final int length = keyLength.value();
+    if (limit - offset < length) {
+      throw new IndexOutOfBoundsException(
+          String.format("Not enough bytes for %d-byte key.", length));
+    }
 
     // Set key according to length of key
     this.keyLength = keyLength;
-    switch (keyLength) {
-      case ONE_BYTE:
-        this.keyIfShort = inTheseBytes[offset] & 0xFF;
-        this.keyIfLong = null;
-        break;
-
-      case TWO_BYTES:
-        this.keyIfShort = (inTheseBytes[offset] & 0xFF) << 8;
-        this.keyIfShort |= inTheseBytes[offset + 1] & 0xFF;
-        this.keyIfLong = null;
-        break;
-
-      case FOUR_BYTES:
-        this.keyIfShort = (inTheseBytes[offset] & 0xFF) << 24;
-        this.keyIfShort |= (inTheseBytes[offset + 1] & 0xFF) << 16;
-        this.keyIfShort |= (inTheseBytes[offset + 2] & 0xFF) << 8;
-        this.keyIfShort |= inTheseBytes[offset + 3] & 0xFF;
-        this.keyIfLong = null;
-        break;
-
-      case SIXTEEN_BYTES:
-        this.keyIfLong = new byte[16];
-        System.arraycopy(inTheseBytes, offset, this.keyIfLong, 0, 16);
-        this.keyIfShort = 0;
-        break;
+    long mostSignificantBits = 0;
+    long leastSignificantBits = 0;
+    for (int i = 0; i < length; i++) {
+      mostSignificantBits = (mostSignificantBits << 8) | (leastSignificantBits >>> 56);
+      leastSignificantBits = (leastSignificantBits << 8) | (inTheseBytes[offset + i] & 0xFF);
     }
-    return this;
+    this.keyMostSignificantBits = mostSignificantBits;
+    this.keyLeastSignificantBits = leastSignificantBits;
   }
 
   /**
    * Sets the length according to the length found in the byte array and of the given length
-   * encoding. If <tt>lengthEncoding</tt> is different than what was previously set for this KLV,
-   * then this KLV's length encoding parameter will be updated. An array of the appropriate length
-   * will be initialized.
+   * encoding.
    *
    * @param inTheseBytes The byte array containing the key (and other stuff)
-   * @param offset The offset where to look for the key
-   * @param lengthEncoding The length of the key
+   * @param offset The offset where to look for the length field
+   * @param limit The offset where the bytes that may belong to the set end
+   * @param lengthEncoding The length encoding
    * @return Offset where value field would begin after length
-   * @throws IndexOutOfBoundsException If offset is invalid
+   * @throws IndexOutOfBoundsException If there are not enough bytes for the length field
    */
   private int setLength(
-      final byte[] inTheseBytes, final int offset, final LengthEncoding lengthEncoding) {
-    Preconditions.checkElementIndex(
-        offset,
-        inTheseBytes.length,
-        String.format(OUT_OF_RANGE_FORMAT, offset, inTheseBytes.length));
+      final byte[] inTheseBytes,
+      final int offset,
+      final int limit,
+      final LengthEncoding lengthEncoding) {
+    if (offset >= limit) {
+      throw new IndexOutOfBoundsException(
+          String.format(OUT_OF_RANGE_FORMAT, offset, inTheseBytes.length));
+    }
 
     int length = 0;
     int valueOffset = 0;
-    final int remaining = inTheseBytes.length - offset;
-    final String lengthEncodingErrorMessage =
-        String.format("Not enough bytes for %s length encoding.", lengthEncoding);
+    final int remaining = limit - offset;
 
     switch (lengthEncoding) {
       case ONE_BYTE:
-        checkEnoughBytesRemaining(remaining, 1, lengthEncodingErrorMessage);
+        checkLengthFieldBytes(remaining, 1, lengthEncoding);
 
         length = inTheseBytes[offset] & 0xFF;
-        setLength(length, lengthEncoding);
         valueOffset = offset + 1;
         break;
 
       case TWO_BYTES:
-        checkEnoughBytesRemaining(remaining, 2, lengthEncodingErrorMessage);
+        checkLengthFieldBytes(remaining, 2, lengthEncoding);
 
         length = (inTheseBytes[offset] & 0xFF) << 8;
         length |= inTheseBytes[offset + 1] & 0xFF;
-        setLength(length, lengthEncoding);
         valueOffset = offset + 2;
         break;
 
       case FOUR_BYTES:
-        checkEnoughBytesRemaining(remaining, 4, lengthEncodingErrorMessage);
+        checkLengthFieldBytes(remaining, 4, lengthEncoding);
 
         length = (inTheseBytes[offset] & 0xFF) << 24;
         length |= (inTheseBytes[offset + 1] & 0xFF) << 16;
         length |= (inTheseBytes[offset + 2] & 0xFF) << 8;
         length |= inTheseBytes[offset + 3] & 0xFF;
-        setLength(length, lengthEncoding);
         valueOffset = offset + 4;
         break;
 
@@ -455,46 +436,32 @@ private int setLength(
         // Using more than four bytes to specify the length
         // is not supported in this code, though it's not
         // exactly illegal KLV notation either.
-        checkEnoughBytesRemaining(remaining, 1, lengthEncodingErrorMessage);
+        checkLengthFieldBytes(remaining, 1, lengthEncoding);
         final int ber = inTheseBytes[offset] & 0xFF;
 
         // Easy case: low seven bits is length
         if ((ber & 0x80) == 0) {
-          setLength(ber, lengthEncoding);
+          length = ber;
           valueOffset = offset + 1;
         } else {
           final int following = ber & 0x7F; // Low seven bits
-          checkEnoughBytesRemaining(remaining, following + 1, lengthEncodingErrorMessage);
+          checkLengthFieldBytes(remaining, following + 1, lengthEncoding);
 
           for (int i = 0; i < following; i++) {
             length |= (inTheseBytes[offset + 1 + i] & 0xFF) << (following - 1 - i) * 8;
           }
-          setLength(length, lengthEncoding);
           valueOffset = offset + 1 + following;
         }
         break;
     }
 
-    return valueOffset;
-  }
-
-  /**
-   * Sets the length of the value, copying or truncating the old value as appropriate for the new
-   * length.
-   *
-   * @param length The new number of bytes in the Value
-   * @param lengthEncoding The length encoding to use
-   * @return <tt>this</tt> to aid in stringing commands together
-   */
-  private Klv setLength(final int length, final LengthEncoding lengthEncoding) {
-    // Copy old value
-    final byte[] bytes = new byte[length];
-    if (this.value != null) {
-      System.arraycopy(value, 0, bytes, 0, Math.min(length, this.value.length));
+    if (length < 0) {
+      throw new IndexOutOfBoundsException(
+          String.format("Declared length (%d) is not supported.", length & 0xFFFFFFFFL));
     }
-    this.value = bytes;
+    this.valueLength = length;
 
-    return this;
+    return valueOffset;
   }
 
   /**
@@ -518,20 +485,21 @@ public static List<Klv> bytesToList(
 
     int currentPos = offset;
     while (currentPos < offset + length) {
-      final Klv klv = new Klv(bytes, currentPos, keyLength, lengthEncoding);
-      currentPos = klv.offsetAfterInstantiation;
+      final Klv klv = new Klv();
+      currentPos = klv.wrap(bytes, currentPos, offset + length, keyLength, lengthEncoding);
       list.add(klv);
     }
 
     return list;
   }
 
-  private void checkEnoughBytesRemaining(
+  private static void checkLengthFieldBytes(
       final int actualNumberOfBytesRemaining,
       final int minimumExpectedNumberOfBytesRemaining,
-      final String message) {
+      final LengthEncoding lengthEncoding) {
     if (actualNumberOfBytesRemaining < minimumExpectedNumberOfBytesRemaining) {
-      throw new IndexOutOfBoundsException(message);
+      throw new IndexOutOfBoundsException(
+          String.format("Not enough bytes for %s length encoding.", lengthEncoding));
     }
   }
 }
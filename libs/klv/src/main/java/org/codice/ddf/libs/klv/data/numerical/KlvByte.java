@@ -41,7 +41,22 @@ public KlvByte(final byte[] key, final String name, Optional<Byte> errorIndicato
 
   @Override
   protected void decodeValue(final Klv klv) {
-    value = (byte) klv.getValueAs8bitSignedInt();
+    value = decode(klv);
+  }
+
+  @Override
+  public Byte decode(final Klv klv) {
+    return (byte) klv.getValueAs8bitSignedInt();
+  }
+
+  @Override
+  public long decodeAsLong(final Klv klv) {
+    return klv.getValueAs8bitSignedInt();
+  }
+
+  @Override
+  public double decodeAsDouble(final Klv klv) {
+    return klv.getValueAs8bitSignedInt();
   }
 
   @Override
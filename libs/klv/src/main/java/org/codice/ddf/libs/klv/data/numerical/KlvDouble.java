@@ -43,7 +43,22 @@ public KlvDouble(final byte[] key, final String name, Optional<Double> errorIndi
 
   @Override
   protected void decodeValue(final Klv klv) {
-    value = klv.getValueAsDouble();
+    value = decode(klv);
+  }
+
+  @Override
+  public Double decode(final Klv klv) {
+    return klv.getValueAsDouble();
+  }
+
+  @Override
+  public long decodeAsLong(final Klv klv) {
+    return (long) klv.getValueAsDouble();
+  }
+
+  @Override
+  public double decodeAsDouble(final Klv klv) {
+    return klv.getValueAsDouble();
   }
 
   @Override
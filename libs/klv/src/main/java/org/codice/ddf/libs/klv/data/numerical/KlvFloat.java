@@ -43,7 +43,22 @@ public KlvFloat(final byte[] key, final String name, Optional<Float> errorIndica
 
   @Override
   protected void decodeValue(final Klv klv) {
-    value = klv.getValueAsFloat();
+    value = decode(klv);
+  }
+
+  @Override
+  public Float decode(final Klv klv) {
+    return klv.getValueAsFloat();
+  }
+
+  @Override
+  public long decodeAsLong(final Klv klv) {
+    return (long) klv.getValueAsFloat();
+  }
+
+  @Override
+  public double decodeAsDouble(final Klv klv) {
+    return klv.getValueAsFloat();
   }
 
   @Override
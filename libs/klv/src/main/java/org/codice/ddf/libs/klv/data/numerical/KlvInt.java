@@ -41,7 +41,22 @@ public KlvInt(final byte[] key, final String name, Optional<Integer> errorIndica
 
   @Override
   protected void decodeValue(final Klv klv) {
-    value = klv.getValueAs32bitInt();
+    value = decode(klv);
+  }
+
+  @Override
+  public Integer decode(final Klv klv) {
+    return klv.getValueAs32bitInt();
+  }
+
+  @Override
+  public long decodeAsLong(final Klv klv) {
+    return klv.getValueAs32bitInt();
+  }
+
+  @Override
+  public double decodeAsDouble(final Klv klv) {
+    return klv.getValueAs32bitInt();
   }
 
   @Override
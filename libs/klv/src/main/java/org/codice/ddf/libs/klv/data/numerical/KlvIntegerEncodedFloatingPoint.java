@@ -129,6 +129,26 @@ protected void decodeValue(final Klv klv) {
             actualRangeMax);
   }
 
+  @Override
+  public Double decode(final Klv klv) {
+    return decodeAsDouble(klv);
+  }
+
+  @Override
+  public long decodeAsLong(final Klv klv) {
+    return (long) decodeAsDouble(klv);
+  }
+
+  @Override
+  public double decodeAsDouble(final Klv klv) {
+    return convert(
+        klvRawDataValue.decodeAsLong(klv),
+        encodedRangeMin,
+        encodedRangeMax,
+        actualRangeMin,
+        actualRangeMax);
+  }
+
   @Override
   protected KlvIntegerEncodedFloatingPoint copy() {
     return new KlvIntegerEncodedFloatingPoint(
@@ -154,4 +174,20 @@ public boolean isErrorIndicated() {
 
     return klvRawDataValue != null && klvRawDataValue.isErrorIndicated();
   }
+
+  /**
+   * If there is a floating point error indicator, then use it. Otherwise, check the raw data for an
+   * error indicator.
+   *
+   * @param klv the encoded data element
+   * @return true if an error indicator is encoded
+   */
+  @Override
+  public boolean isErrorIndicated(final Klv klv) {
+    if (errorIndicatorValue.isPresent()) {
+      return super.isErrorIndicated(klv);
+    }
+
+    return klvRawDataValue.isErrorIndicated(klv);
+  }
 }
@@ -41,7 +41,22 @@ public KlvLong(final byte[] key, final String name, Optional<Long> errorIndicato
 
   @Override
   protected void decodeValue(final Klv klv) {
-    value = klv.getValueAs64bitLong();
+    value = decode(klv);
+  }
+
+  @Override
+  public Long decode(final Klv klv) {
+    return klv.getValueAs64bitLong();
+  }
+
+  @Override
+  public long decodeAsLong(final Klv klv) {
+    return klv.getValueAs64bitLong();
+  }
+
+  @Override
+  public double decodeAsDouble(final Klv klv) {
+    return klv.getValueAs64bitLong();
   }
 
   @Override
@@ -55,6 +55,39 @@ public KlvNumericalDataElement(
   @Override
   protected abstract KlvNumericalDataElement<T> copy();
 
+  /**
+   * Decodes the value of {@code klv} as a {@code long}, without storing it in this data element or
+   * boxing it. The built-in numerical data elements decode it without allocating.
+   *
+   * @param klv the encoded data element
+   * @return the decoded value, converted as by {@link Number#longValue()}
+   */
+  public long decodeAsLong(final Klv klv) {
+    return decode(klv).longValue();
+  }
+
+  /**
+   * Decodes the value of {@code klv} as a {@code double}, without storing it in this data element
+   * or boxing it. The built-in numerical data elements decode it without allocating.
+   *
+   * @param klv the encoded data element
+   * @return the decoded value, converted as by {@link Number#doubleValue()}
+   */
+  public double decodeAsDouble(final Klv klv) {
+    return decode(klv).doubleValue();
+  }
+
+  /**
+   * Returns whether the value of {@code klv} is the error indicator value, without storing it in
+   * this data element.
+   *
+   * @param klv the encoded data element
+   * @return true if error was encoded
+   */
+  public boolean isErrorIndicated(final Klv klv) {
+    return errorIndicatorValue.isPresent() && errorIndicatorValue.get().equals(decode(klv));
+  }
+
   /**
    * If an error indicator value is present, then compare it to the decoded value.
    *
@@ -44,7 +44,22 @@ public KlvShort(final byte[] key, final String name, Optional<Short> errorIndica
 
   @Override
   protected void decodeValue(final Klv klv) {
-    value = (short) klv.getValueAs16bitSignedInt();
+    value = decode(klv);
+  }
+
+  @Override
+  public Short decode(final Klv klv) {
+    return (short) klv.getValueAs16bitSignedInt();
+  }
+
+  @Override
+  public long decodeAsLong(final Klv klv) {
+    return klv.getValueAs16bitSignedInt();
+  }
+
+  @Override
+  public double decodeAsDouble(final Klv klv) {
+    return klv.getValueAs16bitSignedInt();
   }
 
   @Override
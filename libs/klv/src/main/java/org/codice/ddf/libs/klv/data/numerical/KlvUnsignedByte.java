@@ -43,7 +43,22 @@ public KlvUnsignedByte(final byte[] key, final String name, Optional<Short> erro
 
   @Override
   protected void decodeValue(final Klv klv) {
-    value = (short) klv.getValueAs8bitUnsignedInt();
+    value = decode(klv);
+  }
+
+  @Override
+  public Short decode(final Klv klv) {
+    return (short) klv.getValueAs8bitUnsignedInt();
+  }
+
+  @Override
+  public long decodeAsLong(final Klv klv) {
+    return klv.getValueAs8bitUnsignedInt();
+  }
+
+  @Override
+  public double decodeAsDouble(final Klv klv) {
+    return klv.getValueAs8bitUnsignedInt();
   }
 
   @Override
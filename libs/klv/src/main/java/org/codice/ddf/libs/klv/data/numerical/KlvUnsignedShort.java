@@ -30,7 +30,22 @@ public KlvUnsignedShort(final byte[] key, final String name) {
 
   @Override
   protected void decodeValue(final Klv klv) {
-    value = klv.getValueAs16bitUnsignedInt();
+    value = decode(klv);
+  }
+
+  @Override
+  public Integer decode(final Klv klv) {
+    return klv.getValueAs16bitUnsignedInt();
+  }
+
+  @Override
+  public long decodeAsLong(final Klv klv) {
+    return klv.getValueAs16bitUnsignedInt();
+  }
+
+  @Override
+  public double decodeAsDouble(final Klv klv) {
+    return klv.getValueAs16bitUnsignedInt();
   }
 
   @Override
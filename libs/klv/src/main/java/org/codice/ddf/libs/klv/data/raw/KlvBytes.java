@@ -31,7 +31,12 @@ public KlvBytes(final byte[] key, final String name) {
 
   @Override
   protected void decodeValue(final Klv klv) {
-    value = klv.getValue();
+    value = decode(klv);
+  }
+
+  @Override
+  public byte[] decode(final Klv klv) {
+    return klv.getValue();
   }
 
   @Override
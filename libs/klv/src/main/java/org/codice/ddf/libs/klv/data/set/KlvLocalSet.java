@@ -43,12 +43,21 @@ public KlvLocalSet(final byte[] key, final String name, final KlvContext localSe
   @Override
   protected void decodeValue(final Klv klv) {
     try {
-      value = new KlvDecoder(localSetKlvContext).decode(klv.getValue());
+      value = new KlvDecoder(localSetKlvContext).decode(klv.getValueAsByteBuffer());
     } catch (KlvDecodingException e) {
       LOGGER.debug("Couldn't decode the KLV local set named {}", name, e);
     }
   }
 
+  /**
+   * Returns the {@link KlvContext} describing the local KLV set.
+   *
+   * @return the {@code KlvContext} describing the local KLV set
+   */
+  public KlvContext getLocalSetKlvContext() {
+    return localSetKlvContext;
+  }
+
   @Override
   protected KlvDataElement copy() {
     // Shallow copying the local KlvContext is okay because when the local set is decoded,
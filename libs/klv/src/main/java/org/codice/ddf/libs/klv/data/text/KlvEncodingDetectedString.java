@@ -52,6 +52,11 @@ public KlvEncodingDetectedString(byte[] key, String name) {
 
   @Override
   protected void decodeValue(Klv klv) {
+    value = decode(klv);
+  }
+
+  @Override
+  public String decode(Klv klv) {
     byte[] bytes = klv.getValue();
     CharsetDetector charsetDetector = new CharsetDetector();
     charsetDetector.setText(bytes);
@@ -70,7 +75,7 @@ protected void decodeValue(Klv klv) {
         LOGGER.trace("Unsupported encoding, falling back to default encoding");
       }
     }
-    value = new String(bytes, charset);
+    return new String(bytes, charset);
   }
 
   @Override
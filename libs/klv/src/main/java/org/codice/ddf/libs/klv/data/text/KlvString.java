@@ -53,22 +53,27 @@ public KlvString(final byte[] key, final String name, final String encoding) {
 
   @Override
   protected void decodeValue(final Klv klv) {
+    value = decode(klv);
+  }
+
+  @Override
+  public String decode(final Klv klv) {
     try {
-      value = klv.getValueAsString(encoding);
+      return klv.getValueAsString(encoding);
     } catch (UnsupportedEncodingException e1) {
       LOGGER.debug(
           "Couldn't retrieve string value from KLV using encoding {}. Attempting to use the platform's default charset.",
           encoding,
           e1);
       try {
-        value = klv.getValueAsString(Charset.defaultCharset().name());
+        return klv.getValueAsString(Charset.defaultCharset().name());
       } catch (UnsupportedEncodingException e2) {
-        value = null;
         LOGGER.debug(
             "Couldn't retrieve string value from KLV using the platform's default encoding {}. Setting this KlvString's (name: {}) value to null.",
             Charset.defaultCharset().name(),
             name,
             e2);
+        return null;
       }
     }
   }
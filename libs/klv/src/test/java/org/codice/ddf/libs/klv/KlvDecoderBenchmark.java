@@ -0,0 +1,183 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.libs.klv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.xml.bind.DatatypeConverter;
+import org.apache.commons.io.IOUtils;
+import org.codice.ddf.libs.klv.data.Klv;
+import org.codice.ddf.libs.klv.data.numerical.KlvInt;
+import org.codice.ddf.libs.klv.data.numerical.KlvIntegerEncodedFloatingPoint;
+import org.codice.ddf.libs.klv.data.numerical.KlvLong;
+import org.codice.ddf.libs.klv.data.numerical.KlvNumericalDataElement;
+import org.codice.ddf.libs.klv.data.numerical.KlvShort;
+import org.codice.ddf.libs.klv.data.numerical.KlvUnsignedShort;
+import org.codice.ddf.libs.klv.data.set.KlvLocalSet;
+import org.codice.ddf.libs.klv.data.text.KlvString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the ways of decoding a UAS Datalink Local Set (MISB ST 0601) packet: with a {@link
+ * KlvVisitor}, into a new {@link KlvContext}, and the way {@link KlvDecoder} used to, copying every
+ * KLV set into a list and looking each key up by its hex string.
+ *
+ * <p>Run with {@code main} from the test classpath; the GC profiler reports the bytes allocated per
+ * operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KlvDecoderBenchmark {
+
+  private byte[] packet;
+
+  private KlvContext klvContext;
+
+  private KlvDecoder decoder;
+
+  @Setup
+  public void setUp() throws IOException {
+    try (InputStream inputStream =
+        getClass().getClassLoader().getResourceAsStream("testKLV.klv")) {
+      packet = IOUtils.toByteArray(inputStream);
+    }
+
+    final KlvContext localSetContext =
+        new KlvContext(
+            Klv.KeyLength.ONE_BYTE,
+            Klv.LengthEncoding.BER,
+            Arrays.asList(
+                new KlvLong(new byte[] {0x02}, "timestamp"),
+                new KlvUnsignedShort(new byte[] {0x05}, "platform heading angle"),
+                new KlvShort(new byte[] {0x06}, "platform pitch angle"),
+                new KlvShort(new byte[] {0x07}, "platform roll angle"),
+                new KlvString(new byte[] {0x0b}, "image source sensor"),
+                latitudeOrLongitude(new byte[] {0x0d}, "sensor latitude", 90),
+                latitudeOrLongitude(new byte[] {0x0e}, "sensor longitude", 180),
+                new KlvUnsignedShort(new byte[] {0x0f}, "sensor true altitude"),
+                latitudeOrLongitude(new byte[] {0x17}, "frame center latitude", 90),
+                latitudeOrLongitude(new byte[] {0x18}, "frame center longitude", 180),
+                new KlvUnsignedShort(new byte[] {0x01}, "checksum")));
+
+    klvContext =
+        new KlvContext(
+            Klv.KeyLength.SIXTEEN_BYTES,
+            Klv.LengthEncoding.BER,
+            Collections.singleton(
+                new KlvLocalSet(
+                    new byte[] {
+                      0x06, 0x0E, 0x2B, 0x34, 0x02, 0x0B, 0x01, 0x01, 0x0E, 0x01, 0x03, 0x01, 0x01,
+                      0x00, 0x00, 0x00
+                    },
+                    "UAS Datalink Local Set",
+                    localSetContext)));
+
+    decoder = new KlvDecoder(klvContext);
+  }
+
+  @Benchmark
+  public void visitor(final Blackhole blackhole) throws KlvDecodingException {
+    decoder.decode(
+        ByteBuffer.wrap(packet),
+        (dataElement, klv) -> {
+          if (dataElement instanceof KlvNumericalDataElement) {
+            blackhole.consume(((KlvNumericalDataElement<?>) dataElement).decodeAsDouble(klv));
+          } else {
+            blackhole.consume(dataElement.decode(klv));
+          }
+        });
+  }
+
+  @Benchmark
+  public KlvContext context() throws KlvDecodingException {
+    return decoder.decode(packet);
+  }
+
+  @Benchmark
+  public KlvContext copying() {
+    return copyingDecode(klvContext, packet);
+  }
+
+  private static KlvIntegerEncodedFloatingPoint latitudeOrLongitude(
+      final byte[] key, final String name, final double limit) {
+    return new KlvIntegerEncodedFloatingPoint(
+        new KlvInt(key, name), Integer.MIN_VALUE + 1, Integer.MAX_VALUE, -limit, limit);
+  }
+
+  /** Decodes the way {@link KlvDecoder} did before it read the KLV sets in place. */
+  private static KlvContext copyingDecode(final KlvContext klvContext, final byte[] klvBytes) {
+    final List<Klv> klvs =
+        Klv.bytesToList(
+            klvBytes,
+            0,
+            klvBytes.length,
+            klvContext.getKeyLength(),
+            klvContext.getLengthEncoding());
+
+    final KlvContext decodedContext =
+        new KlvContext(klvContext.getKeyLength(), klvContext.getLengthEncoding());
+    final Map<String, KlvDataElement> keyToDataElementMap = klvContext.getKeyToDataElementMap();
+
+    for (Klv klv : klvs) {
+      final String key = DatatypeConverter.printHexBinary(klv.getFullKey());
+      final KlvDataElement dataElement = keyToDataElementMap.get(key);
+      if (dataElement instanceof KlvLocalSet) {
+        final KlvLocalSet localSetCopy = (KlvLocalSet) dataElement.copy();
+        localSetCopy.value =
+            copyingDecode(localSetCopy.getLocalSetKlvContext(), klv.getValue());
+        decodedContext.addDataElement(localSetCopy);
+      } else if (dataElement != null) {
+        final KlvDataElement dataElementCopy = dataElement.copy();
+        dataElementCopy.decodeValue(klv);
+        decodedContext.addDataElement(dataElementCopy);
+      }
+    }
+
+    return decodedContext;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder()
+            .include(KlvDecoderBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+    new Runner(options).run();
+  }
+}
@@ -21,28 +21,34 @@
 import static org.codice.ddf.libs.klv.data.Klv.LengthEncoding;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.collection.IsMapContaining.hasKey;
 import static org.hamcrest.number.IsCloseTo.closeTo;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.ArrayUtils;
+import org.codice.ddf.libs.klv.data.Klv;
 import org.codice.ddf.libs.klv.data.numerical.KlvByte;
 import org.codice.ddf.libs.klv.data.numerical.KlvDouble;
 import org.codice.ddf.libs.klv.data.numerical.KlvFloat;
 import org.codice.ddf.libs.klv.data.numerical.KlvInt;
 import org.codice.ddf.libs.klv.data.numerical.KlvIntegerEncodedFloatingPoint;
 import org.codice.ddf.libs.klv.data.numerical.KlvLong;
+import org.codice.ddf.libs.klv.data.numerical.KlvNumericalDataElement;
 import org.codice.ddf.libs.klv.data.numerical.KlvShort;
 import org.codice.ddf.libs.klv.data.numerical.KlvUnsignedByte;
 import org.codice.ddf.libs.klv.data.numerical.KlvUnsignedShort;
@@ -224,6 +230,105 @@ public void testKLVSet() throws Exception {
         });
   }
 
+  @Test
+  public void testKLVSetVisitor() throws Exception {
+    byte[] klvBytes;
+
+    try (final InputStream inputStream =
+        getClass().getClassLoader().getResourceAsStream("testKLV.klv")) {
+      klvBytes = IOUtils.toByteArray(inputStream);
+    }
+
+    final KlvContext klvContext = getKLVContext(DATA_ELEMENTS);
+    final List<String> localSets = new ArrayList<>();
+    final Map<String, Object> visitedValues = new HashMap<>();
+
+    new KlvDecoder(klvContext)
+        .decode(
+            ByteBuffer.wrap(klvBytes),
+            new KlvVisitor() {
+              @Override
+              public void visit(final KlvDataElement<?> dataElement, final Klv klv) {
+                visitedValues.put(dataElement.getName(), dataElement.decode(klv));
+              }
+
+              @Override
+              public void startLocalSet(final KlvLocalSet localSet) {
+                localSets.add("start " + localSet.getName());
+              }
+
+              @Override
+              public void endLocalSet(final KlvLocalSet localSet) {
+                localSets.add("end " + localSet.getName());
+              }
+            });
+
+    assertThat(
+        localSets,
+        is(
+            Arrays.asList(
+                "start " + UAS_DATALINK_LOCAL_SET_UNIVERSAL_KEY,
+                "end " + UAS_DATALINK_LOCAL_SET_UNIVERSAL_KEY)));
+    assertThat(visitedValues, is(EXPECTED_VALUES));
+  }
+
+  @Test
+  public void testDecodeByteBufferRemaining() throws KlvDecodingException {
+    final byte[] klvBytes = {1, 1, 2, 7, 3, 9, 8, 7, 7, 1, 5};
+    final KlvBytes dataElement = new KlvBytes(new byte[] {7}, "test");
+    final KlvContext klvContext = new KlvContext(KeyLength.ONE_BYTE, LengthEncoding.ONE_BYTE);
+    klvContext.addDataElement(dataElement);
+
+    final ByteBuffer heapBuffer = ByteBuffer.wrap(klvBytes, 3, 5);
+    final ByteBuffer directBuffer = ByteBuffer.allocateDirect(klvBytes.length).put(klvBytes);
+    directBuffer.position(3).limit(8);
+
+    for (ByteBuffer buffer : Arrays.asList(heapBuffer, directBuffer)) {
+      final KlvContext decodedKlvContext = new KlvDecoder(klvContext).decode(buffer);
+      assertThat(
+          ((KlvBytes) decodedKlvContext.getDataElementByName("test")).getValue(),
+          is(new byte[] {9, 8, 7}));
+      assertThat(buffer.position(), is(3));
+    }
+  }
+
+  @Test
+  public void testVisitorMissingBytes() {
+    final ByteBuffer klvBuffer = ByteBuffer.wrap(new byte[] {-8, 4, (byte) 0x87, (byte) 0xF8});
+    final KlvContext klvContext = new KlvContext(KeyLength.ONE_BYTE, LengthEncoding.ONE_BYTE);
+    klvContext.addDataElement(new KlvInt(new byte[] {-8}, "test"));
+    try {
+      new KlvDecoder(klvContext)
+          .decode(klvBuffer, (dataElement, klv) -> fail("Should not have visited " + klv));
+      fail("Should have thrown a KlvDecodingException.");
+    } catch (KlvDecodingException e) {
+      assertThat(e.getCause(), instanceOf(IndexOutOfBoundsException.class));
+    }
+  }
+
+  @Test
+  public void testKeyBits() {
+    final byte[] klvBytes = {
+      -14, 99, -55, 101, 22, 0, -9, -45, -55, -1, 77, 89, 112, 17, 18, 19, 0, -14, 99, 0
+    };
+    final Klv klv = new Klv();
+
+    assertThat(
+        klv.wrap(klvBytes, 0, klvBytes.length, KeyLength.SIXTEEN_BYTES, LengthEncoding.ONE_BYTE),
+        is(17));
+    assertThat(klv.getKeyMostSignificantBits(), is(0xF263C9651600F7D3L));
+    assertThat(klv.getKeyLeastSignificantBits(), is(0xC9FF4D5970111213L));
+    assertThat(klv.getFullKey(), is(Arrays.copyOf(klvBytes, 16)));
+
+    assertThat(
+        klv.wrap(klvBytes, 17, klvBytes.length, KeyLength.TWO_BYTES, LengthEncoding.ONE_BYTE),
+        is(20));
+    assertThat(klv.getKeyMostSignificantBits(), is(0L));
+    assertThat(klv.getKeyLeastSignificantBits(), is(0xF263L));
+    assertThat(klv.getFullKey(), is(new byte[] {-14, 99}));
+    assertThat(klv.getValueLength(), is(0));
+  }
+
   private KlvContext decodeKLV(
       final KeyLength keyLength,
       final LengthEncoding lengthEncoding,
@@ -516,6 +621,36 @@ public void testFloatingPointEncodedAsInt() throws KlvDecodingException {
     assertThat(value, is(closeTo(-168.792324833941, 1e-12)));
   }
 
+  @Test
+  // Example value taken from ST0601.8 Tag 5.
+  public void testVisitorDecodesFloatingPointEncodedAsUnsignedShort() throws KlvDecodingException {
+    final byte[] klvBytes = {-8, 2, 0x71, (byte) 0xC2};
+    final KlvUnsignedShort klvUnsignedShort = new KlvUnsignedShort(new byte[] {-8}, "test");
+    final KlvIntegerEncodedFloatingPoint platformHeadingAngle =
+        new KlvIntegerEncodedFloatingPoint(klvUnsignedShort, 0, (1 << 16) - 1, 0, 360);
+    final KlvContext klvContext = new KlvContext(KeyLength.ONE_BYTE, LengthEncoding.ONE_BYTE);
+    klvContext.addDataElement(platformHeadingAngle);
+    final List<Double> values = new ArrayList<>();
+
+    new KlvDecoder(klvContext)
+        .decode(
+            ByteBuffer.wrap(klvBytes),
+            (dataElement, klv) -> {
+              final KlvNumericalDataElement<?> numericalDataElement =
+                  (KlvNumericalDataElement<?>) dataElement;
+              values.add(numericalDataElement.decode(klv).doubleValue());
+              values.add(numericalDataElement.decodeAsDouble(klv));
+              values.add((double) numericalDataElement.decodeAsLong(klv));
+            });
+
+    assertThat(values.size(), is(3));
+    assertThat(values.get(0), is(closeTo(159.9744, 1e-4)));
+    assertThat(values.get(1), is(values.get(0)));
+    assertThat(values.get(2), is(159.0));
+    assertThat(platformHeadingAngle.getValue(), is(nullValue()));
+    assertThat(klvUnsignedShort.getValue(), is(nullValue()));
+  }
+
   @Test
   public void testMissingBytes() {
     final byte[] klvBytes = {-8, 4, (byte) 0x87, (byte) 0xF8, 0x4B};
@@ -605,8 +740,20 @@ private boolean isErrorIndicatedDecode(KlvDataElement klvDataElement, byte[] dat
       throws KlvDecodingException {
     KlvContext decodedKlvContext =
         decodeKLV(KeyLength.ONE_BYTE, LengthEncoding.ONE_BYTE, klvDataElement, dataBytes);
-
-    return decodedKlvContext.getDataElementByName("test").isErrorIndicated();
+    boolean errorIndicated = decodedKlvContext.getDataElementByName("test").isErrorIndicated();
+
+    KlvContext klvContext = new KlvContext(KeyLength.ONE_BYTE, LengthEncoding.ONE_BYTE);
+    klvContext.addDataElement(klvDataElement);
+    List<Boolean> visitedErrorIndicated = new ArrayList<>();
+    new KlvDecoder(klvContext)
+        .decode(
+            ByteBuffer.wrap(dataBytes),
+            (dataElement, klv) ->
+                visitedErrorIndicated.add(
+                    ((KlvNumericalDataElement<?>) dataElement).isErrorIndicated(klv)));
+    assertThat(visitedErrorIndicated, is(Collections.singletonList(errorIndicated)));
+
+    return errorIndicated;
   }
 
   @Test
@@ -23,7 +23,6 @@
 import java.util.Set;
 import java.util.function.BiConsumer;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang.ArrayUtils;
 import org.jcodec.api.JCodecException;
 import org.jcodec.containers.mps.MTSUtils.StreamType;
 import org.jcodec.containers.mps.psi.PMTSection;
@@ -36,11 +35,19 @@
 import org.taktik.mpegts.sources.MTSSources;
 import org.taktik.mpegts.sources.ResettableMTSSource;
 
-/** This class is for extracting arbitrary metadata (as raw bytes) from an MPEG transport stream. */
+/**
+ * This class is for extracting arbitrary metadata (as raw bytes) from an MPEG transport stream.
+ *
+ * <p>The payloads of the transport stream packets of each metadata stream are appended to a buffer
+ * kept for that stream, which grows as needed and is reused for the next metadata packet, so the
+ * cost of reassembling a metadata packet is linear in its size.
+ */
 public class MpegTransportStreamMetadataExtractor {
   private static final Logger LOGGER =
       LoggerFactory.getLogger(MpegTransportStreamMetadataExtractor.class);
 
+  private static final int INITIAL_METADATA_PACKET_CAPACITY = 4096;
+
   private final ByteSource byteSource;
 
   private final Set<Integer> programMapTablePacketIdDirectory = new HashSet<>();
@@ -49,7 +56,7 @@ public class MpegTransportStreamMetadataExtractor {
 
   private final Map<Integer, PMTStream> programElementaryStreams = new HashMap<>();
 
-  private final Map<Integer, byte[]> currentMetadataPacketBytesByStream = new HashMap<>();
+  private final Map<Integer, MetadataPacketBuffer> currentMetadataPacketByStream = new HashMap<>();
 
   /**
    * Constructs an {@code MpegTransportStreamMetadataExtractor} with the given {@link ByteSource} as
@@ -72,6 +79,32 @@ public MpegTransportStreamMetadataExtractor(final ByteSource byteSource) {
    * @throws Exception if an error occurs while parsing the transport stream
    */
   public void getMetadata(final BiConsumer<Integer, byte[]> callback) throws Exception {
+    getMetadataBuffers(
+        (packetId, metadataPacket) -> {
+          final byte[] metadataPacketBytes = new byte[metadataPacket.remaining()];
+          metadataPacket.get(metadataPacketBytes);
+          callback.accept(packetId, metadataPacketBytes);
+        });
+  }
+
+  /**
+   * Parses the transport stream and calls the given callback for each metadata packet in each
+   * metadata stream found in the transport stream, without copying the metadata packet out of the
+   * buffer it was reassembled in. The callback is called immediately upon finding a complete
+   * metadata packet.
+   *
+   * <p>The buffer passed to the callback is backed by an accessible array, so decoders such as the
+   * KLV decoder read it in place. It must not be written to, and is only valid during the call: it
+   * is reused for the next metadata packet of the same stream. A callback that needs the bytes
+   * after the call should copy them, as {@link #getMetadata(BiConsumer)} does.
+   *
+   * @param callback a callback that will be called for each metadata packet in each metadata stream
+   *     found in the transport stream, where the first parameter is the packet ID of the metadata
+   *     stream and the second parameter is the metadata packet's payload, from its position to its
+   *     limit
+   * @throws Exception if an error occurs while parsing the transport stream
+   */
+  public void getMetadataBuffers(final BiConsumer<Integer, ByteBuffer> callback) throws Exception {
     extractTransportStreamMetadata(callback);
   }
 
@@ -98,7 +131,7 @@ public Map<Integer, List<byte[]>> getMetadata() throws Exception {
     return metadataPacketsByStream;
   }
 
-  private void extractTransportStreamMetadata(final BiConsumer<Integer, byte[]> callback)
+  private void extractTransportStreamMetadata(final BiConsumer<Integer, ByteBuffer> callback)
       throws Exception {
     final ResettableMTSSource source = MTSSources.from(byteSource);
 
@@ -206,36 +239,31 @@ private boolean isElementaryStreamPacket(final int packetId) {
     return packetId != 0 && !programMapTablePacketIdDirectory.contains(packetId);
   }
 
-  private byte[] getByteBufferAsBytes(final ByteBuffer buffer) {
-    final byte[] bytes = new byte[buffer.remaining()];
-    buffer.get(bytes);
-    return bytes;
-  }
-
   private void handleElementaryStreamPacket(
-      final MTSPacket packet, final int packetId, final BiConsumer<Integer, byte[]> callback) {
+      final MTSPacket packet, final int packetId, final BiConsumer<Integer, ByteBuffer> callback) {
     if (programElementaryStreams.containsKey(packetId)) {
       final PMTStream stream = programElementaryStreams.get(packetId);
 
       if (isMetadataStream(stream)) {
-        final byte[] currentMetadataPacketBytes = currentMetadataPacketBytesByStream.get(packetId);
+        MetadataPacketBuffer currentMetadataPacket = currentMetadataPacketByStream.get(packetId);
 
         final boolean startingNewMetadataPacket = packet.isPayloadUnitStartIndicator();
-        final boolean currentMetadataPacketToHandle = currentMetadataPacketBytes != null;
+        final boolean currentMetadataPacketToHandle = currentMetadataPacket != null;
         final boolean reachedEndOfCurrentMetadataPacket =
             startingNewMetadataPacket && currentMetadataPacketToHandle;
 
-        final byte[] payloadBytes = getByteBufferAsBytes(packet.getPayload());
+        final ByteBuffer payload = packet.getPayload();
 
         if (reachedEndOfCurrentMetadataPacket) {
-          callback.accept(packetId, currentMetadataPacketBytes);
-          startNewMetadataPacketBytes(packetId, payloadBytes);
+          callback.accept(packetId, currentMetadataPacket.contents());
+          currentMetadataPacket.clear();
+          currentMetadataPacket.append(payload);
         } else if (startingNewMetadataPacket) {
-          startNewMetadataPacketBytes(packetId, payloadBytes);
+          currentMetadataPacket = new MetadataPacketBuffer();
+          currentMetadataPacket.append(payload);
+          currentMetadataPacketByStream.put(packetId, currentMetadataPacket);
         } else if (currentMetadataPacketToHandle) {
-          final byte[] concatenatedMetadataPacket =
-              ArrayUtils.addAll(currentMetadataPacketBytes, payloadBytes);
-          currentMetadataPacketBytesByStream.put(packetId, concatenatedMetadataPacket);
+          currentMetadataPacket.append(payload);
         }
       }
     }
@@ -253,10 +281,6 @@ private boolean isMetadataStream(final PMTStream stream) {
     return isPrivateDataStream(stream) || isMetadataPesStream(stream);
   }
 
-  private void startNewMetadataPacketBytes(final int packetId, final byte[] newMetadataBytes) {
-    currentMetadataPacketBytesByStream.put(packetId, newMetadataBytes);
-  }
-
   /*
    * In a transport stream, any elementary stream packet can be large enough to require multiple
    * transport stream packets to hold it. Therefore, when analyzing the transport stream packets,
@@ -265,7 +289,44 @@ private void startNewMetadataPacketBytes(final int packetId, final byte[] newMet
    * This means that the last metadata packet for each stream won't be handled during the pass
    * over the transport stream and they will need to be handled separately.
    */
-  private void handleLastPacketOfEachStream(final BiConsumer<Integer, byte[]> callback) {
-    currentMetadataPacketBytesByStream.forEach(callback);
+  private void handleLastPacketOfEachStream(final BiConsumer<Integer, ByteBuffer> callback) {
+    currentMetadataPacketByStream.forEach(
+        (packetId, metadataPacket) -> callback.accept(packetId, metadataPacket.contents()));
+  }
+
+  /** The bytes of the metadata packet being reassembled for a metadata stream. */
+  private static class MetadataPacketBuffer {
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_METADATA_PACKET_CAPACITY);
+
+    void append(final ByteBuffer payload) {
+      if (payload == null) {
+        return;
+      }
+
+      if (payload.remaining() > buffer.remaining()) {
+        final int capacity =
+            Math.max(buffer.capacity() * 2, buffer.position() + payload.remaining());
+        final ByteBuffer grown = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+      }
+
+      buffer.put(payload);
+    }
+
+    /**
+     * Returns the reassembled bytes without copying them. The buffer is not read-only, since a
+     * read-only buffer hides its array and readers would have to copy it again.
+     */
+    ByteBuffer contents() {
+      final ByteBuffer contents = buffer.duplicate();
+      contents.flip();
+      return contents;
+    }
+
+    void clear() {
+      buffer.clear();
+    }
   }
 }
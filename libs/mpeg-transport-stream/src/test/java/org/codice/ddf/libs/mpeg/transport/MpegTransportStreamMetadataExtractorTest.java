@@ -23,6 +23,7 @@
 
 import com.google.common.io.ByteSource;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -72,6 +73,25 @@ public void testExtractAll() throws Exception {
     verifyExtractedBytes(metadataStreams.get(497));
   }
 
+  @Test
+  public void testExtractBuffers() throws Exception {
+    final MpegTransportStreamMetadataExtractor extractor = getExtractor();
+
+    final List<byte[]> metadataPackets = new ArrayList<>();
+    extractor.getMetadataBuffers(
+        (packetId, metadataPacket) -> {
+          // The packet ID of the metadata stream in this file is 497.
+          assertThat(packetId, is(497));
+          assertThat(metadataPacket.hasArray(), is(true));
+
+          final byte[] metadataPacketBytes = new byte[metadataPacket.remaining()];
+          metadataPacket.get(metadataPacketBytes);
+          metadataPackets.add(metadataPacketBytes);
+        });
+
+    verifyExtractedBytes(metadataPackets);
+  }
+
   private void verifyExtractedBytes(final List<byte[]> metadataPackets) {
     assertThat(metadataPackets.size(), is(12));
 
@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.security.audit.impl;
+
+import org.apache.logging.log4j.Level;
+import org.apache.shiro.subject.Subject;
+
+/**
+ * A security audit event, holding what was captured on the thread that raised it so the audit
+ * message can be built and written on another thread. The message is formatted with its
+ * parameters when the event is raised, so later changes to the parameters do not alter it.
+ */
+final class AuditEvent {
+
+  private final Level level;
+
+  private final Subject subject;
+
+  private final String userPrincipal;
+
+  private final String connection;
+
+  private final String message;
+
+  private final Throwable throwable;
+
+  /**
+   * @param level the level to log the event at
+   * @param subject the subject of the event, or {@code null} if there is none
+   * @param userPrincipal the name of the JAAS user principal, used when there is no subject
+   * @param connection the text describing the connection the event was raised for
+   * @param message the cleaned message, formatted with its parameters
+   * @param throwable the exception to log, or {@code null}
+   */
+  AuditEvent(
+      Level level,
+      Subject subject,
+      String userPrincipal,
+      String connection,
+      String message,
+      Throwable throwable) {
+    this.level = level;
+    this.subject = subject;
+    this.userPrincipal = userPrincipal;
+    this.connection = connection;
+    this.message = message;
+    this.throwable = throwable;
+  }
+
+  Level getLevel() {
+    return level;
+  }
+
+  Subject getSubject() {
+    return subject;
+  }
+
+  String getUserPrincipal() {
+    return userPrincipal;
+  }
+
+  String getConnection() {
+    return connection;
+  }
+
+  String getMessage() {
+    return message;
+  }
+
+  Throwable getThrowable() {
+    return throwable;
+  }
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.security.audit.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hands security audit events to a dedicated writer thread, which writes them in batches.
+ *
+ * <p>The queue is bounded. When it is full, the {@link OverflowPolicy} decides what happens to the
+ * next event, and no policy drops it: {@link OverflowPolicy#BLOCK} waits for the writer to make
+ * room and {@link OverflowPolicy#CALLER_RUNS} writes the event on the thread that raised it. Once
+ * the queue is closed, events are written on the thread that raised them.
+ */
+final class AuditEventQueue {
+
+  /** What to do with an event raised when the queue is full. */
+  enum OverflowPolicy {
+    /** Wait until the writer has made room for the event. */
+    BLOCK,
+    /** Write the event on the thread that raised it. */
+    CALLER_RUNS
+  }
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AuditEventQueue.class);
+
+  private static final long POLL_TIMEOUT_MILLIS = 500;
+
+  private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+  private final BlockingQueue<AuditEvent> events;
+
+  private final int batchSize;
+
+  private final OverflowPolicy overflowPolicy;
+
+  private final Consumer<AuditEvent> writer;
+
+  private final Thread writerThread;
+
+  private final AtomicLong overflows = new AtomicLong();
+
+  private volatile boolean closed;
+
+  /**
+   * @param capacity the number of events the queue holds before it overflows
+   * @param batchSize the largest number of events the writer takes from the queue at once
+   * @param overflowPolicy what to do with an event raised when the queue is full
+   * @param writer writes an event
+   */
+  AuditEventQueue(
+      int capacity, int batchSize, OverflowPolicy overflowPolicy, Consumer<AuditEvent> writer) {
+    this.events = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    this.batchSize = Math.max(1, batchSize);
+    this.overflowPolicy = overflowPolicy;
+    this.writer = writer;
+    this.writerThread = new Thread(this::writeEvents, "security-audit-writer");
+    writerThread.setDaemon(true);
+    writerThread.start();
+  }
+
+  /**
+   * Queues an event to be written, or writes it when the queue is full and the overflow policy is
+   * {@link OverflowPolicy#CALLER_RUNS}, has been closed or its writer thread has stopped.
+   *
+   * @param event the event to write
+   */
+  void add(AuditEvent event) {
+    if (closed || !writerThread.isAlive()) {
+      write(event);
+      return;
+    }
+
+    if (!events.offer(event)) {
+      overflow(event);
+    }
+
+    // the writer may have stopped before the event was queued
+    if (closed || !writerThread.isAlive()) {
+      drain();
+    }
+  }
+
+  /**
+   * Stops the writer and writes the events still queued. Events added afterwards are written on
+   * the thread that adds them.
+   */
+  void close() {
+    closed = true;
+    try {
+      writerThread.join(CLOSE_TIMEOUT_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    drain();
+  }
+
+  /** @return the number of events raised while the queue was full */
+  long getOverflowCount() {
+    return overflows.get();
+  }
+
+  private void overflow(AuditEvent event) {
+    if (overflows.getAndIncrement() == 0) {
+      LOGGER.warn(
+          "The security audit queue is full; applying the {} overflow policy. Audit events are not dropped, but are slowing down the threads raising them.",
+          overflowPolicy);
+    }
+
+    if (overflowPolicy == OverflowPolicy.CALLER_RUNS) {
+      write(event);
+      return;
+    }
+
+    try {
+      while (!events.offer(event, POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+        if (closed || !writerThread.isAlive()) {
+          write(event);
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      write(event);
+    }
+  }
+
+  private void writeEvents() {
+    List<AuditEvent> batch = new ArrayList<>(batchSize);
+    while (!closed) {
+      try {
+        AuditEvent event = events.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        if (event != null) {
+          batch.add(event);
+          events.drainTo(batch, batchSize - 1);
+          write(batch);
+          batch.clear();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private void drain() {
+    AuditEvent event;
+    while ((event = events.poll()) != null) {
+      write(event);
+    }
+  }
+
+  private void write(List<AuditEvent> batch) {
+    for (AuditEvent event : batch) {
+      write(event);
+    }
+  }
+
+  private void write(AuditEvent event) {
+    // a failed write, even an Error, must not stop the writer thread
+    try {
+      writer.accept(event);
+    } catch (Throwable e) {
+      LOGGER.warn("Unable to write security audit event: {}", event.getMessage(), e);
+    }
+  }
+}
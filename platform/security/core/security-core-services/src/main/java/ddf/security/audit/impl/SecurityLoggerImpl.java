@@ -18,17 +18,21 @@
 import java.security.AccessController;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 import javax.servlet.http.HttpServletRequest;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringEscapeUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageUtils;
 import org.apache.cxf.phase.PhaseInterceptorChain;
 import org.apache.cxf.transport.http.AbstractHTTPDestination;
 import org.apache.karaf.jaas.boot.principal.UserPrincipal;
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.apache.logging.log4j.util.Supplier;
 import org.apache.shiro.subject.Subject;
 import org.apache.shiro.util.ThreadContext;
@@ -48,66 +52,174 @@ public final class SecurityLoggerImpl implements ddf.security.audit.SecurityLogg
 
   private static final String EXTRA_ATTRIBUTES_PROP = "security.logger.extra_attributes";
 
+  private static final String QUEUE_CAPACITY_PROP = "security.logger.queue_capacity";
+
+  private static final String BATCH_SIZE_PROP = "security.logger.batch_size";
+
+  private static final String OVERFLOW_POLICY_PROP = "security.logger.overflow_policy";
+
+  private static final int DEFAULT_QUEUE_CAPACITY = 8192;
+
+  private static final int DEFAULT_BATCH_SIZE = 256;
+
   private final SubjectOperations subjectOperations;
 
+  private final AuditEventQueue auditEvents;
+
+  /**
+   * Creates a security logger that writes its audit messages on a dedicated thread.
+   *
+   * <p>The message is formatted, and what is bound to the calling thread, the subject and the
+   * connection, is captured when a message is audited; the rest of the audit message is built and
+   * written by the writer thread. The capacity of the queue between them, the number of messages
+   * the writer takes from it at once and what happens when it is full are set with the {@link
+   * #QUEUE_CAPACITY_PROP}, {@link #BATCH_SIZE_PROP} and {@link #OVERFLOW_POLICY_PROP} system
+   * properties.
+   *
+   * @param subjectOperations resolves the name and attributes of subjects
+   */
   public SecurityLoggerImpl(SubjectOperations subjectOperations) {
     this.subjectOperations = subjectOperations;
+    this.auditEvents =
+        new AuditEventQueue(
+            Integer.getInteger(QUEUE_CAPACITY_PROP, DEFAULT_QUEUE_CAPACITY),
+            Integer.getInteger(BATCH_SIZE_PROP, DEFAULT_BATCH_SIZE),
+            getOverflowPolicy(),
+            this::write);
+  }
+
+  /** Writes the audit messages still queued. Messages audited afterwards are written right away. */
+  public void close() {
+    auditEvents.close();
+  }
+
+  private static AuditEventQueue.OverflowPolicy getOverflowPolicy() {
+    String overflowPolicy = System.getProperty(OVERFLOW_POLICY_PROP);
+    if (StringUtils.isBlank(overflowPolicy)) {
+      return AuditEventQueue.OverflowPolicy.BLOCK;
+    }
+    try {
+      return AuditEventQueue.OverflowPolicy.valueOf(overflowPolicy.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      LOGGER.warn(
+          "Unknown security logger overflow policy {}; using {}.",
+          overflowPolicy,
+          AuditEventQueue.OverflowPolicy.BLOCK);
+      return AuditEventQueue.OverflowPolicy.BLOCK;
+    }
   }
 
-  private String getUser(Subject subject) {
+  /**
+   * Captures what is bound to the calling thread, formats the message with its parameters and
+   * queues it to be written.
+   *
+   * @param level the level to log the message at
+   * @param subject the user subject to log, or {@code null} to log the subject of the thread
+   * @param message the message to log
+   * @param params parameters to the message, or {@code null} if it has none
+   * @param t the exception to log, or {@code null}
+   */
+  private void audit(Level level, Subject subject, String message, Object[] params, Throwable t) {
+    if (!LOGGER.isEnabled(level)) {
+      return;
+    }
+
+    String userPrincipal = null;
     try {
       if (subject == null) {
         subject = ThreadContext.getSubject();
       }
       if (subject == null) {
-        javax.security.auth.Subject javaSubject =
-            javax.security.auth.Subject.getSubject(AccessController.getContext());
-        if (javaSubject != null) {
-          Set<UserPrincipal> userPrincipal = javaSubject.getPrincipals(UserPrincipal.class);
-          if (userPrincipal != null && !userPrincipal.isEmpty()) {
-            return userPrincipal.toArray(new UserPrincipal[1])[0].getName();
-          }
-        }
-      } else {
-        return subjectOperations.getName(subject, NO_USER);
+        userPrincipal = getUserPrincipal();
       }
     } catch (Exception e) {
-      // ignore and return NO_USER
+      // ignore and log NO_USER
     }
-    return NO_USER;
+
+    String auditMessage = cleanAndEncode(message);
+    Throwable throwable = t;
+    if (params != null && t == null) {
+      ParameterizedMessage parameterizedMessage = new ParameterizedMessage(auditMessage, params);
+      auditMessage = parameterizedMessage.getFormattedMessage();
+      throwable = parameterizedMessage.getThrowable();
+    }
+
+    auditEvents.add(
+        new AuditEvent(
+            level,
+            subject,
+            userPrincipal,
+            getConnection(PhaseInterceptorChain.getCurrentMessage()),
+            auditMessage,
+            throwable));
   }
 
-  private void requestIpAndPortAndUserMessage(Message message, StringBuilder messageBuilder) {
-    requestIpAndPortAndUserMessage(null, message, messageBuilder);
+  private static Object[] getParams(Supplier... paramSuppliers) {
+    Object[] params = new Object[paramSuppliers.length];
+    for (int i = 0; i < paramSuppliers.length; i++) {
+      params[i] = paramSuppliers[i] == null ? null : paramSuppliers[i].get();
+    }
+    return params;
   }
 
-  private void requestIpAndPortAndUserMessage(
-      Subject subject, Message message, StringBuilder messageBuilder) {
-    String user = getUser(subject);
-    messageBuilder.append(SUBJECT).append(user);
-    appendConditionalAttributes(subject, messageBuilder);
+  private void write(AuditEvent event) {
+    StringBuilder messageBuilder = new StringBuilder();
+    messageBuilder.append(SUBJECT).append(getUser(event));
+    appendConditionalAttributes(event.getSubject(), messageBuilder);
+    messageBuilder.append(event.getConnection()).append(event.getMessage());
 
-    if (message == null) {
-      messageBuilder.append(" ");
+    String message = messageBuilder.toString();
+    if (event.getThrowable() != null) {
+      LOGGER.log(event.getLevel(), message, event.getThrowable());
     } else {
-      HttpServletRequest servletRequest =
-          (HttpServletRequest) message.get(AbstractHTTPDestination.HTTP_REQUEST);
-      // pull out the ip and port of the incoming connection so we know
-      // who is trying to get access
-      if (servletRequest != null) {
-        messageBuilder
-            .append(" Request IP: ")
-            .append(servletRequest.getRemoteAddr())
-            .append(", Port: ")
-            .append(servletRequest.getRemotePort())
-            .append(" ");
-      } else if (MessageUtils.isOutbound(message)) {
-        messageBuilder
-            .append(" Outbound endpoint: ")
-            .append(message.get(Message.ENDPOINT_ADDRESS))
-            .append(" ");
+      LOGGER.log(event.getLevel(), message);
+    }
+  }
+
+  private String getUser(AuditEvent event) {
+    try {
+      if (event.getSubject() != null) {
+        return subjectOperations.getName(event.getSubject(), NO_USER);
+      }
+      if (event.getUserPrincipal() != null) {
+        return event.getUserPrincipal();
       }
+    } catch (Exception e) {
+      // ignore and return NO_USER
     }
+    return NO_USER;
+  }
+
+  private static String getUserPrincipal() {
+    javax.security.auth.Subject javaSubject =
+        javax.security.auth.Subject.getSubject(AccessController.getContext());
+    if (javaSubject != null) {
+      Set<UserPrincipal> userPrincipal = javaSubject.getPrincipals(UserPrincipal.class);
+      if (userPrincipal != null && !userPrincipal.isEmpty()) {
+        return userPrincipal.toArray(new UserPrincipal[1])[0].getName();
+      }
+    }
+    return null;
+  }
+
+  private static String getConnection(Message message) {
+    if (message == null) {
+      return " ";
+    }
+    HttpServletRequest servletRequest =
+        (HttpServletRequest) message.get(AbstractHTTPDestination.HTTP_REQUEST);
+    // pull out the ip and port of the incoming connection so we know
+    // who is trying to get access
+    if (servletRequest != null) {
+      return " Request IP: "
+          + servletRequest.getRemoteAddr()
+          + ", Port: "
+          + servletRequest.getRemotePort()
+          + " ";
+    } else if (MessageUtils.isOutbound(message)) {
+      return " Outbound endpoint: " + message.get(Message.ENDPOINT_ADDRESS) + " ";
+    }
+    return "";
   }
 
   /**
@@ -123,10 +235,6 @@ private void appendConditionalAttributes(Subject subject, StringBuilder messageB
       return;
     }
 
-    if (subject == null) {
-      subject = ThreadContext.getSubject();
-    }
-
     List<String> attributeList = Arrays.asList(attributes.split(","));
     for (String attribute : attributeList) {
       List<String> attributeValueList = subjectOperations.getAttribute(subject, attribute);
@@ -163,10 +271,7 @@ private String cleanAndEncode(String message) {
    */
   @Override
   public void audit(String message, Subject subject) {
-    StringBuilder messageBuilder = new StringBuilder();
-    requestIpAndPortAndUserMessage(
-        subject, PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.info(messageBuilder.append(cleanAndEncode(message)).toString());
+    audit(Level.INFO, subject, message, null, null);
   }
 
   /**
@@ -176,9 +281,7 @@ public void audit(String message, Subject subject) {
    */
   @Override
   public void audit(String message) {
-    StringBuilder messageBuilder = new StringBuilder();
-    requestIpAndPortAndUserMessage(PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.info(messageBuilder.append(cleanAndEncode(message)).toString());
+    audit(Level.INFO, null, message, null, null);
   }
 
   /**
@@ -190,10 +293,7 @@ public void audit(String message) {
    */
   @Override
   public void audit(String message, Subject subject, Object... params) {
-    StringBuilder messageBuilder = new StringBuilder();
-    requestIpAndPortAndUserMessage(
-        subject, PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.info(messageBuilder.append(cleanAndEncode(message)).toString(), params);
+    audit(Level.INFO, subject, message, params, null);
   }
 
   /**
@@ -204,9 +304,7 @@ public void audit(String message, Subject subject, Object... params) {
    */
   @Override
   public void audit(String message, Object... params) {
-    StringBuilder messageBuilder = new StringBuilder();
-    requestIpAndPortAndUserMessage(PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.info(messageBuilder.append(cleanAndEncode(message)).toString(), params);
+    audit(Level.INFO, null, message, params, null);
   }
 
   /**
@@ -220,10 +318,7 @@ public void audit(String message, Object... params) {
    */
   @Override
   public void audit(String message, Subject subject, Supplier... paramSuppliers) {
-    StringBuilder messageBuilder = new StringBuilder();
-    requestIpAndPortAndUserMessage(
-        subject, PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.info(messageBuilder.append(cleanAndEncode(message)).toString(), paramSuppliers);
+    audit(Level.INFO, subject, message, getParams(paramSuppliers), null);
   }
 
   /**
@@ -236,9 +331,7 @@ public void audit(String message, Subject subject, Supplier... paramSuppliers) {
    */
   @Override
   public void audit(String message, Supplier... paramSuppliers) {
-    StringBuilder messageBuilder = new StringBuilder();
-    requestIpAndPortAndUserMessage(PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.info(messageBuilder.append(cleanAndEncode(message)).toString(), paramSuppliers);
+    audit(Level.INFO, null, message, getParams(paramSuppliers), null);
   }
 
   /**
@@ -251,10 +344,7 @@ public void audit(String message, Supplier... paramSuppliers) {
    */
   @Override
   public void audit(String message, Subject subject, Throwable t) {
-    StringBuilder messageBuilder = new StringBuilder();
-    requestIpAndPortAndUserMessage(
-        subject, PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.info(messageBuilder.append(cleanAndEncode(message)).toString(), t);
+    audit(Level.INFO, subject, message, null, t);
   }
 
   /**
@@ -266,9 +356,7 @@ public void audit(String message, Subject subject, Throwable t) {
    */
   @Override
   public void audit(String message, Throwable t) {
-    StringBuilder messageBuilder = new StringBuilder();
-    requestIpAndPortAndUserMessage(PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.info(messageBuilder.append(cleanAndEncode(message)).toString(), t);
+    audit(Level.INFO, null, message, null, t);
   }
 
   /**
@@ -279,10 +367,7 @@ public void audit(String message, Throwable t) {
    */
   @Override
   public void auditWarn(String message, Subject subject) {
-    StringBuilder messageBuilder = new StringBuilder();
-    requestIpAndPortAndUserMessage(
-        subject, PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.warn(messageBuilder.append(cleanAndEncode(message)).toString());
+    audit(Level.WARN, subject, message, null, null);
   }
 
   /**
@@ -292,9 +377,7 @@ public void auditWarn(String message, Subject subject) {
    */
   @Override
   public void auditWarn(String message) {
-    StringBuilder messageBuilder = new StringBuilder();
-    requestIpAndPortAndUserMessage(PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.warn(messageBuilder.append(cleanAndEncode(message)).toString());
+    audit(Level.WARN, null, message, null, null);
   }
 
   /**
@@ -306,10 +389,7 @@ public void auditWarn(String message) {
    */
   @Override
   public void auditWarn(String message, Subject subject, Object... params) {
-    StringBuilder messageBuilder = new StringBuilder();
-    requestIpAndPortAndUserMessage(
-        subject, PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.warn(messageBuilder.append(cleanAndEncode(message)).toString(), params);
+    audit(Level.WARN, subject, message, params, null);
   }
 
   /**
@@ -320,9 +400,7 @@ public void auditWarn(String message, Subject subject, Object... params) {
    */
   @Override
   public void auditWarn(String message, Object... params) {
-    StringBuilder messageBuilder = new StringBuilder();
-    requestIpAndPortAndUserMessage(PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.warn(messageBuilder.append(cleanAndEncode(message)).toString(), params);
+    audit(Level.WARN, null, message, params, null);
   }
 
   /**
@@ -336,10 +414,7 @@ public void auditWarn(String message, Object... params) {
    */
   @Override
   public void auditWarn(String message, Subject subject, Supplier... paramSuppliers) {
-    StringBuilder messageBuilder = new StringBuilder();
-    requestIpAndPortAndUserMessage(
-        subject, PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.warn(messageBuilder.append(cleanAndEncode(message)).toString(), paramSuppliers);
+    audit(Level.WARN, subject, message, getParams(paramSuppliers), null);
   }
 
   /**
@@ -352,9 +427,7 @@ public void auditWarn(String message, Subject subject, Supplier... paramSupplier
    */
   @Override
   public void auditWarn(String message, Supplier... paramSuppliers) {
-    StringBuilder messageBuilder = new StringBuilder();
-    requestIpAndPortAndUserMessage(PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.warn(messageBuilder.append(cleanAndEncode(message)).toString(), paramSuppliers);
+    audit(Level.WARN, null, message, getParams(paramSuppliers), null);
   }
 
   /**
@@ -367,10 +440,7 @@ public void auditWarn(String message, Supplier... paramSuppliers) {
    */
   @Override
   public void auditWarn(String message, Subject subject, Throwable t) {
-    StringBuilder messageBuilder = new StringBuilder();
-    requestIpAndPortAndUserMessage(
-        subject, PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.warn(messageBuilder.append(cleanAndEncode(message)).toString(), t);
+    audit(Level.WARN, subject, message, null, t);
   }
 
   /**
@@ -382,8 +452,6 @@ public void auditWarn(String message, Subject subject, Throwable t) {
    */
   @Override
   public void auditWarn(String message, Throwable t) {
-    StringBuilder messageBuilder = new StringBuilder();
-    requestIpAndPortAndUserMessage(PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.warn(messageBuilder.append(cleanAndEncode(message)).toString(), t);
+    audit(Level.WARN, null, message, null, t);
   }
 }
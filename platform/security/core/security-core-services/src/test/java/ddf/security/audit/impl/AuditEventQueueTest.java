@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.security.audit.impl;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import ddf.security.audit.impl.AuditEventQueue.OverflowPolicy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.Level;
+import org.junit.After;
+import org.junit.Test;
+
+public class AuditEventQueueTest {
+
+  private static final long TIMEOUT_SECONDS = 10;
+
+  private final List<String> written = new CopyOnWriteArrayList<>();
+
+  private final Map<String, String> writerThreads = new ConcurrentHashMap<>();
+
+  private final CountDownLatch writing = new CountDownLatch(1);
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private AuditEventQueue queue;
+
+  @After
+  public void tearDown() {
+    release.countDown();
+    if (queue != null) {
+      queue.close();
+    }
+  }
+
+  @Test
+  public void testEventsAreWrittenInOrderOnWriterThread() throws Exception {
+    queue = new AuditEventQueue(128, 4, OverflowPolicy.BLOCK, this::record);
+
+    for (int i = 0; i < 100; i++) {
+      queue.add(event(Integer.toString(i)));
+    }
+    awaitWritten(100);
+
+    for (int i = 0; i < 100; i++) {
+      assertThat(written.get(i), is(Integer.toString(i)));
+    }
+    assertThat(writerThreads.values(), everyItem(is("security-audit-writer")));
+    assertThat(queue.getOverflowCount(), is(0L));
+  }
+
+  @Test
+  public void testBlockWaitsForRoom() throws Exception {
+    queue = new AuditEventQueue(1, 1, OverflowPolicy.BLOCK, blockOn("first"));
+    queue.add(event("first"));
+    assertThat(writing.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+    queue.add(event("queued"));
+
+    Thread caller = new Thread(() -> queue.add(event("overflow")));
+    caller.start();
+    caller.join(500);
+
+    assertThat(caller.isAlive(), is(true));
+    assertThat(written, contains("first"));
+
+    release.countDown();
+    caller.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+    queue.close();
+
+    assertThat(written, contains("first", "queued", "overflow"));
+    assertThat(queue.getOverflowCount(), is(1L));
+  }
+
+  @Test
+  public void testCallerRunsWritesOnCallingThread() throws Exception {
+    queue = new AuditEventQueue(1, 1, OverflowPolicy.CALLER_RUNS, blockOn("first"));
+    queue.add(event("first"));
+    assertThat(writing.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+    queue.add(event("queued"));
+
+    queue.add(event("overflow"));
+
+    assertThat(written, contains("first", "overflow"));
+    assertThat(writerThreads.get("overflow"), is(Thread.currentThread().getName()));
+
+    release.countDown();
+    queue.close();
+
+    assertThat(written, containsInAnyOrder("first", "queued", "overflow"));
+    assertThat(queue.getOverflowCount(), is(1L));
+  }
+
+  @Test
+  public void testEventsAddedAfterCloseAreWritten() {
+    queue = new AuditEventQueue(16, 4, OverflowPolicy.BLOCK, this::record);
+    queue.close();
+
+    queue.add(event("late"));
+
+    assertThat(written, contains("late"));
+    assertThat(writerThreads.get("late"), is(Thread.currentThread().getName()));
+  }
+
+  @Test
+  public void testFailedWriteDoesNotStopWriter() throws Exception {
+    queue =
+        new AuditEventQueue(
+            16,
+            4,
+            OverflowPolicy.BLOCK,
+            event -> {
+              if (event.getMessage().equals("bad")) {
+                throw new IllegalStateException();
+              }
+              if (event.getMessage().equals("error")) {
+                throw new AssertionError();
+              }
+              record(event);
+            });
+
+    queue.add(event("bad"));
+    queue.add(event("error"));
+    queue.add(event("good"));
+    awaitWritten(1);
+
+    assertThat(written, contains("good"));
+    assertThat(writerThreads.get("good"), is("security-audit-writer"));
+  }
+
+  private Consumer<AuditEvent> blockOn(String message) {
+    return event -> {
+      record(event);
+      if (event.getMessage().equals(message)) {
+        writing.countDown();
+        try {
+          release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+  }
+
+  private void awaitWritten(int count) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+    while (written.size() < count && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(written.size(), is(count));
+  }
+
+  private void record(AuditEvent event) {
+    writerThreads.put(event.getMessage(), Thread.currentThread().getName());
+    written.add(event.getMessage());
+  }
+
+  private static AuditEvent event(String message) {
+    return new AuditEvent(Level.INFO, null, null, " ", message, null);
+  }
+}
@@ -33,6 +33,8 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
@@ -285,6 +287,38 @@ public InputStream decrypt(InputStream encryptedInputStream) throws CrypterExcep
     }
   }
 
+  /**
+   * Decrypts an encrypted channel using Tink. Unlike {@link #decrypt(InputStream)}, the returned
+   * channel can be positioned anywhere within the plain content, decrypting only the segments that
+   * are read, and its size is the size of the plain content.
+   *
+   * @param encryptedChannel The channel to decrypt.
+   */
+  public SeekableByteChannel decrypt(SeekableByteChannel encryptedChannel)
+      throws CrypterException {
+    if (associatedData == null) {
+      throw new CrypterException(NULL_DATA_MSG);
+    }
+    try {
+      if (encryptedChannel == null || encryptedChannel.size() < 1) {
+        throw new CrypterException("Encrypted channel cannot be null or empty.");
+      }
+    } catch (IOException e) {
+      throw new CrypterException("Problem reading data from encrypted channel.", e);
+    }
+
+    try {
+      SeekableByteChannel decryptedChannel =
+          streamingAead.newSeekableDecryptingChannel(encryptedChannel, associatedData);
+      // the key of the content is only found by reading it, and the size is unknown until then
+      decryptedChannel.read(ByteBuffer.allocate(1));
+      decryptedChannel.position(0);
+      return decryptedChannel;
+    } catch (GeneralSecurityException | IOException e) {
+      throw new CrypterException(DECRYPTION_PROBLEM_MSG, e);
+    }
+  }
+
   private int getAvailableBytesLessThanChunkSize(InputStream inputStream) throws IOException {
     int available = inputStream.available();
     return available > CHUNK_SIZE ? CHUNK_SIZE : available;
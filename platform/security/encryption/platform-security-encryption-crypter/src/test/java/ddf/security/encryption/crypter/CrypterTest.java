@@ -25,7 +25,15 @@
 import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -102,6 +110,32 @@ public void testEncryptDecryptStream() throws Exception {
     assertArrayEquals(plainBytes, decryptedBytes);
   }
 
+  @Test
+  public void testEncryptDecryptSeekableChannel() throws Exception {
+    // make test data span several segments of the streaming key
+    final byte[] plainBytes = new byte[4096 * 3];
+    new SecureRandom().nextBytes(plainBytes);
+    final Crypter crypter = new Crypter();
+    final Path encryptedFile = temporaryFolder.newFile().toPath();
+    Files.copy(
+        crypter.encrypt(new ByteArrayInputStream(plainBytes)),
+        encryptedFile,
+        StandardCopyOption.REPLACE_EXISTING);
+
+    try (SeekableByteChannel decryptedChannel =
+        crypter.decrypt(FileChannel.open(encryptedFile, StandardOpenOption.READ))) {
+      assertEquals(plainBytes.length, decryptedChannel.size());
+
+      final ByteBuffer decryptedBytes = ByteBuffer.allocate(100);
+      decryptedChannel.position(5000);
+      while (decryptedBytes.hasRemaining() && decryptedChannel.read(decryptedBytes) > 0) {
+        // keep reading until the buffer is full
+      }
+
+      assertArrayEquals(Arrays.copyOfRange(plainBytes, 5000, 5100), decryptedBytes.array());
+    }
+  }
+
   @Test(expected = CrypterException.class)
   public void testEncryptNull() {
     final Crypter crypter = new Crypter();
@@ -0,0 +1,303 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.security.pdp.realm;
+
+import ddf.security.permission.KeyValueCollectionPermission;
+import ddf.security.permission.KeyValuePermission;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Permission;
+
+/**
+ * Remembers the decisions of {@link AuthzRealm} for a subject and a set of security markings.
+ *
+ * <p>A decision only depends on the attributes of the subject, the action and the security
+ * attributes of the resource, so it is keyed on those values rather than on the objects holding
+ * them: two metacards with the same markings share a decision. Filtering a query response then
+ * evaluates the policy once per distinct marking instead of once per result.
+ *
+ * <p>The decisions are held in generations. A generation is replaced once it holds {@link
+ * #MAX_DECISIONS} decisions or is older than {@link #MAX_AGE_SECONDS}, which also bounds how long a
+ * decision depending on the environment, such as the current time, is reused. {@link #invalidate()}
+ * replaces it right away; a decision that was being made at the time is stored in the replaced
+ * generation, so it is never reused.
+ *
+ * <p>A generation also remembers the fingerprint of each {@link AuthorizationInfo} it has seen, so
+ * filtering the results of a query for the same subject computes the fingerprint once.
+ */
+class AuthorizationDecisionCache {
+
+  static final int MAX_DECISIONS = 10_000;
+
+  static final long MAX_AGE_SECONDS = 60;
+
+  private static final String METRIC_PREFIX = "ddf.security.pdp.authzrealm.decisions";
+
+  private final Counter hitCounter = Metrics.counter(METRIC_PREFIX + ".cache.hits");
+
+  private final Counter missCounter = Metrics.counter(METRIC_PREFIX + ".cache.misses");
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  private final LongSupplier clock;
+
+  private volatile Decisions decisions;
+
+  AuthorizationDecisionCache() {
+    this(System::nanoTime);
+  }
+
+  /** @param clock the source of the time, in nanoseconds, generations are aged by */
+  AuthorizationDecisionCache(LongSupplier clock) {
+    this.clock = clock;
+    this.decisions = new Decisions(clock.getAsLong());
+  }
+
+  /**
+   * Returns the decisions to look a permission up in, and to store it in when it is not there.
+   *
+   * @return the current generation of decisions
+   */
+  Decisions current() {
+    Decisions current = decisions;
+    if (current.size() >= MAX_DECISIONS
+        || clock.getAsLong() - current.created > TimeUnit.SECONDS.toNanos(MAX_AGE_SECONDS)) {
+      synchronized (this) {
+        if (current == decisions) {
+          decisions = new Decisions(clock.getAsLong());
+        }
+        current = decisions;
+      }
+    }
+    return current;
+  }
+
+  /** Forgets every decision, for when the policy or the configuration of the realm changes. */
+  void invalidate() {
+    synchronized (this) {
+      decisions = new Decisions(clock.getAsLong());
+    }
+  }
+
+  long getHits() {
+    return hits.sum();
+  }
+
+  long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns the fingerprint of the attributes of a subject, made of its values so subjects with
+   * the same attributes have equal fingerprints. Use {@link Decisions#subjectFingerprint} to reuse
+   * the fingerprint of an {@code AuthorizationInfo} that was already seen.
+   *
+   * @param user the primary principal of the subject
+   * @param authorizationInfo the authorization info of the subject
+   * @return the fingerprint of the subject
+   */
+  static Object subjectFingerprint(String user, AuthorizationInfo authorizationInfo) {
+    if (authorizationInfo == null) {
+      return new Fingerprint(user);
+    }
+    return new Fingerprint(
+        user,
+        copyOf(authorizationInfo.getRoles()),
+        copyOf(authorizationInfo.getStringPermissions()),
+        permissionsFingerprint(authorizationInfo.getObjectPermissions()));
+  }
+
+  /**
+   * Returns the key of the decision for a subject and the security attributes of a resource.
+   *
+   * @param subjectFingerprint the fingerprint of the subject, see {@link #subjectFingerprint}
+   * @param permission the action and security attributes of the resource
+   * @return the key of the decision
+   */
+  static Object key(Object subjectFingerprint, KeyValueCollectionPermission permission) {
+    List<KeyValuePermission> keyValuePermissions = permission.getKeyValuePermissionList();
+    List<Object> markings = new ArrayList<>(keyValuePermissions.size());
+    for (KeyValuePermission keyValuePermission : keyValuePermissions) {
+      markings.add(fingerprint(keyValuePermission));
+    }
+    return new Fingerprint(subjectFingerprint, permission.getAction(), markings);
+  }
+
+  private static Set<Object> permissionsFingerprint(Collection<Permission> permissions) {
+    if (permissions == null) {
+      return Collections.emptySet();
+    }
+    Set<Object> fingerprint = new HashSet<>();
+    for (Permission permission : permissions) {
+      fingerprint.add(
+          permission instanceof KeyValuePermission
+              ? fingerprint((KeyValuePermission) permission)
+              : permission);
+    }
+    return fingerprint;
+  }
+
+  private static Object fingerprint(KeyValuePermission permission) {
+    return Arrays.asList(permission.getKey(), copyOf(permission.getValues()));
+  }
+
+  private static Set<String> copyOf(Collection<String> values) {
+    return values == null ? Collections.emptySet() : new HashSet<>(values);
+  }
+
+  /** A generation of decisions. */
+  class Decisions {
+
+    private final long created;
+
+    private final Map<Object, Decision> decided = new ConcurrentHashMap<>();
+
+    private final Map<AuthorizationInfo, Fingerprint> subjects =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    private Decisions(long created) {
+      this.created = created;
+    }
+
+    /**
+     * Returns the fingerprint of the attributes of a subject, computed the first time its
+     * authorization info is seen in this generation.
+     *
+     * @param user the primary principal of the subject
+     * @param authorizationInfo the authorization info of the subject
+     * @return the fingerprint of the subject, see {@link
+     *     AuthorizationDecisionCache#subjectFingerprint}
+     */
+    Object subjectFingerprint(String user, AuthorizationInfo authorizationInfo) {
+      if (authorizationInfo == null) {
+        return AuthorizationDecisionCache.subjectFingerprint(user, null);
+      }
+
+      Fingerprint fingerprint = subjects.get(authorizationInfo);
+      // the primary principal is the first value of the fingerprint
+      if (fingerprint == null || !fingerprint.values.get(0).equals(user)) {
+        fingerprint =
+            (Fingerprint) AuthorizationDecisionCache.subjectFingerprint(user, authorizationInfo);
+        subjects.put(authorizationInfo, fingerprint);
+      }
+      return fingerprint;
+    }
+
+    /**
+     * @param key the key of the decision, see {@link #key}
+     * @return the decision, or {@code null} if it has not been made
+     */
+    Decision get(Object key) {
+      Decision decision = decided.get(key);
+      if (decision == null) {
+        misses.increment();
+        missCounter.increment();
+      } else {
+        hits.increment();
+        hitCounter.increment();
+      }
+      return decision;
+    }
+
+    void put(Object key, Decision decision) {
+      decided.put(key, decision);
+    }
+
+    int size() {
+      return decided.size();
+    }
+  }
+
+  /** Whether a permission is implied and, when it is not, why. */
+  static final class Decision {
+
+    private static final Decision PERMITTED = new Decision(true, Collections.emptyList());
+
+    private final boolean permitted;
+
+    private final List<String> denials;
+
+    private Decision(boolean permitted, List<String> denials) {
+      this.permitted = permitted;
+      this.denials = denials;
+    }
+
+    static Decision permitted() {
+      return PERMITTED;
+    }
+
+    /**
+     * @param denials the reasons the permission is not implied, in the order they were audited
+     * @return the decision to deny the permission
+     */
+    static Decision denied(List<String> denials) {
+      return new Decision(false, Collections.unmodifiableList(new ArrayList<>(denials)));
+    }
+
+    boolean isPermitted() {
+      return permitted;
+    }
+
+    /** @return the reasons the permission is not implied, in the order they were audited */
+    List<String> getDenials() {
+      return denials;
+    }
+  }
+
+  /** Values compared as a whole, with the hash computed once. */
+  private static final class Fingerprint {
+
+    private final List<Object> values;
+
+    private final int hash;
+
+    private Fingerprint(Object... values) {
+      this.values = Arrays.asList(values);
+      this.hash = this.values.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Fingerprint)) {
+        return false;
+      }
+      Fingerprint that = (Fingerprint) o;
+      return hash == that.hash && values.equals(that.values);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
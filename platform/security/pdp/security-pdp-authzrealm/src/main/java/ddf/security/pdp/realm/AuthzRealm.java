@@ -60,6 +60,10 @@ public class AuthzRealm extends AbstractAuthorizingRealm {
 
   private static final String PERMISSION_FINISH_2_MSG = "]. Result is that permission [";
 
+  private static final String NOT_IMPLIED_MSG = "] is not implied.";
+
+  private static final String NOT_IMPLIED_VIA_XACML_MSG = "] is not implied via XACML.";
+
   private static final String POLICY_EXTENSION_WARNING_MSG =
       "Policy Extension plugin did not complete correctly. This could allow access to a resource.";
 
@@ -79,6 +83,8 @@ public class AuthzRealm extends AbstractAuthorizingRealm {
 
   private SecurityLogger securityLogger;
 
+  private final AuthorizationDecisionCache decisionCache = new AuthorizationDecisionCache();
+
   public AuthzRealm(String dirPath, Parser parser) throws PdpException {
     super();
 
@@ -193,31 +199,92 @@ public boolean[] isPermitted(PrincipalCollection subjectPrincipal, List<Permissi
     boolean[] results = new boolean[permissions.size()];
     AuthorizationInfo authorizationInfo = getAuthorizationInfo(subjectPrincipal);
     List<Permission> expandedPermissions = expandPermissions(permissions);
+    Collection<Permission> perms = getPermissions(authorizationInfo);
+    String curUser = "<user>";
+    if (subjectPrincipal != null && subjectPrincipal.getPrimaryPrincipal() != null) {
+      curUser = subjectPrincipal.getPrimaryPrincipal().toString();
+    }
+    Object subjectFingerprint = null;
     int i = 0;
     for (Permission permission : expandedPermissions) {
-      results[i++] = isPermitted(subjectPrincipal, permission, authorizationInfo);
+      if (!CollectionUtils.isEmpty(perms)
+          && (permission instanceof KeyValuePermission
+              || permission instanceof KeyValueCollectionPermission)) {
+        if (subjectFingerprint == null) {
+          subjectFingerprint =
+              decisionCache.current().subjectFingerprint(curUser, authorizationInfo);
+        }
+        results[i++] =
+            isPermitted(curUser, subjectFingerprint, permission, perms, authorizationInfo);
+      } else {
+        results[i++] = isPermitted(curUser, permission, perms, authorizationInfo, null);
+      }
     }
 
     return results;
   }
 
   /**
-   * Checks if the corresponding Subject/user contained within the AuthorizationInfo object implies
-   * the given Permission.
+   * Checks if the corresponding Subject/user implies the given key value Permission, reusing the
+   * decision made for a subject with the same attributes and a resource with the same security
+   * attributes when there is one.
    *
+   * @param curUser the primary principal of the subject.
+   * @param subjectFingerprint the fingerprint of the subject attributes.
    * @param permission the permission being checked.
+   * @param perms the permissions of the subject.
    * @param authorizationInfo the application-specific subject/user identifier.
    * @return true if the user is permitted
    */
   private boolean isPermitted(
-      PrincipalCollection subjectPrincipal,
+      String curUser,
+      Object subjectFingerprint,
       Permission permission,
+      Collection<Permission> perms,
       AuthorizationInfo authorizationInfo) {
-    Collection<Permission> perms = getPermissions(authorizationInfo);
-    String curUser = "<user>";
-    if (subjectPrincipal != null && subjectPrincipal.getPrimaryPrincipal() != null) {
-      curUser = subjectPrincipal.getPrimaryPrincipal().toString();
+    KeyValueCollectionPermission kvcp =
+        permission instanceof KeyValuePermission
+            ? new KeyValueCollectionPermissionImpl(
+                CollectionPermission.UNKNOWN_ACTION, (KeyValuePermission) permission)
+            : (KeyValueCollectionPermission) permission;
+    Object key = AuthorizationDecisionCache.key(subjectFingerprint, kvcp);
+    AuthorizationDecisionCache.Decisions decisions = decisionCache.current();
+
+    AuthorizationDecisionCache.Decision cached = decisions.get(key);
+    if (cached != null) {
+      for (String denial : cached.getDenials()) {
+        auditDenial(curUser, kvcp, denial, null);
+      }
+      return cached.isPermitted();
     }
+
+    List<String> denials = new ArrayList<>(2);
+    boolean permitted = isPermitted(curUser, permission, perms, authorizationInfo, denials);
+    decisions.put(
+        key,
+        permitted
+            ? AuthorizationDecisionCache.Decision.permitted()
+            : AuthorizationDecisionCache.Decision.denied(denials));
+    return permitted;
+  }
+
+  /**
+   * Checks if the corresponding Subject/user contained within the AuthorizationInfo object implies
+   * the given Permission.
+   *
+   * @param curUser the primary principal of the subject.
+   * @param permission the permission being checked.
+   * @param perms the permissions of the subject.
+   * @param authorizationInfo the application-specific subject/user identifier.
+   * @param denials collects the audited reasons the permission is not implied, or {@code null}
+   * @return true if the user is permitted
+   */
+  private boolean isPermitted(
+      String curUser,
+      Permission permission,
+      Collection<Permission> perms,
+      AuthorizationInfo authorizationInfo,
+      List<String> denials) {
     if (!CollectionUtils.isEmpty(perms)) {
       if (permission instanceof KeyValuePermission) {
         permission =
@@ -281,12 +348,7 @@ private boolean isPermitted(
         boolean matchAllXacml = subjectAllCollection.implies(matchAllPreXacmlCollection);
         boolean matchOne = subjectOneCollection.implies(matchOneCollection);
         if (!matchAll || !matchOne) {
-          securityLogger.audit(
-              PERMISSION_FINISH_1_MSG
-                  + curUser
-                  + PERMISSION_FINISH_2_MSG
-                  + permission
-                  + "] is not implied.");
+          auditDenial(curUser, permission, NOT_IMPLIED_MSG, denials);
         }
 
         // if we weren't able to automatically imply these permissions, call out to XACML
@@ -296,12 +358,7 @@ private boolean isPermitted(
           configureXacmlPdp();
           matchAllXacml = xacmlPdp.isPermitted(curUser, authorizationInfo, xacmlPermissions);
           if (!matchAllXacml) {
-            securityLogger.audit(
-                PERMISSION_FINISH_1_MSG
-                    + curUser
-                    + PERMISSION_FINISH_2_MSG
-                    + permission
-                    + "] is not implied via XACML.");
+            auditDenial(curUser, permission, NOT_IMPLIED_VIA_XACML_MSG, denials);
           }
         }
         return matchAll && matchOne && matchAllXacml;
@@ -314,19 +371,29 @@ private boolean isPermitted(
       }
     }
 
-    securityLogger.audit(
-        PERMISSION_FINISH_1_MSG
-            + curUser
-            + PERMISSION_FINISH_2_MSG
-            + permission
-            + "] is not implied.");
+    auditDenial(curUser, permission, NOT_IMPLIED_MSG, denials);
     return false;
   }
 
+  private void auditDenial(
+      String curUser, Permission permission, String denial, List<String> denials) {
+    securityLogger.audit(
+        PERMISSION_FINISH_1_MSG + curUser + PERMISSION_FINISH_2_MSG + permission + denial);
+    if (denials != null) {
+      denials.add(denial);
+    }
+  }
+
   private void configureXacmlPdp() {
     if (xacmlPdp == null) {
       try {
-        xacmlPdp = new XacmlPdp(dirPath, parser, environmentAttributes, securityLogger);
+        xacmlPdp =
+            new XacmlPdp(
+                dirPath,
+                parser,
+                environmentAttributes,
+                securityLogger,
+                decisionCache::invalidate);
       } catch (PdpException e) {
         LOGGER.warn("Unable to create XACML PDP.", e);
       }
@@ -458,17 +525,20 @@ private Collection<Permission> resolveRolePermissions(Collection<String> roleNam
    */
   public void setPolicyExtensions(List<PolicyExtension> policyExtensions) {
     this.policyExtensions = policyExtensions;
+    decisionCache.invalidate();
   }
 
   public void addPolicyExtension(PolicyExtension policyExtension) {
     if (policyExtensions != null) {
       policyExtensions.add(policyExtension);
+      decisionCache.invalidate();
     }
   }
 
   public void removePolicyExtension(PolicyExtension policyExtension) {
     if (policyExtensions != null) {
       policyExtensions.remove(policyExtension);
+      decisionCache.invalidate();
     }
   }
 
@@ -502,6 +572,7 @@ public void setMatchAllMappings(List<String> list) {
         }
       }
     }
+    decisionCache.invalidate();
   }
 
   /**
@@ -534,14 +605,47 @@ public void setMatchOneMappings(List<String> list) {
         }
       }
     }
+    decisionCache.invalidate();
   }
 
   public void setEnvironmentAttributes(List<String> environmentAttributes) {
     this.environmentAttributes.clear();
     this.environmentAttributes.addAll(environmentAttributes);
+    decisionCache.invalidate();
   }
 
   public void setSecurityLogger(SecurityLogger securityLogger) {
     this.securityLogger = securityLogger;
   }
+
+  @Override
+  public void setPermissionResolver(PermissionResolver permissionResolver) {
+    super.setPermissionResolver(permissionResolver);
+    decisionCache.invalidate();
+  }
+
+  @Override
+  public void setRolePermissionResolver(RolePermissionResolver rolePermissionResolver) {
+    super.setRolePermissionResolver(rolePermissionResolver);
+    decisionCache.invalidate();
+  }
+
+  /**
+   * Returns the number of permission checks answered with a decision made for an earlier check of
+   * a subject with the same attributes and a resource with the same security attributes.
+   *
+   * @return the number of decision cache hits
+   */
+  public long getDecisionCacheHits() {
+    return decisionCache.getHits();
+  }
+
+  /**
+   * Returns the number of permission checks that had to be evaluated against the policy.
+   *
+   * @return the number of decision cache misses
+   */
+  public long getDecisionCacheMisses() {
+    return decisionCache.getMisses();
+  }
 }
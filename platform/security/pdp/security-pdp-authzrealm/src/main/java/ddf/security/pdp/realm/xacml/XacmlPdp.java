@@ -109,9 +109,23 @@ public XacmlPdp(
       List<String> environmentAttributes,
       SecurityLogger securityLogger)
       throws PdpException {
+    this(dirPath, parser, environmentAttributes, securityLogger, () -> {});
+  }
+
+  /**
+   * Creates a general PDP that notifies the given listener whenever its XACML policies are
+   * reloaded.
+   */
+  public XacmlPdp(
+      String dirPath,
+      Parser parser,
+      List<String> environmentAttributes,
+      SecurityLogger securityLogger,
+      Runnable policyReloadListener)
+      throws PdpException {
     super();
     this.securityLogger = securityLogger;
-    pdp = new XacmlClient(dirPath, parser, securityLogger);
+    pdp = new XacmlClient(dirPath, parser, securityLogger, policyReloadListener);
     this.environmentAttributes = environmentAttributes;
     LOGGER.debug("Creating new PDP-backed Authorizing Realm");
   }
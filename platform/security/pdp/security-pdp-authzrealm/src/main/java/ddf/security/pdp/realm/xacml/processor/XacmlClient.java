@@ -90,6 +90,8 @@ public class XacmlClient {
 
   private SecurityLogger securityLogger;
 
+  private final Runnable policyReloadListener;
+
   /**
    * Creates the proxy to the real XACML PDP.
    *
@@ -101,8 +103,27 @@ public class XacmlClient {
   public XacmlClient(
       String relativeXacmlPoliciesDirectoryPath, Parser parser, SecurityLogger securityLogger)
       throws PdpException {
+    this(relativeXacmlPoliciesDirectoryPath, parser, securityLogger, () -> {});
+  }
+
+  /**
+   * Creates the proxy to the real XACML PDP.
+   *
+   * @param relativeXacmlPoliciesDirectoryPath Relative directory path to the root of the DDF
+   *     installation.
+   * @param parser for marshal and unmarshal
+   * @param policyReloadListener notified after the XACML policies have been reloaded
+   * @throws PdpException
+   */
+  public XacmlClient(
+      String relativeXacmlPoliciesDirectoryPath,
+      Parser parser,
+      SecurityLogger securityLogger,
+      Runnable policyReloadListener)
+      throws PdpException {
     this.parser = parser;
     this.securityLogger = securityLogger;
+    this.policyReloadListener = policyReloadListener;
     if (StringUtils.isEmpty(relativeXacmlPoliciesDirectoryPath)) {
       throw new PdpException(NULL_DIRECTORY_EXCEPTION_MSG);
     }
@@ -201,7 +222,10 @@ private PolicyFinder createPolicyFinder() {
     PolicyFinder policyFinder = new PolicyFinder();
     PollingPolicyFinderModule policyFinderModule =
         new PollingPolicyFinderModule(
-            xacmlPolicyDirectories, defaultPollingIntervalInSeconds, securityLogger);
+            xacmlPolicyDirectories,
+            defaultPollingIntervalInSeconds,
+            securityLogger,
+            policyReloadListener);
     policyFinderModule.start();
     Set<PolicyFinderModule> policyFinderModules = new HashSet<>(1);
     policyFinderModules.add(policyFinderModule);
@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.security.pdp.realm;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import ddf.security.pdp.realm.AuthorizationDecisionCache.Decision;
+import ddf.security.permission.KeyValueCollectionPermission;
+import ddf.security.permission.impl.KeyValueCollectionPermissionImpl;
+import ddf.security.permission.impl.KeyValuePermissionImpl;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AuthorizationDecisionCacheTest {
+
+  private final AtomicLong clock = new AtomicLong();
+
+  private AuthorizationDecisionCache cache;
+
+  @Before
+  public void setUp() {
+    cache = new AuthorizationDecisionCache(clock::get);
+  }
+
+  @Test
+  public void testSubjectsWithSameAttributesHaveEqualFingerprints() {
+    Object subject = AuthorizationDecisionCache.subjectFingerprint("user", info("A", "B"));
+
+    assertThat(
+        AuthorizationDecisionCache.subjectFingerprint("user", info("B", "A")), equalTo(subject));
+    assertThat(
+        AuthorizationDecisionCache.subjectFingerprint("user", info("A")), not(equalTo(subject)));
+    assertThat(
+        AuthorizationDecisionCache.subjectFingerprint("other", info("A", "B")),
+        not(equalTo(subject)));
+  }
+
+  @Test
+  public void testResourcesWithSameMarkingsHaveEqualKeys() {
+    Object subject = AuthorizationDecisionCache.subjectFingerprint("user", info("A"));
+    Object key = AuthorizationDecisionCache.key(subject, permission("read", "A", "B"));
+
+    assertThat(
+        AuthorizationDecisionCache.key(subject, permission("read", "B", "A")), equalTo(key));
+    assertThat(
+        AuthorizationDecisionCache.key(subject, permission("write", "A", "B")),
+        not(equalTo(key)));
+    assertThat(
+        AuthorizationDecisionCache.key(subject, permission("read", "A")), not(equalTo(key)));
+  }
+
+  @Test
+  public void testFingerprintIsComputedOncePerAuthorizationInfo() {
+    AuthorizationInfo authorizationInfo = spy(info("A", "B"));
+    AuthorizationDecisionCache.Decisions decisions = cache.current();
+
+    Object subject = decisions.subjectFingerprint("user", authorizationInfo);
+
+    assertThat(decisions.subjectFingerprint("user", authorizationInfo), sameInstance(subject));
+    verify(authorizationInfo, times(1)).getRoles();
+    assertThat(
+        subject, equalTo(AuthorizationDecisionCache.subjectFingerprint("user", info("A", "B"))));
+    assertThat(
+        decisions.subjectFingerprint("other", authorizationInfo),
+        equalTo(AuthorizationDecisionCache.subjectFingerprint("other", info("A", "B"))));
+  }
+
+  @Test
+  public void testDecisionIsReused() {
+    Object key = key("A");
+    cache.current().put(key, Decision.permitted());
+
+    assertThat(cache.current().get(key("A")).isPermitted(), is(true));
+    assertThat(cache.current().get(key("B")), is(nullValue()));
+    assertThat(cache.getHits(), is(1L));
+    assertThat(cache.getMisses(), is(1L));
+  }
+
+  @Test
+  public void testInvalidateDiscardsDecisions() {
+    AuthorizationDecisionCache.Decisions decisions = cache.current();
+    decisions.put(key("A"), Decision.permitted());
+
+    cache.invalidate();
+    decisions.put(key("B"), Decision.permitted());
+
+    assertThat(cache.current().get(key("A")), is(nullValue()));
+    assertThat(cache.current().get(key("B")), is(nullValue()));
+  }
+
+  @Test
+  public void testDecisionsExpire() {
+    cache.current().put(key("A"), Decision.denied(Collections.singletonList("] is not implied.")));
+
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(AuthorizationDecisionCache.MAX_AGE_SECONDS));
+    assertThat(cache.current().get(key("A")).isPermitted(), is(false));
+    assertThat(cache.current().get(key("A")).getDenials(), contains("] is not implied."));
+
+    clock.incrementAndGet();
+    assertThat(cache.current().get(key("A")), is(nullValue()));
+  }
+
+  @Test
+  public void testDecisionsAreBounded() {
+    for (int i = 0; i < AuthorizationDecisionCache.MAX_DECISIONS; i++) {
+      cache.current().put(key(Integer.toString(i)), Decision.permitted());
+    }
+
+    assertThat(cache.current().get(key("0")), is(nullValue()));
+  }
+
+  private Object key(String marking) {
+    return AuthorizationDecisionCache.key(
+        AuthorizationDecisionCache.subjectFingerprint("user", info("A")),
+        permission("read", marking));
+  }
+
+  private static SimpleAuthorizationInfo info(String... values) {
+    SimpleAuthorizationInfo info = new SimpleAuthorizationInfo();
+    info.addObjectPermission(new KeyValuePermissionImpl("rule", Arrays.asList(values)));
+    info.addObjectPermission(new WildcardPermission("role:admin"));
+    info.addRole("admin");
+    return info;
+  }
+
+  private static KeyValueCollectionPermission permission(String action, String... values) {
+    return new KeyValueCollectionPermissionImpl(
+        action, Collections.singletonMap("rule", Arrays.asList(values)));
+  }
+}
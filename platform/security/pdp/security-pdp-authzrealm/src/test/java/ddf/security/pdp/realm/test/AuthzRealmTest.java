@@ -13,7 +13,13 @@
  */
 package ddf.security.pdp.realm.test;
 
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.endsWith;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import ddf.security.audit.SecurityLogger;
@@ -27,8 +33,10 @@
 import ddf.security.policy.extension.PolicyExtension;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import junit.framework.Assert;
 import org.apache.shiro.authz.AuthorizationInfo;
 import org.apache.shiro.authz.Permission;
@@ -49,6 +57,8 @@ public class AuthzRealmTest {
 
   PrincipalCollection mockSubjectPrincipal;
 
+  SecurityLogger securityLogger;
+
   @Before
   public void setup() throws PdpException {
     String ruleClaim = "FineAccessControls";
@@ -80,7 +90,8 @@ public AuthorizationInfo getAuthorizationInfo(PrincipalCollection principals) {
           }
         };
 
-    testRealm.setSecurityLogger(mock(SecurityLogger.class));
+    securityLogger = mock(SecurityLogger.class);
+    testRealm.setSecurityLogger(securityLogger);
 
     mockSubjectPrincipal = mock(PrincipalCollection.class);
     when(mockSubjectPrincipal.getPrimaryPrincipal()).thenReturn("user");
@@ -299,4 +310,104 @@ public KeyValueCollectionPermission isPermittedMatchOne(
 
     testRealm.setPolicyExtensions(Arrays.asList(policyExtension));
   }
+
+  @Test
+  public void testSameMarkingsReuseDecision() {
+    KeyValueCollectionPermission permission = markings("GBR", "CAN", "AUS");
+    KeyValueCollectionPermission samePermission = markings("AUS", "CAN", "GBR");
+
+    assertThat(testRealm.isPermitted(mockSubjectPrincipal, permission), is(true));
+    assertThat(testRealm.isPermitted(mockSubjectPrincipal, samePermission), is(true));
+
+    assertThat(testRealm.getDecisionCacheMisses(), is(1L));
+    assertThat(testRealm.getDecisionCacheHits(), is(1L));
+  }
+
+  @Test
+  public void testDistinctMarkingsAreEvaluated() {
+    assertThat(testRealm.isPermitted(mockSubjectPrincipal, markings("AUS")), is(true));
+    assertThat(testRealm.isPermitted(mockSubjectPrincipal, markings("USA")), is(false));
+
+    assertThat(testRealm.getDecisionCacheMisses(), is(2L));
+    assertThat(testRealm.getDecisionCacheHits(), is(0L));
+  }
+
+  @Test
+  public void testDistinctActionsAreEvaluated() {
+    Map<String, List<String>> markings = Collections.singletonMap("country", Arrays.asList("AUS"));
+    testRealm.isPermitted(
+        mockSubjectPrincipal, new KeyValueCollectionPermissionImpl("read", markings));
+    testRealm.isPermitted(
+        mockSubjectPrincipal, new KeyValueCollectionPermissionImpl("write", markings));
+
+    assertThat(testRealm.getDecisionCacheMisses(), is(2L));
+  }
+
+  @Test
+  public void testReusedDenialIsAudited() {
+    assertThat(testRealm.isPermitted(mockSubjectPrincipal, markings("USA")), is(false));
+    assertThat(testRealm.isPermitted(mockSubjectPrincipal, markings("USA")), is(false));
+
+    assertThat(testRealm.getDecisionCacheHits(), is(1L));
+    verify(securityLogger, times(2)).audit(endsWith("] is not implied."));
+  }
+
+  @Test
+  public void testReusedXacmlDenialIsAuditedWithItsReason() {
+    KeyValueCollectionPermission permission =
+        new KeyValueCollectionPermissionImpl(
+            "action", Collections.singletonMap("rule2", Arrays.asList("A", "B", "C")));
+
+    assertThat(testRealm.isPermitted(mockSubjectPrincipal, permission), is(false));
+    assertThat(testRealm.isPermitted(mockSubjectPrincipal, permission), is(false));
+
+    assertThat(testRealm.getDecisionCacheHits(), is(1L));
+    verify(securityLogger, times(2)).audit(endsWith("] is not implied via XACML."));
+    verify(securityLogger, never()).audit(endsWith("] is not implied."));
+  }
+
+  @Test
+  public void testMappingChangeDiscardsDecisions() {
+    KeyValueCollectionPermission permission =
+        new KeyValueCollectionPermissionImpl(
+            "action", Collections.singletonMap("rule", Arrays.asList("A")));
+    assertThat(testRealm.isPermitted(mockSubjectPrincipal, permission), is(true));
+
+    testRealm.setMatchAllMappings(Arrays.asList("CountryOfAffiliation=rule"));
+
+    assertThat(testRealm.isPermitted(mockSubjectPrincipal, permission), is(false));
+    assertThat(testRealm.getDecisionCacheHits(), is(0L));
+  }
+
+  @Test
+  public void testPolicyExtensionChangeDiscardsDecisions() {
+    assertThat(testRealm.isPermitted(mockSubjectPrincipal, markings("USA")), is(false));
+
+    testRealm.addPolicyExtension(
+        new PolicyExtension() {
+          @Override
+          public KeyValueCollectionPermission isPermittedMatchAll(
+              CollectionPermission subjectAllCollection,
+              KeyValueCollectionPermission matchAllCollection,
+              KeyValueCollectionPermission allPermissionsCollection) {
+            return matchAllCollection;
+          }
+
+          @Override
+          public KeyValueCollectionPermission isPermittedMatchOne(
+              CollectionPermission subjectAllCollection,
+              KeyValueCollectionPermission matchOneCollection,
+              KeyValueCollectionPermission allPermissionsCollection) {
+            return new KeyValueCollectionPermissionImpl(matchOneCollection.getAction());
+          }
+        });
+
+    assertThat(testRealm.isPermitted(mockSubjectPrincipal, markings("USA")), is(true));
+    assertThat(testRealm.getDecisionCacheHits(), is(0L));
+  }
+
+  private static KeyValueCollectionPermission markings(String... countries) {
+    return new KeyValueCollectionPermissionImpl(
+        "action", Collections.singletonMap("country", Arrays.asList(countries)));
+  }
 }
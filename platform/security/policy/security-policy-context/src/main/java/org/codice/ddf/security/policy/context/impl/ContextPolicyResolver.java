@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.security.policy.context.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.codice.ddf.security.policy.context.ContextPolicy;
+
+/**
+ * An immutable snapshot of the context policies and white listed contexts of the {@link
+ * PolicyManager}, compiled for resolving the policy of a request path.
+ *
+ * <p>A path resolves to the policy or white listed context found first while rolling the path back
+ * one segment at a time, the way {@link PolicyManager#rollbackPath(String)} does, or to the root
+ * policy once the traversal depth is exceeded. Every path rolled back to is a prefix of the
+ * original path, so the contexts are held in a character trie that is searched by prefix length
+ * without creating substrings. Resolved paths are remembered, up to {@link #MAX_RESOLVED_PATHS} of
+ * them, so a path that has been seen before resolves with a single lookup.
+ */
+class ContextPolicyResolver {
+
+  static final int MAX_RESOLVED_PATHS = 4096;
+
+  private static final String ROOT_CONTEXT = "/";
+
+  private static final Optional<ContextPolicy> WHITE_LISTED = Optional.empty();
+
+  private final Node root;
+
+  private final Optional<ContextPolicy> rootPolicy;
+
+  private final int traversalDepth;
+
+  private final Map<String, Optional<ContextPolicy>> resolvedPaths = new ConcurrentHashMap<>();
+
+  /**
+   * @param policyStore the context policies by context path, which must contain the root policy
+   * @param whiteListContexts the white listed context paths; a policy for the same path wins
+   * @param traversalDepth the number of times a path is rolled back before resolving to the root
+   *     policy
+   */
+  ContextPolicyResolver(
+      Map<String, ContextPolicy> policyStore,
+      Collection<String> whiteListContexts,
+      int traversalDepth) {
+    NodeBuilder rootBuilder = new NodeBuilder();
+    for (String whiteListContext : whiteListContexts) {
+      if (whiteListContext != null) {
+        rootBuilder.add(whiteListContext).resolution = WHITE_LISTED;
+      }
+    }
+    for (ContextPolicy contextPolicy : policyStore.values()) {
+      rootBuilder.add(contextPolicy.getContextPath()).resolution =
+          Optional.of(unmodifiableCopy(contextPolicy));
+    }
+
+    this.root = rootBuilder.build();
+    this.rootPolicy = find(ROOT_CONTEXT, ROOT_CONTEXT.length());
+    this.traversalDepth = traversalDepth;
+  }
+
+  /**
+   * Returns the policy of the given path.
+   *
+   * @param path the request path
+   * @return the policy, or {@code null} if the path is white listed
+   */
+  ContextPolicy resolve(String path) {
+    Optional<ContextPolicy> resolution = resolvedPaths.get(path);
+    if (resolution == null) {
+      resolution = rollback(path);
+      if (resolvedPaths.size() >= MAX_RESOLVED_PATHS) {
+        resolvedPaths.clear();
+      }
+      resolvedPaths.put(path, resolution);
+    }
+    return resolution.orElse(null);
+  }
+
+  private Optional<ContextPolicy> rollback(String path) {
+    int length = path.length();
+    for (int depth = 0; ; depth++) {
+      Optional<ContextPolicy> resolution = find(path, length);
+      if (resolution != null) {
+        return resolution;
+      }
+
+      length = rollbackLength(path, length);
+      if (length == 0 || depth > traversalDepth) {
+        return rootPolicy;
+      }
+    }
+  }
+
+  /** Returns the resolution of the context equal to the first {@code length} characters of path. */
+  private Optional<ContextPolicy> find(String path, int length) {
+    Node node = root;
+    for (int i = 0; i < length && node != null; i++) {
+      node = node.child(path.charAt(i));
+    }
+    return node == null ? null : node.resolution;
+  }
+
+  /**
+   * Returns the length of the path {@link PolicyManager#rollbackPath(String)} rolls the first
+   * {@code length} characters of path back to.
+   */
+  private static int rollbackLength(String path, int length) {
+    if (length > 0 && path.charAt(length - 1) == '/') {
+      while (length > 1 && path.charAt(length - 1) == '/') {
+        length--;
+      }
+      return length;
+    }
+
+    int index = path.lastIndexOf('/', length - 1);
+    return index <= 0 ? index + 1 : index;
+  }
+
+  private static ContextPolicy unmodifiableCopy(ContextPolicy contextPolicy) {
+    Collection<String> authenticationMethods = contextPolicy.getAuthenticationMethods();
+    return new Policy(
+        contextPolicy.getContextPath(),
+        authenticationMethods == null
+            ? Collections.emptyList()
+            : Collections.unmodifiableList(new ArrayList<>(authenticationMethods)),
+        Collections.unmodifiableList(new ArrayList<>(contextPolicy.getAllowedAttributes())));
+  }
+
+  private static class Node {
+
+    private final char[] keys;
+
+    private final Node[] children;
+
+    private final Optional<ContextPolicy> resolution;
+
+    private Node(char[] keys, Node[] children, Optional<ContextPolicy> resolution) {
+      this.keys = keys;
+      this.children = children;
+      this.resolution = resolution;
+    }
+
+    private Node child(char key) {
+      int low = 0;
+      int high = keys.length - 1;
+      while (low <= high) {
+        int middle = (low + high) >>> 1;
+        if (keys[middle] < key) {
+          low = middle + 1;
+        } else if (keys[middle] > key) {
+          high = middle - 1;
+        } else {
+          return children[middle];
+        }
+      }
+      return null;
+    }
+  }
+
+  private static class NodeBuilder {
+
+    private final TreeMap<Character, NodeBuilder> children = new TreeMap<>();
+
+    private Optional<ContextPolicy> resolution;
+
+    private NodeBuilder add(String path) {
+      NodeBuilder node = this;
+      for (int i = 0; i < path.length(); i++) {
+        node = node.children.computeIfAbsent(path.charAt(i), key -> new NodeBuilder());
+      }
+      return node;
+    }
+
+    private Node build() {
+      char[] keys = new char[children.size()];
+      Node[] nodes = new Node[children.size()];
+      int i = 0;
+      for (Map.Entry<Character, NodeBuilder> child : children.entrySet()) {
+        keys[i] = child.getKey();
+        nodes[i] = child.getValue().build();
+        i++;
+      }
+      return new Node(keys, nodes, resolution);
+    }
+  }
+}
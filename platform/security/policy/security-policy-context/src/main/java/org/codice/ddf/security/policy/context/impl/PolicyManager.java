@@ -96,37 +96,29 @@ public class PolicyManager implements ContextPolicyManager {
 
   private FileAlterationMonitor fileAlterationMonitor;
 
+  private volatile ContextPolicyResolver contextPolicyResolver;
+
   public PolicyManager() {
     policyStore.put(ROOT_CONTEXT, defaultPolicy);
+    updateContextPolicyResolver();
   }
 
+  /**
+   * Returns the policy of the given path. The policy is shared by every caller, so its collections
+   * cannot be modified.
+   */
   @Override
   public ContextPolicy getContextPolicy(String path) {
-    return getContextPolicy(path, getPolicyStore(), getWhiteListContexts(), 0);
+    return contextPolicyResolver.resolve(path);
   }
 
-  private ContextPolicy getContextPolicy(
-      String path,
-      Map<String, ContextPolicy> policyStore,
-      List<String> whiteListContexts,
-      int depth) {
-    ContextPolicy entry;
-    entry = policyStore.get(path);
-
-    if (entry != null) {
-      return entry;
-    } else if (whiteListContexts.contains(path)) {
-      return null;
-    } else {
-      String pathFragment = rollbackPath(path);
-      if (StringUtils.isNotEmpty(pathFragment) && depth <= traversalDepth) {
-        return getContextPolicy(pathFragment, policyStore, whiteListContexts, ++depth);
-      } else {
-        // this is just here for safety
-        // if we get down to the point where we can never get an entry, return the default
-        return policyStore.get(ROOT_CONTEXT);
-      }
-    }
+  /**
+   * Replaces the resolver used by {@link #getContextPolicy(String)}. Must be called whenever the
+   * policy store, the white list or the traversal depth changes.
+   */
+  private synchronized void updateContextPolicyResolver() {
+    contextPolicyResolver =
+        new ContextPolicyResolver(policyStore, whiteListContexts, traversalDepth);
   }
 
   @Override
@@ -298,6 +290,7 @@ private void setPolicyStore(
     }
 
     policyStore = newPolicyStore;
+    updateContextPolicyResolver();
   }
 
   /**
@@ -330,6 +323,7 @@ public void setWhiteListContexts(List<String> contexts) {
     LOGGER.debug("setWhiteListContexts(List<String>) called with {}", contexts);
     if (contexts != null && !contexts.isEmpty()) {
       this.whiteListContexts = PropertyResolver.resolveProperties(contexts);
+      updateContextPolicyResolver();
     }
   }
 
@@ -462,6 +456,7 @@ public void setTraversalDepth(int traversalDepth) {
     if (this.traversalDepth > MAX_TRAVERSAL_DEPTH) {
       this.traversalDepth = MAX_TRAVERSAL_DEPTH;
     }
+    updateContextPolicyResolver();
   }
 
   public void setGuestAccess(boolean guestAccess) {
@@ -16,6 +16,7 @@
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -354,6 +355,57 @@ public void testWhiteListWithProperties() {
     assertThat(manager.getWhiteListContexts().contains("/baz"), is(true));
   }
 
+  @Test
+  public void testContextPolicyChangedAfterLookup() {
+    assertThat(manager.getContextPolicy("/search/new/page").getContextPath(), is("/search"));
+
+    manager.setContextPolicy("/search/new", new Policy("/search/new", new ArrayList<>(), null));
+
+    assertThat(manager.getContextPolicy("/search/new/page").getContextPath(), is("/search/new"));
+  }
+
+  @Test
+  public void testWhiteListChangedAfterLookup() {
+    assertThat(manager.isWhiteListed("/bar/baz"), is(false));
+
+    manager.setWhiteListContexts(Arrays.asList("/foo", "/bar"));
+
+    assertThat(manager.isWhiteListed("/bar/baz"), is(true));
+    assertThat(manager.isWhiteListed("/foo"), is(true));
+  }
+
+  @Test
+  public void testTraversalDepthChangedAfterLookup() {
+    assertThat(manager.getContextPolicy("/1/2/3/4/5").getContextPath(), is("/1/2"));
+
+    manager.setTraversalDepth(1);
+
+    assertThat(manager.getContextPolicy("/1/2/3/4/5").getContextPath(), is("/"));
+    assertThat(manager.getContextPolicy("/1/2/3").getContextPath(), is("/1/2"));
+  }
+
+  @Test
+  public void testContextPolicyIsShared() {
+    ContextPolicy policy = manager.getContextPolicy("/search/standard/page");
+
+    assertThat(manager.getContextPolicy("/search/standard/page"), is(sameInstance(policy)));
+    assertThat(manager.getContextPolicy("/search/standard"), is(sameInstance(policy)));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testContextPolicyCannotBeModified() {
+    manager.getContextPolicy("/search").getAuthenticationMethods().add("BASIC");
+  }
+
+  @Test
+  public void testManyDistinctPaths() {
+    for (int i = 0; i < 10000; i++) {
+      assertThat(manager.getContextPolicy("/search/" + i).getContextPath(), is("/search"));
+      assertThat(manager.getContextPolicy("/foo/" + i), is(nullValue()));
+      assertThat(manager.getContextPolicy("/foo/bar/" + i).getContextPath(), is("/foo/bar"));
+    }
+  }
+
   @Test
   public void testFileBasedConfig() {
     manager.setPolicyFilePath("web-context-policy-config.properties");